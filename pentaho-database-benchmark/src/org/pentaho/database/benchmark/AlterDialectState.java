@@ -0,0 +1,51 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+
+package org.pentaho.database.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.pentaho.database.IDatabaseDialect;
+import org.pentaho.database.IValueMeta;
+
+/**
+ * Fixture for the ALTER TABLE benchmarks. Same dialects as {@link DialectState} minus PDIDialect, which throws
+ * UnsupportedOperationException for add and modify column.
+ */
+@State( Scope.Benchmark )
+public class AlterDialectState {
+
+  @Param( { "DB2DatabaseDialect", "GenericDatabaseDialect", "H2DatabaseDialect", "HypersonicDatabaseDialect",
+    "InformixDatabaseDialect", "MariaDBDatabaseDialect", "MSSQLServerDatabaseDialect",
+    "MSSQLServerNativeDatabaseDialect", "MonetDatabaseDialect", "MySQLDatabaseDialect", "OracleDatabaseDialect",
+    "PostgreSQLDatabaseDialect", "RedshiftDatabaseDialect", "TeradataDatabaseDialect", "VerticaDatabaseDialect",
+    "Vertica5DatabaseDialect" } )
+  public String dialect;
+
+  IDatabaseDialect databaseDialect;
+
+  IValueMeta[] columns;
+
+  @Setup( Level.Trial )
+  public void setUp() throws Exception {
+    databaseDialect = DialectState.createDialect( dialect );
+    columns = DialectState.createColumns();
+  }
+}
@@ -0,0 +1,200 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pentaho.database.codec.DatabaseConnectionBinaryCodec;
+import org.pentaho.database.codec.DatabaseConnectionJsonCodec;
+import org.pentaho.database.model.DatabaseConnection;
+
+/**
+ * Encoding and decoding a catalog of connections with each available format:
+ *
+ * <ul>
+ * <li>{@code json} - {@link DatabaseConnectionJsonCodec}, the AutoBean wire format</li>
+ * <li>{@code binary} - {@link DatabaseConnectionBinaryCodec}</li>
+ * <li>{@code jaxb} - JAXB, as the connection web services do</li>
+ * <li>{@code serialization} - {@link ObjectOutputStream}</li>
+ * </ul>
+ *
+ * The encoded size of the catalog is printed once per trial.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ConnectionCodecBenchmark {
+
+  @XmlRootElement( name = "databaseConnections" )
+  public static class Catalog {
+    public List<DatabaseConnection> databaseConnection;
+  }
+
+  @State( Scope.Benchmark )
+  public static class CatalogState {
+    @Param( { "json", "binary", "jaxb", "serialization" } )
+    public String format;
+
+    @Param( { "100" } )
+    public int connections;
+
+    Format codec;
+    List<DatabaseConnection> catalog;
+    byte[] encoded;
+
+    @Setup( Level.Trial )
+    public void setUp() throws Exception {
+      codec = createFormat( format );
+      catalog = new ArrayList<>( connections );
+      for ( int i = 0; i < connections; i++ ) {
+        String dialect = ConnectionFootprint.DIALECTS[i % ConnectionFootprint.DIALECTS.length];
+        catalog.add( (DatabaseConnection) ConnectionFootprint.createTenantConnection(
+          DialectState.createDialect( dialect ), i ) );
+      }
+      encoded = codec.encode( catalog );
+      System.out.println( String.format( "%n%s: %d bytes for %d connections", format, encoded.length,
+        connections ) );
+    }
+  }
+
+  interface Format {
+    byte[] encode( List<DatabaseConnection> catalog ) throws Exception;
+
+    List<DatabaseConnection> decode( byte[] bytes ) throws Exception;
+  }
+
+  static Format createFormat( String format ) throws JAXBException {
+    switch ( format ) {
+      case "json":
+        return new JsonFormat();
+      case "binary":
+        return new BinaryFormat();
+      case "jaxb":
+        return new JaxbFormat();
+      case "serialization":
+        return new SerializationFormat();
+      default:
+        throw new IllegalArgumentException( format );
+    }
+  }
+
+  @Benchmark
+  public byte[] encode( CatalogState state ) throws Exception {
+    return state.codec.encode( state.catalog );
+  }
+
+  @Benchmark
+  public List<DatabaseConnection> decode( CatalogState state ) throws Exception {
+    return state.codec.decode( state.encoded );
+  }
+
+  static class JsonFormat implements Format {
+    private final DatabaseConnectionJsonCodec codec = new DatabaseConnectionJsonCodec();
+
+    public byte[] encode( List<DatabaseConnection> catalog ) throws IOException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream( 1024 );
+      Writer writer = new OutputStreamWriter( out, StandardCharsets.UTF_8 );
+      codec.writeCatalog( catalog, writer );
+      writer.flush();
+      return out.toByteArray();
+    }
+
+    public List<DatabaseConnection> decode( byte[] bytes ) throws IOException {
+      return codec.readCatalog( new InputStreamReader( new ByteArrayInputStream( bytes ), StandardCharsets.UTF_8 ) );
+    }
+  }
+
+  static class BinaryFormat implements Format {
+    private final DatabaseConnectionBinaryCodec codec = new DatabaseConnectionBinaryCodec();
+
+    public byte[] encode( List<DatabaseConnection> catalog ) throws IOException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream( 1024 );
+      codec.writeCatalog( catalog, out );
+      return out.toByteArray();
+    }
+
+    public List<DatabaseConnection> decode( byte[] bytes ) throws IOException {
+      return codec.readCatalog( new ByteArrayInputStream( bytes ) );
+    }
+  }
+
+  static class JaxbFormat implements Format {
+    private final JAXBContext context = JAXBContext.newInstance( Catalog.class, DatabaseConnection.class );
+
+    JaxbFormat() throws JAXBException {
+    }
+
+    public byte[] encode( List<DatabaseConnection> catalog ) throws JAXBException {
+      Catalog root = new Catalog();
+      root.databaseConnection = catalog;
+      ByteArrayOutputStream out = new ByteArrayOutputStream( 1024 );
+      context.createMarshaller().marshal( root, out );
+      return out.toByteArray();
+    }
+
+    public List<DatabaseConnection> decode( byte[] bytes ) throws JAXBException {
+      return ( (Catalog) context.createUnmarshaller().unmarshal( new ByteArrayInputStream( bytes ) ) )
+        .databaseConnection;
+    }
+  }
+
+  static class SerializationFormat implements Format {
+    public byte[] encode( List<DatabaseConnection> catalog ) throws IOException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream( 1024 );
+      ObjectOutputStream objects = new ObjectOutputStream( out );
+      objects.writeObject( new ArrayList<>( catalog ) );
+      objects.close();
+      return out.toByteArray();
+    }
+
+    @SuppressWarnings( "unchecked" )
+    public List<DatabaseConnection> decode( byte[] bytes ) throws IOException, ClassNotFoundException {
+      try ( ObjectInputStream objects = new ObjectInputStream( new ByteArrayInputStream( bytes ) ) ) {
+        return (List<DatabaseConnection>) objects.readObject();
+      }
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jol.info.GraphLayout;
+import org.pentaho.database.IDatabaseDialect;
+import org.pentaho.database.model.ConnectionInterner;
+import org.pentaho.database.model.DatabaseAccessType;
+import org.pentaho.database.model.DatabaseConnection;
+import org.pentaho.database.model.DatabaseConnectionSnapshot;
+import org.pentaho.database.model.IDatabaseConnection;
+
+/**
+ * Heap footprint per connection of a repository holding per-tenant copies of the same connections, measured with JOL
+ * for each way of storing them:
+ *
+ * <ul>
+ * <li>{@code bean} - plain {@link DatabaseConnection}s, as read from a repository</li>
+ * <li>{@code snapshot} - {@link DatabaseConnectionSnapshot}s, with shared empty maps and array backed small maps</li>
+ * <li>{@code interned} - snapshots taken through one {@link ConnectionInterner}, the interner itself included</li>
+ * </ul>
+ *
+ * Every tenant copy is built from fresh strings, as it would be after parsing a repository, so only the interner can
+ * share them. The database types are counted in all modes.
+ *
+ * Usage: {@code ConnectionFootprint [tenants]}, 1000 tenants by default.
+ */
+public class ConnectionFootprint {
+
+  static final String[] DIALECTS = { "MySQLDatabaseDialect", "PostgreSQLDatabaseDialect", "OracleDatabaseDialect",
+    "MSSQLServerNativeDatabaseDialect", "H2DatabaseDialect" };
+
+  public static void main( String[] args ) throws Exception {
+    int tenants = args.length > 0 ? Integer.parseInt( args[0] ) : 1000;
+
+    List<IDatabaseConnection> beans = new ArrayList<>();
+    for ( int tenant = 0; tenant < tenants; tenant++ ) {
+      for ( String dialect : DIALECTS ) {
+        beans.add( createTenantConnection( DialectState.createDialect( dialect ), tenant ) );
+      }
+    }
+
+    List<IDatabaseConnection> snapshots = new ArrayList<>( beans.size() );
+    ConnectionInterner interner = new ConnectionInterner();
+    List<IDatabaseConnection> interned = new ArrayList<>( beans.size() );
+    for ( IDatabaseConnection bean : beans ) {
+      snapshots.add( DatabaseConnectionSnapshot.of( bean ) );
+      interned.add( DatabaseConnectionSnapshot.of( bean, interner ) );
+    }
+
+    System.out.println( String.format( "%d connections (%d tenants x %d dialects)", beans.size(), tenants,
+      DIALECTS.length ) );
+    System.out.println( String.format( "%-10s %15s %15s", "mode", "total bytes", "bytes/conn" ) );
+    print( "bean", GraphLayout.parseInstance( beans ).totalSize(), beans.size() );
+    print( "snapshot", GraphLayout.parseInstance( snapshots ).totalSize(), snapshots.size() );
+    print( "interned", GraphLayout.parseInstance( interned, interner ).totalSize(), interned.size() );
+  }
+
+  private static void print( String mode, long totalSize, int connections ) {
+    System.out.println( String.format( "%-10s %15d %15d", mode, totalSize, totalSize / connections ) );
+  }
+
+  /**
+   * A connection like {@link DialectState#createConnection(IDatabaseDialect)} creates, owned by one tenant.
+   */
+  static IDatabaseConnection createTenantConnection( IDatabaseDialect dialect, int tenant ) {
+    String typeCode = fresh( dialect.getDatabaseType().getShortName() );
+
+    DatabaseConnection conn = new DatabaseConnection();
+    conn.setName( fresh( "warehouse" ) );
+    conn.setDatabaseType( dialect.getDatabaseType() );
+    conn.setAccessType( DatabaseAccessType.NATIVE );
+    conn.setHostname( fresh( "db01.example.com" ) );
+    conn.setDatabasePort( Integer.toString( dialect.getDefaultDatabasePort() ) );
+    conn.setDatabaseName( fresh( "warehouse" ) );
+    conn.setUsername( "tenant" + tenant );
+    conn.setPassword( "secret" + tenant );
+    conn.addExtraOption( typeCode, fresh( "connectTimeout" ), fresh( "30" ) );
+    conn.addExtraOption( typeCode, fresh( "socketTimeout" ), fresh( "600" ) );
+    conn.addExtraOption( typeCode, fresh( "applicationName" ), fresh( "pentaho" ) );
+    return conn;
+  }
+
+  private static String fresh( String value ) {
+    return new String( value.toCharArray() );
+  }
+}
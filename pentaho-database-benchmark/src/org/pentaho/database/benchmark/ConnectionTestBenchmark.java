@@ -0,0 +1,143 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pentaho.database.dialect.GenericDatabaseDialect;
+import org.pentaho.database.model.DatabaseAccessType;
+import org.pentaho.database.model.DatabaseConnection;
+import org.pentaho.database.service.ConnectionTestResult;
+import org.pentaho.database.service.DatabaseDialectService;
+import org.pentaho.database.service.NativeConnectionTester;
+
+/**
+ * Overhead of testing a connection, against a driver whose connections cost nothing to open:
+ *
+ * <ul>
+ * <li>{@code jdbc} - {@link DriverManager#getConnection(String, Properties)}, {@link Connection#isValid(int)} and
+ * close, the floor any test path pays</li>
+ * <li>{@code nativeTest} - {@link NativeConnectionTester}: dialect lookup, URL, driver lookup, the connect timeout
+ * and the report</li>
+ * </ul>
+ *
+ * The Kettle path is not measured here as this module does not depend on Kettle.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ConnectionTestBenchmark {
+
+  static final String URL = "jdbc:benchmark:noop";
+
+  @State( Scope.Benchmark )
+  public static class TestState {
+    NativeConnectionTester tester;
+    DatabaseConnection connection;
+    Properties properties;
+
+    @Setup( Level.Trial )
+    public void setUp() throws SQLException {
+      DriverManager.registerDriver( new NoopDriver() );
+      tester = new NativeConnectionTester( new DatabaseDialectService( false ) );
+      connection = new DatabaseConnection();
+      connection.setName( "benchmark" );
+      connection.setDatabaseType( new GenericDatabaseDialect().getDatabaseType() );
+      connection.setAccessType( DatabaseAccessType.NATIVE );
+      connection.setUsername( "etl" );
+      connection.setPassword( "secret" );
+      connection.getAttributes().put( GenericDatabaseDialect.ATTRIBUTE_CUSTOM_URL, URL );
+      connection.getAttributes().put( GenericDatabaseDialect.ATTRIBUTE_CUSTOM_DRIVER_CLASS,
+        NoopDriver.class.getName() );
+      properties = new Properties();
+      properties.put( "user", "etl" );
+      properties.put( "password", "secret" );
+    }
+  }
+
+  @Benchmark
+  public boolean jdbc( TestState state ) throws SQLException {
+    try ( Connection connection = DriverManager.getConnection( URL, state.properties ) ) {
+      return connection.isValid( NativeConnectionTester.DEFAULT_VALIDATION_TIMEOUT );
+    }
+  }
+
+  @Benchmark
+  public ConnectionTestResult nativeTest( TestState state ) {
+    return state.tester.test( state.connection );
+  }
+
+  public static class NoopDriver implements Driver {
+    private static final Connection CONNECTION = (Connection) Proxy.newProxyInstance(
+      NoopDriver.class.getClassLoader(), new Class<?>[] { Connection.class }, new InvocationHandler() {
+        public Object invoke( Object proxy, Method method, Object[] args ) {
+          return method.getReturnType() == boolean.class ? Boolean.TRUE : null;
+        }
+      } );
+
+    public Connection connect( String url, Properties info ) {
+      return acceptsURL( url ) ? CONNECTION : null;
+    }
+
+    public boolean acceptsURL( String url ) {
+      return URL.equals( url );
+    }
+
+    public DriverPropertyInfo[] getPropertyInfo( String url, Properties info ) {
+      return new DriverPropertyInfo[0];
+    }
+
+    public int getMajorVersion() {
+      return 1;
+    }
+
+    public int getMinorVersion() {
+      return 0;
+    }
+
+    public boolean jdbcCompliant() {
+      return false;
+    }
+
+    public Logger getParentLogger() {
+      return Logger.getGlobal();
+    }
+  }
+}
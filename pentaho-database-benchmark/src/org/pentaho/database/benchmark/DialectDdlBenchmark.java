@@ -0,0 +1,78 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+
+package org.pentaho.database.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.pentaho.database.IValueMeta;
+
+/**
+ * Throughput of column DDL generation. Every invocation covers all the columns in {@link DialectState#columns}, one
+ * per value type, so the numbers are per table of eight columns rather than per column.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class DialectDdlBenchmark {
+
+  private static final String TABLE = "staging_orders";
+
+  @Benchmark
+  public void getFieldDefinition( DialectState state, Blackhole bh ) {
+    for ( IValueMeta column : state.columns ) {
+      bh.consume( state.databaseDialect.getFieldDefinition( column, null, null, false, true, false ) );
+    }
+  }
+
+  /**
+   * Builds the whole column list into one buffer, the way CREATE TABLE generation should use the dialect.
+   */
+  @Benchmark
+  public String appendFieldDefinition( DialectState state ) {
+    StringBuilder sql = new StringBuilder( 512 );
+    for ( IValueMeta column : state.columns ) {
+      state.databaseDialect.appendFieldDefinition( sql, column, null, null, false, true, false );
+      sql.append( ", " );
+    }
+    return sql.toString();
+  }
+
+  @Benchmark
+  public void getAddColumnStatement( AlterDialectState state, Blackhole bh ) {
+    for ( IValueMeta column : state.columns ) {
+      bh.consume( state.databaseDialect.getAddColumnStatement( TABLE, column, null, false, null, true ) );
+    }
+  }
+
+  @Benchmark
+  public void getModifyColumnStatement( AlterDialectState state, Blackhole bh ) {
+    for ( IValueMeta column : state.columns ) {
+      bh.consume( state.databaseDialect.getModifyColumnStatement( TABLE, column, null, false, null, true ) );
+    }
+  }
+}
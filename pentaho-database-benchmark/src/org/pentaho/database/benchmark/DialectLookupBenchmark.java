@@ -0,0 +1,120 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+
+package org.pentaho.database.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.pentaho.database.IDatabaseDialect;
+import org.pentaho.database.model.IDatabaseType;
+import org.pentaho.database.service.DatabaseDialectService;
+import org.pentaho.database.service.JdbcDialectIndex;
+
+/**
+ * Cost of resolving the dialect for a driver class and URL, for every registered dialect per invocation: through a
+ * {@link JdbcDialectIndex} and through the linear scan over the dialect service it replaces. The dialect service's own
+ * lookups by database type and driver class are measured the same way.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class DialectLookupBenchmark {
+
+  @State( Scope.Benchmark )
+  public static class LookupState {
+
+    DatabaseDialectService dialectService;
+
+    JdbcDialectIndex index;
+
+    String[] drivers;
+
+    String[] urls;
+
+    IDatabaseType[] types;
+
+    @Setup( Level.Trial )
+    public void setUp() throws Exception {
+      dialectService = new DatabaseDialectService( false );
+      List<IDatabaseDialect> dialects = dialectService.getDatabaseDialects();
+      index = new JdbcDialectIndex( dialects );
+      drivers = new String[dialects.size()];
+      urls = new String[dialects.size()];
+      types = new IDatabaseType[dialects.size()];
+      for ( int i = 0; i < drivers.length; i++ ) {
+        IDatabaseDialect dialect = dialects.get( i );
+        drivers[i] = dialect.getNativeDriver();
+        types[i] = dialect.getDatabaseType();
+        urls[i] = dialect.getURLWithExtraOptions( DialectState.createConnection( dialect ) );
+      }
+    }
+  }
+
+  @Benchmark
+  public void index( LookupState state, Blackhole blackhole ) {
+    for ( int i = 0; i < state.urls.length; i++ ) {
+      blackhole.consume( state.index.getDialect( state.drivers[i], state.urls[i] ) );
+    }
+  }
+
+  @Benchmark
+  public void linearScan( LookupState state, Blackhole blackhole ) {
+    for ( int i = 0; i < state.urls.length; i++ ) {
+      blackhole.consume( scan( state.dialectService, state.drivers[i], state.urls[i] ) );
+    }
+  }
+
+  @Benchmark
+  public void getDialectByType( LookupState state, Blackhole blackhole ) {
+    for ( int i = 0; i < state.types.length; i++ ) {
+      blackhole.consume( state.dialectService.getDialect( state.types[i] ) );
+    }
+  }
+
+  @Benchmark
+  public void getDialectByDriverClass( LookupState state, Blackhole blackhole ) {
+    for ( int i = 0; i < state.drivers.length; i++ ) {
+      blackhole.consume( state.dialectService.getDialectByDriverClass( state.drivers[i] ) );
+    }
+  }
+
+  private static IDatabaseDialect scan( DatabaseDialectService dialectService, String driver, String url ) {
+    for ( IDatabaseDialect dialect : dialectService.getDatabaseDialects() ) {
+      if ( dialect.getNativeDriver() != null && dialect.getNativeDriver().equals( driver ) ) {
+        if ( dialect.getNativeJdbcPre() != null && url.startsWith( dialect.getNativeJdbcPre() ) ) {
+          return dialect;
+        }
+      }
+    }
+    return null;
+  }
+}
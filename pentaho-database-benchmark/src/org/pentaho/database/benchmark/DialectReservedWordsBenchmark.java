@@ -0,0 +1,62 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+
+package org.pentaho.database.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of reserved word checks and identifier quoting, which callers hit once per identifier they put in SQL.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class DialectReservedWordsBenchmark {
+
+  private static final String[] IDENTIFIERS =
+    { "customer_id", "order_total", "select", "Date", "order date", "user", "LAST_UPDATE", "value" };
+
+  @Benchmark
+  public String[] getReservedWords( DialectState state ) {
+    return state.databaseDialect.getReservedWords();
+  }
+
+  @Benchmark
+  public void isReservedWord( DialectState state, Blackhole bh ) {
+    for ( String identifier : IDENTIFIERS ) {
+      bh.consume( state.databaseDialect.isReservedWord( identifier ) );
+    }
+  }
+
+  @Benchmark
+  public void quoteIdentifierIfNeeded( DialectState state, Blackhole bh ) {
+    for ( String identifier : IDENTIFIERS ) {
+      bh.consume( state.databaseDialect.quoteIdentifierIfNeeded( state.connection, identifier ) );
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+
+package org.pentaho.database.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.pentaho.database.IDatabaseDialect;
+import org.pentaho.database.IValueMeta;
+import org.pentaho.database.ThinValueMeta;
+import org.pentaho.database.dialect.GenericDatabaseDialect;
+import org.pentaho.database.model.DatabaseAccessType;
+import org.pentaho.database.model.DatabaseConnection;
+import org.pentaho.database.model.IDatabaseConnection;
+
+/**
+ * Shared benchmark fixture: one dialect per {@link Param} value, a populated native connection for it, the URL that
+ * connection produces and a set of columns covering every {@link IValueMeta} type.
+ *
+ * The dialect list mirrors META-INF/services/org.pentaho.database.IDatabaseDialect, so every dialect the service
+ * hands out gets its own baseline. MS Access is left out as it is ODBC only and has no native URL to parse.
+ */
+@State( Scope.Benchmark )
+public class DialectState {
+
+  static final String DIALECT_PACKAGE = "org.pentaho.database.dialect.";
+
+  @Param( { "DB2DatabaseDialect", "GenericDatabaseDialect", "H2DatabaseDialect", "HypersonicDatabaseDialect",
+    "InformixDatabaseDialect", "MariaDBDatabaseDialect", "MSSQLServerDatabaseDialect",
+    "MSSQLServerNativeDatabaseDialect", "MonetDatabaseDialect", "MySQLDatabaseDialect", "OracleDatabaseDialect",
+    "PDIDialect", "PostgreSQLDatabaseDialect", "RedshiftDatabaseDialect", "TeradataDatabaseDialect",
+    "VerticaDatabaseDialect", "Vertica5DatabaseDialect" } )
+  public String dialect;
+
+  IDatabaseDialect databaseDialect;
+
+  IDatabaseConnection connection;
+
+  String url;
+
+  IValueMeta[] columns;
+
+  @Setup( Level.Trial )
+  public void setUp() throws Exception {
+    databaseDialect = createDialect( dialect );
+    connection = createConnection( databaseDialect );
+    url = databaseDialect.getURLWithExtraOptions( connection );
+    columns = createColumns();
+  }
+
+  static IDatabaseDialect createDialect( String simpleName ) throws Exception {
+    return (IDatabaseDialect) Class.forName( DIALECT_PACKAGE + simpleName ).newInstance();
+  }
+
+  static IDatabaseConnection createConnection( IDatabaseDialect dialect ) {
+    String typeCode = dialect.getDatabaseType().getShortName();
+
+    DatabaseConnection conn = new DatabaseConnection();
+    conn.setName( "benchmark" );
+    conn.setDatabaseType( dialect.getDatabaseType() );
+    conn.setAccessType( DatabaseAccessType.NATIVE );
+    conn.setHostname( "db01.example.com" );
+    conn.setDatabasePort( Integer.toString( dialect.getDefaultDatabasePort() ) );
+    conn.setDatabaseName( "warehouse" );
+    conn.setUsername( "etl" );
+    conn.setPassword( "secret" );
+
+    // a realistic mix: options for this type plus options left behind by other types
+    conn.addExtraOption( typeCode, "connectTimeout", "30" );
+    conn.addExtraOption( typeCode, "socketTimeout", "600" );
+    conn.addExtraOption( typeCode, "applicationName", "pentaho" );
+    conn.addExtraOption( typeCode, "ssl", "false" );
+    conn.addExtraOption( "OTHER", "useCursorFetch", "true" );
+    conn.addExtraOption( "OTHER", "defaultFetchSize", "500" );
+
+    conn.getAttributes().put( GenericDatabaseDialect.ATTRIBUTE_CUSTOM_URL, "jdbc:generic://db01.example.com/warehouse" );
+    conn.getAttributes().put( GenericDatabaseDialect.ATTRIBUTE_CUSTOM_DRIVER_CLASS, "org.example.jdbc.Driver" );
+    return conn;
+  }
+
+  static IValueMeta[] createColumns() {
+    return new IValueMeta[] {
+      new ThinValueMeta( "customer_id", IValueMeta.TYPE_INTEGER, 9, 0 ),
+      new ThinValueMeta( "order_total", IValueMeta.TYPE_NUMBER, 15, 2 ),
+      new ThinValueMeta( "amount_exact", IValueMeta.TYPE_BIGNUMBER, 38, 10 ),
+      new ThinValueMeta( "customer_name", IValueMeta.TYPE_STRING, 255, 0 ),
+      new ThinValueMeta( "notes", IValueMeta.TYPE_STRING, 100000, 0 ),
+      new ThinValueMeta( "created_at", IValueMeta.TYPE_DATE, -1, -1 ),
+      new ThinValueMeta( "is_active", IValueMeta.TYPE_BOOLEAN, -1, -1 ),
+      new ThinValueMeta( "payload", IValueMeta.TYPE_BINARY, 2000, 0 ) };
+  }
+}
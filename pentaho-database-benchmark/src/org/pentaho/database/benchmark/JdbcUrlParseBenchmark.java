@@ -0,0 +1,109 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+
+package org.pentaho.database.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pentaho.database.DatabaseDialectException;
+import org.pentaho.database.IDatabaseDialect;
+import org.pentaho.database.model.IDatabaseConnection;
+
+/**
+ * Throughput of parsing the URL shapes found in legacy job repositories, alone and as a parse/generate round trip.
+ * Unlike {@link DialectUrlBenchmark}, which parses whatever {@code getURLWithExtraOptions} produces, these URLs
+ * exercise the dialect specific syntax: Oracle services and TNS descriptors, SQL Server instances and Teradata
+ * options.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class JdbcUrlParseBenchmark {
+
+  @State( Scope.Benchmark )
+  public static class LegacyUrlState {
+
+    @Param( { "MYSQL_OPTIONS", "POSTGRESQL_OPTIONS", "ORACLE_SID", "ORACLE_SERVICE", "ORACLE_TNS", "MSSQL_INSTANCE",
+      "TERADATA_OPTIONS", "INFORMIX_SERVER", "HYPERSONIC_OPTIONS" } )
+    public String shape;
+
+    IDatabaseDialect databaseDialect;
+
+    String url;
+
+    @Setup( Level.Trial )
+    public void setUp() throws Exception {
+      LegacyUrl legacyUrl = LegacyUrl.valueOf( shape );
+      databaseDialect = DialectState.createDialect( legacyUrl.dialect );
+      url = legacyUrl.url;
+    }
+  }
+
+  enum LegacyUrl {
+    MYSQL_OPTIONS( "MySQLDatabaseDialect",
+        "jdbc:mysql://db01.example.com:3306/warehouse?connectTimeout=30&socketTimeout=600&useCursorFetch=true" ),
+    POSTGRESQL_OPTIONS( "PostgreSQLDatabaseDialect",
+        "jdbc:postgresql://db01.example.com:5432/warehouse?ssl=true&applicationName=pentaho" ),
+    ORACLE_SID( "OracleDatabaseDialect", "jdbc:oracle:thin:@db01.example.com:1521:WHSE" ),
+    ORACLE_SERVICE( "OracleDatabaseDialect", "jdbc:oracle:thin:@//db01.example.com:1521/warehouse.example.com" ),
+    ORACLE_TNS( "OracleDatabaseDialect", "jdbc:oracle:thin:@(DESCRIPTION=(ADDRESS_LIST=(ADDRESS=(PROTOCOL=TCP)"
+        + "(HOST=db01.example.com)(PORT=1521))(ADDRESS=(PROTOCOL=TCP)(HOST=db02.example.com)(PORT=1521)))"
+        + "(CONNECT_DATA=(SERVICE_NAME=warehouse)))" ),
+    MSSQL_INSTANCE( "MSSQLServerNativeDatabaseDialect", "jdbc:sqlserver://db01.example.com\\WAREHOUSE:1433;"
+        + "databaseName=warehouse;integratedSecurity=false;applicationName=pentaho;loginTimeout=30" ),
+    TERADATA_OPTIONS( "TeradataDatabaseDialect",
+        "jdbc:teradata://db01.example.com/DATABASE=warehouse,DBS_PORT=1025,CHARSET=UTF8,TMODE=ANSI" ),
+    INFORMIX_SERVER( "InformixDatabaseDialect",
+        "jdbc:informix-sqli://db01.example.com:9088/warehouse:INFORMIXSERVER=ol_warehouse;DELIMIDENT=Y" ),
+    HYPERSONIC_OPTIONS( "HypersonicDatabaseDialect",
+        "jdbc:hsqldb:hsql://db01.example.com:9001/warehouse;ifexists=true" );
+
+    final String dialect;
+
+    final String url;
+
+    LegacyUrl( String dialect, String url ) {
+      this.dialect = dialect;
+      this.url = url;
+    }
+  }
+
+  @Benchmark
+  public IDatabaseConnection parse( LegacyUrlState state ) {
+    return state.databaseDialect.createNativeConnection( state.url );
+  }
+
+  @Benchmark
+  public String roundTrip( LegacyUrlState state ) throws DatabaseDialectException {
+    IDatabaseDialect databaseDialect = state.databaseDialect;
+    return databaseDialect.getURLWithExtraOptions( databaseDialect.createNativeConnection( state.url ) );
+  }
+}
@@ -12,65 +12,220 @@
 * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
 * See the GNU Lesser General Public License for more details.
 *
-* Copyright (c) 2002-2017 Hitachi Vantara..  All rights reserved.
+* Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
 */
 
 package org.pentaho.database.service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.pentaho.database.IDatabaseDialect;
 import org.pentaho.database.dialect.GenericDatabaseDialect;
+import org.pentaho.database.model.ConnectionValidationResult;
 import org.pentaho.database.model.DatabaseConnectionPoolParameter;
+import org.pentaho.database.model.IConnectionValidationResult;
 import org.pentaho.database.model.IDatabaseConnection;
+import org.pentaho.database.util.ConnectionParameterValidator;
 import org.pentaho.database.util.DatabaseUtil;
 import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.database.DatabaseTestResults;
+import org.pentaho.ui.database.Messages;
 
-public class DatabaseConnectionService implements IDatabaseConnectionService {
+public class DatabaseConnectionService implements IAsyncDatabaseConnectionService {
   
   private static final Log logger = LogFactory.getLog(DatabaseConnectionService.class);
   
   public static int MAX_RETURN_VALUE_LENGTH = 350;
   GenericDatabaseDialect genericDialect = new GenericDatabaseDialect();
   IDatabaseDialectService dialectService = null;
+  NativeConnectionTester connectionTester;
+  ConnectionTestCache testCache = new ConnectionTestCache();
+  ConnectionBatchTester batchTester = new ConnectionBatchTester(connection -> testConnectionResult(connection));
+  AsyncConnectionTester asyncTester = new AsyncConnectionTester(connection -> testConnectionResult(connection));
+  private volatile JdbcDialectIndex dialectIndex;
+  private final Messages messages = new Messages();
 
   public DatabaseConnectionService(IDatabaseDialectService dialectService) {
     this.dialectService = dialectService;
+    this.connectionTester = new NativeConnectionTester(dialectService);
   }
   
   public DatabaseConnectionService() {
-    this.dialectService = new DatabaseDialectService(true);
+    this(new DatabaseDialectService(true));
+  }
+
+  /**
+   * The tester used for connections that do not need Kettle; its timeouts can be changed.
+   */
+  public NativeConnectionTester getConnectionTester() {
+    return connectionTester;
   }
   
   /* (non-Javadoc)
    * @see org.pentaho.database.service.IDatabaseConnectionService#checkParameters(org.pentaho.database.model.IDatabaseConnection)
    */
   public List<String> checkParameters(IDatabaseConnection connection) {
-    DatabaseMeta meta = DatabaseUtil.convertToDatabaseMeta(connection);
-    String params[] = meta.checkParameters();
-    List<String> paramList = new ArrayList<String>();
-    for (String param : params) {
-      paramList.add(param);
+    // the same rules the dialog applies in the browser, no DatabaseMeta needed
+    IDatabaseDialect dialect = connection.getDatabaseType() == null ? null : dialectService.getDialect(connection);
+    List<String> remarks = new ArrayList<String>();
+    for (String key : ConnectionParameterValidator.checkParameters(connection, dialect)) {
+      remarks.add(messages.getString(key));
     }
-    return paramList;
+    return remarks;
   }
   
   /* (non-Javadoc)
    * @see org.pentaho.database.service.IDatabaseConnectionService#testConnection(org.pentaho.database.model.IDatabaseConnection)
    */
   public String testConnection(IDatabaseConnection connection) {
-    DatabaseMeta meta = DatabaseUtil.convertToDatabaseMeta(connection);
-    String returnValue = meta.testConnection();
+    return testConnectionResult(connection).getMessage();
+  }
+
+  /**
+   * Tests the connection natively when possible and through Kettle otherwise. The report is cut to
+   * {@link #MAX_RETURN_VALUE_LENGTH}. Concurrent tests of the same definition share one login, and its result is
+   * answered again for a short while; see {@link #getTestCache()}.
+   */
+  public ConnectionTestResult testConnectionResult(IDatabaseConnection connection) {
+    return testCache.test(connection, toTest -> runConnectionTest(toTest));
+  }
+
+  private ConnectionTestResult runConnectionTest(IDatabaseConnection connection) {
+    ConnectionTestResult result;
+    if (connectionTester.canTest(connection)) {
+      result = connectionTester.test(connection);
+    } else {
+      long start = System.currentTimeMillis();
+      DatabaseMeta meta = DatabaseUtil.convertToDatabaseMeta(connection);
+      // the report is localized, so success is taken from the outcome Kettle returns along with it
+      DatabaseTestResults kettleResult = meta.testConnectionSuccess();
+      if (!kettleResult.isSuccess() && logger.isDebugEnabled()) {
+        logger.debug("Test of connection " + connection.getName() + " failed", kettleResult.getException());
+      }
+      result = new ConnectionTestResult(kettleResult.isSuccess(), kettleResult.getMessage(),
+          System.currentTimeMillis() - start);
+    }
+    String returnValue = result.getMessage();
     if (logger.isDebugEnabled()) {
       logger.debug("Return Value from test connection:\n" + returnValue);
     }
     if(returnValue != null && returnValue.length() > MAX_RETURN_VALUE_LENGTH) {
       returnValue = returnValue.substring(0, MAX_RETURN_VALUE_LENGTH-1);
+      result = new ConnectionTestResult(result.isSuccess(), returnValue, result.getElapsedMillis());
+    }
+    return result;
+  }
+
+  /* (non-Javadoc)
+   * @see org.pentaho.database.service.IDatabaseConnectionService#testConnections(java.util.List)
+   */
+  public List<String> testConnections(List<IDatabaseConnection> connections) {
+    List<String> reports = new ArrayList<String>(connections.size());
+    for (ConnectionTestResult result : testConnections(connections, null)) {
+      reports.add(result.getMessage());
     }
-    return returnValue;
+    return reports;
+  }
+
+  /**
+   * Tests the connections concurrently, handing each result to the listener as soon as it is known.
+   * 
+   * @throws IllegalStateException if the calling thread is interrupted before all tests finished
+   */
+  public List<ConnectionTestResult> testConnections(List<? extends IDatabaseConnection> connections,
+      ConnectionBatchTester.Listener listener) {
+    try {
+      return batchTester.testAll(connections, listener);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while testing connections", e);
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.pentaho.database.service.IDatabaseConnectionService#validateConnection(org.pentaho.database.model.IDatabaseConnection, boolean)
+   */
+  public IConnectionValidationResult validateConnection(IDatabaseConnection connection, boolean test) {
+    List<String> errors = checkParameters(connection);
+    if (!errors.isEmpty() || !test) {
+      return new ConnectionValidationResult(errors);
+    }
+    ConnectionTestResult result = testConnectionResult(connection);
+    return new ConnectionValidationResult(result.isSuccess(), result.getMessage());
+  }
+
+  /* (non-Javadoc)
+   * @see org.pentaho.database.service.IAsyncDatabaseConnectionService#checkParametersAsync(org.pentaho.database.model.IDatabaseConnection)
+   */
+  public CompletableFuture<List<String>> checkParametersAsync(final IDatabaseConnection connection) {
+    return asyncTester.submit(() -> checkParameters(connection));
+  }
+
+  /* (non-Javadoc)
+   * @see org.pentaho.database.service.IAsyncDatabaseConnectionService#testConnectionAsync(org.pentaho.database.model.IDatabaseConnection)
+   */
+  public CompletableFuture<String> testConnectionAsync(IDatabaseConnection connection) {
+    return asyncTester.test(connection).thenApply(ConnectionTestResult::getMessage);
+  }
+
+  /* (non-Javadoc)
+   * @see org.pentaho.database.service.IAsyncDatabaseConnectionService#testConnectionsAsync(java.util.List)
+   */
+  public CompletableFuture<List<String>> testConnectionsAsync(final List<IDatabaseConnection> connections) {
+    // the batch tester has a deadline per test, so the batch as a whole is not given one
+    return asyncTester.submit(() -> testConnections(connections), 0);
+  }
+
+  /* (non-Javadoc)
+   * @see org.pentaho.database.service.IAsyncDatabaseConnectionService#validateConnectionAsync(org.pentaho.database.model.IDatabaseConnection, boolean)
+   */
+  public CompletableFuture<IConnectionValidationResult> validateConnectionAsync(final IDatabaseConnection connection,
+      final boolean test) {
+    return asyncTester.submit(() -> validateConnection(connection, test)).exceptionally(error -> {
+      Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+      if (cause instanceof TimeoutException) {
+        // a test that misses the deadline is a failed test, as with testConnectionAsync
+        return new ConnectionValidationResult(false, "Error connecting to database [" + connection.getName() + "] : "
+            + cause.getMessage());
+      }
+      throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+    });
+  }
+
+  /**
+   * The pool behind the asynchronous calls; its deadline can be changed, and it should be shut down with the
+   * application.
+   */
+  public AsyncConnectionTester getAsyncTester() {
+    return asyncTester;
+  }
+
+  /**
+   * Drops the cached test results of a connection. This service does not store connections, so whatever saves,
+   * updates or deletes one calls this, and the next test logs in again instead of answering an earlier result.
+   */
+  public void connectionChanged(String connectionName) {
+    testCache.invalidate(connectionName);
+  }
+
+  /**
+   * The cache of recent test results; its times to live can be changed. See {@link #connectionChanged(String)}.
+   */
+  public ConnectionTestCache getTestCache() {
+    return testCache;
+  }
+
+  /**
+   * The batch tester behind {@link #testConnections(List)}; its limits and deadline can be changed.
+   */
+  public ConnectionBatchTester getBatchTester() {
+    return batchTester;
   }
   
   private static final DatabaseConnectionPoolParameter[] poolingParameters = new DatabaseConnectionPoolParameter[]
@@ -111,13 +266,9 @@ public class DatabaseConnectionService implements IDatabaseConnectionService {
 
   
   public IDatabaseConnection createDatabaseConnection(String driver, String url) {
-    for (IDatabaseDialect dialect : dialectService.getDatabaseDialects()) {
-      if (dialect.getNativeDriver() != null && 
-          dialect.getNativeDriver().equals(driver)) {
-        if (dialect.getNativeJdbcPre() != null && url.startsWith(dialect.getNativeJdbcPre())) {
-          return dialect.createNativeConnection(url);
-        }
-      }
+    IDatabaseDialect dialect = getDialectIndex().getDialect(driver, url);
+    if (dialect != null) {
+      return dialect.createNativeConnection(url);
     }
     
     // if no native driver was found, create a custom dialect object.
@@ -128,5 +279,22 @@ public class DatabaseConnectionService implements IDatabaseConnectionService {
     return conn;
   }
 
+  /**
+   * The index is built from the dialect service on first use; bulk imports then resolve each connection without
+   * scanning the dialects again. The default dialect service keeps its own index up to date as dialects are
+   * registered, so that one is used directly.
+   */
+  private JdbcDialectIndex getDialectIndex() {
+    if (dialectService instanceof DatabaseDialectService) {
+      return ((DatabaseDialectService) dialectService).getJdbcDialectIndex();
+    }
+    JdbcDialectIndex index = dialectIndex;
+    if (index == null) {
+      index = new JdbcDialectIndex(dialectService.getDatabaseDialects());
+      dialectIndex = index;
+    }
+    return index;
+  }
+
 
 }
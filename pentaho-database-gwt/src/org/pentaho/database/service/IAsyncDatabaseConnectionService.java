@@ -0,0 +1,60 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+*/
+
+package org.pentaho.database.service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.pentaho.database.model.IConnectionValidationResult;
+import org.pentaho.database.model.IDatabaseConnection;
+
+/**
+ * Non-blocking variants of the calls of {@link IDatabaseConnectionService} that may wait on a database. The work runs
+ * on a pool of the service's own, so the caller, typically a servlet container thread, is free as soon as the call
+ * returns. Each future completes within the service's deadline.
+ * 
+ * This is for the server side only; GWT clients keep using the blocking calls through RPC. The default methods run the
+ * blocking calls on the common pool without a deadline, so that implementations of {@link IDatabaseConnectionService}
+ * can take this interface on without more code; implementations should override them with their own pool and deadline.
+ */
+public interface IAsyncDatabaseConnectionService extends IDatabaseConnectionService {
+
+  default CompletableFuture<List<String>> checkParametersAsync(final IDatabaseConnection connection) {
+    return CompletableFuture.supplyAsync(() -> checkParameters(connection));
+  }
+
+  /**
+   * @return the report of the test; a test that misses the deadline gives a failure report
+   */
+  default CompletableFuture<String> testConnectionAsync(final IDatabaseConnection connection) {
+    return CompletableFuture.supplyAsync(() -> testConnection(connection));
+  }
+
+  /**
+   * @return the report of each test, in the order of the connections
+   */
+  default CompletableFuture<List<String>> testConnectionsAsync(final List<IDatabaseConnection> connections) {
+    return CompletableFuture.supplyAsync(() -> testConnections(connections));
+  }
+
+  default CompletableFuture<IConnectionValidationResult> validateConnectionAsync(
+      final IDatabaseConnection connection, final boolean test) {
+    return CompletableFuture.supplyAsync(() -> validateConnection(connection, test));
+  }
+
+}
@@ -12,7 +12,7 @@
 * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
 * See the GNU Lesser General Public License for more details.
 *
-* Copyright (c) 2002-2017 Hitachi Vantara..  All rights reserved.
+* Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
 */
 
 package org.pentaho.database.service;
@@ -20,8 +20,16 @@ package org.pentaho.database.service;
 import java.util.List;
 
 import org.pentaho.database.model.DatabaseConnectionPoolParameter;
+import org.pentaho.database.model.IConnectionValidationResult;
 import org.pentaho.database.model.IDatabaseConnection;
 
+/**
+ * Creates, checks and tests database connections.
+ * 
+ * This interface is translated by GWT 2.5, which cannot compile default methods, so methods added to it are abstract:
+ * {@link #testConnections(List)} and {@link #validateConnection(IDatabaseConnection, boolean)} were added in 8.1 and
+ * have to be implemented by implementations written against earlier versions.
+ */
 public interface IDatabaseConnectionService {
 
   IDatabaseConnection createDatabaseConnection(String driver, String url);
@@ -30,6 +38,19 @@ public interface IDatabaseConnectionService {
 
   String testConnection(final IDatabaseConnection connection);
 
+  /**
+   * Tests the connections concurrently.
+   * 
+   * @return the report of each test, in the order of the connections
+   */
+  List<String> testConnections(final List<IDatabaseConnection> connections);
+
+  /**
+   * Checks the parameters and, when they are complete and a test is asked for, tests the connection, so a dialog
+   * needs one round trip instead of two.
+   */
+  IConnectionValidationResult validateConnection(final IDatabaseConnection connection, final boolean test);
+
   DatabaseConnectionPoolParameter[] getPoolingParameters();
   
 }
@@ -42,6 +42,7 @@ import org.pentaho.database.model.IDatabaseConnection;
 import org.pentaho.database.model.IDatabaseConnectionPoolParameter;
 import org.pentaho.database.model.IDatabaseType;
 import org.pentaho.database.model.PartitionDatabaseMeta;
+import org.pentaho.database.util.ConnectionParameterValidator;
 import org.pentaho.database.util.DatabaseTypeHelper;
 import org.pentaho.gwt.widgets.client.utils.NameUtils;
 import org.pentaho.gwt.widgets.client.utils.string.StringUtils;
@@ -77,9 +78,6 @@ public class DataHandler extends AbstractXulEventHandler {
 
   private static final String LINE_SEPARATOR = "\n"; // System.getProperty("line.separator"); //$NON-NLS-1$
 
-  // See http://bugs.jquery.com/ticket/1450 for an explanation
-  private static final int SC_NO_CONTENT_IE = 1223;
-
   // Kettle thin related
   private static final String EXTRA_OPTION_WEB_APPLICATION_NAME = "KettleThin.webappname";
   private static final String DEFAULT_WEB_APPLICATION_NAME = "pentaho";
@@ -610,49 +608,27 @@ public class DataHandler extends AbstractXulEventHandler {
       return;
     }
 
-    RequestBuilder
-        checkParamsBuilder =
-        new RequestBuilder( RequestBuilder.POST, getBaseURL() + "checkParams" ); //$NON-NLS-1$
-    checkParamsBuilder.setHeader( "Content-Type", "application/json" ); //$NON-NLS-1$//$NON-NLS-2$
-    try {
-      AutoBean<IDatabaseConnection> bean = AutoBeanUtils.getAutoBean( database );
-      String checkParamsJson = AutoBeanCodex.encode( bean ).getPayload();
-      checkParamsBuilder.sendRequest( checkParamsJson, new RequestCallback() {
-
-        @Override
-        public void onError( Request request, Throwable exception ) {
-          showMessage(
-              messages.getString( "DataHandler.ERROR_MESSAGE_TITLE" ), exception.getMessage(),
-              exception.getMessage().length() > 300 ); //$NON-NLS-1$
-        }
+    // the rules the server applies, apart from the database name, which needs the dialect and was checked above
+    List<String> errors = ConnectionParameterValidator.checkParameters( database );
+    if ( !errors.isEmpty() ) {
+      showParameterErrors( errors );
+      return;
+    }
 
-        @Override
-        public void onResponseReceived( Request request, Response response ) {
-          if ( response.getStatusCode() == Response.SC_NO_CONTENT || response.getStatusCode() == SC_NO_CONTENT_IE ) {
-            if ( databaseConnection == null ) {
-              databaseConnection = connectionAutoBeanFactory.iDatabaseConnection().as();
-            }
+    if ( databaseConnection == null ) {
+      databaseConnection = connectionAutoBeanFactory.iDatabaseConnection().as();
+    }
 
-            // Clear extra options before reapplying all values from web
-            databaseConnection.setExtraOptions( new HashMap<String, String>() );
-            databaseConnection.setExtraOptionsOrder( new HashMap<String, String>() );
-            // Populate database connection with new values
-            getInfo( databaseConnection );
+    // Clear extra options before reapplying all values from web
+    databaseConnection.setExtraOptions( new HashMap<String, String>() );
+    databaseConnection.setExtraOptionsOrder( new HashMap<String, String>() );
+    // Populate database connection with new values
+    getInfo( databaseConnection );
 
-            databaseConnection.setChanged( true );
-            close();
-            if ( listener != null ) {
-              listener.onDialogAccept( databaseConnection );
-            }
-          } else {
-            gatherErrors( response );
-          }
-        }
-      } );
-    } catch ( RequestException e ) {
-      showMessage(
-          messages.getString( "DataHandler.ERROR_MESSAGE_TITLE" ), e.getMessage(),
-          e.getMessage().length() > 300 ); //$NON-NLS-1$
+    databaseConnection.setChanged( true );
+    close();
+    if ( listener != null ) {
+      listener.onDialogAccept( databaseConnection );
     }
   }
 
@@ -665,14 +641,26 @@ public class DataHandler extends AbstractXulEventHandler {
       database.setId( databaseConnection.getId() );
     }
 
-    RequestBuilder
-        checkParamsBuilder =
-        new RequestBuilder( RequestBuilder.POST, getBaseURL() + "checkParams" ); //$NON-NLS-1$
-    checkParamsBuilder.setHeader( "Content-Type", "application/json" ); //$NON-NLS-1$ //$NON-NLS-2$
+    // missing fields are reported at once, the server is only asked to connect
+    List<String> errors = ConnectionParameterValidator.checkParameters( database );
+    if ( !errors.isEmpty() ) {
+      showParameterErrors( errors );
+      return;
+    }
+
+    sendTest( database );
+  }
+
+  /**
+   * Tests the connection through the test resource; the parameters were checked in the browser already.
+   */
+  private void sendTest( final IDatabaseConnection database ) {
+    RequestBuilder testBuilder = new RequestBuilder( RequestBuilder.PUT, getBaseURL() + "test" ); //$NON-NLS-1$
+    testBuilder.setHeader( "Content-Type", "application/json" ); //$NON-NLS-1$ //$NON-NLS-2$
     try {
-      AutoBean<IDatabaseConnection> bean = AutoBeanUtils.getAutoBean( database );
-      String checkParamsJson = AutoBeanCodex.encode( bean ).getPayload();
-      checkParamsBuilder.sendRequest( checkParamsJson, new RequestCallback() {
+      AutoBean<IDatabaseConnection> autoBean = AutoBeanUtils.getAutoBean( database );
+      String testConnectionJson = AutoBeanCodex.encode( autoBean ).getPayload();
+      testBuilder.sendRequest( testConnectionJson, new RequestCallback() {
 
         @Override
         public void onError( Request request, Throwable exception ) {
@@ -683,40 +671,11 @@ public class DataHandler extends AbstractXulEventHandler {
 
         @Override
         public void onResponseReceived( Request request, Response response ) {
-          int statusCode = response.getStatusCode();
-
-          if ( statusCode == Response.SC_NO_CONTENT || statusCode == SC_NO_CONTENT_IE ) {
-            RequestBuilder testBuilder = new RequestBuilder( RequestBuilder.PUT, getBaseURL() + "test" ); //$NON-NLS-1$
-            testBuilder.setHeader( "Content-Type", "application/json" ); //$NON-NLS-1$ //$NON-NLS-2$
-            try {
-              AutoBean<IDatabaseConnection> autoBean = AutoBeanUtils.getAutoBean( database );
-              String testConnectionJson = AutoBeanCodex.encode( autoBean ).getPayload();
-              testBuilder.sendRequest( testConnectionJson, new RequestCallback() {
-
-                @Override
-                public void onError( Request request1, Throwable exception ) {
-                  showMessage(
-                      messages.getString( "DataHandler.ERROR_MESSAGE_TITLE" ), exception.getMessage(),
-                      exception.getMessage().length() > 300 ); //$NON-NLS-1$
-                }
-
-                @Override
-                public void onResponseReceived( Request request1, Response response1 ) {
-                  showMessage(
-                      messages.getString( "DataHandler.TEST_MESSAGE_TITLE" ), response1.getText(),
-                      response1.getText().length() > 300 ); //$NON-NLS-1$
-                }
-
-              } );
-            } catch ( RequestException e ) {
-              showMessage(
-                  messages.getString( "DataHandler.ERROR_MESSAGE_TITLE" ), e.getMessage(),
-                  e.getMessage().length() > 300 ); //$NON-NLS-1$
-            }
-          } else {
-            gatherErrors( response );
-          }
+          showMessage(
+              messages.getString( "DataHandler.TEST_MESSAGE_TITLE" ), response.getText(),
+              response.getText().length() > 300 ); //$NON-NLS-1$
         }
+
       } );
     } catch ( RequestException e ) {
       showMessage(
@@ -725,6 +684,14 @@ public class DataHandler extends AbstractXulEventHandler {
     }
   }
 
+  private void showParameterErrors( List<String> errors ) {
+    String message = ""; //$NON-NLS-1$
+    for ( String error : errors ) {
+      message = message.concat( "* " ).concat( messages.getString( error ) ).concat( LINE_SEPARATOR ); //$NON-NLS-1$
+    }
+    showMessage( messages.getString( "DataHandler.CHECK_PARAMS_TITLE" ), message, false ); //$NON-NLS-1$
+  }
+
   private void gatherErrors( Response response ) {
     if ( response.getStatusCode() == Response.SC_OK && !response.getText().equalsIgnoreCase( "null" ) ) { //$NON-NLS-1$
       String message = ""; //$NON-NLS-1$
@@ -18,6 +18,9 @@
 package org.pentaho.ui.database.event;
 
 
+import java.util.List;
+
+import org.pentaho.database.BulkCommand;
 import org.pentaho.database.DatabaseDialectException;
 import org.pentaho.database.IDatabaseDialect;
 import org.pentaho.database.IValueMeta;
@@ -95,6 +98,11 @@ public class DatabaseDialectCategory {
     return databaseDialect.supportsRepository();
   }
 
+  public static boolean requiresDatabaseName(AutoBean<IDatabaseDialect> instance) {
+    IDatabaseDialect databaseDialect = instance.as();
+    return databaseDialect.requiresDatabaseName();
+  }
+
   public static boolean supportsSchemas(AutoBean<IDatabaseDialect> instance) {
     IDatabaseDialect databaseDialect = instance.as();
     return databaseDialect.supportsSchemas();
@@ -175,11 +183,46 @@ public class DatabaseDialectCategory {
     return databaseDialect.getLimitClause(nrRows);
   }
 
+  public static String getPagedQuery(AutoBean<IDatabaseDialect> instance, String query, String orderBy, long offset, int limit) {
+    IDatabaseDialect databaseDialect = instance.as();
+    return databaseDialect.getPagedQuery(query, orderBy, offset, limit);
+  }
+
+  public static String getKeysetPagedQuery(AutoBean<IDatabaseDialect> instance, String query, List<String> keyColumns, boolean afterKey, int limit) {
+    IDatabaseDialect databaseDialect = instance.as();
+    return databaseDialect.getKeysetPagedQuery(query, keyColumns, afterKey, limit);
+  }
+
   public static String getModifyColumnStatement(AutoBean<IDatabaseDialect> instance, String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk, boolean semicolon) {
     IDatabaseDialect databaseDialect = instance.as();
     return databaseDialect.getModifyColumnStatement(tablename, v, tk, use_autoinc, pk, semicolon);
   }
 
+  public static void appendAddColumnStatement(AutoBean<IDatabaseDialect> instance, StringBuilder sql, String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk, boolean semicolon) {
+    IDatabaseDialect databaseDialect = instance.as();
+    databaseDialect.appendAddColumnStatement(sql, tablename, v, tk, use_autoinc, pk, semicolon);
+  }
+
+  public static void appendModifyColumnStatement(AutoBean<IDatabaseDialect> instance, StringBuilder sql, String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk, boolean semicolon) {
+    IDatabaseDialect databaseDialect = instance.as();
+    databaseDialect.appendModifyColumnStatement(sql, tablename, v, tk, use_autoinc, pk, semicolon);
+  }
+
+  public static void appendFieldDefinition(AutoBean<IDatabaseDialect> instance, StringBuilder sql, IValueMeta v, String tk, String pk, boolean use_autoinc, boolean add_fieldname, boolean add_cr) {
+    IDatabaseDialect databaseDialect = instance.as();
+    databaseDialect.appendFieldDefinition(sql, v, tk, pk, use_autoinc, add_fieldname, add_cr);
+  }
+
+  public static boolean isReservedWord(AutoBean<IDatabaseDialect> instance, String word) {
+    IDatabaseDialect databaseDialect = instance.as();
+    return databaseDialect.isReservedWord(word);
+  }
+
+  public static String quoteIdentifierIfNeeded(AutoBean<IDatabaseDialect> instance, IDatabaseConnection connection, String identifier) {
+    IDatabaseDialect databaseDialect = instance.as();
+    return databaseDialect.quoteIdentifierIfNeeded(connection, identifier);
+  }
+
   public static String getSQLColumnExists(AutoBean<IDatabaseDialect> instance, String columnname, String tablename) {
     IDatabaseDialect databaseDialect = instance.as();
     return databaseDialect.getSQLColumnExists(columnname, tablename);
@@ -210,6 +253,11 @@ public class DatabaseDialectCategory {
     return databaseDialect.getSQLNextSequenceValue(sequenceName);
   }
 
+  public static String getSQLNextSequenceValues(AutoBean<IDatabaseDialect> instance, String sequenceName, int count) {
+    IDatabaseDialect databaseDialect = instance.as();
+    return databaseDialect.getSQLNextSequenceValues(sequenceName, count);
+  }
+
   public static String getSQLQueryFields(AutoBean<IDatabaseDialect> instance, String tableName) {
     IDatabaseDialect databaseDialect = instance.as();
     return databaseDialect.getSQLQueryFields(tableName);
@@ -254,4 +302,44 @@ public class DatabaseDialectCategory {
     IDatabaseDialect databaseDialect = instance.as();
     return databaseDialect.createNativeConnection(jdbcUrl);
   }
+
+  public static int getInsertBatchSize(AutoBean<IDatabaseDialect> instance, int columns) {
+    IDatabaseDialect databaseDialect = instance.as();
+    return databaseDialect.getInsertBatchSize(columns);
+  }
+
+  public static String getMultiRowInsertStatement(AutoBean<IDatabaseDialect> instance, String tablename, List<IValueMeta> columns, int rows) {
+    IDatabaseDialect databaseDialect = instance.as();
+    return databaseDialect.getMultiRowInsertStatement(tablename, columns, rows);
+  }
+
+  public static void appendMultiRowInsertStatement(AutoBean<IDatabaseDialect> instance, StringBuilder sql, String tablename, List<IValueMeta> columns, int rows) {
+    IDatabaseDialect databaseDialect = instance.as();
+    databaseDialect.appendMultiRowInsertStatement(sql, tablename, columns, rows);
+  }
+
+  public static List<String> getMultiRowInsertStatements(AutoBean<IDatabaseDialect> instance, String tablename, List<IValueMeta> columns, int totalRows) {
+    IDatabaseDialect databaseDialect = instance.as();
+    return databaseDialect.getMultiRowInsertStatements(tablename, columns, totalRows);
+  }
+
+  public static boolean supportsBulkLoad(AutoBean<IDatabaseDialect> instance) {
+    IDatabaseDialect databaseDialect = instance.as();
+    return databaseDialect.supportsBulkLoad();
+  }
+
+  public static BulkCommand getBulkLoadCommand(AutoBean<IDatabaseDialect> instance, String tablename, List<IValueMeta> columns, String location) {
+    IDatabaseDialect databaseDialect = instance.as();
+    return databaseDialect.getBulkLoadCommand(tablename, columns, location);
+  }
+
+  public static boolean supportsBulkExtract(AutoBean<IDatabaseDialect> instance) {
+    IDatabaseDialect databaseDialect = instance.as();
+    return databaseDialect.supportsBulkExtract();
+  }
+
+  public static BulkCommand getBulkExtractCommand(AutoBean<IDatabaseDialect> instance, String query, String location) {
+    IDatabaseDialect databaseDialect = instance.as();
+    return databaseDialect.getBulkExtractCommand(query, location);
+  }
 }
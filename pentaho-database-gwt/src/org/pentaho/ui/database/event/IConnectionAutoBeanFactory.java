@@ -18,6 +18,7 @@
 package org.pentaho.ui.database.event;
 
 import org.pentaho.database.IDatabaseDialect;
+import org.pentaho.database.model.IConnectionValidationResult;
 import org.pentaho.database.model.IDatabaseConnection;
 import org.pentaho.database.model.IDatabaseType;
 
@@ -38,4 +39,5 @@ public interface IConnectionAutoBeanFactory extends AutoBeanFactory {
   AutoBean<IDatabaseDialectList> iDatabaseDialectList();
   AutoBean<IDatabaseTypesList> iDatabaseTypesList();
   AutoBean<IDatabaseConnectionPoolParameterList> iDatabaseConnectionPoolParameterList();
+  AutoBean<IConnectionValidationResult> iConnectionValidationResult();
 }
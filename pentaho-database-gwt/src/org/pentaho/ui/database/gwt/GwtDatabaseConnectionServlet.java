@@ -12,26 +12,386 @@
 * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
 * See the GNU Lesser General Public License for more details.
 *
-* Copyright (c) 2002-2017 Hitachi Vantara..  All rights reserved.
+* Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
 */
 
 package org.pentaho.ui.database.gwt;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.pentaho.database.model.DatabaseConnection;
 import org.pentaho.database.model.DatabaseConnectionPoolParameter;
+import org.pentaho.database.model.IConnectionValidationResult;
 import org.pentaho.database.model.IDatabaseConnection;
+import org.pentaho.database.service.AsyncConnectionTester;
 import org.pentaho.database.service.DatabaseConnectionService;
+import org.pentaho.database.service.IAsyncDatabaseConnectionService;
 import org.pentaho.database.service.IDatabaseConnectionService;
 
 import com.google.gwt.user.server.rpc.RemoteServiceServlet;
 
+/**
+ * Serves {@link IGwtDatabaseConnectionService} over GWT RPC.
+ * 
+ * When the servlet is mapped with async support, each call is handed to a pool of the servlet's own and the container
+ * thread is released at once, so a slow database does not pin container threads. The pool thread runs the call
+ * through the stock {@link RemoteServiceServlet} post processing, permutation check and request/response hooks
+ * included, into a buffer; the buffer is written only by whichever of the call and its timeout finishes first.
+ * Connection tests and parameter checks go through {@link IAsyncDatabaseConnectionService} and are bounded by its
+ * deadline. Without async support, on a servlet 2.5 container such as GWT hosted mode for instance, calls are served
+ * on the container thread as before.
+ * 
+ * Async support has to be declared where the servlet is mapped, in a servlet 3.0 web.xml:
+ * 
+ * <pre>
+ * &lt;servlet&gt;
+ *   &lt;servlet-name&gt;databaseConnectionService&lt;/servlet-name&gt;
+ *   &lt;servlet-class&gt;org.pentaho.ui.database.gwt.GwtDatabaseConnectionServlet&lt;/servlet-class&gt;
+ *   &lt;async-supported&gt;true&lt;/async-supported&gt;
+ * &lt;/servlet&gt;
+ * </pre>
+ * 
+ * Filters in front of the servlet need {@code <async-supported>true</async-supported>} as well.
+ * 
+ * Init parameters: {@value #ASYNC_THREADS_PARAM} sets how many calls are served at once, 0 turning the handoff off;
+ * {@value #DEADLINE_PARAM} sets the seconds a test may take before it is reported as failed.
+ */
 public class GwtDatabaseConnectionServlet extends RemoteServiceServlet implements IGwtDatabaseConnectionService {
 
+  private static final Log logger = LogFactory.getLog(GwtDatabaseConnectionServlet.class);
+
+  public static final String ASYNC_THREADS_PARAM = "asyncThreads";
+  public static final String DEADLINE_PARAM = "deadline";
+  public static final int DEFAULT_ASYNC_THREADS = 16;
+
+  // calls waiting for a thread per thread, beyond that callers are told to come back later
+  private static final int QUEUED_PER_THREAD = 64;
+
+  // the container's own timeout only catches calls the service deadline did not end
+  private static final long ASYNC_TIMEOUT_MARGIN = 10000;
+
   IDatabaseConnectionService service = new DatabaseConnectionService();
-  
+  private ExecutorService callExecutor;
+  private int deadline = AsyncConnectionTester.DEFAULT_DEADLINE;
+
+  @Override
+  public void init() throws ServletException {
+    super.init();
+    deadline = getIntParameter(DEADLINE_PARAM, deadline);
+    if (service instanceof DatabaseConnectionService) {
+      ((DatabaseConnectionService) service).getAsyncTester().setDeadline(deadline);
+    }
+    int threads = getIntParameter(ASYNC_THREADS_PARAM, DEFAULT_ASYNC_THREADS);
+    if (getServletContext().getMajorVersion() < 3) {
+      // no startAsync before servlet 3.0
+      threads = 0;
+    }
+    if (threads > 0) {
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+          new ArrayBlockingQueue<Runnable>(threads * QUEUED_PER_THREAD), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable runnable) {
+              Thread thread = new Thread(runnable, "database-connection-rpc-" + count.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+      executor.allowCoreThreadTimeOut(true);
+      callExecutor = executor;
+    }
+  }
+
+  @Override
+  public void destroy() {
+    if (callExecutor != null) {
+      callExecutor.shutdownNow();
+    }
+    if (service instanceof DatabaseConnectionService) {
+      ((DatabaseConnectionService) service).getAsyncTester().shutdown();
+    }
+    super.destroy();
+  }
+
+  private int getIntParameter(String name, int defaultValue) {
+    String value = getInitParameter(name);
+    if (value == null || value.trim().length() == 0) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      logger.warn("Ignoring init parameter " + name + "=" + value + ", it is not a number");
+      return defaultValue;
+    }
+  }
+
+  /**
+   * Hands RPC posts to the call pool when the request allows async processing.
+   */
+  @Override
+  protected void service(HttpServletRequest request, HttpServletResponse response) throws ServletException,
+      IOException {
+    ExecutorService executor = callExecutor;
+    if (executor == null || !"POST".equals(request.getMethod()) || !request.isAsyncSupported()) {
+      super.service(request, response);
+      return;
+    }
+    final AsyncContext context = request.startAsync();
+    // whoever gets here first answers the call; nothing else touches the response after that
+    final AtomicBoolean finished = new AtomicBoolean();
+    context.setTimeout(deadline > 0 ? TimeUnit.SECONDS.toMillis(deadline) + ASYNC_TIMEOUT_MARGIN : 0);
+    context.addListener(new AsyncListener() {
+      public void onTimeout(AsyncEvent event) throws IOException {
+        if (finished.compareAndSet(false, true)) {
+          logger.warn("No response to a database connection call after " + deadline + " seconds");
+          fail(event.getAsyncContext(), HttpServletResponse.SC_GATEWAY_TIMEOUT);
+        }
+      }
+
+      public void onError(AsyncEvent event) {
+        finished.set(true);
+      }
+
+      public void onComplete(AsyncEvent event) {
+      }
+
+      public void onStartAsync(AsyncEvent event) {
+      }
+    });
+    try {
+      executor.execute(new Runnable() {
+        public void run() {
+          call(context, finished);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      if (finished.compareAndSet(false, true)) {
+        logger.warn("Too many database connection calls waiting, refusing one");
+        fail(context, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      }
+    }
+  }
+
+  /**
+   * Serves a call the stock way into a buffer, then writes the buffer unless the call was answered already, by its
+   * timeout for instance.
+   */
+  private void call(AsyncContext context, AtomicBoolean finished) {
+    HttpServletResponse response = (HttpServletResponse) context.getResponse();
+    BufferedResponse buffer = new BufferedResponse(response);
+    try {
+      // unexpected failures are written to the buffer by the stock processing too
+      super.service((HttpServletRequest) context.getRequest(), buffer);
+    } catch (ServletException | IOException | RuntimeException e) {
+      logger.error("Database connection call failed", e);
+      buffer.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+    }
+    if (!finished.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      buffer.writeTo(response);
+    } catch (IOException e) {
+      logger.error("Could not send the response to a database connection call", e);
+    } finally {
+      context.complete();
+    }
+  }
+
+  private static void fail(AsyncContext context, int status) throws IOException {
+    try {
+      HttpServletResponse response = (HttpServletResponse) context.getResponse();
+      if (!response.isCommitted()) {
+        response.sendError(status);
+      }
+    } finally {
+      context.complete();
+    }
+  }
+
+  /**
+   * @return the result of a call of the asynchronous service, waiting for it on the calling thread
+   */
+  private static <T> T await(CompletableFuture<T> result) {
+    try {
+      return result.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Holds everything written to a response until it is known that nothing else answered the call.
+   */
+  private static class BufferedResponse extends HttpServletResponseWrapper {
+
+    private interface Call {
+      void on(HttpServletResponse response) throws IOException;
+    }
+
+    private final List<Call> calls = new ArrayList<Call>();
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private ServletOutputStream out;
+    private PrintWriter writer;
+    private String characterEncoding = "ISO-8859-1";
+
+    BufferedResponse(HttpServletResponse response) {
+      super(response);
+    }
+
+    @Override
+    public void setStatus(int status) {
+      calls.add(response -> response.setStatus(status));
+    }
+
+    @Override
+    public void sendError(int status) {
+      calls.add(response -> response.sendError(status));
+    }
+
+    @Override
+    public void sendError(int status, String message) {
+      calls.add(response -> response.sendError(status, message));
+    }
+
+    @Override
+    public void setContentType(String type) {
+      calls.add(response -> response.setContentType(type));
+    }
+
+    @Override
+    public void setContentLength(int length) {
+      calls.add(response -> response.setContentLength(length));
+    }
+
+    @Override
+    public void setCharacterEncoding(String encoding) {
+      characterEncoding = encoding;
+      calls.add(response -> response.setCharacterEncoding(encoding));
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+      calls.add(response -> response.setHeader(name, value));
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+      calls.add(response -> response.addHeader(name, value));
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+      calls.add(response -> response.setIntHeader(name, value));
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+      calls.add(response -> response.addIntHeader(name, value));
+    }
+
+    @Override
+    public void setDateHeader(String name, long value) {
+      calls.add(response -> response.setDateHeader(name, value));
+    }
+
+    @Override
+    public void addDateHeader(String name, long value) {
+      calls.add(response -> response.addDateHeader(name, value));
+    }
+
+    @Override
+    public boolean isCommitted() {
+      return false;
+    }
+
+    @Override
+    public void flushBuffer() {
+    }
+
+    @Override
+    public void resetBuffer() {
+      body.reset();
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+      if (out == null) {
+        out = new ServletOutputStream() {
+          @Override
+          public void write(int b) {
+            body.write(b);
+          }
+
+          @Override
+          public void write(byte[] b, int off, int len) {
+            body.write(b, off, len);
+          }
+        };
+      }
+      return out;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws UnsupportedEncodingException {
+      if (writer == null) {
+        writer = new PrintWriter(new OutputStreamWriter(body, characterEncoding));
+      }
+      return writer;
+    }
+
+    void writeTo(HttpServletResponse response) throws IOException {
+      if (writer != null) {
+        writer.flush();
+      }
+      for (Call call : calls) {
+        call.on(response);
+      }
+      if (body.size() > 0) {
+        body.writeTo(response.getOutputStream());
+      }
+    }
+  }
+
   public List<String> checkParameters(IDatabaseConnection connection) {
+    if (service instanceof IAsyncDatabaseConnectionService) {
+      return await(((IAsyncDatabaseConnectionService) service).checkParametersAsync(connection));
+    }
     return service.checkParameters(connection);
   }
 
@@ -40,8 +400,25 @@ public class GwtDatabaseConnectionServlet extends RemoteServiceServlet implement
   }
 
   public String testConnection(IDatabaseConnection connection) {
+    if (service instanceof IAsyncDatabaseConnectionService) {
+      return await(((IAsyncDatabaseConnectionService) service).testConnectionAsync(connection));
+    }
     return service.testConnection(connection);
   }
+
+  public List<String> testConnections(List<IDatabaseConnection> connections) {
+    if (service instanceof IAsyncDatabaseConnectionService) {
+      return await(((IAsyncDatabaseConnectionService) service).testConnectionsAsync(connections));
+    }
+    return service.testConnections(connections);
+  }
+
+  public IConnectionValidationResult validateConnection(IDatabaseConnection connection, boolean test) {
+    if (service instanceof IAsyncDatabaseConnectionService) {
+      return await(((IAsyncDatabaseConnectionService) service).validateConnectionAsync(connection, test));
+    }
+    return service.validateConnection(connection, test);
+  }
   
   public DatabaseConnection getBogoDatabase() {
     return null;
@@ -12,7 +12,7 @@
 * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
 * See the GNU Lesser General Public License for more details.
 *
-* Copyright (c) 2002-2017 Hitachi Vantara..  All rights reserved.
+* Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
 */
 
 package org.pentaho.ui.database.gwt;
@@ -21,6 +21,7 @@ import java.util.List;
 
 import org.pentaho.database.model.DatabaseConnection;
 import org.pentaho.database.model.DatabaseConnectionPoolParameter;
+import org.pentaho.database.model.IConnectionValidationResult;
 import org.pentaho.database.model.IDatabaseConnection;
 
 import com.google.gwt.user.client.rpc.AsyncCallback;
@@ -31,6 +32,11 @@ public interface IGwtDatabaseConnectionServiceAsync {
 
   void testConnection(IDatabaseConnection connection, AsyncCallback<String> callback);
 
+  void testConnections(List<IDatabaseConnection> connections, AsyncCallback<List<String>> callback);
+
+  void validateConnection(IDatabaseConnection connection, boolean test,
+      AsyncCallback<IConnectionValidationResult> callback);
+
   void getPoolingParameters(AsyncCallback<DatabaseConnectionPoolParameter[]> callback);
 
   void createDatabaseConnection(String driver, String url, AsyncCallback<DatabaseConnection> callback );
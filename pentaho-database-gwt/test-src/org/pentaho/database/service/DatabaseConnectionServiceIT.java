@@ -22,6 +22,7 @@ import org.junit.Test;
 import org.pentaho.database.dialect.GenericDatabaseDialect;
 import org.pentaho.database.dialect.MSSQLServerNativeDatabaseDialect;
 import org.pentaho.database.model.DatabaseAccessType;
+import org.pentaho.database.model.IConnectionValidationResult;
 import org.pentaho.database.model.IDatabaseConnection;
 import org.pentaho.database.util.DatabaseTypeHelper;
 import org.pentaho.di.core.KettleEnvironment;
@@ -41,6 +42,26 @@ public class DatabaseConnectionServiceIT {
     dbmeta.setServername( "test" ); //(true);
   }
 
+  @Test
+  public void testValidateConnectionReportsParameterErrorsWithoutTesting() throws Exception {
+    KettleEnvironment.init( false );
+    DatabaseConnectionService connectionService = new DatabaseConnectionService();
+    IDatabaseConnection conn = connectionService.createDatabaseConnection(
+        "org.gjt.mm.mysql.Driver", "jdbc:mysql://localhost:1234/testdb" );
+    conn.setName( null );
+
+    IConnectionValidationResult result = connectionService.validateConnection( conn, true );
+    Assert.assertFalse( result.isSuccess() );
+    Assert.assertFalse( result.isTested() );
+    Assert.assertEquals( connectionService.checkParameters( conn ), result.getParameterErrors() );
+    Assert.assertNull( result.getTestMessage() );
+
+    conn.setName( "test" );
+    result = connectionService.validateConnectionAsync( conn, false ).get();
+    Assert.assertTrue( result.isSuccess() );
+    Assert.assertFalse( result.isTested() );
+  }
+
   @Test
   public void testCreateGenericConnection() throws Exception {
     DatabaseDialectService dialectService = new DatabaseDialectService();
@@ -0,0 +1,73 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database;
+
+/**
+ * A native bulk load or extract statement, with where its data goes through and the format of that data.
+ */
+public final class BulkCommand {
+
+  /**
+   * Where the data of a bulk command goes through.
+   */
+  public enum Channel {
+    /** Streamed to the server over the connection, with the driver's copy API */
+    STDIN,
+    /** Streamed from the server over the connection, with the driver's copy API */
+    STDOUT,
+    /** A file on the client that the driver sends, such as a LOCAL INFILE */
+    CLIENT_FILE,
+    /** A file the database server reads or writes itself */
+    SERVER_FILE,
+    /** Object storage the database reads or writes, such as S3; the caller adds the authorization */
+    OBJECT_STORE
+  }
+
+  private final String sql;
+  private final Channel channel;
+  private final BulkFormat format;
+
+  public BulkCommand( String sql, Channel channel, BulkFormat format ) {
+    this.sql = sql;
+    this.channel = channel;
+    this.format = format;
+  }
+
+  /**
+   * @return the statement to run
+   */
+  public String getSql() {
+    return sql;
+  }
+
+  public Channel getChannel() {
+    return channel;
+  }
+
+  /**
+   * @return the format of the data going through the channel
+   */
+  public BulkFormat getFormat() {
+    return format;
+  }
+
+  @Override
+  public String toString() {
+    return "BulkCommand [sql=" + sql + ", channel=" + channel //$NON-NLS-1$ //$NON-NLS-2$
+        + ", format=" + format + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+  }
+}
@@ -0,0 +1,224 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The layout of the delimited text a database's native bulk load or extract reads or writes: the field delimiter,
+ * the record separator, how a null is written, and the escape character that makes the delimiter, line breaks and
+ * itself literal. The escape character goes right before the character it escapes, which every database here reads
+ * back as that character. A format without an escape character cannot carry values containing the delimiter or line
+ * breaks.
+ */
+public final class BulkFormat {
+
+  /**
+   * No escape character.
+   */
+  public static final char NO_ESCAPE = 0;
+
+  /**
+   * Tab delimited lines, nulls written as \N and backslash escapes: the text format of PostgreSQL COPY and the
+   * defaults of MySQL LOAD DATA.
+   */
+  public static final BulkFormat TEXT =
+      new BulkFormat( '\t', "\n", "\\N", '\\', "UTF-8" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+  private final char delimiter;
+  private final String recordSeparator;
+  private final String nullValue;
+  private final char escape;
+  private final String encoding;
+
+  /**
+   * @param delimiter
+   *          separates the fields of a record
+   * @param recordSeparator
+   *          ends each record
+   * @param nullValue
+   *          stands for a null field
+   * @param escape
+   *          makes the next character literal, or {@link #NO_ESCAPE}
+   * @param encoding
+   *          the character set name of the text
+   */
+  public BulkFormat( char delimiter, String recordSeparator, String nullValue, char escape, String encoding ) {
+    this.delimiter = delimiter;
+    this.recordSeparator = recordSeparator;
+    this.nullValue = nullValue;
+    this.escape = escape;
+    this.encoding = encoding;
+  }
+
+  public char getDelimiter() {
+    return delimiter;
+  }
+
+  public String getRecordSeparator() {
+    return recordSeparator;
+  }
+
+  public String getNullValue() {
+    return nullValue;
+  }
+
+  /**
+   * @return the escape character, or {@link #NO_ESCAPE}
+   */
+  public char getEscape() {
+    return escape;
+  }
+
+  public String getEncoding() {
+    return encoding;
+  }
+
+  /**
+   * Appends a field, escaped as needed; a null field is written as the null value.
+   * 
+   * @throws IllegalArgumentException
+   *           if the value needs escaping and there is no escape character, or a value without one reads as null
+   */
+  public void appendField( StringBuilder out, String value ) {
+    if ( value == null ) {
+      out.append( nullValue );
+      return;
+    }
+    if ( escape == NO_ESCAPE && value.equals( nullValue ) ) {
+      throw new IllegalArgumentException( "The value " + value + " would be read as null" ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    for ( int i = 0; i < value.length(); i++ ) {
+      char c = value.charAt( i );
+      if ( c == delimiter || c == '\n' || c == '\r' || ( c == escape && escape != NO_ESCAPE ) ) {
+        if ( escape == NO_ESCAPE ) {
+          throw new IllegalArgumentException(
+              "Values with delimiters or line breaks cannot be written without an escape character" ); //$NON-NLS-1$
+        }
+        out.append( escape );
+      }
+      out.append( c );
+    }
+  }
+
+  /**
+   * Appends the fields as one record, with the record separator.
+   */
+  public void appendRecord( StringBuilder out, List<String> values ) {
+    for ( int i = 0; i < values.size(); i++ ) {
+      if ( i > 0 ) {
+        out.append( delimiter );
+      }
+      appendField( out, values.get( i ) );
+    }
+    out.append( recordSeparator );
+  }
+
+  /**
+   * Parses the record that starts at the offset into its fields, so that output can be parsed as it arrives: when the
+   * text holds no complete record from the offset, nothing is added and the caller reads more. A field that is the
+   * null value is null. A backslash escape also reads the C style sequences \0, \b, \f, \n, \r, \t and \v that
+   * databases write on extract.
+   * 
+   * @param text
+   *          the text read so far
+   * @param start
+   *          the offset of the record
+   * @param fields
+   *          receives the fields of the record
+   * @return the offset after the record separator, or -1 if the record is not complete yet
+   */
+  public int parseRecord( CharSequence text, int start, List<String> fields ) {
+    List<String> parsed = new ArrayList<String>();
+    StringBuilder field = new StringBuilder();
+    int fieldStart = start;
+    int i = start;
+    while ( i < text.length() ) {
+      char c = text.charAt( i );
+      if ( c == escape && escape != NO_ESCAPE ) {
+        if ( i + 1 == text.length() ) {
+          return -1;
+        }
+        field.append( unescape( text.charAt( i + 1 ) ) );
+        i += 2;
+      } else if ( c == delimiter ) {
+        parsed.add( toField( text, fieldStart, i, field ) );
+        field.setLength( 0 );
+        fieldStart = ++i;
+      } else if ( startsWith( text, i, recordSeparator ) ) {
+        parsed.add( toField( text, fieldStart, i, field ) );
+        fields.addAll( parsed );
+        return i + recordSeparator.length();
+      } else {
+        field.append( c );
+        i++;
+      }
+    }
+    return -1;
+  }
+
+  private char unescape( char c ) {
+    if ( escape != '\\' ) {
+      return c;
+    }
+    switch ( c ) {
+      case '0':
+        return 0;
+      case 'b':
+        return '\b';
+      case 'f':
+        return '\f';
+      case 'n':
+        return '\n';
+      case 'r':
+        return '\r';
+      case 't':
+        return '\t';
+      case 'v':
+        return 11;
+      default:
+        return c;
+    }
+  }
+
+  private String toField( CharSequence text, int start, int end, StringBuilder field ) {
+    // an escaped null value is a value, so the raw text is compared
+    if ( end - start == nullValue.length() && startsWith( text, start, nullValue ) ) {
+      return null;
+    }
+    return field.toString();
+  }
+
+  private static boolean startsWith( CharSequence text, int offset, String prefix ) {
+    if ( offset + prefix.length() > text.length() ) {
+      return false;
+    }
+    for ( int i = 0; i < prefix.length(); i++ ) {
+      if ( text.charAt( offset + i ) != prefix.charAt( i ) ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return "BulkFormat [delimiter=" + delimiter + ", nullValue=" + nullValue //$NON-NLS-1$ //$NON-NLS-2$
+        + ", escape=" + escape + ", encoding=" + encoding + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+  }
+}
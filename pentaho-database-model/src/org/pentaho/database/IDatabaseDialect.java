@@ -16,6 +16,8 @@
  */
 package org.pentaho.database;
 
+import java.util.List;
+
 import org.pentaho.database.model.IDatabaseConnection;
 import org.pentaho.database.model.IDatabaseType;
 
@@ -43,8 +45,54 @@ public interface IDatabaseDialect {
    */
   boolean supportsAutoInc();
 
+  /**
+   * @param nrRows
+   *          the most rows to return
+   * @return the clause that caps the rows of a SELECT from a single table without a WHERE clause; use
+   *         {@link #getPagedQuery(String, String, long, int)} to page through any other query
+   */
   String getLimitClause( int nrRows );
 
+  /**
+   * Wraps a query so that it returns one page of its rows, such as with LIMIT and OFFSET, OFFSET FETCH, TOP or a
+   * ROWNUM subquery. Deep pages still make the database skip the rows before them; use
+   * {@link #getKeysetPagedQuery(String, List, boolean, int)} to page through large tables.
+   * 
+   * @param query
+   *          the SELECT statement to page through, without an ORDER BY clause; a query that the dialect wraps as a
+   *          derived table must name all its columns
+   * @param orderBy
+   *          the ORDER BY list in terms of the columns of the query, or null for no order. Pages are only stable
+   *          over a unique order.
+   * @param offset
+   *          the number of rows to skip
+   * @param limit
+   *          the most rows to return
+   * @return the paged query
+   * @throws IllegalArgumentException
+   *           if the offset is negative, the limit is not positive, or the database needs an order to skip rows and
+   *           there is none
+   */
+  String getPagedQuery( String query, String orderBy, long offset, int limit );
+
+  /**
+   * Wraps a query so that it returns the page of rows after a key, in the ascending order of the key columns (seek
+   * pagination): an index on the key reaches any page without reading the ones before it. The key must be unique and
+   * not null. The parameters are the key of the last row of the previous page: every key column twice in order, and
+   * the last one once, so (a, b) binds a, a, b.
+   * 
+   * @param query
+   *          the SELECT statement to page through, without an ORDER BY clause, which names all its columns
+   * @param keyColumns
+   *          the columns of the key, in order
+   * @param afterKey
+   *          false for the first page, which has no parameters
+   * @param limit
+   *          the most rows to return
+   * @return the paged query
+   */
+  String getKeysetPagedQuery( String query, List<String> keyColumns, boolean afterKey, int limit );
+
   int getNotFoundTK( boolean use_autoinc );
 
   /**
@@ -56,6 +104,18 @@ public interface IDatabaseDialect {
    */
   String getSQLNextSequenceValue( String sequenceName );
 
+  /**
+   * Get the SQL that fetches several next values of a sequence in one round trip, one per row. Other sessions draw on
+   * the sequence at the same time, so the values need not be consecutive.
+   * 
+   * @param sequenceName
+   *          The sequence name
+   * @param count
+   *          the number of values to fetch
+   * @return the SQL to get the next values of a sequence, or an empty string if the database cannot fetch several
+   */
+  String getSQLNextSequenceValues( String sequenceName, int count );
+
   /**
    * Get the current value of a database sequence
    * 
@@ -203,6 +263,27 @@ public interface IDatabaseDialect {
    */
   String[] getReservedWords();
 
+  /**
+   * @param word
+   *          the word to look up, case is ignored
+   * @return true if the word is one of {@link #getReservedWords()}
+   */
+  boolean isReservedWord( String word );
+
+  /**
+   * Applies the connection's identifier settings to a table or column name: the name is folded to lower or upper case
+   * when the connection forces it, and wrapped in {@link #getStartQuote()} / {@link #getEndQuote()} when the
+   * connection quotes all fields, when it is a reserved word or when it contains characters that are not allowed in a
+   * plain identifier. Names that are already quoted are returned as is.
+   * 
+   * @param connection
+   *          the connection supplying the quoting and case settings, may be null
+   * @param identifier
+   *          the table or column name
+   * @return the identifier as it should appear in SQL, the same instance if nothing had to change
+   */
+  String quoteIdentifierIfNeeded( IDatabaseConnection connection, String identifier );
+
   /**
    * @return true if reserved words need to be double quoted ("password", "select", ...)
    */
@@ -223,6 +304,11 @@ public interface IDatabaseDialect {
    */
   boolean supportsRepository();
 
+  /**
+   * @return true if a connection to this type of database needs the name of the database, unless it is partitioned.
+   */
+  boolean requiresDatabaseName();
+
   /**
    * @return a list of table types to retrieve tables for the database
    */
@@ -356,6 +442,130 @@ public interface IDatabaseDialect {
   String getFieldDefinition( IValueMeta v, String tk, String pk, boolean use_autoinc, boolean add_fieldname,
       boolean add_cr );
 
+  /**
+   * Appends the statement returned by
+   * {@link #getAddColumnStatement(String, IValueMeta, String, boolean, String, boolean)} to the given buffer, so that
+   * callers generating DDL for many columns can reuse a single buffer.
+   * 
+   * @param sql
+   *          the buffer to append to
+   */
+  void appendAddColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk, boolean use_autoinc,
+      String pk, boolean semicolon );
+
+  /**
+   * Appends the statement returned by
+   * {@link #getModifyColumnStatement(String, IValueMeta, String, boolean, String, boolean)} to the given buffer.
+   * 
+   * @param sql
+   *          the buffer to append to
+   */
+  void appendModifyColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk, boolean use_autoinc,
+      String pk, boolean semicolon );
+
+  /**
+   * @return the most rows one INSERT statement may carry; 1 if the database inserts a single row per statement
+   */
+  int getMaxInsertRows();
+
+  /**
+   * @return the most bind parameters one statement may have, or 0 if there is no limit that matters
+   */
+  int getMaxBindParameters();
+
+  /**
+   * @param columnCount
+   *          the number of columns inserted
+   * @return the most rows one INSERT of that many columns may carry within both {@link #getMaxInsertRows()} and
+   *         {@link #getMaxBindParameters()}; at least 1
+   */
+  int getInsertBatchSize( int columnCount );
+
+  /**
+   * Get an INSERT statement for several rows, with a ? parameter for each value: the values of the first row in the
+   * order of the columns, then those of the next row.
+   * 
+   * @param tablename
+   *          the table to insert into, quoted as needed
+   * @param columns
+   *          the columns to insert, their names quoted as needed
+   * @param rows
+   *          the number of rows, 1 to {@link #getInsertBatchSize(int)}
+   * @return the INSERT statement
+   * @throws IllegalArgumentException
+   *           if the rows do not fit one statement
+   */
+  String getMultiRowInsertStatement( String tablename, List<IValueMeta> columns, int rows );
+
+  /**
+   * Appends the statement returned by {@link #getMultiRowInsertStatement(String, List, int)} to the given buffer.
+   * 
+   * @param sql
+   *          the buffer to append to
+   */
+  void appendMultiRowInsertStatement( StringBuilder sql, String tablename, List<IValueMeta> columns, int rows );
+
+  /**
+   * Get the INSERT statements for any number of rows, split at the limits of the database: as many statements of
+   * {@link #getInsertBatchSize(int)} rows as fit, then one for the rest. The full size statements are the same
+   * instance.
+   * 
+   * @param totalRows
+   *          the number of rows to insert
+   * @return the statements, in the order the rows are to be bound
+   */
+  List<String> getMultiRowInsertStatements( String tablename, List<IValueMeta> columns, int totalRows );
+
+  /**
+   * @return true if the database has a native bulk load that {@link #getBulkLoadCommand(String, List, String)} can
+   *         generate; callers fall back to {@link #getMultiRowInsertStatements(String, List, int)} when it has not
+   */
+  boolean supportsBulkLoad();
+
+  /**
+   * Get the native bulk load statement for the columns of a table, such as COPY or LOAD DATA. The data goes through
+   * the channel of the command, in its format, with the fields in the order of the columns.
+   * 
+   * @param tablename
+   *          the table to load
+   * @param columns
+   *          the columns the data holds
+   * @param location
+   *          the file or object store location the data is read from; ignored by commands that stream it over the
+   *          connection
+   * @return the command, or null if the database has no bulk load
+   */
+  BulkCommand getBulkLoadCommand( String tablename, List<IValueMeta> columns, String location );
+
+  /**
+   * @return true if the database has a native bulk extract that {@link #getBulkExtractCommand(String, String)} can
+   *         generate; callers fall back to reading a result set when it has not
+   */
+  boolean supportsBulkExtract();
+
+  /**
+   * Get the native bulk extract statement for a query, such as COPY TO STDOUT or UNLOAD. The rows come through the
+   * channel of the command, in its format, which {@link BulkFormat#parseRecord(CharSequence, int, List)} reads.
+   * 
+   * @param query
+   *          the SELECT statement whose rows are extracted
+   * @param location
+   *          the file or object store location the rows are written to; ignored by commands that stream them over
+   *          the connection
+   * @return the command, or null if the database has no bulk extract
+   */
+  BulkCommand getBulkExtractCommand( String query, String location );
+
+  /**
+   * Appends the column definition returned by
+   * {@link #getFieldDefinition(IValueMeta, String, String, boolean, boolean, boolean)} to the given buffer.
+   * 
+   * @param sql
+   *          the buffer to append to
+   */
+  void appendFieldDefinition( StringBuilder sql, IValueMeta v, String tk, String pk, boolean use_autoinc,
+      boolean add_fieldname, boolean add_cr );
+
   String getExtraOptionsHelpText();
 
   String[] getUsedLibraries();
@@ -0,0 +1,432 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.codec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pentaho.database.model.DatabaseAccessType;
+import org.pentaho.database.model.DatabaseConnection;
+import org.pentaho.database.model.DatabaseType;
+import org.pentaho.database.model.ExtraOptions;
+import org.pentaho.database.model.IDatabaseConnection;
+import org.pentaho.database.model.IDatabaseType;
+import org.pentaho.database.model.PartitionDatabaseMeta;
+
+/**
+ * Compact, versioned binary format for storing connection catalogs and replicating them between cluster nodes.
+ * 
+ * A catalog starts with the {@link #MAGIC} number and the format {@link #VERSION}, followed by the number of
+ * connections and the connections themselves. Numbers are variable-length, strings are UTF-8, and a string seen
+ * before in the same catalog is written as a reference to its first occurrence, so host names, type codes and option
+ * keys repeated across connections cost a byte or two. Fields are written in a fixed order; a later version only
+ * appends fields, so a reader can tell from the version which ones are present.
+ */
+public class DatabaseConnectionBinaryCodec {
+  /**
+   * "PDBC"
+   */
+  public static final int MAGIC = 0x50444243;
+
+  public static final int VERSION = 1;
+
+  private static final int STREAMING_RESULTS = 1;
+  private static final int USING_DOUBLE_DECIMAL_AS_SCHEMA_TABLE_SEPARATOR = 1 << 1;
+  private static final int CHANGED = 1 << 2;
+  private static final int QUOTE_ALL_FIELDS = 1 << 3;
+  private static final int FORCING_IDENTIFIERS_TO_LOWER_CASE = 1 << 4;
+  private static final int FORCING_IDENTIFIERS_TO_UPPER_CASE = 1 << 5;
+  private static final int USING_CONNECTION_POOL = 1 << 6;
+  private static final int PARTITIONED = 1 << 7;
+
+  public void write( IDatabaseConnection connection, OutputStream out ) throws IOException {
+    writeCatalog( Collections.singletonList( connection ), out );
+  }
+
+  /**
+   * @return the first connection of the catalog
+   */
+  public DatabaseConnection read( InputStream in ) throws IOException {
+    List<DatabaseConnection> connections = readCatalog( in );
+    if ( connections.isEmpty() ) {
+      throw new IOException( "The catalog holds no connection" );
+    }
+    return connections.get( 0 );
+  }
+
+  public void writeCatalog( Collection<? extends IDatabaseConnection> connections, OutputStream out )
+    throws IOException {
+    Output output = new Output( out );
+    output.writeInt( MAGIC );
+    output.writeVarInt( VERSION );
+    output.writeVarInt( connections.size() );
+    for ( IDatabaseConnection connection : connections ) {
+      writeConnection( output, connection );
+    }
+    output.flush();
+  }
+
+  public List<DatabaseConnection> readCatalog( InputStream in ) throws IOException {
+    Input input = new Input( in );
+    if ( input.readInt() != MAGIC ) {
+      throw new IOException( "Not a database connection catalog" );
+    }
+    int version = input.readVarInt();
+    if ( version < 1 || version > VERSION ) {
+      throw new IOException( "Unsupported database connection catalog version " + version );
+    }
+    int count = input.readVarInt();
+    List<DatabaseConnection> connections = new ArrayList<DatabaseConnection>( Math.min( count, 1024 ) );
+    for ( int i = 0; i < count; i++ ) {
+      connections.add( readConnection( input, version ) );
+    }
+    return connections;
+  }
+
+  private void writeConnection( Output out, IDatabaseConnection connection ) throws IOException {
+    out.writeString( connection.getId() );
+    out.writeString( connection.getName() );
+    out.writeString( connection.getAccessType() == null ? null : connection.getAccessType().name() );
+    writeDatabaseType( out, connection.getDatabaseType() );
+    out.writeString( connection.getHostname() );
+    out.writeString( connection.getDatabaseName() );
+    out.writeString( connection.getDatabasePort() );
+    out.writeString( connection.getUsername() );
+    out.writeString( connection.getPassword() );
+    out.writeString( connection.getDataTablespace() );
+    out.writeString( connection.getIndexTablespace() );
+    out.writeString( connection.getInformixServername() );
+    out.writeString( connection.getConnectSql() );
+    int flags = 0;
+    flags |= connection.isStreamingResults() ? STREAMING_RESULTS : 0;
+    flags |= connection.isUsingDoubleDecimalAsSchemaTableSeparator()
+      ? USING_DOUBLE_DECIMAL_AS_SCHEMA_TABLE_SEPARATOR : 0;
+    flags |= connection.getChanged() ? CHANGED : 0;
+    flags |= connection.isQuoteAllFields() ? QUOTE_ALL_FIELDS : 0;
+    flags |= connection.isForcingIdentifiersToLowerCase() ? FORCING_IDENTIFIERS_TO_LOWER_CASE : 0;
+    flags |= connection.isForcingIdentifiersToUpperCase() ? FORCING_IDENTIFIERS_TO_UPPER_CASE : 0;
+    flags |= connection.isUsingConnectionPool() ? USING_CONNECTION_POOL : 0;
+    flags |= connection.isPartitioned() ? PARTITIONED : 0;
+    out.writeVarInt( flags );
+    out.writeSignedVarInt( connection.getInitialPoolSize() );
+    out.writeSignedVarInt( connection.getMaximumPoolSize() );
+    out.writeMap( connection.getExtraOptions() );
+    out.writeMap( connection.getExtraOptionsOrder() );
+    out.writeMap( connection.getAttributes() );
+    out.writeMap( connection.getConnectionPoolingProperties() );
+    List<PartitionDatabaseMeta> partitions = connection.getPartitioningInformation();
+    out.writeVarInt( partitions == null ? 0 : partitions.size() + 1 );
+    if ( partitions != null ) {
+      for ( PartitionDatabaseMeta partition : partitions ) {
+        out.writeString( partition.getPartitionId() );
+        out.writeString( partition.getHostname() );
+        out.writeString( partition.getPort() );
+        out.writeString( partition.getDatabaseName() );
+        out.writeString( partition.getUsername() );
+        out.writeString( partition.getPassword() );
+      }
+    }
+  }
+
+  private DatabaseConnection readConnection( Input in, int version ) throws IOException {
+    DatabaseConnection connection = new DatabaseConnection();
+    connection.setId( in.readString() );
+    connection.setName( in.readString() );
+    String accessType = in.readString();
+    connection.setAccessType( accessType == null ? null : DatabaseAccessType.valueOf( accessType ) );
+    connection.setDatabaseType( readDatabaseType( in ) );
+    connection.setHostname( in.readString() );
+    connection.setDatabaseName( in.readString() );
+    connection.setDatabasePort( in.readString() );
+    connection.setUsername( in.readString() );
+    connection.setPassword( in.readString() );
+    connection.setDataTablespace( in.readString() );
+    connection.setIndexTablespace( in.readString() );
+    connection.setInformixServername( in.readString() );
+    connection.setConnectSql( in.readString() );
+    int flags = in.readVarInt();
+    connection.setStreamingResults( ( flags & STREAMING_RESULTS ) != 0 );
+    connection.setUsingDoubleDecimalAsSchemaTableSeparator(
+      ( flags & USING_DOUBLE_DECIMAL_AS_SCHEMA_TABLE_SEPARATOR ) != 0 );
+    connection.setChanged( ( flags & CHANGED ) != 0 );
+    connection.setQuoteAllFields( ( flags & QUOTE_ALL_FIELDS ) != 0 );
+    connection.setForcingIdentifiersToLowerCase( ( flags & FORCING_IDENTIFIERS_TO_LOWER_CASE ) != 0 );
+    connection.setForcingIdentifiersToUpperCase( ( flags & FORCING_IDENTIFIERS_TO_UPPER_CASE ) != 0 );
+    connection.setUsingConnectionPool( ( flags & USING_CONNECTION_POOL ) != 0 );
+    connection.setPartitioned( ( flags & PARTITIONED ) != 0 );
+    connection.setInitialPoolSize( in.readSignedVarInt() );
+    connection.setMaximumPoolSize( in.readSignedVarInt() );
+    Map<String, String> extraOptions = in.readMap( new ExtraOptions() );
+    connection.setExtraOptions( extraOptions == null ? new ExtraOptions() : extraOptions );
+    connection.setExtraOptionsOrder( in.readMap( new HashMap<String, String>() ) );
+    connection.setAttributes( in.readMap( new HashMap<String, String>() ) );
+    connection.setConnectionPoolingProperties( in.readMap( new HashMap<String, String>() ) );
+    int partitionCount = in.readVarInt() - 1;
+    if ( partitionCount >= 0 ) {
+      List<PartitionDatabaseMeta> partitions = new ArrayList<PartitionDatabaseMeta>( partitionCount );
+      for ( int i = 0; i < partitionCount; i++ ) {
+        PartitionDatabaseMeta partition =
+          new PartitionDatabaseMeta( in.readString(), in.readString(), in.readString(), in.readString() );
+        partition.setUsername( in.readString() );
+        partition.setPassword( in.readString() );
+        partitions.add( partition );
+      }
+      connection.setPartitioningInformation( partitions );
+    }
+    // fields added by later versions are read here, guarded by the version
+    return connection;
+  }
+
+  private void writeDatabaseType( Output out, IDatabaseType type ) throws IOException {
+    if ( type == null ) {
+      out.writeVarInt( 0 );
+      return;
+    }
+    out.writeVarInt( 1 );
+    out.writeString( type.getName() );
+    out.writeString( type.getShortName() );
+    List<DatabaseAccessType> accessTypes = type.getSupportedAccessTypes();
+    out.writeVarInt( accessTypes == null ? 0 : accessTypes.size() + 1 );
+    if ( accessTypes != null ) {
+      for ( DatabaseAccessType accessType : accessTypes ) {
+        out.writeString( accessType == null ? null : accessType.name() );
+      }
+    }
+    out.writeSignedVarInt( type.getDefaultDatabasePort() );
+    out.writeString( type.getExtraOptionsHelpUrl() );
+    out.writeString( type.getDefaultDatabaseName() );
+    out.writeMap( type.getDefaultOptions() );
+  }
+
+  private IDatabaseType readDatabaseType( Input in ) throws IOException {
+    if ( in.readVarInt() == 0 ) {
+      return null;
+    }
+    String name = in.readString();
+    String shortName = in.readString();
+    List<DatabaseAccessType> accessTypes = null;
+    int accessTypeCount = in.readVarInt() - 1;
+    if ( accessTypeCount >= 0 ) {
+      accessTypes = new ArrayList<DatabaseAccessType>( accessTypeCount );
+      for ( int i = 0; i < accessTypeCount; i++ ) {
+        String accessType = in.readString();
+        accessTypes.add( accessType == null ? null : DatabaseAccessType.valueOf( accessType ) );
+      }
+    }
+    int defaultPort = in.readSignedVarInt();
+    String extraOptionsHelpUrl = in.readString();
+    String defaultDatabaseName = in.readString();
+    Map<String, String> defaultOptions = in.readMap( new HashMap<String, String>() );
+    return new DatabaseType( name, shortName, accessTypes, defaultPort, extraOptionsHelpUrl, defaultDatabaseName,
+      defaultOptions );
+  }
+
+  /**
+   * Buffered output with the string table of the catalog being written.
+   */
+  private static final class Output {
+    private final OutputStream out;
+    private final byte[] buffer = new byte[8192];
+    private int position;
+    private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+    Output( OutputStream out ) {
+      this.out = out;
+    }
+
+    void writeInt( int value ) throws IOException {
+      ensure( 4 );
+      buffer[position++] = (byte) ( value >>> 24 );
+      buffer[position++] = (byte) ( value >>> 16 );
+      buffer[position++] = (byte) ( value >>> 8 );
+      buffer[position++] = (byte) value;
+    }
+
+    void writeVarInt( int value ) throws IOException {
+      ensure( 5 );
+      while ( ( value & ~0x7F ) != 0 ) {
+        buffer[position++] = (byte) ( ( value & 0x7F ) | 0x80 );
+        value >>>= 7;
+      }
+      buffer[position++] = (byte) value;
+    }
+
+    void writeSignedVarInt( int value ) throws IOException {
+      writeVarInt( ( value << 1 ) ^ ( value >> 31 ) );
+    }
+
+    /**
+     * Writes 0 for null, a reference {@code (index + 1) << 1} to a string written before, or {@code length << 1 | 1}
+     * followed by the UTF-8 bytes of a new string.
+     */
+    void writeString( String value ) throws IOException {
+      if ( value == null ) {
+        writeVarInt( 0 );
+        return;
+      }
+      Integer index = strings.get( value );
+      if ( index != null ) {
+        writeVarInt( ( index + 1 ) << 1 );
+        return;
+      }
+      strings.put( value, strings.size() );
+      byte[] bytes = value.getBytes( StandardCharsets.UTF_8 );
+      writeVarInt( ( bytes.length << 1 ) | 1 );
+      if ( bytes.length > buffer.length - position ) {
+        flushBuffer();
+        if ( bytes.length > buffer.length ) {
+          out.write( bytes );
+          return;
+        }
+      }
+      System.arraycopy( bytes, 0, buffer, position, bytes.length );
+      position += bytes.length;
+    }
+
+    void writeMap( Map<String, String> map ) throws IOException {
+      writeVarInt( map == null ? 0 : map.size() + 1 );
+      if ( map != null ) {
+        for ( Map.Entry<String, String> entry : map.entrySet() ) {
+          writeString( entry.getKey() );
+          writeString( entry.getValue() );
+        }
+      }
+    }
+
+    void flush() throws IOException {
+      flushBuffer();
+      out.flush();
+    }
+
+    private void ensure( int bytes ) throws IOException {
+      if ( buffer.length - position < bytes ) {
+        flushBuffer();
+      }
+    }
+
+    private void flushBuffer() throws IOException {
+      out.write( buffer, 0, position );
+      position = 0;
+    }
+  }
+
+  /**
+   * Buffered input with the string table of the catalog being read.
+   */
+  private static final class Input {
+    private final InputStream in;
+    private final byte[] buffer = new byte[8192];
+    private int position;
+    private int limit;
+    private final List<String> strings = new ArrayList<String>();
+
+    Input( InputStream in ) {
+      this.in = in;
+    }
+
+    int readInt() throws IOException {
+      return ( readByte() << 24 ) | ( readByte() << 16 ) | ( readByte() << 8 ) | readByte();
+    }
+
+    int readVarInt() throws IOException {
+      int value = 0;
+      for ( int shift = 0; shift < 35; shift += 7 ) {
+        int b = readByte();
+        value |= ( b & 0x7F ) << shift;
+        if ( ( b & 0x80 ) == 0 ) {
+          return value;
+        }
+      }
+      throw new IOException( "Malformed number in database connection catalog" );
+    }
+
+    int readSignedVarInt() throws IOException {
+      int value = readVarInt();
+      return ( value >>> 1 ) ^ -( value & 1 );
+    }
+
+    String readString() throws IOException {
+      int tag = readVarInt();
+      if ( tag == 0 ) {
+        return null;
+      }
+      if ( ( tag & 1 ) == 0 ) {
+        int index = ( tag >>> 1 ) - 1;
+        if ( index >= strings.size() ) {
+          throw new IOException( "Malformed string reference in database connection catalog" );
+        }
+        return strings.get( index );
+      }
+      int length = tag >>> 1;
+      String value;
+      if ( limit - position >= length ) {
+        value = new String( buffer, position, length, StandardCharsets.UTF_8 );
+        position += length;
+      } else {
+        byte[] bytes = new byte[length];
+        int copied = limit - position;
+        System.arraycopy( buffer, position, bytes, 0, copied );
+        position = limit;
+        while ( copied < length ) {
+          int read = in.read( bytes, copied, length - copied );
+          if ( read < 0 ) {
+            throw new EOFException( "Truncated database connection catalog" );
+          }
+          copied += read;
+        }
+        value = new String( bytes, StandardCharsets.UTF_8 );
+      }
+      strings.add( value );
+      return value;
+    }
+
+    /**
+     * @return the map filled with the entries read, or null if a null map was written
+     */
+    Map<String, String> readMap( Map<String, String> map ) throws IOException {
+      int size = readVarInt() - 1;
+      if ( size < 0 ) {
+        return null;
+      }
+      for ( int i = 0; i < size; i++ ) {
+        map.put( readString(), readString() );
+      }
+      return map;
+    }
+
+    private int readByte() throws IOException {
+      if ( position == limit ) {
+        limit = in.read( buffer, 0, buffer.length );
+        position = 0;
+        if ( limit <= 0 ) {
+          limit = 0;
+          throw new EOFException( "Truncated database connection catalog" );
+        }
+      }
+      return buffer[position++] & 0xFF;
+    }
+  }
+}
@@ -0,0 +1,420 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.codec;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pentaho.database.model.DatabaseAccessType;
+import org.pentaho.database.model.DatabaseConnection;
+import org.pentaho.database.model.DatabaseType;
+import org.pentaho.database.model.ExtraOptions;
+import org.pentaho.database.model.IDatabaseConnection;
+import org.pentaho.database.model.IDatabaseType;
+import org.pentaho.database.model.PartitionDatabaseMeta;
+
+/**
+ * Reads and writes connections as JSON in the format the GWT client's AutoBeanCodex uses for
+ * {@code IDatabaseConnection}: one property per bean property, enums by name, string maps as JSON objects, and
+ * properties without a value left out. A catalog is written like an {@code IDatabaseConnectionList} bean.
+ * 
+ * Everything is streamed; no reflection and no intermediate tree is involved. Unknown properties are skipped when
+ * reading, so documents written by a newer version can still be read.
+ */
+public class DatabaseConnectionJsonCodec {
+  static final String CATALOG_CONNECTIONS = "databaseConnections";
+
+  /**
+   * Writes one connection.
+   */
+  public void write( IDatabaseConnection connection, Writer out ) throws IOException {
+    JsonWriter json = new JsonWriter( out );
+    writeConnection( json, connection );
+    json.flush();
+  }
+
+  public String toJson( IDatabaseConnection connection ) throws IOException {
+    StringWriter out = new StringWriter( 1024 );
+    write( connection, out );
+    return out.toString();
+  }
+
+  /**
+   * Reads one connection.
+   */
+  public DatabaseConnection read( Reader in ) throws IOException {
+    JsonReader json = new JsonReader( in );
+    DatabaseConnection connection = readConnection( json );
+    json.endDocument();
+    return connection;
+  }
+
+  public DatabaseConnection fromJson( String json ) throws IOException {
+    return read( new StringReader( json ) );
+  }
+
+  /**
+   * Writes connections as {@code {"databaseConnections":[...]}}.
+   */
+  public void writeCatalog( Collection<? extends IDatabaseConnection> connections, Writer out ) throws IOException {
+    JsonWriter json = new JsonWriter( out );
+    json.beginObject().name( CATALOG_CONNECTIONS ).beginArray();
+    for ( IDatabaseConnection connection : connections ) {
+      writeConnection( json, connection );
+    }
+    json.endArray().endObject();
+    json.flush();
+  }
+
+  /**
+   * Reads connections written by {@link #writeCatalog(Collection, Writer)}.
+   */
+  public List<DatabaseConnection> readCatalog( Reader in ) throws IOException {
+    JsonReader json = new JsonReader( in );
+    List<DatabaseConnection> connections = new ArrayList<DatabaseConnection>();
+    json.beginObject();
+    while ( json.hasNext() ) {
+      if ( CATALOG_CONNECTIONS.equals( json.nextName() ) && !json.nextNull() ) {
+        json.beginArray();
+        while ( json.hasNext() ) {
+          connections.add( readConnection( json ) );
+        }
+        json.endArray();
+      } else {
+        json.skipValue();
+      }
+    }
+    json.endObject();
+    json.endDocument();
+    return connections;
+  }
+
+  public void write( PartitionDatabaseMeta partition, Writer out ) throws IOException {
+    JsonWriter json = new JsonWriter( out );
+    writePartition( json, partition );
+    json.flush();
+  }
+
+  public PartitionDatabaseMeta readPartition( Reader in ) throws IOException {
+    JsonReader json = new JsonReader( in );
+    PartitionDatabaseMeta partition = readPartition( json );
+    json.endDocument();
+    return partition;
+  }
+
+  private void writeConnection( JsonWriter json, IDatabaseConnection connection ) throws IOException {
+    json.beginObject();
+    string( json, "id", connection.getId() );
+    string( json, "name", connection.getName() );
+    if ( connection.getAccessType() != null ) {
+      json.name( "accessType" ).value( connection.getAccessType().name() );
+    }
+    if ( connection.getDatabaseType() != null ) {
+      json.name( "databaseType" );
+      writeDatabaseType( json, connection.getDatabaseType() );
+    }
+    string( json, "hostname", connection.getHostname() );
+    string( json, "databaseName", connection.getDatabaseName() );
+    string( json, "databasePort", connection.getDatabasePort() );
+    string( json, "username", connection.getUsername() );
+    string( json, "password", connection.getPassword() );
+    json.name( "streamingResults" ).value( connection.isStreamingResults() );
+    string( json, "dataTablespace", connection.getDataTablespace() );
+    string( json, "indexTablespace", connection.getIndexTablespace() );
+    string( json, "SQLServerInstance", connection.getSQLServerInstance() );
+    json.name( "usingDoubleDecimalAsSchemaTableSeparator" )
+      .value( connection.isUsingDoubleDecimalAsSchemaTableSeparator() );
+    string( json, "informixServername", connection.getInformixServername() );
+    map( json, "extraOptions", connection.getExtraOptions() );
+    map( json, "extraOptionsOrder", connection.getExtraOptionsOrder() );
+    map( json, "attributes", connection.getAttributes() );
+    json.name( "changed" ).value( connection.getChanged() );
+    json.name( "quoteAllFields" ).value( connection.isQuoteAllFields() );
+    json.name( "forcingIdentifiersToLowerCase" ).value( connection.isForcingIdentifiersToLowerCase() );
+    json.name( "forcingIdentifiersToUpperCase" ).value( connection.isForcingIdentifiersToUpperCase() );
+    string( json, "connectSql", connection.getConnectSql() );
+    json.name( "usingConnectionPool" ).value( connection.isUsingConnectionPool() );
+    json.name( "initialPoolSize" ).value( connection.getInitialPoolSize() );
+    json.name( "maximumPoolSize" ).value( connection.getMaximumPoolSize() );
+    json.name( "partitioned" ).value( connection.isPartitioned() );
+    map( json, "connectionPoolingProperties", connection.getConnectionPoolingProperties() );
+    List<PartitionDatabaseMeta> partitions = connection.getPartitioningInformation();
+    if ( partitions != null ) {
+      json.name( "partitioningInformation" ).beginArray();
+      for ( PartitionDatabaseMeta partition : partitions ) {
+        writePartition( json, partition );
+      }
+      json.endArray();
+    }
+    json.endObject();
+  }
+
+  private DatabaseConnection readConnection( JsonReader json ) throws IOException {
+    DatabaseConnection connection = new DatabaseConnection();
+    String sqlServerInstance = null;
+    json.beginObject();
+    while ( json.hasNext() ) {
+      String name = json.nextName();
+      switch ( name ) {
+        case "id":
+          connection.setId( json.nextString() );
+          break;
+        case "name":
+          connection.setName( json.nextString() );
+          break;
+        case "accessType":
+          String accessType = json.nextString();
+          connection.setAccessType( accessType == null ? null : DatabaseAccessType.valueOf( accessType ) );
+          break;
+        case "databaseType":
+          connection.setDatabaseType( json.nextNull() ? null : readDatabaseType( json ) );
+          break;
+        case "hostname":
+          connection.setHostname( json.nextString() );
+          break;
+        case "databaseName":
+          connection.setDatabaseName( json.nextString() );
+          break;
+        case "databasePort":
+          connection.setDatabasePort( json.nextString() );
+          break;
+        case "username":
+          connection.setUsername( json.nextString() );
+          break;
+        case "password":
+          connection.setPassword( json.nextString() );
+          break;
+        case "streamingResults":
+          connection.setStreamingResults( json.nextBoolean() );
+          break;
+        case "dataTablespace":
+          connection.setDataTablespace( json.nextString() );
+          break;
+        case "indexTablespace":
+          connection.setIndexTablespace( json.nextString() );
+          break;
+        case "SQLServerInstance":
+          sqlServerInstance = json.nextString();
+          break;
+        case "usingDoubleDecimalAsSchemaTableSeparator":
+          connection.setUsingDoubleDecimalAsSchemaTableSeparator( json.nextBoolean() );
+          break;
+        case "informixServername":
+          connection.setInformixServername( json.nextString() );
+          break;
+        case "extraOptions":
+          Map<String, String> extraOptions = readMap( json, new ExtraOptions() );
+          connection.setExtraOptions( extraOptions == null ? new ExtraOptions() : extraOptions );
+          break;
+        case "extraOptionsOrder":
+          connection.setExtraOptionsOrder( readMap( json, new HashMap<String, String>() ) );
+          break;
+        case "attributes":
+          connection.setAttributes( readMap( json, new HashMap<String, String>() ) );
+          break;
+        case "changed":
+          connection.setChanged( json.nextBoolean() );
+          break;
+        case "quoteAllFields":
+          connection.setQuoteAllFields( json.nextBoolean() );
+          break;
+        case "forcingIdentifiersToLowerCase":
+          connection.setForcingIdentifiersToLowerCase( json.nextBoolean() );
+          break;
+        case "forcingIdentifiersToUpperCase":
+          connection.setForcingIdentifiersToUpperCase( json.nextBoolean() );
+          break;
+        case "connectSql":
+          connection.setConnectSql( json.nextString() );
+          break;
+        case "usingConnectionPool":
+          connection.setUsingConnectionPool( json.nextBoolean() );
+          break;
+        case "initialPoolSize":
+          connection.setInitialPoolSize( json.nextInt() );
+          break;
+        case "maximumPoolSize":
+          connection.setMaximumPoolSize( json.nextInt() );
+          break;
+        case "partitioned":
+          connection.setPartitioned( json.nextBoolean() );
+          break;
+        case "connectionPoolingProperties":
+          connection.setConnectionPoolingProperties( readMap( json, new HashMap<String, String>() ) );
+          break;
+        case "partitioningInformation":
+          if ( !json.nextNull() ) {
+            List<PartitionDatabaseMeta> partitions = new ArrayList<PartitionDatabaseMeta>();
+            json.beginArray();
+            while ( json.hasNext() ) {
+              partitions.add( readPartition( json ) );
+            }
+            json.endArray();
+            connection.setPartitioningInformation( partitions );
+          }
+          break;
+        default:
+          json.skipValue();
+      }
+    }
+    json.endObject();
+    // the instance is an extra option as well; only needed if the options did not come with it
+    if ( sqlServerInstance != null && connection.getSQLServerInstance() == null ) {
+      connection.setSQLServerInstance( sqlServerInstance );
+    }
+    return connection;
+  }
+
+  private void writeDatabaseType( JsonWriter json, IDatabaseType type ) throws IOException {
+    json.beginObject();
+    string( json, "name", type.getName() );
+    string( json, "shortName", type.getShortName() );
+    if ( type.getSupportedAccessTypes() != null ) {
+      json.name( "supportedAccessTypes" ).beginArray();
+      for ( DatabaseAccessType accessType : type.getSupportedAccessTypes() ) {
+        json.value( accessType == null ? null : accessType.name() );
+      }
+      json.endArray();
+    }
+    json.name( "defaultDatabasePort" ).value( type.getDefaultDatabasePort() );
+    string( json, "defaultDatabaseName", type.getDefaultDatabaseName() );
+    map( json, "defaultOptions", type.getDefaultOptions() );
+    string( json, "extraOptionsHelpUrl", type.getExtraOptionsHelpUrl() );
+    json.endObject();
+  }
+
+  private IDatabaseType readDatabaseType( JsonReader json ) throws IOException {
+    String name = null;
+    String shortName = null;
+    List<DatabaseAccessType> accessTypes = null;
+    int defaultPort = 0;
+    String defaultDatabaseName = null;
+    Map<String, String> defaultOptions = null;
+    String extraOptionsHelpUrl = null;
+    json.beginObject();
+    while ( json.hasNext() ) {
+      String property = json.nextName();
+      if ( "name".equals( property ) ) {
+        name = json.nextString();
+      } else if ( "shortName".equals( property ) ) {
+        shortName = json.nextString();
+      } else if ( "supportedAccessTypes".equals( property ) ) {
+        if ( !json.nextNull() ) {
+          accessTypes = new ArrayList<DatabaseAccessType>();
+          json.beginArray();
+          while ( json.hasNext() ) {
+            String accessType = json.nextString();
+            accessTypes.add( accessType == null ? null : DatabaseAccessType.valueOf( accessType ) );
+          }
+          json.endArray();
+        }
+      } else if ( "defaultDatabasePort".equals( property ) ) {
+        defaultPort = json.nextInt();
+      } else if ( "defaultDatabaseName".equals( property ) ) {
+        defaultDatabaseName = json.nextString();
+      } else if ( "defaultOptions".equals( property ) ) {
+        defaultOptions = readMap( json, new HashMap<String, String>() );
+      } else if ( "extraOptionsHelpUrl".equals( property ) ) {
+        extraOptionsHelpUrl = json.nextString();
+      } else {
+        json.skipValue();
+      }
+    }
+    json.endObject();
+    return new DatabaseType( name, shortName, accessTypes, defaultPort, extraOptionsHelpUrl, defaultDatabaseName,
+      defaultOptions );
+  }
+
+  private void writePartition( JsonWriter json, PartitionDatabaseMeta partition ) throws IOException {
+    json.beginObject();
+    string( json, "partitionId", partition.getPartitionId() );
+    string( json, "hostname", partition.getHostname() );
+    string( json, "port", partition.getPort() );
+    string( json, "databaseName", partition.getDatabaseName() );
+    string( json, "username", partition.getUsername() );
+    string( json, "password", partition.getPassword() );
+    json.endObject();
+  }
+
+  private PartitionDatabaseMeta readPartition( JsonReader json ) throws IOException {
+    PartitionDatabaseMeta partition = new PartitionDatabaseMeta();
+    json.beginObject();
+    while ( json.hasNext() ) {
+      String property = json.nextName();
+      if ( "partitionId".equals( property ) ) {
+        partition.setPartitionId( json.nextString() );
+      } else if ( "hostname".equals( property ) ) {
+        partition.setHostname( json.nextString() );
+      } else if ( "port".equals( property ) ) {
+        partition.setPort( json.nextString() );
+      } else if ( "databaseName".equals( property ) ) {
+        partition.setDatabaseName( json.nextString() );
+      } else if ( "username".equals( property ) ) {
+        partition.setUsername( json.nextString() );
+      } else if ( "password".equals( property ) ) {
+        partition.setPassword( json.nextString() );
+      } else {
+        json.skipValue();
+      }
+    }
+    json.endObject();
+    return partition;
+  }
+
+  private static void string( JsonWriter json, String name, String value ) throws IOException {
+    if ( value != null ) {
+      json.name( name ).value( value );
+    }
+  }
+
+  private static void map( JsonWriter json, String name, Map<String, String> map ) throws IOException {
+    if ( map != null ) {
+      json.name( name ).beginObject();
+      for ( Map.Entry<String, String> entry : map.entrySet() ) {
+        // JSON has no null names; AutoBeanCodex cannot encode such an entry either
+        if ( entry.getKey() != null ) {
+          json.name( entry.getKey() ).value( entry.getValue() );
+        }
+      }
+      json.endObject();
+    }
+  }
+
+  /**
+   * @return the map filled from the JSON object, or null for a JSON {@code null}
+   */
+  private static Map<String, String> readMap( JsonReader json, Map<String, String> map ) throws IOException {
+    if ( json.nextNull() ) {
+      return null;
+    }
+    json.beginObject();
+    while ( json.hasNext() ) {
+      String key = json.nextName();
+      map.put( key, json.nextString() );
+    }
+    json.endObject();
+    return map;
+  }
+}
@@ -0,0 +1,285 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.codec;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Minimal streaming JSON reader. Callers walk the document with {@link #beginObject()}, {@link #hasNext()},
+ * {@link #nextName()} and the value methods, and {@link #skipValue()} whatever they do not know.
+ */
+final class JsonReader {
+  private final Reader in;
+  private final char[] buffer = new char[8192];
+  private int position;
+  private int limit;
+  private long consumed;
+  private final StringBuilder text = new StringBuilder();
+
+  JsonReader( Reader in ) {
+    this.in = in;
+  }
+
+  void beginObject() throws IOException {
+    expect( '{' );
+  }
+
+  void endObject() throws IOException {
+    expect( '}' );
+  }
+
+  void beginArray() throws IOException {
+    expect( '[' );
+  }
+
+  void endArray() throws IOException {
+    expect( ']' );
+  }
+
+  /**
+   * @return true if the current object or array has another member; consumes the comma before it
+   */
+  boolean hasNext() throws IOException {
+    int c = peekNonWhitespace();
+    if ( c == ',' ) {
+      position++;
+      c = peekNonWhitespace();
+    }
+    return c != '}' && c != ']' && c != -1;
+  }
+
+  String nextName() throws IOException {
+    if ( peekNonWhitespace() != '"' ) {
+      throw syntaxError( "Expected a property name" );
+    }
+    position++;
+    String name = readString();
+    expect( ':' );
+    return name;
+  }
+
+  /**
+   * @return true and consumes the value if it is {@code null}
+   */
+  boolean nextNull() throws IOException {
+    if ( peekNonWhitespace() == 'n' ) {
+      literal( "null" );
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @return the string, or null for a JSON {@code null}; numbers and booleans are returned as written
+   */
+  String nextString() throws IOException {
+    int c = peekNonWhitespace();
+    if ( c == '"' ) {
+      position++;
+      return readString();
+    }
+    if ( c == 'n' ) {
+      literal( "null" );
+      return null;
+    }
+    return readBare();
+  }
+
+  long nextLong() throws IOException {
+    String value = nextString();
+    try {
+      return value == null ? 0 : Long.parseLong( value );
+    } catch ( NumberFormatException e ) {
+      throw syntaxError( "Expected a number but was " + value );
+    }
+  }
+
+  int nextInt() throws IOException {
+    long value = nextLong();
+    if ( value != (int) value ) {
+      throw syntaxError( "Number out of range: " + value );
+    }
+    return (int) value;
+  }
+
+  boolean nextBoolean() throws IOException {
+    String value = nextString();
+    if ( "true".equals( value ) ) {
+      return true;
+    }
+    if ( "false".equals( value ) || value == null ) {
+      return false;
+    }
+    throw syntaxError( "Expected a boolean but was " + value );
+  }
+
+  void skipValue() throws IOException {
+    int c = peekNonWhitespace();
+    if ( c == '{' ) {
+      beginObject();
+      while ( hasNext() ) {
+        nextName();
+        skipValue();
+      }
+      endObject();
+    } else if ( c == '[' ) {
+      beginArray();
+      while ( hasNext() ) {
+        skipValue();
+      }
+      endArray();
+    } else {
+      nextString();
+    }
+  }
+
+  /**
+   * Checks that nothing but whitespace follows the document.
+   */
+  void endDocument() throws IOException {
+    if ( peekNonWhitespace() != -1 ) {
+      throw syntaxError( "Unexpected content after the document" );
+    }
+  }
+
+  private void expect( char expected ) throws IOException {
+    if ( peekNonWhitespace() != expected ) {
+      throw syntaxError( "Expected '" + expected + "'" );
+    }
+    position++;
+  }
+
+  private void literal( String literal ) throws IOException {
+    String value = readBare();
+    if ( !literal.equals( value ) ) {
+      throw syntaxError( "Expected " + literal + " but was " + value );
+    }
+  }
+
+  private String readBare() throws IOException {
+    text.setLength( 0 );
+    while ( true ) {
+      if ( position == limit && !fill() ) {
+        break;
+      }
+      char c = buffer[position];
+      if ( c == ',' || c == '}' || c == ']' || c == ':' || c == ' ' || c == '\t' || c == '\n' || c == '\r' ) {
+        break;
+      }
+      if ( c == '{' || c == '[' || c == '"' ) {
+        throw syntaxError( "Unexpected '" + c + "'" );
+      }
+      text.append( c );
+      position++;
+    }
+    if ( text.length() == 0 ) {
+      throw syntaxError( "Expected a value" );
+    }
+    return text.toString();
+  }
+
+  private String readString() throws IOException {
+    text.setLength( 0 );
+    while ( true ) {
+      int start = position;
+      while ( position < limit ) {
+        char c = buffer[position];
+        if ( c == '"' || c == '\\' ) {
+          break;
+        }
+        position++;
+      }
+      text.append( buffer, start, position - start );
+      if ( position == limit ) {
+        if ( !fill() ) {
+          throw syntaxError( "Unterminated string" );
+        }
+        continue;
+      }
+      char c = buffer[position++];
+      if ( c == '"' ) {
+        return text.toString();
+      }
+      text.append( readEscape() );
+    }
+  }
+
+  private char readEscape() throws IOException {
+    char c = nextChar();
+    switch ( c ) {
+      case 'n':
+        return '\n';
+      case 'r':
+        return '\r';
+      case 't':
+        return '\t';
+      case 'b':
+        return '\b';
+      case 'f':
+        return '\f';
+      case 'u':
+        int value = 0;
+        for ( int i = 0; i < 4; i++ ) {
+          int digit = Character.digit( nextChar(), 16 );
+          if ( digit < 0 ) {
+            throw syntaxError( "Malformed unicode escape" );
+          }
+          value = ( value << 4 ) | digit;
+        }
+        return (char) value;
+      default:
+        return c;
+    }
+  }
+
+  private char nextChar() throws IOException {
+    if ( position == limit && !fill() ) {
+      throw syntaxError( "Unexpected end of input" );
+    }
+    return buffer[position++];
+  }
+
+  private int peekNonWhitespace() throws IOException {
+    while ( true ) {
+      if ( position == limit && !fill() ) {
+        return -1;
+      }
+      char c = buffer[position];
+      if ( c != ' ' && c != '\t' && c != '\n' && c != '\r' ) {
+        return c;
+      }
+      position++;
+    }
+  }
+
+  private boolean fill() throws IOException {
+    consumed += limit;
+    position = 0;
+    limit = 0;
+    int read = in.read( buffer, 0, buffer.length );
+    if ( read <= 0 ) {
+      return false;
+    }
+    limit = read;
+    return true;
+  }
+
+  private IOException syntaxError( String message ) {
+    return new IOException( message + " at character " + ( consumed + position ) );
+  }
+}
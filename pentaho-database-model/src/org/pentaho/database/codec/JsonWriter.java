@@ -0,0 +1,176 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.codec;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Minimal streaming JSON writer: values are written as they come, with the commas and colons in between. Output is
+ * buffered here, so the writer given needs no buffering of its own.
+ */
+final class JsonWriter {
+  private static final int MAX_DEPTH = 32;
+
+  private final Writer out;
+  private final char[] buffer = new char[4096];
+  private int position;
+  private final boolean[] hasElements = new boolean[MAX_DEPTH];
+  private int depth;
+  private boolean afterName;
+
+  JsonWriter( Writer out ) {
+    this.out = out;
+  }
+
+  JsonWriter beginObject() throws IOException {
+    return open( '{' );
+  }
+
+  JsonWriter endObject() throws IOException {
+    return close( '}' );
+  }
+
+  JsonWriter beginArray() throws IOException {
+    return open( '[' );
+  }
+
+  JsonWriter endArray() throws IOException {
+    return close( ']' );
+  }
+
+  JsonWriter name( String name ) throws IOException {
+    separate();
+    string( name );
+    write( ':' );
+    afterName = true;
+    return this;
+  }
+
+  JsonWriter value( String value ) throws IOException {
+    separate();
+    if ( value == null ) {
+      write( "null" );
+    } else {
+      string( value );
+    }
+    return this;
+  }
+
+  JsonWriter value( long value ) throws IOException {
+    separate();
+    write( Long.toString( value ) );
+    return this;
+  }
+
+  JsonWriter value( boolean value ) throws IOException {
+    separate();
+    write( value ? "true" : "false" );
+    return this;
+  }
+
+  void flush() throws IOException {
+    out.write( buffer, 0, position );
+    position = 0;
+    out.flush();
+  }
+
+  private JsonWriter open( char bracket ) throws IOException {
+    separate();
+    if ( depth == MAX_DEPTH ) {
+      throw new IOException( "JSON nested too deeply" );
+    }
+    write( bracket );
+    hasElements[depth++] = false;
+    return this;
+  }
+
+  private JsonWriter close( char bracket ) throws IOException {
+    depth--;
+    write( bracket );
+    return this;
+  }
+
+  private void separate() throws IOException {
+    if ( afterName ) {
+      afterName = false;
+      return;
+    }
+    if ( depth > 0 ) {
+      if ( hasElements[depth - 1] ) {
+        write( ',' );
+      }
+      hasElements[depth - 1] = true;
+    }
+  }
+
+  private void string( String value ) throws IOException {
+    write( '"' );
+    int start = 0;
+    int length = value.length();
+    for ( int i = 0; i < length; i++ ) {
+      char c = value.charAt( i );
+      String escape;
+      if ( c == '"' ) {
+        escape = "\\\"";
+      } else if ( c == '\\' ) {
+        escape = "\\\\";
+      } else if ( c == '\n' ) {
+        escape = "\\n";
+      } else if ( c == '\r' ) {
+        escape = "\\r";
+      } else if ( c == '\t' ) {
+        escape = "\\t";
+      } else if ( c < 0x20 || c == '\u2028' || c == '\u2029' ) {
+        String hex = Integer.toHexString( c );
+        escape = "\\u0000".substring( 0, 6 - hex.length() ) + hex;
+      } else {
+        continue;
+      }
+      write( value, start, i - start );
+      write( escape );
+      start = i + 1;
+    }
+    write( value, start, length - start );
+    write( '"' );
+  }
+
+  private void write( char c ) throws IOException {
+    if ( position == buffer.length ) {
+      out.write( buffer, 0, position );
+      position = 0;
+    }
+    buffer[position++] = c;
+  }
+
+  private void write( String value ) throws IOException {
+    write( value, 0, value.length() );
+  }
+
+  private void write( String value, int offset, int length ) throws IOException {
+    if ( length > buffer.length - position ) {
+      out.write( buffer, 0, position );
+      position = 0;
+      if ( length > buffer.length ) {
+        out.write( value, offset, length );
+        return;
+      }
+    }
+    value.getChars( offset, offset + length, buffer, position );
+    position += length;
+  }
+}
@@ -21,17 +21,19 @@ import java.io.Serializable;
 import java.sql.Driver;
 import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.pentaho.database.BulkCommand;
 import org.pentaho.database.DatabaseDialectException;
 import org.pentaho.database.IDatabaseDialect;
 import org.pentaho.database.IDriverLocator;
 import org.pentaho.database.IValueMeta;
 import org.pentaho.database.model.DatabaseAccessType;
 import org.pentaho.database.model.DatabaseConnection;
+import org.pentaho.database.model.ExtraOptions;
 import org.pentaho.database.model.IDatabaseConnection;
 import org.pentaho.database.util.ClassUtil;
 
@@ -49,6 +51,22 @@ public abstract class AbstractDatabaseDialect implements IDatabaseDialect, IDriv
   // public static final String CR = System.getProperty("line.separator");
   public static final String CR = " ";
 
+  /**
+   * Initial capacity of the buffers used by the String returning DDL methods, large enough for a typical ALTER TABLE
+   * statement so the buffer doesn't need to grow.
+   */
+  protected static final int STATEMENT_CAPACITY = 128;
+
+  /**
+   * Rows per INSERT for databases that take many but set no hard limit of their own; larger statements mostly cost
+   * parse time and packet size without saving round trips that matter.
+   */
+  protected static final int DEFAULT_MAX_INSERT_ROWS = 1000;
+
+  private transient volatile ReservedWordIndex reservedWordIndex;
+
+  private transient volatile boolean driverInitialized;
+
   /*
    * *******************************************************************************
    * DEFAULT SETTINGS FOR ALL DATABASES ********************************************************************************
@@ -90,6 +108,92 @@ public abstract class AbstractDatabaseDialect implements IDatabaseDialect, IDriv
     return "";
   }
 
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.pentaho.database.dialect.IDatabaseDialect#getPagedQuery(java.lang.String, java.lang.String, long, int)
+   */
+  public String getPagedQuery( String query, String orderBy, long offset, int limit ) {
+    checkPage( offset, limit );
+    StringBuilder sql = new StringBuilder( query.length() + STATEMENT_CAPACITY );
+    sql.append( query );
+    appendOrderBy( sql, orderBy );
+    appendRowLimit( sql, offset, limit );
+    return sql.toString();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.pentaho.database.dialect.IDatabaseDialect#getKeysetPagedQuery(java.lang.String, java.util.List, boolean,
+   * int)
+   */
+  public String getKeysetPagedQuery( String query, List<String> keyColumns, boolean afterKey, int limit ) {
+    if ( keyColumns.isEmpty() ) {
+      throw new IllegalArgumentException( "Keyset pagination needs at least one key column" );
+    }
+    StringBuilder orderBy = new StringBuilder();
+    for ( int i = 0; i < keyColumns.size(); i++ ) {
+      if ( i > 0 ) {
+        orderBy.append( ", " );
+      }
+      orderBy.append( keyColumns.get( i ) );
+    }
+    if ( !afterKey ) {
+      return getPagedQuery( query, orderBy.toString(), 0, limit );
+    }
+    // a >= ? AND (a > ? OR b > ?) rather than (a, b) > (?, ?), which not all databases have; the leading >= still
+    // lets the index seek
+    StringBuilder sql = new StringBuilder( query.length() + STATEMENT_CAPACITY );
+    sql.append( "SELECT * FROM (" ).append( query ).append( ") page_ WHERE " );
+    int last = keyColumns.size() - 1;
+    for ( int i = 0; i < last; i++ ) {
+      String key = keyColumns.get( i );
+      sql.append( key ).append( " >= ? AND (" ).append( key ).append( " > ? OR " );
+    }
+    sql.append( keyColumns.get( last ) ).append( " > ?" );
+    for ( int i = 0; i < last; i++ ) {
+      sql.append( ')' );
+    }
+    return getPagedQuery( sql.toString(), orderBy.toString(), 0, limit );
+  }
+
+  /**
+   * Appends the clauses that skip the offset rows and return at most the limit, after the ORDER BY. The default is the
+   * standard OFFSET and FETCH FIRST.
+   */
+  protected void appendRowLimit( StringBuilder sql, long offset, int limit ) {
+    if ( offset > 0 ) {
+      sql.append( " OFFSET " ).append( offset ).append( " ROWS" );
+    }
+    sql.append( " FETCH FIRST " ).append( limit ).append( " ROWS ONLY" );
+  }
+
+  /**
+   * Appends LIMIT and, past the first row, OFFSET.
+   */
+  protected void appendLimitOffset( StringBuilder sql, long offset, int limit ) {
+    sql.append( " LIMIT " ).append( limit );
+    if ( offset > 0 ) {
+      sql.append( " OFFSET " ).append( offset );
+    }
+  }
+
+  /**
+   * Appends the ORDER BY clause, if there is an order.
+   */
+  protected void appendOrderBy( StringBuilder sql, String orderBy ) {
+    if ( orderBy != null ) {
+      sql.append( " ORDER BY " ).append( orderBy );
+    }
+  }
+
+  protected static void checkPage( long offset, int limit ) {
+    if ( offset < 0 || limit <= 0 ) {
+      throw new IllegalArgumentException( "Cannot page " + limit + " rows from offset " + offset );
+    }
+  }
+
   /*
    * (non-Javadoc)
    * 
@@ -108,6 +212,15 @@ public abstract class AbstractDatabaseDialect implements IDatabaseDialect, IDriv
     return "";
   }
 
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.pentaho.database.dialect.IDatabaseDialect#getSQLNextSequenceValues(java.lang.String, int)
+   */
+  public String getSQLNextSequenceValues( String sequenceName, int count ) {
+    return "";
+  }
+
   /*
    * (non-Javadoc)
    * 
@@ -299,6 +412,94 @@ public abstract class AbstractDatabaseDialect implements IDatabaseDialect, IDriv
     return new String[] {};
   }
 
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.pentaho.database.dialect.IDatabaseDialect#isReservedWord(java.lang.String)
+   */
+  public boolean isReservedWord( String word ) {
+    return getReservedWordIndex().contains( word );
+  }
+
+  /**
+   * @return the index over {@link #getReservedWords()}, built on first use
+   */
+  protected ReservedWordIndex getReservedWordIndex() {
+    ReservedWordIndex index = reservedWordIndex;
+    if ( index == null ) {
+      String[] words = getReservedWords();
+      index = words == null || words.length == 0 ? ReservedWordIndex.EMPTY : new ReservedWordIndex( words );
+      reservedWordIndex = index;
+    }
+    return index;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.pentaho.database.dialect.IDatabaseDialect#quoteIdentifierIfNeeded(org.pentaho.database.model.
+   * IDatabaseConnection, java.lang.String)
+   */
+  public String quoteIdentifierIfNeeded( IDatabaseConnection connection, String identifier ) {
+    if ( isEmpty( identifier ) ) {
+      return identifier;
+    }
+    String startQuote = getStartQuote();
+    String endQuote = getEndQuote();
+    boolean canQuote = !isEmpty( startQuote ) && !isEmpty( endQuote );
+    int length = identifier.length();
+
+    if ( canQuote && length > startQuote.length() + endQuote.length() && identifier.startsWith( startQuote )
+        && identifier.endsWith( endQuote ) ) {
+      return identifier; // already quoted, leave it alone
+    }
+
+    boolean toLowerCase = connection != null && connection.isForcingIdentifiersToLowerCase();
+    boolean toUpperCase = !toLowerCase && connection != null && connection.isForcingIdentifiersToUpperCase();
+    boolean quote = canQuote && connection != null && connection.isQuoteAllFields();
+    boolean changeCase = false;
+
+    for ( int i = 0; i < length; i++ ) {
+      char c = identifier.charAt( i );
+      if ( toLowerCase && Character.isUpperCase( c ) || toUpperCase && Character.isLowerCase( c ) ) {
+        changeCase = true;
+      }
+      if ( canQuote && ( !( Character.isLetterOrDigit( c ) || c == '_' ) || i == 0 && Character.isDigit( c ) ) ) {
+        quote = true;
+      }
+    }
+    if ( !quote && canQuote && quoteReservedWords() && isReservedWord( identifier ) ) {
+      quote = true;
+    }
+    if ( !quote && !changeCase ) {
+      return identifier;
+    }
+
+    StringBuilder quoted = new StringBuilder( length + startQuote.length() + endQuote.length() + 2 );
+    if ( quote ) {
+      quoted.append( startQuote );
+    }
+    for ( int i = 0; i < length; i++ ) {
+      if ( quote && identifier.startsWith( endQuote, i ) ) {
+        // an embedded end quote is escaped by doubling it
+        quoted.append( endQuote ).append( endQuote );
+        i += endQuote.length() - 1;
+        continue;
+      }
+      char c = identifier.charAt( i );
+      if ( toLowerCase ) {
+        c = Character.toLowerCase( c );
+      } else if ( toUpperCase ) {
+        c = Character.toUpperCase( c );
+      }
+      quoted.append( c );
+    }
+    if ( quote ) {
+      quoted.append( endQuote );
+    }
+    return quoted.toString();
+  }
+
   /*
    * (non-Javadoc)
    * 
@@ -335,6 +536,15 @@ public abstract class AbstractDatabaseDialect implements IDatabaseDialect, IDriv
     return true;
   }
 
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.pentaho.database.dialect.IDatabaseDialect#requiresDatabaseName()
+   */
+  public boolean requiresDatabaseName() {
+    return true;
+  }
+
   /*
    * (non-Javadoc)
    * 
@@ -537,57 +747,230 @@ public abstract class AbstractDatabaseDialect implements IDatabaseDialect, IDriv
   public abstract String getURL( IDatabaseConnection connection ) throws DatabaseDialectException;
 
   public String getURLWithExtraOptions( IDatabaseConnection connection ) throws DatabaseDialectException {
-    StringBuffer url = new StringBuffer( getURL( connection ) );
-    if ( supportsOptionsInURL() ) {
-      // OK, now add all the options...
-      String optionIndicator = getExtraOptionIndicator();
-      String optionSeparator = getExtraOptionSeparator();
-      String valueSeparator = getExtraOptionValueSeparator();
-
-      Map<String, String> map = connection.getExtraOptions();
-      if ( map.size() > 0 ) {
-        Iterator<String> iterator = map.keySet().iterator();
-        boolean first = true;
-        while ( iterator.hasNext() ) {
-          String typedParameter = (String) iterator.next();
-          int dotIndex = typedParameter.indexOf( '.' );
-          if ( dotIndex >= 0 ) {
-            String typeCode = typedParameter.substring( 0, dotIndex );
-            String parameter = typedParameter.substring( dotIndex + 1 );
-            String value = map.get( typedParameter );
-
-            // Only add to the URL if it's the same database type code...
-            //
-            if ( connection.getDatabaseType().getShortName().equals( typeCode ) ) {
-              if ( first && url.indexOf( valueSeparator ) == -1 ) {
-                url.append( optionIndicator );
-              } else {
-                url.append( optionSeparator );
-              }
-
-              url.append( parameter );
-              if ( !isEmpty( value ) ) {
-                url.append( valueSeparator ).append( value );
-              }
-              first = false;
-            }
-          }
+    String url = getURL( connection );
+    if ( !supportsOptionsInURL() || connection.getExtraOptions() == null ) {
+      return url;
+    }
+    // only the options of this database type go into the URL, in the extra options order, else as they were added
+    String options = ExtraOptions.buildUrlOptions( connection.getExtraOptions(), connection.getExtraOptionsOrder(),
+      connection.getDatabaseType().getShortName(), getExtraOptionSeparator(), getExtraOptionValueSeparator() );
+    if ( options.length() == 0 ) {
+      return url;
+    }
+    StringBuilder result = new StringBuilder( url.length() + options.length() + 1 ).append( url );
+    result.append( containsExtraOptions( url ) ? getExtraOptionSeparator() : getExtraOptionIndicator() );
+    return result.append( options ).toString();
+  }
+
+  /**
+   * @return true if the URL already holds options, so that the extra options follow the option separator instead of
+   *         the option indicator
+   */
+  protected boolean containsExtraOptions( String url ) {
+    return url.indexOf( getExtraOptionValueSeparator() ) != -1;
+  }
+
+  // public abstract String getSQLQueryColumnFields(String columnname, String tableName);
+
+  public String getAddColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
+      boolean semicolon ) {
+    StringBuilder sql = new StringBuilder( STATEMENT_CAPACITY );
+    appendAddColumnStatement( sql, tablename, v, tk, use_autoinc, pk, semicolon );
+    return sql.toString();
+  }
+
+  public String getModifyColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
+      boolean semicolon ) {
+    StringBuilder sql = new StringBuilder( STATEMENT_CAPACITY );
+    appendModifyColumnStatement( sql, tablename, v, tk, use_autoinc, pk, semicolon );
+    return sql.toString();
+  }
+
+  public String getFieldDefinition( IValueMeta v, String tk, String pk, boolean use_autoinc, boolean add_fieldname,
+      boolean add_cr ) {
+    StringBuilder sql = new StringBuilder( STATEMENT_CAPACITY );
+    appendFieldDefinition( sql, v, tk, pk, use_autoinc, add_fieldname, add_cr );
+    return sql.toString();
+  }
+
+  /*
+   * The append and the String returning forms of the column DDL methods are implemented on top of each other, so a
+   * dialect has to override one of the two: either the append form, as the dialects in this package do, or the String
+   * returning form, as dialects written before the append form existed do.
+   */
+
+  public void appendAddColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( getAddColumnStatement( tablename, v, tk, use_autoinc, pk, semicolon ) );
+  }
+
+  public void appendModifyColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( getModifyColumnStatement( tablename, v, tk, use_autoinc, pk, semicolon ) );
+  }
+
+  public void appendFieldDefinition( StringBuilder sql, IValueMeta v, String tk, String pk, boolean use_autoinc,
+      boolean add_fieldname, boolean add_cr ) {
+    sql.append( getFieldDefinition( v, tk, pk, use_autoinc, add_fieldname, add_cr ) );
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.pentaho.database.dialect.IDatabaseDialect#getMaxInsertRows()
+   */
+  public int getMaxInsertRows() {
+    return 1;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see org.pentaho.database.dialect.IDatabaseDialect#getMaxBindParameters()
+   */
+  public int getMaxBindParameters() {
+    return 0;
+  }
+
+  public int getInsertBatchSize( int columnCount ) {
+    int rows = getMaxInsertRows();
+    int parameters = getMaxBindParameters();
+    if ( parameters > 0 && columnCount > 0 ) {
+      rows = Math.min( rows, parameters / columnCount );
+    }
+    return Math.max( rows, 1 );
+  }
+
+  public String getMultiRowInsertStatement( String tablename, List<IValueMeta> columns, int rows ) {
+    StringBuilder sql = new StringBuilder( STATEMENT_CAPACITY + rows * columns.size() * 3 );
+    appendMultiRowInsertStatement( sql, tablename, columns, rows );
+    return sql.toString();
+  }
+
+  public void appendMultiRowInsertStatement( StringBuilder sql, String tablename, List<IValueMeta> columns,
+      int rows ) {
+    if ( columns.isEmpty() ) {
+      throw new IllegalArgumentException( "No columns to insert into " + tablename );
+    }
+    int batchSize = getInsertBatchSize( columns.size() );
+    if ( rows < 1 || rows > batchSize ) {
+      throw new IllegalArgumentException( "Cannot insert " + rows + " rows of " + columns.size()
+          + " columns in one statement, the most is " + batchSize );
+    }
+    appendInsertRows( sql, tablename, columns, rows );
+  }
+
+  public List<String> getMultiRowInsertStatements( String tablename, List<IValueMeta> columns, int totalRows ) {
+    int batchSize = getInsertBatchSize( columns.size() );
+    List<String> statements = new ArrayList<String>( ( totalRows + batchSize - 1 ) / batchSize );
+    if ( totalRows >= batchSize ) {
+      String full = getMultiRowInsertStatement( tablename, columns, batchSize );
+      for ( int i = totalRows / batchSize; i > 0; i-- ) {
+        statements.add( full );
+      }
+    }
+    if ( totalRows % batchSize > 0 ) {
+      statements.add( getMultiRowInsertStatement( tablename, columns, totalRows % batchSize ) );
+    }
+    return statements;
+  }
+
+  /**
+   * Appends the INSERT for the rows, which are known to fit. The default is a VALUES list with a row constructor per
+   * row, which is a single row for databases without multi-row inserts.
+   */
+  protected void appendInsertRows( StringBuilder sql, String tablename, List<IValueMeta> columns, int rows ) {
+    appendInsertInto( sql, tablename, columns );
+    sql.append( " VALUES " );
+    for ( int row = 0; row < rows; row++ ) {
+      if ( row > 0 ) {
+        sql.append( ", " );
+      }
+      sql.append( '(' );
+      for ( int column = 0; column < columns.size(); column++ ) {
+        sql.append( column > 0 ? ", ?" : "?" );
+      }
+      sql.append( ')' );
+    }
+  }
+
+  /**
+   * Appends an INSERT of a query that selects each row from typed parameters and joins the rows with UNION ALL, for
+   * databases that take a single row per VALUES clause.
+   * 
+   * @param from
+   *          the FROM clause of each row's SELECT, starting with a space; empty if the database selects without one
+   */
+  protected void appendUnionAllInsertRows( StringBuilder sql, String tablename, List<IValueMeta> columns, int rows,
+      String from ) {
+    appendInsertInto( sql, tablename, columns );
+    for ( int row = 0; row < rows; row++ ) {
+      sql.append( row > 0 ? " UNION ALL SELECT " : " SELECT " );
+      for ( int column = 0; column < columns.size(); column++ ) {
+        if ( column > 0 ) {
+          sql.append( ", " );
         }
+        // the parameters have no type of their own in a select list
+        sql.append( "CAST(? AS " );
+        appendFieldDefinition( sql, columns.get( column ), null, null, false, false, false );
+        sql.append( ')' );
       }
+      sql.append( from );
     }
-    return url.toString();
   }
 
-  // public abstract String getSQLQueryColumnFields(String columnname, String tableName);
+  /**
+   * Appends "INSERT INTO table (column, ...)".
+   */
+  protected void appendInsertInto( StringBuilder sql, String tablename, List<IValueMeta> columns ) {
+    sql.append( "INSERT INTO " ).append( tablename );
+    appendColumnList( sql, columns );
+  }
+
+  /**
+   * Appends the names of the columns as a parenthesized list, after a space.
+   */
+  protected void appendColumnList( StringBuilder sql, List<IValueMeta> columns ) {
+    sql.append( " (" );
+    for ( int column = 0; column < columns.size(); column++ ) {
+      if ( column > 0 ) {
+        sql.append( ", " );
+      }
+      sql.append( columns.get( column ).getName() );
+    }
+    sql.append( ')' );
+  }
+
+  /**
+   * Appends the value as a quoted string literal, doubling the quotes in it.
+   */
+  protected void appendStringLiteral( StringBuilder sql, String value ) {
+    sql.append( '\'' );
+    for ( int i = 0; i < value.length(); i++ ) {
+      char c = value.charAt( i );
+      if ( c == '\'' ) {
+        sql.append( c );
+      }
+      sql.append( c );
+    }
+    sql.append( '\'' );
+  }
 
-  public abstract String getAddColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc,
-      String pk, boolean semicolon );
+  public boolean supportsBulkLoad() {
+    return false;
+  }
+
+  public BulkCommand getBulkLoadCommand( String tablename, List<IValueMeta> columns, String location ) {
+    return null;
+  }
 
-  public abstract String getModifyColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc,
-      String pk, boolean semicolon );
+  public boolean supportsBulkExtract() {
+    return false;
+  }
 
-  public abstract String getFieldDefinition( IValueMeta v, String tk, String pk, boolean use_autoinc,
-      boolean add_fieldname, boolean add_cr );
+  public BulkCommand getBulkExtractCommand( String query, String location ) {
+    return null;
+  }
 
   public String getExtraOptionsHelpText() {
     return getDatabaseType().getExtraOptionsHelpUrl();
@@ -607,73 +990,108 @@ public abstract class AbstractDatabaseDialect implements IDatabaseDialect, IDriv
   public abstract String getNativeJdbcPre();
 
   public IDatabaseConnection createNativeConnection( String jdbcUrl ) {
-    if ( !jdbcUrl.startsWith( getNativeJdbcPre() ) ) {
-      throw new RuntimeException( "JDBC URL " + jdbcUrl + " does not start with " + getNativeJdbcPre() );
-    }
+    DatabaseConnection dbconn = newNativeConnection();
+    parseHostPortAndDatabase( dbconn, createUrlTokenizer( jdbcUrl ) );
+    return dbconn;
+  }
+
+  /**
+   * @return an empty native connection of this dialect's database type, ready to be filled in from a URL
+   */
+  protected DatabaseConnection newNativeConnection() {
     DatabaseConnection dbconn = new DatabaseConnection();
     dbconn.setDatabaseType( getDatabaseType() );
     dbconn.setAccessType( DatabaseAccessType.NATIVE );
-    String str = jdbcUrl.substring( getNativeJdbcPre().length() );
-    String hostname = null;
-    String port = null;
-    String databaseNameAndParams = null;
-
-    // hostname:port/dbname
-    // hostname:port
-    // hostname/dbname
-    // dbname
-
-    if ( str.indexOf( ":" ) >= 0 ) {
-      hostname = str.substring( 0, str.indexOf( ":" ) );
-      str = str.substring( str.indexOf( ":" ) + 1 );
-      if ( str.indexOf( "/" ) >= 0 ) {
-        port = str.substring( 0, str.indexOf( "/" ) );
-        databaseNameAndParams = str.substring( str.indexOf( "/" ) + 1 );
-      } else {
-        port = str;
+    return dbconn;
+  }
+
+  /**
+   * @return a tokenizer positioned right after the native JDBC prefix of the URL
+   * @throws RuntimeException
+   *           if the URL does not start with the native JDBC prefix
+   */
+  protected JdbcUrlTokenizer createUrlTokenizer( String jdbcUrl ) {
+    if ( !jdbcUrl.startsWith( getNativeJdbcPre() ) ) {
+      throw new RuntimeException( "JDBC URL " + jdbcUrl + " does not start with " + getNativeJdbcPre() );
+    }
+    return new JdbcUrlTokenizer( jdbcUrl, getNativeJdbcPre().length() );
+  }
+
+  /**
+   * Parses the part of a URL that follows the protocol, in one of these forms:
+   * 
+   * <pre>
+   * hostname:port/dbname
+   * hostname:port
+   * hostname/dbname
+   * dbname
+   * </pre>
+   * 
+   * Each form may be followed by the extra options, introduced by the extra option indicator.
+   */
+  protected void parseHostPortAndDatabase( DatabaseConnection dbconn, JdbcUrlTokenizer tokenizer ) {
+    String indicator = supportsOptionsInURL() ? getExtraOptionIndicator() : null;
+    String token = tokenizer.next( ":", "/", indicator );
+    if ( tokenizer.skip( ":" ) ) {
+      dbconn.setHostname( token );
+      dbconn.setDatabasePort( tokenizer.next( "/", indicator ) );
+      if ( tokenizer.skip( "/" ) ) {
+        setDatabaseNameAndParams( dbconn, tokenizer );
+      } else if ( tokenizer.skip( indicator ) ) {
+        parseExtraOptions( dbconn, tokenizer );
       }
+    } else if ( tokenizer.skip( "/" ) ) {
+      dbconn.setHostname( token );
+      setDatabaseNameAndParams( dbconn, tokenizer );
     } else {
-      if ( str.indexOf( "/" ) >= 0 ) {
-        hostname = str.substring( 0, str.indexOf( "/" ) );
-        databaseNameAndParams = str.substring( str.indexOf( "/" ) + 1 );
-      } else {
-        databaseNameAndParams = str;
+      dbconn.setDatabaseName( token );
+      if ( tokenizer.skip( indicator ) ) {
+        parseExtraOptions( dbconn, tokenizer );
       }
     }
-    if ( hostname != null ) {
-      dbconn.setHostname( hostname );
-    }
-    if ( port != null ) {
-      dbconn.setDatabasePort( port );
-    }
-
-    // parse parameters out of URL
-    if ( databaseNameAndParams != null ) {
-      setDatabaseNameAndParams( dbconn, databaseNameAndParams );
-    }
-    return dbconn;
   }
 
   protected void setDatabaseNameAndParams( DatabaseConnection dbconn, String databaseNameAndParams ) {
+    setDatabaseNameAndParams( dbconn, new JdbcUrlTokenizer( databaseNameAndParams, 0 ) );
+  }
+
+  /**
+   * Reads the database name and, if the dialect supports options in the URL, the extra options that follow it.
+   */
+  protected void setDatabaseNameAndParams( DatabaseConnection dbconn, JdbcUrlTokenizer tokenizer ) {
     if ( supportsOptionsInURL() ) {
-      int paramIndex = databaseNameAndParams.indexOf( getExtraOptionIndicator() );
-      if ( paramIndex >= 0 ) {
-        String params = databaseNameAndParams.substring( paramIndex + 1 );
-        databaseNameAndParams = databaseNameAndParams.substring( 0, paramIndex );
-        String[] paramData = params.split( getExtraOptionSeparator() );
-        for ( String param : paramData ) {
-          String[] nameAndValue = param.split( getExtraOptionValueSeparator() );
-          if ( nameAndValue[0] != null && nameAndValue[0].trim().length() > 0 ) {
-            if ( nameAndValue.length == 1 ) {
-              dbconn.addExtraOption( dbconn.getDatabaseType().getShortName(), nameAndValue[0], "" );
-            } else {
-              dbconn.addExtraOption( dbconn.getDatabaseType().getShortName(), nameAndValue[0], nameAndValue[1] );
-            }
-          }
-        }
+      dbconn.setDatabaseName( tokenizer.next( getExtraOptionIndicator() ) );
+      if ( tokenizer.skip( getExtraOptionIndicator() ) ) {
+        parseExtraOptions( dbconn, tokenizer );
+      }
+    } else {
+      dbconn.setDatabaseName( tokenizer.rest() );
+    }
+  }
+
+  /**
+   * Reads the remaining name/value pairs, separated by the extra option separator, and passes each of them to
+   * {@link #setUrlOption(DatabaseConnection, String, String)}. A name without a value gets an empty value.
+   */
+  protected void parseExtraOptions( DatabaseConnection dbconn, JdbcUrlTokenizer tokenizer ) {
+    String separator = getExtraOptionSeparator();
+    String valueSeparator = getExtraOptionValueSeparator();
+    while ( tokenizer.hasMore() ) {
+      String name = tokenizer.next( valueSeparator, separator );
+      String value = tokenizer.skip( valueSeparator ) ? tokenizer.next( separator ) : "";
+      tokenizer.skip( separator );
+      if ( name.trim().length() > 0 ) {
+        setUrlOption( dbconn, name, value );
       }
     }
-    dbconn.setDatabaseName( databaseNameAndParams );
+  }
+
+  /**
+   * Stores an option read from a URL. By default every option becomes an extra option; dialects that encode
+   * connection properties as URL options (database name, port, ...) override this to map them back.
+   */
+  protected void setUrlOption( DatabaseConnection dbconn, String name, String value ) {
+    dbconn.addExtraOption( dbconn.getDatabaseType().getShortName(), name, value );
   }
 
   public String getDriverClass( IDatabaseConnection connection ) {
@@ -748,10 +1166,18 @@ public abstract class AbstractDatabaseDialect implements IDatabaseDialect, IDriv
   }
 
   @Override public boolean initialize( String classname ) {
-    return ClassUtil.canLoadClass( classname );
+    boolean initialized = ClassUtil.canLoadClass( classname );
+    if ( initialized && classname != null && classname.equals( getNativeDriver() ) ) {
+      driverInitialized = true;
+    }
+    return initialized;
   }
 
   @Override public Driver getDriver( String url ) {
+    if ( !driverInitialized ) {
+      // the driver probe may have been answered from a cache, so the driver class might not be registered yet
+      isUsable();
+    }
     try {
       return DriverManager.getDriver( url );
     } catch ( SQLException e ) {
@@ -83,8 +83,10 @@ public class DB2DatabaseDialect extends AbstractDatabaseDialect {
   }
 
   /**
-   * Generates the SQL statement to add a column to the specified table
+   * Appends the SQL statement to add a column to the specified table
    * 
+   * @param sql
+   *          the buffer to append the statement to
    * @param tablename
    *          The table to add
    * @param v
@@ -97,12 +99,12 @@ public class DB2DatabaseDialect extends AbstractDatabaseDialect {
    *          the name of the primary key field
    * @param semicolon
    *          whether or not to add a semi-colon behind the statement.
-   * @return the SQL statement to add a column to the specified table
    */
   @Override
-  public String getAddColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-      boolean semicolon ) {
-    return "ALTER TABLE " + tablename + " ADD COLUMN " + getFieldDefinition( v, tk, pk, use_autoinc, true, false );
+  public void appendAddColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( "ALTER TABLE " ).append( tablename ).append( " ADD COLUMN " );
+    appendFieldDefinition( sql, v, tk, pk, use_autoinc, true, false );
   }
 
   /**
@@ -129,8 +131,10 @@ public class DB2DatabaseDialect extends AbstractDatabaseDialect {
   }
 
   /**
-   * Generates the SQL statement to modify a column in the specified table
+   * Appends the SQL statement to modify a column in the specified table
    * 
+   * @param sql
+   *          the buffer to append the statement to
    * @param tablename
    *          The table to add
    * @param v
@@ -143,98 +147,93 @@ public class DB2DatabaseDialect extends AbstractDatabaseDialect {
    *          the name of the primary key field
    * @param semicolon
    *          whether or not to add a semi-colon behind the statement.
-   * @return the SQL statement to modify a column in the specified table
    */
   @Override
-  public String getModifyColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-      boolean semicolon ) {
-    String retval = "";
-    retval += "ALTER TABLE " + tablename + " DROP COLUMN " + v.getName() + CR + ";" + CR;
-    retval += "ALTER TABLE " + tablename + " ADD COLUMN " + getFieldDefinition( v, tk, pk, use_autoinc, true, false );
-    return retval;
+  public void appendModifyColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( "ALTER TABLE " ).append( tablename ).append( " DROP COLUMN " ).append( v.getName() ).append( CR )
+        .append( ";" ).append( CR );
+    sql.append( "ALTER TABLE " ).append( tablename ).append( " ADD COLUMN " );
+    appendFieldDefinition( sql, v, tk, pk, use_autoinc, true, false );
   }
 
   @Override
-  public String getFieldDefinition( IValueMeta v, String tk, String pk, boolean use_autoinc, boolean add_fieldname,
-      boolean add_cr ) {
-    String retval = "";
-
+  public void appendFieldDefinition( StringBuilder retval, IValueMeta v, String tk, String pk, boolean use_autoinc,
+      boolean add_fieldname, boolean add_cr ) {
     String fieldname = v.getName();
     int length = v.getLength();
     int precision = v.getPrecision();
 
     if ( add_fieldname ) {
-      retval += fieldname + " ";
+      retval.append( fieldname ).append( " " );
     }
 
     int type = v.getType();
     switch ( type ) {
       case IValueMeta.TYPE_DATE:
-        retval += "TIMESTAMP";
+        retval.append( "TIMESTAMP" );
         break;
       case IValueMeta.TYPE_BOOLEAN:
-        retval += "CHARACTER(1)";
+        retval.append( "CHARACTER(1)" );
         break;
       case IValueMeta.TYPE_NUMBER:
       case IValueMeta.TYPE_BIGNUMBER:
         if ( fieldname.equalsIgnoreCase( tk ) && use_autoinc ) // Technical key: auto increment field!
         {
-          retval += "BIGINT NOT NULL GENERATED ALWAYS AS IDENTITY (START WITH 0, INCREMENT BY 1, NOCACHE)";
+          retval.append( "BIGINT NOT NULL GENERATED ALWAYS AS IDENTITY (START WITH 0, INCREMENT BY 1, NOCACHE)" );
         } else {
           if ( length > 0 ) {
-            retval += "DECIMAL(" + length;
+            retval.append( "DECIMAL(" ).append( length );
             if ( precision > 0 ) {
-              retval += ", " + precision;
+              retval.append( ", " ).append( precision );
             }
-            retval += ")";
+            retval.append( ")" );
           } else {
-            retval += "FLOAT";
+            retval.append( "FLOAT" );
           }
         }
         break;
       case IValueMeta.TYPE_INTEGER:
         if ( fieldname.equalsIgnoreCase( tk ) && use_autoinc ) // Technical key: auto increment field!
         {
-          retval += "INTEGER NOT NULL GENERATED ALWAYS AS IDENTITY (START WITH 0, INCREMENT BY 1, NOCACHE)";
+          retval.append( "INTEGER NOT NULL GENERATED ALWAYS AS IDENTITY (START WITH 0, INCREMENT BY 1, NOCACHE)" );
         } else {
-          retval += "INTEGER";
+          retval.append( "INTEGER" );
         }
         break;
       case IValueMeta.TYPE_STRING:
         if ( length > getMaxVARCHARLength() || length >= CLOB_LENGTH ) {
-          retval += "CLOB";
+          retval.append( "CLOB" );
         } else {
-          retval += "VARCHAR";
+          retval.append( "VARCHAR" );
           if ( length > 0 ) {
-            retval += "(" + length;
+            retval.append( "(" ).append( length );
           } else {
-            retval += "("; // Maybe use some default DB String length?
+            retval.append( "(" ); // Maybe use some default DB String length?
           }
-          retval += ")";
+          retval.append( ")" );
 
         }
         break;
       case IValueMeta.TYPE_BINARY:
         if ( length > getMaxVARCHARLength() || length >= CLOB_LENGTH ) {
-          retval += "BLOB(" + length + ")";
+          retval.append( "BLOB(" ).append( length ).append( ")" );
         } else {
           if ( length > 0 ) {
-            retval += "CHAR(" + length + ") FOR BIT DATA";
+            retval.append( "CHAR(" ).append( length ).append( ") FOR BIT DATA" );
           } else {
-            retval += "BLOB"; // not going to work, but very close
+            retval.append( "BLOB" ); // not going to work, but very close
           }
         }
         break;
       default:
-        retval += " UNKNOWN";
+        retval.append( " UNKNOWN" );
         break;
     }
 
     if ( add_cr ) {
-      retval += CR;
+      retval.append( CR );
     }
-
-    return retval;
   }
 
   /*
@@ -385,6 +384,15 @@ public class DB2DatabaseDialect extends AbstractDatabaseDialect {
     return "SELECT NEXT VALUE FOR " + sequenceName + " FROM SYSIBM.SYSDUMMY1";
   }
 
+  /**
+   * The rows come from a recursive common table expression.
+   */
+  @Override
+  public String getSQLNextSequenceValues( String sequenceName, int count ) {
+    return "WITH rows_ (n) AS (SELECT 1 FROM SYSIBM.SYSDUMMY1 UNION ALL SELECT n + 1 FROM rows_ WHERE n < " + count
+        + ") SELECT NEXT VALUE FOR " + sequenceName + " FROM rows_";
+  }
+
   /**
    * @return This indicator separates the normal URL from the options. DB2 is special in the sense that it requires a :
    *         instead of the usual ;.
@@ -394,4 +402,14 @@ public class DB2DatabaseDialect extends AbstractDatabaseDialect {
     return ":";
   }
 
+  @Override
+  public int getMaxInsertRows() {
+    return DEFAULT_MAX_INSERT_ROWS;
+  }
+
+  @Override
+  public int getMaxBindParameters() {
+    // the most host variable references in a statement
+    return 32767;
+  }
 }
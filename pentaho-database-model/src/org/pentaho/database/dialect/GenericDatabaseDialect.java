@@ -42,9 +42,11 @@ public class GenericDatabaseDialect extends AbstractDatabaseDialect {
   }
 
   /**
-   * Generates the SQL statement to add a column to the specified table For this generic type, i set it to the most
+   * Appends the SQL statement to add a column to the specified table For this generic type, i set it to the most
    * common possibility.
    * 
+   * @param sql
+   *          the buffer to append the statement to
    * @param tablename
    *          The table to add
    * @param v
@@ -57,37 +59,35 @@ public class GenericDatabaseDialect extends AbstractDatabaseDialect {
    *          the name of the primary key field
    * @param semicolon
    *          whether or not to add a semi-colon behind the statement.
-   * @return the SQL statement to add a column to the specified table
    */
   @Override
-  public String getAddColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-      boolean semicolon ) {
-    return "ALTER TABLE " + tablename + " ADD " + getFieldDefinition( v, tk, pk, use_autoinc, true, false );
+  public void appendAddColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( "ALTER TABLE " ).append( tablename ).append( " ADD " );
+    appendFieldDefinition( sql, v, tk, pk, use_autoinc, true, false );
   }
 
   @Override
-  public String getFieldDefinition( IValueMeta v, String tk, String pk, boolean use_autoinc, boolean add_fieldname,
-      boolean add_cr ) {
-    String retval = "";
-
+  public void appendFieldDefinition( StringBuilder retval, IValueMeta v, String tk, String pk, boolean use_autoinc,
+      boolean add_fieldname, boolean add_cr ) {
     String fieldname = v.getName();
     int length = v.getLength();
     int precision = v.getPrecision();
 
     if ( add_fieldname ) {
-      retval += fieldname + " ";
+      retval.append( fieldname ).append( " " );
     }
 
     int type = v.getType();
     switch ( type ) {
       case IValueMeta.TYPE_DATE:
-        retval += "TIMESTAMP";
+        retval.append( "TIMESTAMP" );
         break;
       case IValueMeta.TYPE_BOOLEAN:
         if ( supportsBooleanDataType() ) {
-          retval += "BOOLEAN";
+          retval.append( "BOOLEAN" );
         } else {
-          retval += "CHAR(1)";
+          retval.append( "CHAR(1)" );
         }
         break;
       case IValueMeta.TYPE_NUMBER:
@@ -96,56 +96,56 @@ public class GenericDatabaseDialect extends AbstractDatabaseDialect {
         if ( fieldname.equalsIgnoreCase( tk ) || // Technical key
             fieldname.equalsIgnoreCase( pk ) // Primary key
         ) {
-          retval += "BIGSERIAL";
+          retval.append( "BIGSERIAL" );
         } else {
           if ( length > 0 ) {
             if ( precision > 0 || length > 18 ) {
-              retval += "NUMERIC(" + length + ", " + precision + ")";
+              retval.append( "NUMERIC(" ).append( length ).append( ", " ).append( precision ).append( ")" );
             } else {
               if ( length > 9 ) {
-                retval += "BIGINT";
+                retval.append( "BIGINT" );
               } else {
                 if ( length < 5 ) {
-                  retval += "SMALLINT";
+                  retval.append( "SMALLINT" );
                 } else {
-                  retval += "INTEGER";
+                  retval.append( "INTEGER" );
                 }
               }
             }
 
           } else {
-            retval += "DOUBLE PRECISION";
+            retval.append( "DOUBLE PRECISION" );
           }
         }
         break;
       case IValueMeta.TYPE_STRING:
         if ( length >= CLOB_LENGTH ) {
-          retval += "TEXT";
+          retval.append( "TEXT" );
         } else {
-          retval += "VARCHAR";
+          retval.append( "VARCHAR" );
           if ( length > 0 ) {
-            retval += "(" + length;
+            retval.append( "(" ).append( length );
           } else {
-            retval += "("; // Maybe use some default DB String length?
+            retval.append( "(" ); // Maybe use some default DB String length?
           }
-          retval += ")";
+          retval.append( ")" );
         }
         break;
       default:
-        retval += " UNKNOWN";
+        retval.append( " UNKNOWN" );
         break;
     }
 
     if ( add_cr ) {
-      retval += CR;
+      retval.append( CR );
     }
-
-    return retval;
   }
 
   /**
-   * Generates the SQL statement to modify a column in the specified table
+   * Appends the SQL statement to modify a column in the specified table
    * 
+   * @param sql
+   *          the buffer to append the statement to
    * @param tablename
    *          The table to add
    * @param v
@@ -158,12 +158,12 @@ public class GenericDatabaseDialect extends AbstractDatabaseDialect {
    *          the name of the primary key field
    * @param semicolon
    *          whether or not to add a semi-colon behind the statement.
-   * @return the SQL statement to modify a column in the specified table
    */
   @Override
-  public String getModifyColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-      boolean semicolon ) {
-    return "ALTER TABLE " + tablename + " MODIFY " + getFieldDefinition( v, tk, pk, use_autoinc, true, false );
+  public void appendModifyColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( "ALTER TABLE " ).append( tablename ).append( " MODIFY " );
+    appendFieldDefinition( sql, v, tk, pk, use_autoinc, true, false );
   }
 
   @Override
@@ -176,6 +176,17 @@ public class GenericDatabaseDialect extends AbstractDatabaseDialect {
     return null;
   }
 
+  /**
+   * The driver of a native generic connection is the custom driver class it names.
+   */
+  @Override
+  public String getDriverClass( IDatabaseConnection connection ) {
+    if ( connection.getAccessType() == DatabaseAccessType.NATIVE ) {
+      return connection.getAttributes().get( ATTRIBUTE_CUSTOM_DRIVER_CLASS );
+    }
+    return super.getDriverClass( connection );
+  }
+
   @Override
   public String getURL( IDatabaseConnection connection ) throws DatabaseDialectException {
     if ( connection.getAccessType() == DatabaseAccessType.NATIVE ) {
@@ -236,6 +247,14 @@ public class GenericDatabaseDialect extends AbstractDatabaseDialect {
     return false;
   }
 
+  /**
+   * The custom URL names the database, if it needs one.
+   */
+  @Override
+  public boolean requiresDatabaseName() {
+    return false;
+  }
+
   /**
    * @param tableName
    *          The table to be truncated.
@@ -82,8 +82,10 @@ public class H2DatabaseDialect extends AbstractDatabaseDialect {
   }
 
   /**
-   * Generates the SQL statement to add a column to the specified table
+   * Appends the SQL statement to add a column to the specified table
    * 
+   * @param sql
+   *          the buffer to append the statement to
    * @param tablename
    *          The table to add
    * @param v
@@ -96,18 +98,20 @@ public class H2DatabaseDialect extends AbstractDatabaseDialect {
    *          the name of the primary key field
    * @param semicolon
    *          whether or not to add a semi-colon behind the statement.
-   * @return the SQL statement to add a column to the specified table
    * 
    */
   @Override
-  public String getAddColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-      boolean semicolon ) {
-    return "ALTER TABLE " + tablename + " ADD " + getFieldDefinition( v, tk, pk, use_autoinc, true, false );
+  public void appendAddColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( "ALTER TABLE " ).append( tablename ).append( " ADD " );
+    appendFieldDefinition( sql, v, tk, pk, use_autoinc, true, false );
   }
 
   /**
-   * Generates the SQL statement to modify a column in the specified table
+   * Appends the SQL statement to modify a column in the specified table
    * 
+   * @param sql
+   *          the buffer to append the statement to
    * @param tablename
    *          The table to add
    * @param v
@@ -120,19 +124,17 @@ public class H2DatabaseDialect extends AbstractDatabaseDialect {
    *          the name of the primary key field
    * @param semicolon
    *          whether or not to add a semi-colon behind the statement.
-   * @return the SQL statement to modify a column in the specified table
    */
   @Override
-  public String getModifyColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-      boolean semicolon ) {
-    return "ALTER TABLE " + tablename + " MODIFY " + getFieldDefinition( v, tk, pk, use_autoinc, true, false );
+  public void appendModifyColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( "ALTER TABLE " ).append( tablename ).append( " MODIFY " );
+    appendFieldDefinition( sql, v, tk, pk, use_autoinc, true, false );
   }
 
   @Override
-  public String getFieldDefinition( IValueMeta v, String tk, String pk, boolean use_autoinc, boolean add_fieldname,
-      boolean add_cr ) {
-    StringBuffer retval = new StringBuffer( 128 );
-
+  public void appendFieldDefinition( StringBuilder retval, IValueMeta v, String tk, String pk, boolean use_autoinc,
+      boolean add_fieldname, boolean add_cr ) {
     String fieldname = v.getName();
     int length = v.getLength();
     int precision = v.getPrecision();
@@ -202,8 +204,6 @@ public class H2DatabaseDialect extends AbstractDatabaseDialect {
     if ( add_cr ) {
       retval.append( CR );
     }
-
-    return retval.toString();
   }
 
   @Override
@@ -249,57 +249,31 @@ public class H2DatabaseDialect extends AbstractDatabaseDialect {
 
   @Override
   public IDatabaseConnection createNativeConnection( String jdbcUrl ) {
-    if ( !jdbcUrl.startsWith( getNativeJdbcPre() ) ) {
-      throw new RuntimeException( "JDBC URL " + jdbcUrl + " does not start with " + getNativeJdbcPre() );
-    }
-    DatabaseConnection dbconn = new DatabaseConnection();
-    dbconn.setDatabaseType( getDatabaseType() );
-    dbconn.setAccessType( DatabaseAccessType.NATIVE );
-    if ( jdbcUrl.startsWith( getNativeJdbcPre() + "h2://" ) ) {
-      String str = jdbcUrl.substring( getNativeJdbcPre().length() + "h2://".length() );
-      String hostname = null;
-      String port = null;
-      String databaseName = null;
-
-      // hostname:port/dbname
-      // hostname:port
-      // hostname/dbname
-      // dbname
-
-      // TODO: Support Parameters
-
-      if ( str.indexOf( ":" ) >= 0 ) {
-        hostname = str.substring( 0, str.indexOf( ":" ) );
-        str = str.substring( str.indexOf( ":" ) + 1 );
-        if ( str.indexOf( "/" ) >= 0 ) {
-          port = str.substring( 0, str.indexOf( "/" ) );
-          databaseName = str.substring( str.indexOf( "/" ) + 1 );
-        } else {
-          port = str;
-        }
-      } else {
-        if ( str.indexOf( "/" ) >= 0 ) {
-          hostname = str.substring( 0, str.indexOf( "/" ) );
-          databaseName = str.substring( str.indexOf( "/" ) + 1 );
-        } else {
-          databaseName = str;
-        }
-      }
-      if ( hostname != null ) {
-        dbconn.setHostname( hostname );
-      }
-      if ( port != null ) {
-        dbconn.setDatabasePort( port );
-      }
-      if ( databaseName != null ) {
-        setDatabaseNameAndParams( dbconn, databaseName );
-      }
+    JdbcUrlTokenizer tokenizer = createUrlTokenizer( jdbcUrl );
+    DatabaseConnection dbconn = newNativeConnection();
+    if ( tokenizer.skip( "h2://" ) ) {
+      parseHostPortAndDatabase( dbconn, tokenizer );
     } else {
 
       // databasename
 
-      dbconn.setDatabaseName( jdbcUrl.substring( getNativeJdbcPre().length() ) );
+      dbconn.setDatabaseName( tokenizer.rest() );
     }
     return dbconn;
   }
+
+  @Override
+  public String getSQLNextSequenceValues( String sequenceName, int count ) {
+    return "SELECT NEXT VALUE FOR " + sequenceName + " FROM SYSTEM_RANGE(1, " + count + ")";
+  }
+
+  @Override
+  public int getMaxInsertRows() {
+    return DEFAULT_MAX_INSERT_ROWS;
+  }
+
+  @Override
+  protected void appendRowLimit( StringBuilder sql, long offset, int limit ) {
+    appendLimitOffset( sql, offset, limit );
+  }
 }
@@ -16,9 +16,12 @@
  */
 package org.pentaho.database.dialect;
 
+import java.util.List;
+
 import org.pentaho.database.DatabaseDialectException;
 import org.pentaho.database.IValueMeta;
 import org.pentaho.database.model.DatabaseAccessType;
+import org.pentaho.database.model.DatabaseConnection;
 import org.pentaho.database.model.DatabaseType;
 import org.pentaho.database.model.IDatabaseConnection;
 import org.pentaho.database.model.IDatabaseType;
@@ -53,8 +56,10 @@ public class InformixDatabaseDialect extends AbstractDatabaseDialect {
   }
 
   /**
-   * Generates the SQL statement to add a column to the specified table
+   * Appends the SQL statement to add a column to the specified table
    * 
+   * @param sql
+   *          the buffer to append the statement to
    * @param tablename
    *          The table to add
    * @param v
@@ -67,17 +72,19 @@ public class InformixDatabaseDialect extends AbstractDatabaseDialect {
    *          the name of the primary key field
    * @param semicolon
    *          whether or not to add a semi-colon behind the statement.
-   * @return the SQL statement to add a column to the specified table
    */
   @Override
-  public String getAddColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-      boolean semicolon ) {
-    return "ALTER TABLE " + tablename + " ADD " + getFieldDefinition( v, tk, pk, use_autoinc, true, false );
+  public void appendAddColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( "ALTER TABLE " ).append( tablename ).append( " ADD " );
+    appendFieldDefinition( sql, v, tk, pk, use_autoinc, true, false );
   }
 
   /**
-   * Generates the SQL statement to modify a column in the specified table
+   * Appends the SQL statement to modify a column in the specified table
    * 
+   * @param sql
+   *          the buffer to append the statement to
    * @param tablename
    *          The table to add
    * @param v
@@ -90,37 +97,35 @@ public class InformixDatabaseDialect extends AbstractDatabaseDialect {
    *          the name of the primary key field
    * @param semicolon
    *          whether or not to add a semi-colon behind the statement.
-   * @return the SQL statement to modify a column in the specified table
    */
   @Override
-  public String getModifyColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-      boolean semicolon ) {
-    return "ALTER TABLE " + tablename + " MODIFY " + getFieldDefinition( v, tk, pk, use_autoinc, true, false );
+  public void appendModifyColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( "ALTER TABLE " ).append( tablename ).append( " MODIFY " );
+    appendFieldDefinition( sql, v, tk, pk, use_autoinc, true, false );
   }
 
   @Override
-  public String getFieldDefinition( IValueMeta v, String tk, String pk, boolean use_autoinc, boolean add_fieldname,
-      boolean add_cr ) {
-    String retval = "";
-
+  public void appendFieldDefinition( StringBuilder retval, IValueMeta v, String tk, String pk, boolean use_autoinc,
+      boolean add_fieldname, boolean add_cr ) {
     String fieldname = v.getName();
     int length = v.getLength();
     int precision = v.getPrecision();
 
     if ( add_fieldname ) {
-      retval += fieldname + " ";
+      retval.append( fieldname ).append( " " );
     }
 
     int type = v.getType();
     switch ( type ) {
       case IValueMeta.TYPE_DATE:
-        retval += "DATETIME YEAR to FRACTION";
+        retval.append( "DATETIME YEAR to FRACTION" );
         break;
       case IValueMeta.TYPE_BOOLEAN:
         if ( supportsBooleanDataType() ) {
-          retval += "BOOLEAN";
+          retval.append( "BOOLEAN" );
         } else {
-          retval += "CHAR(1)";
+          retval.append( "CHAR(1)" );
         }
         break;
       case IValueMeta.TYPE_NUMBER:
@@ -130,46 +135,44 @@ public class InformixDatabaseDialect extends AbstractDatabaseDialect {
             fieldname.equalsIgnoreCase( pk ) // Primary key
         ) {
           if ( use_autoinc ) {
-            retval += "SERIAL8";
+            retval.append( "SERIAL8" );
           } else {
-            retval += "INTEGER PRIMARY KEY";
+            retval.append( "INTEGER PRIMARY KEY" );
           }
         } else {
           if ( ( length < 0 && precision < 0 ) || precision > 0 || length > 9 ) {
-            retval += "FLOAT";
+            retval.append( "FLOAT" );
           } else { // Precision == 0 && length<=9
-            retval += "INTEGER";
+            retval.append( "INTEGER" );
           }
         }
         break;
       case IValueMeta.TYPE_STRING:
         if ( length >= CLOB_LENGTH ) {
-          retval += "CLOB";
+          retval.append( "CLOB" );
         } else {
           if ( length < 256 ) {
-            retval += "VARCHAR";
+            retval.append( "VARCHAR" );
             if ( length > 0 ) {
-              retval += "(" + length + ")";
+              retval.append( "(" ).append( length ).append( ")" );
             }
           } else {
             if ( length < 32768 ) {
-              retval += "LVARCHAR";
+              retval.append( "LVARCHAR" );
             } else {
-              retval += "TEXT";
+              retval.append( "TEXT" );
             }
           }
         }
         break;
       default:
-        retval += " UNKNOWN";
+        retval.append( " UNKNOWN" );
         break;
     }
 
     if ( add_cr ) {
-      retval += CR;
+      retval.append( CR );
     }
-
-    return retval;
   }
 
   @Override
@@ -246,4 +249,69 @@ public class InformixDatabaseDialect extends AbstractDatabaseDialect {
     // sql;
   }
 
+  @Override
+  public IDatabaseConnection createNativeConnection( String jdbcUrl ) {
+    // hostname:port/dbname:INFORMIXSERVER=servername;DELIMIDENT=Y
+    JdbcUrlTokenizer tokenizer = createUrlTokenizer( jdbcUrl );
+    DatabaseConnection dbconn = newNativeConnection();
+    tokenizer.skip( "//" );
+    parseHostPortAndDatabase( dbconn, tokenizer );
+    return dbconn;
+  }
+
+  @Override
+  protected void setDatabaseNameAndParams( DatabaseConnection dbconn, JdbcUrlTokenizer tokenizer ) {
+    // the database name is followed by ':' rather than by the option indicator
+    dbconn.setDatabaseName( tokenizer.next( ":", getExtraOptionIndicator() ) );
+    if ( tokenizer.skip( ":" ) || tokenizer.skip( getExtraOptionIndicator() ) ) {
+      parseExtraOptions( dbconn, tokenizer );
+    }
+  }
+
+  @Override
+  protected void setUrlOption( DatabaseConnection dbconn, String name, String value ) {
+    if ( name.equalsIgnoreCase( "INFORMIXSERVER" ) ) {
+      dbconn.setInformixServername( value );
+    } else if ( name.equalsIgnoreCase( "DELIMIDENT" ) && value.equalsIgnoreCase( "Y" ) ) {
+      // always added by getURL()
+      return;
+    } else {
+      super.setUrlOption( dbconn, name, value );
+    }
+  }
+
+  @Override
+  public int getMaxInsertRows() {
+    // keeps the statement well within the size older servers parse
+    return 250;
+  }
+
+  /**
+   * Pages with SKIP and FIRST on the query as a derived table.
+   */
+  @Override
+  public String getPagedQuery( String query, String orderBy, long offset, int limit ) {
+    checkPage( offset, limit );
+    StringBuilder sql = new StringBuilder( query.length() + STATEMENT_CAPACITY );
+    sql.append( "SELECT " );
+    if ( offset > 0 ) {
+      sql.append( "SKIP " ).append( offset ).append( ' ' );
+    }
+    sql.append( "FIRST " ).append( limit ).append( " * FROM (" ).append( query ).append( ") page_" );
+    appendOrderBy( sql, orderBy );
+    return sql.toString();
+  }
+
+  /**
+   * Informix takes a single row per VALUES clause; the rows are selected from parameters and joined with UNION ALL.
+   * A SELECT needs a table, and systables has exactly one row with tabid 1.
+   */
+  @Override
+  protected void appendInsertRows( StringBuilder sql, String tablename, List<IValueMeta> columns, int rows ) {
+    if ( rows == 1 ) {
+      super.appendInsertRows( sql, tablename, columns, rows );
+    } else {
+      appendUnionAllInsertRows( sql, tablename, columns, rows, " FROM systables WHERE tabid = 1" );
+    }
+  }
 }
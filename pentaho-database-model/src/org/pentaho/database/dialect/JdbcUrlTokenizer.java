@@ -0,0 +1,107 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+
+package org.pentaho.database.dialect;
+
+/**
+ * Forward-only cursor over a JDBC URL, used by the dialects to parse a URL in {@code createNativeConnection}. The URL
+ * is scanned once from left to right; the only strings created are the host, port, database and option tokens that
+ * are handed to the connection.
+ */
+public final class JdbcUrlTokenizer {
+
+  private final String url;
+  private int position;
+
+  public JdbcUrlTokenizer( String url, int start ) {
+    this.url = url;
+    this.position = start;
+  }
+
+  /**
+   * @return true if there are characters left after the cursor
+   */
+  public boolean hasMore() {
+    return position < url.length();
+  }
+
+  /**
+   * @return true if the text at the cursor starts with the given token. Null and empty tokens never match.
+   */
+  public boolean lookingAt( String token ) {
+    return token != null && token.length() > 0 && url.startsWith( token, position );
+  }
+
+  /**
+   * Moves the cursor past the token if the text at the cursor starts with it.
+   * 
+   * @return true if the token was skipped
+   */
+  public boolean skip( String token ) {
+    if ( lookingAt( token ) ) {
+      position += token.length();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Reads up to (but not including) the delimiter, or up to the end of the URL if the delimiter does not occur. The
+   * cursor is left on the delimiter.
+   */
+  public String next( String delimiter ) {
+    return next( delimiter, null, null );
+  }
+
+  /**
+   * Reads up to (but not including) the first occurrence of either delimiter.
+   * 
+   * @see #next(String)
+   */
+  public String next( String delimiter1, String delimiter2 ) {
+    return next( delimiter1, delimiter2, null );
+  }
+
+  /**
+   * Reads up to (but not including) the first occurrence of any of the delimiters. Null and empty delimiters are
+   * ignored.
+   * 
+   * @see #next(String)
+   */
+  public String next( String delimiter1, String delimiter2, String delimiter3 ) {
+    int start = position;
+    int length = url.length();
+    while ( position < length && !lookingAt( delimiter1 ) && !lookingAt( delimiter2 ) && !lookingAt( delimiter3 ) ) {
+      position++;
+    }
+    return url.substring( start, position );
+  }
+
+  /**
+   * Reads everything after the cursor.
+   */
+  public String rest() {
+    String rest = url.substring( position );
+    position = url.length();
+    return rest;
+  }
+
+  @Override
+  public String toString() {
+    return url.substring( 0, position ) + "|" + url.substring( position );
+  }
+}
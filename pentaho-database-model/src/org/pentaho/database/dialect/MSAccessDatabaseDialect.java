@@ -139,8 +139,10 @@ public class MSAccessDatabaseDialect extends AbstractDatabaseDialect {
   }
 
   /**
-   * Generates the SQL statement to add a column to the specified table
+   * Appends the SQL statement to add a column to the specified table
    * 
+   * @param sql
+   *          the buffer to append the statement to
    * @param tablename
    *          The table to add
    * @param v
@@ -153,12 +155,12 @@ public class MSAccessDatabaseDialect extends AbstractDatabaseDialect {
    *          the name of the primary key field
    * @param semicolon
    *          whether or not to add a semi-colon behind the statement.
-   * @return the SQL statement to add a column to the specified table
    */
   @Override
-  public String getAddColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-      boolean semicolon ) {
-    return "ALTER TABLE " + tablename + " ADD COLUMN " + getFieldDefinition( v, tk, pk, use_autoinc, true, false );
+  public void appendAddColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( "ALTER TABLE " ).append( tablename ).append( " ADD COLUMN " );
+    appendFieldDefinition( sql, v, tk, pk, use_autoinc, true, false );
   }
 
   /**
@@ -185,8 +187,10 @@ public class MSAccessDatabaseDialect extends AbstractDatabaseDialect {
   }
 
   /**
-   * Generates the SQL statement to modify a column in the specified table
+   * Appends the SQL statement to modify a column in the specified table
    * 
+   * @param sql
+   *          the buffer to append the statement to
    * @param tablename
    *          The table to add
    * @param v
@@ -199,38 +203,36 @@ public class MSAccessDatabaseDialect extends AbstractDatabaseDialect {
    *          the name of the primary key field
    * @param semicolon
    *          whether or not to add a semi-colon behind the statement.
-   * @return the SQL statement to modify a column in the specified table
    */
   @Override
-  public String getModifyColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-      boolean semicolon ) {
-    return "ALTER TABLE " + tablename + " ALTER COLUMN " + getFieldDefinition( v, tk, pk, use_autoinc, true, false );
+  public void appendModifyColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( "ALTER TABLE " ).append( tablename ).append( " ALTER COLUMN " );
+    appendFieldDefinition( sql, v, tk, pk, use_autoinc, true, false );
   }
 
   @Override
-  public String getFieldDefinition( IValueMeta v, String tk, String pk, boolean use_autoinc, boolean add_fieldname,
-      boolean add_cr ) {
-    String retval = "";
-
+  public void appendFieldDefinition( StringBuilder retval, IValueMeta v, String tk, String pk, boolean use_autoinc,
+      boolean add_fieldname, boolean add_cr ) {
     String fieldname = v.getName();
     int length = v.getLength();
     int precision = v.getPrecision();
 
     if ( add_fieldname ) {
-      retval += fieldname + " ";
+      retval.append( fieldname ).append( " " );
     }
 
     int type = v.getType();
     switch ( type ) {
       case IValueMeta.TYPE_DATE:
-        retval += "DATETIME";
+        retval.append( "DATETIME" );
         break;
       // Move back to Y/N for bug - [# 1538] Repository on MS ACCESS: error creating repository
       case IValueMeta.TYPE_BOOLEAN:
         if ( supportsBooleanDataType() ) {
-          retval += "BIT";
+          retval.append( "BIT" );
         } else {
-          retval += "CHAR(1)";
+          retval.append( "CHAR(1)" );
         }
         break;
       case IValueMeta.TYPE_NUMBER:
@@ -240,50 +242,48 @@ public class MSAccessDatabaseDialect extends AbstractDatabaseDialect {
             fieldname.equalsIgnoreCase( pk ) // Primary key
         ) {
           if ( use_autoinc ) {
-            retval += "COUNTER PRIMARY KEY";
+            retval.append( "COUNTER PRIMARY KEY" );
           } else {
-            retval += "LONG PRIMARY KEY";
+            retval.append( "LONG PRIMARY KEY" );
           }
         } else {
           if ( precision == 0 ) {
             if ( length > 9 ) {
-              retval += "DOUBLE";
+              retval.append( "DOUBLE" );
             } else {
               if ( length > 5 ) {
-                retval += "LONG";
+                retval.append( "LONG" );
               } else {
-                retval += "INTEGER";
+                retval.append( "INTEGER" );
               }
             }
           } else {
-            retval += "DOUBLE";
+            retval.append( "DOUBLE" );
           }
         }
         break;
       case IValueMeta.TYPE_STRING:
         if ( length > 0 ) {
           if ( length < 256 ) {
-            retval += "TEXT(" + length + ")";
+            retval.append( "TEXT(" ).append( length ).append( ")" );
           } else {
-            retval += "MEMO";
+            retval.append( "MEMO" );
           }
         } else {
-          retval += "TEXT";
+          retval.append( "TEXT" );
         }
         break;
       case IValueMeta.TYPE_BINARY:
-        retval += " LONGBINARY";
+        retval.append( " LONGBINARY" );
         break;
       default:
-        retval += " UNKNOWN";
+        retval.append( " UNKNOWN" );
         break;
     }
 
     if ( add_cr ) {
-      retval += CR;
+      retval.append( CR );
     }
-
-    return retval;
   }
 
   /*
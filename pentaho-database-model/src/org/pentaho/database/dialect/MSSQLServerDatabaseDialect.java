@@ -17,6 +17,10 @@
 
 package org.pentaho.database.dialect;
 
+import java.util.List;
+
+import org.pentaho.database.BulkCommand;
+import org.pentaho.database.BulkFormat;
 import org.pentaho.database.DatabaseDialectException;
 import org.pentaho.database.IValueMeta;
 import org.pentaho.database.model.DatabaseAccessType;
@@ -34,6 +38,12 @@ public class MSSQLServerDatabaseDialect extends AbstractDatabaseDialect {
       DatabaseAccessType.NATIVE, DatabaseAccessType.ODBC, DatabaseAccessType.JNDI ), 1433,
       "http://jtds.sourceforge.net/faq.html#urlFormat" );
 
+  /**
+   * Tab delimited lines without escapes, where an empty field is null.
+   */
+  private static final BulkFormat BULK_FORMAT =
+      new BulkFormat( '\t', "\n", "", BulkFormat.NO_ESCAPE, "UTF-8" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
   public MSSQLServerDatabaseDialect() {
 
   }
@@ -118,8 +128,10 @@ public class MSSQLServerDatabaseDialect extends AbstractDatabaseDialect {
   }
 
   /**
-   * Generates the SQL statement to add a column to the specified table
+   * Appends the SQL statement to add a column to the specified table
    * 
+   * @param sql
+   *          the buffer to append the statement to
    * @param tablename
    *          The table to add
    * @param v
@@ -132,17 +144,19 @@ public class MSSQLServerDatabaseDialect extends AbstractDatabaseDialect {
    *          the name of the primary key field
    * @param semicolon
    *          whether or not to add a semi-colon behind the statement.
-   * @return the SQL statement to add a column to the specified table
    */
   @Override
-  public String getAddColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-      boolean semicolon ) {
-    return "ALTER TABLE " + tablename + " ADD " + getFieldDefinition( v, tk, pk, use_autoinc, true, false );
+  public void appendAddColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( "ALTER TABLE " ).append( tablename ).append( " ADD " );
+    appendFieldDefinition( sql, v, tk, pk, use_autoinc, true, false );
   }
 
   /**
-   * Generates the SQL statement to modify a column in the specified table
+   * Appends the SQL statement to modify a column in the specified table
    * 
+   * @param sql
+   *          the buffer to append the statement to
    * @param tablename
    *          The table to add
    * @param v
@@ -155,12 +169,12 @@ public class MSSQLServerDatabaseDialect extends AbstractDatabaseDialect {
    *          the name of the primary key field
    * @param semicolon
    *          whether or not to add a semi-colon behind the statement.
-   * @return the SQL statement to modify a column in the specified table
    */
   @Override
-  public String getModifyColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-      boolean semicolon ) {
-    return "ALTER TABLE " + tablename + " ALTER COLUMN " + getFieldDefinition( v, tk, pk, use_autoinc, true, false );
+  public void appendModifyColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( "ALTER TABLE " ).append( tablename ).append( " ALTER COLUMN " );
+    appendFieldDefinition( sql, v, tk, pk, use_autoinc, true, false );
   }
 
   /**
@@ -187,28 +201,26 @@ public class MSSQLServerDatabaseDialect extends AbstractDatabaseDialect {
   }
 
   @Override
-  public String getFieldDefinition( IValueMeta v, String tk, String pk, boolean use_autoinc, boolean add_fieldname,
-      boolean add_cr ) {
-    String retval = "";
-
+  public void appendFieldDefinition( StringBuilder retval, IValueMeta v, String tk, String pk, boolean use_autoinc,
+      boolean add_fieldname, boolean add_cr ) {
     String fieldname = v.getName();
     int length = v.getLength();
     int precision = v.getPrecision();
 
     if ( add_fieldname ) {
-      retval += fieldname + " ";
+      retval.append( fieldname ).append( " " );
     }
 
     int type = v.getType();
     switch ( type ) {
       case IValueMeta.TYPE_DATE:
-        retval += "DATETIME";
+        retval.append( "DATETIME" );
         break;
       case IValueMeta.TYPE_BOOLEAN:
         if ( supportsBooleanDataType() ) {
-          retval += "BIT";
+          retval.append( "BIT" );
         } else {
-          retval += "CHAR(1)";
+          retval.append( "CHAR(1)" );
         }
         break;
       case IValueMeta.TYPE_NUMBER:
@@ -218,28 +230,28 @@ public class MSSQLServerDatabaseDialect extends AbstractDatabaseDialect {
             fieldname.equalsIgnoreCase( pk ) // Primary key
         ) {
           if ( use_autoinc ) {
-            retval += "BIGINT PRIMARY KEY IDENTITY(0,1)";
+            retval.append( "BIGINT PRIMARY KEY IDENTITY(0,1)" );
           } else {
-            retval += "BIGINT PRIMARY KEY";
+            retval.append( "BIGINT PRIMARY KEY" );
           }
         } else {
           if ( precision == 0 ) {
             if ( length > 18 ) {
-              retval += "DECIMAL(" + length + ",0)";
+              retval.append( "DECIMAL(" ).append( length ).append( ",0)" );
             } else {
               if ( length > 9 ) {
-                retval += "BIGINT";
+                retval.append( "BIGINT" );
               } else {
-                retval += "INT";
+                retval.append( "INT" );
               }
             }
           } else {
             if ( precision > 0 ) {
               if ( length > 0 ) {
-                retval += "DECIMAL(" + length + "," + precision + ")";
+                retval.append( "DECIMAL(" ).append( length ).append( "," ).append( precision ).append( ")" );
               }
             } else {
-              retval += "FLOAT(53)";
+              retval.append( "FLOAT(53)" );
             }
           }
         }
@@ -248,24 +260,22 @@ public class MSSQLServerDatabaseDialect extends AbstractDatabaseDialect {
         if ( length < 8000 ) {
           // Maybe use some default DB String length in case length<=0
           if ( length > 0 ) {
-            retval += "VARCHAR(" + length + ")";
+            retval.append( "VARCHAR(" ).append( length ).append( ")" );
           } else {
-            retval += "VARCHAR(100)";
+            retval.append( "VARCHAR(100)" );
           }
         } else {
-          retval += "TEXT"; // Up to 2bilion characters.
+          retval.append( "TEXT" ); // Up to 2bilion characters.
         }
         break;
       default:
-        retval += " UNKNOWN";
+        retval.append( " UNKNOWN" );
         break;
     }
 
     if ( add_cr ) {
-      retval += CR;
+      retval.append( CR );
     }
-
-    return retval;
   }
 
   /*
@@ -335,4 +345,54 @@ public class MSSQLServerDatabaseDialect extends AbstractDatabaseDialect {
     return new String[] { "jtds-1.2.jar" };
   }
 
+  @Override
+  public int getMaxInsertRows() {
+    // a table value constructor takes at most 1000 rows
+    return 1000;
+  }
+
+  @Override
+  public int getMaxBindParameters() {
+    // a request takes 2100 parameters, but the driver sends a prepared statement through sp_prepexec or
+    // sp_executesql, which take up two of them
+    return 2098;
+  }
+
+  /**
+   * The first page is a TOP, which every version has; OFFSET FETCH for the others needs SQL Server 2012 and an ORDER
+   * BY, which is arbitrary when there is no order.
+   */
+  @Override
+  public String getPagedQuery( String query, String orderBy, long offset, int limit ) {
+    checkPage( offset, limit );
+    StringBuilder sql = new StringBuilder( query.length() + STATEMENT_CAPACITY );
+    if ( offset == 0 ) {
+      sql.append( "SELECT TOP " ).append( limit ).append( " * FROM (" ).append( query ).append( ") page_" );
+      appendOrderBy( sql, orderBy );
+    } else {
+      sql.append( query );
+      appendOrderBy( sql, orderBy == null ? "(SELECT NULL)" : orderBy );
+      sql.append( " OFFSET " ).append( offset ).append( " ROWS FETCH NEXT " ).append( limit ).append( " ROWS ONLY" );
+    }
+    return sql.toString();
+  }
+
+  @Override
+  public boolean supportsBulkLoad() {
+    return true;
+  }
+
+  /**
+   * BULK INSERT of a file the server can read, as UTF-8 (code page 65001 needs SQL Server 2016). BULK INSERT takes no
+   * column list, so the fields must be in the order of the columns of the table, and it has no escape character:
+   * empty fields load as null and values cannot hold tabs or line breaks.
+   */
+  @Override
+  public BulkCommand getBulkLoadCommand( String tablename, List<IValueMeta> columns, String location ) {
+    StringBuilder sql = new StringBuilder( STATEMENT_CAPACITY );
+    sql.append( "BULK INSERT " ).append( tablename ).append( " FROM " );
+    appendStringLiteral( sql, location );
+    sql.append( " WITH (FIELDTERMINATOR = '\\t', ROWTERMINATOR = '0x0a', CODEPAGE = '65001', KEEPNULLS, TABLOCK)" );
+    return new BulkCommand( sql.toString(), BulkCommand.Channel.SERVER_FILE, BULK_FORMAT );
+  }
 }
@@ -79,80 +79,34 @@ public class MSSQLServerNativeDatabaseDialect extends MSSQLServerDatabaseDialect
 
   @Override
   public IDatabaseConnection createNativeConnection( String jdbcUrl ) {
-    if ( !jdbcUrl.startsWith( getNativeJdbcPre() ) ) {
-      throw new RuntimeException( "JDBC URL " + jdbcUrl + " does not start with " + getNativeJdbcPre() );
-    }
-    DatabaseConnection dbconn = new DatabaseConnection();
-    dbconn.setDatabaseType( getDatabaseType() );
-    dbconn.setAccessType( DatabaseAccessType.NATIVE );
-    String str = jdbcUrl.substring( getNativeJdbcPre().length() );
-    String hostname = null;
-    String port = null;
-    String databaseNameAndParams = null;
+    JdbcUrlTokenizer tokenizer = createUrlTokenizer( jdbcUrl );
+    DatabaseConnection dbconn = newNativeConnection();
 
     // hostname:port;databaseName=dbname;integratedSecurity=security
-
-    // hostname:port
-    // hostname/dbname
-    // dbname
-
-    if ( str.indexOf( ":" ) >= 0 ) {
-      hostname = str.substring( 0, str.indexOf( ":" ) );
-      str = str.substring( str.indexOf( ":" ) + 1 );
-      if ( str.indexOf( getExtraOptionIndicator() ) >= 0 ) {
-        port = str.substring( 0, str.indexOf( ";" ) );
-        databaseNameAndParams = str.substring( str.indexOf( getExtraOptionIndicator() ) + 1 );
-      } else {
-        port = str;
-      }
-    } else {
-      if ( str.indexOf( getExtraOptionIndicator() ) >= 0 ) {
-        hostname = str.substring( 0, str.indexOf( getExtraOptionIndicator() ) );
-        databaseNameAndParams = str.substring( str.indexOf( getExtraOptionIndicator() ) + 1 );
-      } else {
-        hostname = str;
-      }
-    }
-    if ( hostname != null ) {
-      dbconn.setHostname( hostname );
+    // hostname\instance:port;...
+    // hostname;...
+    // hostname
+
+    String indicator = getExtraOptionIndicator();
+    dbconn.setHostname( tokenizer.next( ":", indicator ) );
+    if ( tokenizer.skip( ":" ) ) {
+      dbconn.setDatabasePort( tokenizer.next( indicator ) );
     }
-    if ( port != null ) {
-      dbconn.setDatabasePort( port );
-    }
-
-    // parse parameters out of URL
-    if ( databaseNameAndParams != null ) {
-      setDatabaseNameAndParams( dbconn, databaseNameAndParams );
+    if ( tokenizer.skip( indicator ) ) {
+      parseExtraOptions( dbconn, tokenizer );
     }
     return dbconn;
   }
 
   @Override
-  protected void setDatabaseNameAndParams( DatabaseConnection dbconn, String databaseNameAndParams ) {
-    String[] paramData = databaseNameAndParams.split( getExtraOptionSeparator() );
-    for ( String param : paramData ) {
-      String[] nameAndValue = param.split( getExtraOptionValueSeparator() );
-      if ( nameAndValue[0] != null && nameAndValue[0].trim().length() > 0 ) {
-        if ( nameAndValue.length == 1 ) {
-          if ( nameAndValue[0].equals( "databaseName" ) ) {
-            dbconn.setDatabaseName( "" );
-          } else if ( nameAndValue[0].equals( "integratedSecurity" ) ) {
-            dbconn.getAttributes().put( ATTRIBUTE_USE_INTEGRATED_SECURITY, "false" );
-          } else {
-            dbconn.addExtraOption( dbconn.getDatabaseType().getShortName(), nameAndValue[0], "" );
-          }
-        } else {
-          if ( nameAndValue[0].equals( "databaseName" ) ) {
-            dbconn.setDatabaseName( nameAndValue[1] );
-          } else if ( nameAndValue[0].equals( "integratedSecurity" ) ) {
-            dbconn.getAttributes().put( ATTRIBUTE_USE_INTEGRATED_SECURITY, nameAndValue[1] );
-          } else {
-            dbconn.addExtraOption( dbconn.getDatabaseType().getShortName(), nameAndValue[0], nameAndValue[1] );
-          }
-        }
-      }
+  protected void setUrlOption( DatabaseConnection dbconn, String name, String value ) {
+    if ( name.equalsIgnoreCase( "databaseName" ) ) {
+      dbconn.setDatabaseName( value );
+    } else if ( name.equalsIgnoreCase( "integratedSecurity" ) ) {
+      dbconn.getAttributes().put( ATTRIBUTE_USE_INTEGRATED_SECURITY, value.length() == 0 ? "false" : value );
+    } else {
+      super.setUrlOption( dbconn, name, value );
     }
-
   }
 
   @Override
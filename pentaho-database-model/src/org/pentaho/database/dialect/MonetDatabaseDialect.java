@@ -17,6 +17,10 @@
 
 package org.pentaho.database.dialect;
 
+import java.util.List;
+
+import org.pentaho.database.BulkCommand;
+import org.pentaho.database.BulkFormat;
 import org.pentaho.database.DatabaseDialectException;
 import org.pentaho.database.IValueMeta;
 import org.pentaho.database.model.DatabaseAccessType;
@@ -86,8 +90,10 @@ public class MonetDatabaseDialect extends AbstractDatabaseDialect {
   }
 
   /**
-   * Generates the SQL statement to add a column to the specified table
+   * Appends the SQL statement to add a column to the specified table
    * 
+   * @param sql
+   *          the buffer to append the statement to
    * @param tablename
    *          The table to add
    * @param v
@@ -100,18 +106,20 @@ public class MonetDatabaseDialect extends AbstractDatabaseDialect {
    *          the name of the primary key field
    * @param semicolon
    *          whether or not to add a semi-colon behind the statement.
-   * @return the SQL statement to add a column to the specified table
    * 
    */
   @Override
-  public String getAddColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-      boolean semicolon ) {
-    return "ALTER TABLE " + tablename + " ADD " + getFieldDefinition( v, tk, pk, use_autoinc, true, false ); //$NON-NLS-1$ //$NON-NLS-2$
+  public void appendAddColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( "ALTER TABLE " ).append( tablename ).append( " ADD " ); //$NON-NLS-1$ //$NON-NLS-2$
+    appendFieldDefinition( sql, v, tk, pk, use_autoinc, true, false );
   }
 
   /**
-   * Generates the SQL statement to modify a column in the specified table
+   * Appends the SQL statement to modify a column in the specified table
    * 
+   * @param sql
+   *          the buffer to append the statement to
    * @param tablename
    *          The table to add
    * @param v
@@ -124,19 +132,17 @@ public class MonetDatabaseDialect extends AbstractDatabaseDialect {
    *          the name of the primary key field
    * @param semicolon
    *          whether or not to add a semi-colon behind the statement.
-   * @return the SQL statement to modify a column in the specified table
    */
   @Override
-  public String getModifyColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-      boolean semicolon ) {
-    return "ALTER TABLE " + tablename + " MODIFY " + getFieldDefinition( v, tk, pk, use_autoinc, true, false ); //$NON-NLS-1$ //$NON-NLS-2$
+  public void appendModifyColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( "ALTER TABLE " ).append( tablename ).append( " MODIFY " ); //$NON-NLS-1$ //$NON-NLS-2$
+    appendFieldDefinition( sql, v, tk, pk, use_autoinc, true, false );
   }
 
   @Override
-  public String getFieldDefinition( IValueMeta v, String tk, String pk, boolean use_autoinc, boolean add_fieldname,
-      boolean add_cr ) {
-    StringBuffer retval = new StringBuffer( 128 );
-
+  public void appendFieldDefinition( StringBuilder retval, IValueMeta v, String tk, String pk, boolean use_autoinc,
+      boolean add_fieldname, boolean add_cr ) {
     String fieldname = v.getName();
     int length = v.getLength();
     int precision = v.getPrecision();
@@ -206,8 +212,6 @@ public class MonetDatabaseDialect extends AbstractDatabaseDialect {
     if ( add_cr ) {
       retval.append( CR );
     }
-
-    return retval.toString();
   }
 
   @Override
@@ -253,57 +257,60 @@ public class MonetDatabaseDialect extends AbstractDatabaseDialect {
 
   @Override
   public IDatabaseConnection createNativeConnection( String jdbcUrl ) {
-    if ( !jdbcUrl.startsWith( getNativeJdbcPre() ) ) {
-      throw new RuntimeException( "JDBC URL " + jdbcUrl + " does not start with " + getNativeJdbcPre() );
-    }
-    DatabaseConnection dbconn = new DatabaseConnection();
-    dbconn.setDatabaseType( getDatabaseType() );
-    dbconn.setAccessType( DatabaseAccessType.NATIVE );
-    if ( jdbcUrl.startsWith( getNativeJdbcPre() + "monetdb://" ) ) {
-      String str = jdbcUrl.substring( getNativeJdbcPre().length() + "monetdb://".length() );
-      String hostname = null;
-      String port = null;
-      String databaseName = null;
-
-      // hostname:port/dbname
-      // hostname:port
-      // hostname/dbname
-      // dbname
-
-      // TODO: Support Parameters
-
-      if ( str.indexOf( ":" ) >= 0 ) {
-        hostname = str.substring( 0, str.indexOf( ":" ) );
-        str = str.substring( str.indexOf( ":" ) + 1 );
-        if ( str.indexOf( "/" ) >= 0 ) {
-          port = str.substring( 0, str.indexOf( "/" ) );
-          databaseName = str.substring( str.indexOf( "/" ) + 1 );
-        } else {
-          port = str;
-        }
-      } else {
-        if ( str.indexOf( "/" ) >= 0 ) {
-          hostname = str.substring( 0, str.indexOf( "/" ) );
-          databaseName = str.substring( str.indexOf( "/" ) + 1 );
-        } else {
-          databaseName = str;
-        }
-      }
-      if ( hostname != null ) {
-        dbconn.setHostname( hostname );
-      }
-      if ( port != null ) {
-        dbconn.setDatabasePort( port );
-      }
-      if ( databaseName != null ) {
-        setDatabaseNameAndParams( dbconn, databaseName );
-      }
+    JdbcUrlTokenizer tokenizer = createUrlTokenizer( jdbcUrl );
+    DatabaseConnection dbconn = newNativeConnection();
+    if ( tokenizer.skip( "monetdb://" ) || tokenizer.skip( "//" ) ) {
+      parseHostPortAndDatabase( dbconn, tokenizer );
     } else {
 
       // databasename
 
-      dbconn.setDatabaseName( jdbcUrl.substring( getNativeJdbcPre().length() ) );
+      dbconn.setDatabaseName( tokenizer.rest() );
     }
     return dbconn;
   }
+
+  @Override
+  public int getMaxInsertRows() {
+    return DEFAULT_MAX_INSERT_ROWS;
+  }
+
+  @Override
+  protected void appendRowLimit( StringBuilder sql, long offset, int limit ) {
+    appendLimitOffset( sql, offset, limit );
+  }
+
+  @Override
+  public boolean supportsBulkLoad() {
+    return true;
+  }
+
+  /**
+   * COPY INTO from a file the server can read, in the PostgreSQL text format; backslash escapes are the default.
+   */
+  @Override
+  public BulkCommand getBulkLoadCommand( String tablename, List<IValueMeta> columns, String location ) {
+    StringBuilder sql = new StringBuilder( STATEMENT_CAPACITY );
+    sql.append( "COPY INTO " ).append( tablename );
+    appendColumnList( sql, columns );
+    sql.append( " FROM " );
+    appendStringLiteral( sql, location );
+    sql.append( " USING DELIMITERS E'\\t', E'\\n' NULL AS E'\\\\N'" );
+    return new BulkCommand( sql.toString(), BulkCommand.Channel.SERVER_FILE, BulkFormat.TEXT );
+  }
+
+  @Override
+  public boolean supportsBulkExtract() {
+    return true;
+  }
+
+  /**
+   * COPY query INTO STDOUT in the format of the bulk load, with the empty string quote so no value is quoted; the
+   * location is ignored.
+   */
+  @Override
+  public BulkCommand getBulkExtractCommand( String query, String location ) {
+    return new BulkCommand( "COPY " + query + " INTO STDOUT USING DELIMITERS E'\\t', E'\\n', '' NULL AS E'\\\\N'",
+        BulkCommand.Channel.STDOUT, BulkFormat.TEXT );
+  }
 }
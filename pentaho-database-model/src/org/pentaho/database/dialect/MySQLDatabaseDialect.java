@@ -17,6 +17,10 @@
 
 package org.pentaho.database.dialect;
 
+import java.util.List;
+
+import org.pentaho.database.BulkCommand;
+import org.pentaho.database.BulkFormat;
 import org.pentaho.database.DatabaseDialectException;
 import org.pentaho.database.IValueMeta;
 import org.pentaho.database.model.DatabaseAccessType;
@@ -47,8 +51,10 @@ public class MySQLDatabaseDialect extends AbstractDatabaseDialect {
   }
 
   /**
-   * Generates the SQL statement to add a column to the specified table
+   * Appends the SQL statement to add a column to the specified table
    * 
+   * @param sql
+   *          the buffer to append the statement to
    * @param tablename
    *          The table to add
    * @param v
@@ -61,17 +67,19 @@ public class MySQLDatabaseDialect extends AbstractDatabaseDialect {
    *          the name of the primary key field
    * @param semicolon
    *          whether or not to add a semi-colon behind the statement.
-   * @return the SQL statement to add a column to the specified table
    */
   @Override
-  public String getAddColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-      boolean semicolon ) {
-    return "ALTER TABLE " + tablename + " ADD " + getFieldDefinition( v, tk, pk, use_autoinc, true, false );
+  public void appendAddColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( "ALTER TABLE " ).append( tablename ).append( " ADD " );
+    appendFieldDefinition( sql, v, tk, pk, use_autoinc, true, false );
   }
 
   /**
-   * Generates the SQL statement to modify a column in the specified table
+   * Appends the SQL statement to modify a column in the specified table
    * 
+   * @param sql
+   *          the buffer to append the statement to
    * @param tablename
    *          The table to add
    * @param v
@@ -84,37 +92,35 @@ public class MySQLDatabaseDialect extends AbstractDatabaseDialect {
    *          the name of the primary key field
    * @param semicolon
    *          whether or not to add a semi-colon behind the statement.
-   * @return the SQL statement to modify a column in the specified table
    */
   @Override
-  public String getModifyColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-      boolean semicolon ) {
-    return "ALTER TABLE " + tablename + " MODIFY " + getFieldDefinition( v, tk, pk, use_autoinc, true, false );
+  public void appendModifyColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( "ALTER TABLE " ).append( tablename ).append( " MODIFY " );
+    appendFieldDefinition( sql, v, tk, pk, use_autoinc, true, false );
   }
 
   @Override
-  public String getFieldDefinition( IValueMeta v, String tk, String pk, boolean use_autoinc, boolean add_fieldname,
-      boolean add_cr ) {
-    String retval = "";
-
+  public void appendFieldDefinition( StringBuilder retval, IValueMeta v, String tk, String pk, boolean use_autoinc,
+      boolean add_fieldname, boolean add_cr ) {
     String fieldname = v.getName();
     int length = v.getLength();
     int precision = v.getPrecision();
 
     if ( add_fieldname ) {
-      retval += fieldname + " ";
+      retval.append( fieldname ).append( " " );
     }
 
     int type = v.getType();
     switch ( type ) {
       case IValueMeta.TYPE_DATE:
-        retval += "DATETIME";
+        retval.append( "DATETIME" );
         break;
       case IValueMeta.TYPE_BOOLEAN:
         if ( supportsBooleanDataType() ) {
-          retval += "BOOLEAN";
+          retval.append( "BOOLEAN" );
         } else {
-          retval += "CHAR(1)";
+          retval.append( "CHAR(1)" );
         }
         break;
 
@@ -125,9 +131,9 @@ public class MySQLDatabaseDialect extends AbstractDatabaseDialect {
             fieldname.equalsIgnoreCase( pk ) // Primary key
         ) {
           if ( use_autoinc ) {
-            retval += "BIGINT AUTO_INCREMENT NOT NULL PRIMARY KEY";
+            retval.append( "BIGINT AUTO_INCREMENT NOT NULL PRIMARY KEY" );
           } else {
-            retval += "BIGINT NOT NULL PRIMARY KEY";
+            retval.append( "BIGINT NOT NULL PRIMARY KEY" );
           }
         } else {
           // Integer values...
@@ -136,25 +142,25 @@ public class MySQLDatabaseDialect extends AbstractDatabaseDialect {
               if ( length < 19 ) {
                 // can hold signed values between -9223372036854775808 and 9223372036854775807
                 // 18 significant digits
-                retval += "BIGINT";
+                retval.append( "BIGINT" );
               } else {
-                retval += "DECIMAL(" + length + ")";
+                retval.append( "DECIMAL(" ).append( length ).append( ")" );
               }
             } else {
-              retval += "INT";
+              retval.append( "INT" );
             }
           } else {
             // Floating point values...
             if ( length > 15 ) {
-              retval += "DECIMAL(" + length;
+              retval.append( "DECIMAL(" ).append( length );
               if ( precision > 0 ) {
-                retval += ", " + precision;
+                retval.append( ", " ).append( precision );
               }
-              retval += ")";
+              retval.append( ")" );
             } else {
               // A double-precision floating-point number is accurate to approximately 15 decimal places.
               // http://mysql.mirrors-r-us.net/doc/refman/5.1/en/numeric-type-overview.html
-              retval += "DOUBLE";
+              retval.append( "DOUBLE" );
             }
           }
         }
@@ -162,33 +168,31 @@ public class MySQLDatabaseDialect extends AbstractDatabaseDialect {
       case IValueMeta.TYPE_STRING:
         if ( length > 0 ) {
           if ( length == 1 ) {
-            retval += "CHAR(1)";
+            retval.append( "CHAR(1)" );
           } else if ( length < 256 ) {
-            retval += "VARCHAR(" + length + ")";
+            retval.append( "VARCHAR(" ).append( length ).append( ")" );
           } else if ( length < 65536 ) {
-            retval += "TEXT";
+            retval.append( "TEXT" );
           } else if ( length < 16777215 ) {
-            retval += "MEDIUMTEXT";
+            retval.append( "MEDIUMTEXT" );
           } else {
-            retval += "LONGTEXT";
+            retval.append( "LONGTEXT" );
           }
         } else {
-          retval += "TINYTEXT";
+          retval.append( "TINYTEXT" );
         }
         break;
       case IValueMeta.TYPE_BINARY:
-        retval += "LONGBLOB";
+        retval.append( "LONGBLOB" );
         break;
       default:
-        retval += " UNKNOWN";
+        retval.append( " UNKNOWN" );
         break;
     }
 
     if ( add_cr ) {
-      retval += CR;
+      retval.append( CR );
     }
-
-    return retval;
   }
 
   @Override
@@ -196,6 +200,11 @@ public class MySQLDatabaseDialect extends AbstractDatabaseDialect {
     return " LIMIT " + nrRows;
   }
 
+  @Override
+  protected void appendRowLimit( StringBuilder sql, long offset, int limit ) {
+    appendLimitOffset( sql, offset, limit );
+  }
+
   /**
    * Returns the minimal SQL to launch in order to determine the layout of the resultset for a given database table
    * 
@@ -397,4 +406,60 @@ public class MySQLDatabaseDialect extends AbstractDatabaseDialect {
     return false;
   }
 
+  @Override
+  public int getMaxInsertRows() {
+    return DEFAULT_MAX_INSERT_ROWS;
+  }
+
+  @Override
+  public int getMaxBindParameters() {
+    // the placeholder count is sent as an unsigned short
+    return 65535;
+  }
+
+  @Override
+  public boolean supportsBulkLoad() {
+    return true;
+  }
+
+  /**
+   * LOAD DATA LOCAL INFILE of a file on the client, which needs allowLoadLocalInfile on the connection and local_infile
+   * on the server.
+   */
+  @Override
+  public BulkCommand getBulkLoadCommand( String tablename, List<IValueMeta> columns, String location ) {
+    StringBuilder sql = new StringBuilder( STATEMENT_CAPACITY );
+    sql.append( "LOAD DATA LOCAL INFILE " );
+    appendStringLiteral( sql, location );
+    sql.append( " INTO TABLE " ).append( tablename );
+    sql.append( " CHARACTER SET utf8mb4 FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n'" );
+    appendColumnList( sql, columns );
+    return new BulkCommand( sql.toString(), BulkCommand.Channel.CLIENT_FILE, BulkFormat.TEXT );
+  }
+
+  @Override
+  public boolean supportsBulkExtract() {
+    return true;
+  }
+
+  /**
+   * SELECT ... INTO OUTFILE of a file the server writes, which needs the FILE privilege and a location secure_file_priv
+   * permits. The query is a derived table so that its own ORDER BY and LIMIT stay in place.
+   */
+  @Override
+  public BulkCommand getBulkExtractCommand( String query, String location ) {
+    StringBuilder sql = new StringBuilder( STATEMENT_CAPACITY );
+    sql.append( "SELECT * FROM (" ).append( query ).append( ") extract INTO OUTFILE " );
+    appendStringLiteral( sql, location );
+    sql.append( " CHARACTER SET utf8mb4 FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n'" );
+    return new BulkCommand( sql.toString(), BulkCommand.Channel.SERVER_FILE, BulkFormat.TEXT );
+  }
+
+  /**
+   * Backslashes escape in MySQL string literals, so they are doubled along with the quotes.
+   */
+  @Override
+  protected void appendStringLiteral( StringBuilder sql, String value ) {
+    super.appendStringLiteral( sql, value.replace( "\\", "\\\\" ) );
+  }
 }
@@ -17,6 +17,8 @@
 
 package org.pentaho.database.dialect;
 
+import java.util.List;
+
 import org.pentaho.database.DatabaseDialectException;
 import org.pentaho.database.IValueMeta;
 import org.pentaho.database.model.DatabaseAccessType;
@@ -64,6 +66,26 @@ public class OracleDatabaseDialect extends AbstractDatabaseDialect {
     return " WHERE ROWNUM <= " + nrRows;
   }
 
+  /**
+   * Pages with ROWNUM, which works on every version; ROWNUM is numbered before ORDER BY, so the ordered query is a
+   * subquery. Past the first page the rows have an extra PAGE_RN column.
+   */
+  @Override
+  public String getPagedQuery( String query, String orderBy, long offset, int limit ) {
+    checkPage( offset, limit );
+    StringBuilder sql = new StringBuilder( query.length() + STATEMENT_CAPACITY );
+    if ( offset == 0 ) {
+      sql.append( "SELECT * FROM (" ).append( query );
+      appendOrderBy( sql, orderBy );
+      sql.append( ") WHERE ROWNUM <= " ).append( limit );
+    } else {
+      sql.append( "SELECT * FROM (SELECT page_.*, ROWNUM page_rn FROM (" ).append( query );
+      appendOrderBy( sql, orderBy );
+      sql.append( ") page_ WHERE ROWNUM <= " ).append( offset + limit ).append( ") WHERE page_rn > " ).append( offset );
+    }
+    return sql.toString();
+  }
+
   /**
    * Returns the minimal SQL to launch in order to determine the layout of the resultset for a given database table
    * 
@@ -205,6 +227,11 @@ public class OracleDatabaseDialect extends AbstractDatabaseDialect {
     return "SELECT " + sequenceName + ".nextval FROM dual";
   }
 
+  @Override
+  public String getSQLNextSequenceValues( String sequenceName, int count ) {
+    return "SELECT " + sequenceName + ".nextval FROM dual CONNECT BY LEVEL <= " + count;
+  }
+
   /**
    * @return true if we need to supply the schema-name to getTables in order to get a correct list of items.
    */
@@ -239,9 +266,11 @@ public class OracleDatabaseDialect extends AbstractDatabaseDialect {
    * @return the SQL statement to add a column to the specified table
    */
   @Override
-  public String getAddColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-      boolean semicolon ) {
-    return "ALTER TABLE " + tablename + " ADD ( " + getFieldDefinition( v, tk, pk, use_autoinc, true, false ) + " ) ";
+  public void appendAddColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( "ALTER TABLE " ).append( tablename ).append( " ADD ( " );
+    appendFieldDefinition( sql, v, tk, pk, use_autoinc, true, false );
+    sql.append( " ) " );
   }
 
   /**
@@ -285,36 +314,36 @@ public class OracleDatabaseDialect extends AbstractDatabaseDialect {
    * @return the SQL statement to modify a column in the specified table
    */
   @Override
-  public String getModifyColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-      boolean semicolon ) {
+  public void appendModifyColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
     IValueMeta tmpColumn = v.clone();
     int threeoh = v.getName().length() >= 30 ? 30 : v.getName().length();
 
     tmpColumn.setName( v.getName().substring( 0, threeoh ) + "_KTL" ); // should always be less then 35
 
-    String sql = "";
-
     // Create a new tmp column
-    sql += getAddColumnStatement( tablename, tmpColumn, tk, use_autoinc, pk, semicolon ) + ";" + CR;
+    appendAddColumnStatement( sql, tablename, tmpColumn, tk, use_autoinc, pk, semicolon );
+    sql.append( ";" ).append( CR );
     // copy the old data over to the tmp column
-    sql += "UPDATE " + tablename + " SET " + tmpColumn.getName() + "=" + v.getName() + ";" + CR;
+    sql.append( "UPDATE " ).append( tablename ).append( " SET " ).append( tmpColumn.getName() ).append( "=" )
+        .append( v.getName() ).append( ";" ).append( CR );
     // drop the old column
-    sql += getDropColumnStatement( tablename, v, tk, use_autoinc, pk, semicolon ) + ";" + CR;
+    sql.append( getDropColumnStatement( tablename, v, tk, use_autoinc, pk, semicolon ) );
+    sql.append( ";" ).append( CR );
     // create the wanted column
-    sql += getAddColumnStatement( tablename, v, tk, use_autoinc, pk, semicolon ) + ";" + CR;
+    appendAddColumnStatement( sql, tablename, v, tk, use_autoinc, pk, semicolon );
+    sql.append( ";" ).append( CR );
     // copy the data from the tmp column to the wanted column (again)
     // All this to avoid the rename clause as this is not supported on all Oracle versions
-    sql += "UPDATE " + tablename + " SET " + v.getName() + "=" + tmpColumn.getName() + ";" + CR;
+    sql.append( "UPDATE " ).append( tablename ).append( " SET " ).append( v.getName() ).append( "=" )
+        .append( tmpColumn.getName() ).append( ";" ).append( CR );
     // drop the temp column
-    sql += getDropColumnStatement( tablename, tmpColumn, tk, use_autoinc, pk, semicolon );
-
-    return sql;
+    sql.append( getDropColumnStatement( tablename, tmpColumn, tk, use_autoinc, pk, semicolon ) );
   }
 
-  public String getFieldDefinition( IValueMeta v, String tk, String pk, boolean use_autoinc, boolean add_fieldname,
-      boolean add_cr ) {
-    StringBuffer retval = new StringBuffer( 128 );
-
+  @Override
+  public void appendFieldDefinition( StringBuilder retval, IValueMeta v, String tk, String pk, boolean use_autoinc,
+      boolean add_fieldname, boolean add_cr ) {
     String fieldname = v.getName();
     int length = v.getLength();
     int precision = v.getPrecision();
@@ -374,8 +403,6 @@ public class OracleDatabaseDialect extends AbstractDatabaseDialect {
     if ( add_cr ) {
       retval.append( CR );
     }
-
-    return retval.toString();
   }
 
   /*
@@ -425,49 +452,83 @@ public class OracleDatabaseDialect extends AbstractDatabaseDialect {
   }
 
   public IDatabaseConnection createNativeConnection( String jdbcUrl ) {
-    if ( !jdbcUrl.startsWith( getNativeJdbcPre() ) ) {
-      throw new RuntimeException( "JDBC URL " + jdbcUrl + " does not start with " + getNativeJdbcPre() );
-    }
-    DatabaseConnection dbconn = new DatabaseConnection();
-    dbconn.setDatabaseType( getDatabaseType() );
-    dbconn.setAccessType( DatabaseAccessType.NATIVE );
-    String str = jdbcUrl.substring( getNativeJdbcPre().length() );
-    String hostname = null;
-    String port = null;
-    String databaseName = null;
-
-    // hostname:port:dbname
+    JdbcUrlTokenizer tokenizer = createUrlTokenizer( jdbcUrl );
+    DatabaseConnection dbconn = newNativeConnection();
+
+    // hostname:port:SID
     // OR
-    // dbname
+    // hostname:port/service, //hostname:port/service
     // OR
-    // hostname:dbname
-
-    // TODO: Support Parameters
+    // (DESCRIPTION=...) TNS descriptor
+    // OR
+    // dbname
 
-    if ( str.indexOf( ":" ) >= 0 ) {
-      hostname = str.substring( 0, str.indexOf( ":" ) );
-      str = str.substring( str.indexOf( ":" ) + 1 );
-      if ( str.indexOf( ":" ) >= 0 ) {
-        port = str.substring( 0, str.indexOf( ":" ) );
-        databaseName = str.substring( str.indexOf( ":" ) + 1 );
-      } else {
-        port = str;
+    // note, oracle does not support url attributes
+    if ( tokenizer.lookingAt( "(" ) ) {
+      dbconn.setDatabaseName( tokenizer.rest() );
+      return dbconn;
+    }
+    tokenizer.skip( "//" );
+    String token = tokenizer.next( ":", "/" );
+    if ( tokenizer.skip( ":" ) ) {
+      dbconn.setHostname( token );
+      dbconn.setDatabasePort( tokenizer.next( ":", "/" ) );
+      if ( tokenizer.skip( ":" ) ) {
+        dbconn.setDatabaseName( tokenizer.rest() );
+      } else if ( tokenizer.lookingAt( "/" ) ) {
+        // the service keeps its leading slash, that is how getURL() tells it apart from a SID
+        dbconn.setDatabaseName( tokenizer.rest() );
       }
+    } else if ( tokenizer.lookingAt( "/" ) ) {
+      dbconn.setHostname( token );
+      dbconn.setDatabaseName( tokenizer.rest() );
     } else {
-      databaseName = str;
+      dbconn.setDatabaseName( token );
     }
+    return dbconn;
+  }
 
-    if ( hostname != null ) {
-      dbconn.setHostname( hostname );
-    }
-    if ( port != null ) {
-      dbconn.setDatabasePort( port );
+  @Override
+  public int getMaxInsertRows() {
+    return DEFAULT_MAX_INSERT_ROWS;
+  }
+
+  @Override
+  public int getMaxBindParameters() {
+    // the most bind variables in a statement
+    return 65535;
+  }
+
+  @Override
+  public int getInsertBatchSize( int columnCount ) {
+    // the INTO clauses of one INSERT ALL may name at most 999 columns between them
+    return Math.max( Math.min( super.getInsertBatchSize( columnCount ), 999 / Math.max( columnCount, 1 ) ), 1 );
+  }
+
+  /**
+   * Oracle takes a single row per VALUES clause, so the rows go in an INSERT ALL with an INTO clause each.
+   */
+  @Override
+  protected void appendInsertRows( StringBuilder sql, String tablename, List<IValueMeta> columns, int rows ) {
+    if ( rows == 1 ) {
+      super.appendInsertRows( sql, tablename, columns, rows );
+      return;
     }
-    if ( databaseName != null ) {
-      // note, oracle does not support url attributes
-      dbconn.setDatabaseName( databaseName );
+    sql.append( "INSERT ALL" );
+    for ( int row = 0; row < rows; row++ ) {
+      sql.append( " INTO " ).append( tablename ).append( " (" );
+      for ( int column = 0; column < columns.size(); column++ ) {
+        if ( column > 0 ) {
+          sql.append( ", " );
+        }
+        sql.append( columns.get( column ).getName() );
+      }
+      sql.append( ") VALUES (" );
+      for ( int column = 0; column < columns.size(); column++ ) {
+        sql.append( column > 0 ? ", ?" : "?" );
+      }
+      sql.append( ')' );
     }
-    return dbconn;
+    sql.append( " SELECT * FROM DUAL" );
   }
-
 }
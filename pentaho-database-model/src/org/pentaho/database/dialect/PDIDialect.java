@@ -61,6 +61,11 @@ public class PDIDialect extends GenericDatabaseDialect {
     return true;
   }
 
+  @Override
+  public boolean requiresDatabaseName() {
+    return false;
+  }
+
   /**
    * @return This indicator separates the normal URL from the options
    */
@@ -74,14 +79,14 @@ public class PDIDialect extends GenericDatabaseDialect {
   }
 
   @Override
-  public String getModifyColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-                                          boolean semicolon ) {
+  public void appendModifyColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+                                           boolean use_autoinc, String pk, boolean semicolon ) {
     throw new UnsupportedOperationException();
   }
 
   @Override
-  public String getAddColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-                                       boolean semicolon ) {
+  public void appendAddColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+                                        boolean use_autoinc, String pk, boolean semicolon ) {
     throw new UnsupportedOperationException();
   }
 
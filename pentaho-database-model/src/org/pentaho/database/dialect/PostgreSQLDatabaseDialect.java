@@ -17,6 +17,10 @@
 
 package org.pentaho.database.dialect;
 
+import java.util.List;
+
+import org.pentaho.database.BulkCommand;
+import org.pentaho.database.BulkFormat;
 import org.pentaho.database.IValueMeta;
 import org.pentaho.database.model.DatabaseAccessType;
 import org.pentaho.database.model.DatabaseType;
@@ -123,6 +127,11 @@ public class PostgreSQLDatabaseDialect extends AbstractDatabaseDialect {
     return " limit " + nrRows;
   }
 
+  @Override
+  protected void appendRowLimit( StringBuilder sql, long offset, int limit ) {
+    appendLimitOffset( sql, offset, limit );
+  }
+
   @Override
   public String getSQLQueryFields( String tableName ) {
     return "SELECT * FROM " + tableName + getLimitClause( 1 );
@@ -159,6 +168,11 @@ public class PostgreSQLDatabaseDialect extends AbstractDatabaseDialect {
     return "SELECT nextval('" + sequenceName + "')";
   }
 
+  @Override
+  public String getSQLNextSequenceValues( String sequenceName, int count ) {
+    return "SELECT nextval('" + sequenceName + "') FROM generate_series(1, " + count + ")";
+  }
+
   /**
    * Get the SQL to get the next value of a sequence. (PostgreSQL version)
    * 
@@ -185,8 +199,10 @@ public class PostgreSQLDatabaseDialect extends AbstractDatabaseDialect {
   }
 
   /**
-   * Generates the SQL statement to add a column to the specified table
+   * Appends the SQL statement to add a column to the specified table
    * 
+   * @param sql
+   *          the buffer to append the statement to
    * @param tablename
    *          The table to add
    * @param v
@@ -199,12 +215,12 @@ public class PostgreSQLDatabaseDialect extends AbstractDatabaseDialect {
    *          the name of the primary key field
    * @param semicolon
    *          whether or not to add a semi-colon behind the statement.
-   * @return the SQL statement to add a column to the specified table
    */
   @Override
-  public String getAddColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-      boolean semicolon ) {
-    return "ALTER TABLE " + tablename + " ADD COLUMN " + getFieldDefinition( v, tk, pk, use_autoinc, true, false );
+  public void appendAddColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( "ALTER TABLE " ).append( tablename ).append( " ADD COLUMN " );
+    appendFieldDefinition( sql, v, tk, pk, use_autoinc, true, false );
   }
 
   /**
@@ -231,8 +247,10 @@ public class PostgreSQLDatabaseDialect extends AbstractDatabaseDialect {
   }
 
   /**
-   * Generates the SQL statement to modify a column in the specified table
+   * Appends the SQL statement to modify a column in the specified table
    * 
+   * @param sql
+   *          the buffer to append the statement to
    * @param tablename
    *          The table to add
    * @param v
@@ -245,40 +263,37 @@ public class PostgreSQLDatabaseDialect extends AbstractDatabaseDialect {
    *          the name of the primary key field
    * @param semicolon
    *          whether or not to add a semi-colon behind the statement.
-   * @return the SQL statement to modify a column in the specified table
    */
   @Override
-  public String getModifyColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-      boolean semicolon ) {
-    String retval = "";
-    retval += "ALTER TABLE " + tablename + " DROP COLUMN " + v.getName() + CR + ";" + CR;
-    retval += "ALTER TABLE " + tablename + " ADD COLUMN " + getFieldDefinition( v, tk, pk, use_autoinc, true, false );
-    return retval;
+  public void appendModifyColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( "ALTER TABLE " ).append( tablename ).append( " DROP COLUMN " ).append( v.getName() ).append( CR )
+        .append( ";" ).append( CR );
+    sql.append( "ALTER TABLE " ).append( tablename ).append( " ADD COLUMN " );
+    appendFieldDefinition( sql, v, tk, pk, use_autoinc, true, false );
   }
 
   @Override
-  public String getFieldDefinition( IValueMeta v, String tk, String pk, boolean use_autoinc, boolean add_fieldname,
-      boolean add_cr ) {
-    String retval = "";
-
+  public void appendFieldDefinition( StringBuilder retval, IValueMeta v, String tk, String pk, boolean use_autoinc,
+      boolean add_fieldname, boolean add_cr ) {
     String fieldname = v.getName();
     int length = v.getLength();
     int precision = v.getPrecision();
 
     if ( add_fieldname ) {
-      retval += fieldname + " ";
+      retval.append( fieldname ).append( " " );
     }
 
     int type = v.getType();
     switch ( type ) {
       case IValueMeta.TYPE_DATE:
-        retval += "TIMESTAMP";
+        retval.append( "TIMESTAMP" );
         break;
       case IValueMeta.TYPE_BOOLEAN:
         if ( supportsBooleanDataType() ) {
-          retval += "BOOLEAN";
+          retval.append( "BOOLEAN" );
         } else {
-          retval += "CHAR(1)";
+          retval.append( "CHAR(1)" );
         }
         break;
       case IValueMeta.TYPE_NUMBER:
@@ -287,45 +302,43 @@ public class PostgreSQLDatabaseDialect extends AbstractDatabaseDialect {
         if ( fieldname.equalsIgnoreCase( tk ) || // Technical key
             fieldname.equalsIgnoreCase( pk ) // Primary key
         ) {
-          retval += "BIGSERIAL";
+          retval.append( "BIGSERIAL" );
         } else {
           if ( length > 0 ) {
             if ( precision > 0 || length > 18 ) {
-              retval += "NUMERIC(" + length + ", " + precision + ")";
+              retval.append( "NUMERIC(" ).append( length ).append( ", " ).append( precision ).append( ")" );
             } else {
               if ( length > 9 ) {
-                retval += "BIGINT";
+                retval.append( "BIGINT" );
               } else {
                 if ( length < 5 ) {
-                  retval += "SMALLINT";
+                  retval.append( "SMALLINT" );
                 } else {
-                  retval += "INTEGER";
+                  retval.append( "INTEGER" );
                 }
               }
             }
 
           } else {
-            retval += "DOUBLE PRECISION";
+            retval.append( "DOUBLE PRECISION" );
           }
         }
         break;
       case IValueMeta.TYPE_STRING:
         if ( length < 1 || length >= CLOB_LENGTH ) {
-          retval += "TEXT";
+          retval.append( "TEXT" );
         } else {
-          retval += "VARCHAR(" + length + ")";
+          retval.append( "VARCHAR(" ).append( length ).append( ")" );
         }
         break;
       default:
-        retval += " UNKNOWN";
+        retval.append( " UNKNOWN" );
         break;
     }
 
     if ( add_cr ) {
-      retval += CR;
+      retval.append( CR );
     }
-
-    return retval;
   }
 
   /*
@@ -462,4 +475,45 @@ public class PostgreSQLDatabaseDialect extends AbstractDatabaseDialect {
   public String[] getUsedLibraries() {
     return new String[] { "postgresql-8.2-506.jdbc3.jar" };
   }
+
+  @Override
+  public int getMaxInsertRows() {
+    return DEFAULT_MAX_INSERT_ROWS;
+  }
+
+  @Override
+  public int getMaxBindParameters() {
+    // the JDBC driver sends the parameter count as a signed short
+    return 32767;
+  }
+
+  @Override
+  public boolean supportsBulkLoad() {
+    return true;
+  }
+
+  /**
+   * COPY FROM STDIN in the text format, for the CopyManager of the driver; the location is ignored.
+   */
+  @Override
+  public BulkCommand getBulkLoadCommand( String tablename, List<IValueMeta> columns, String location ) {
+    StringBuilder sql = new StringBuilder( STATEMENT_CAPACITY );
+    sql.append( "COPY " ).append( tablename );
+    appendColumnList( sql, columns );
+    sql.append( " FROM STDIN" );
+    return new BulkCommand( sql.toString(), BulkCommand.Channel.STDIN, BulkFormat.TEXT );
+  }
+
+  @Override
+  public boolean supportsBulkExtract() {
+    return true;
+  }
+
+  /**
+   * COPY (query) TO STDOUT in the text format, for the CopyManager of the driver; the location is ignored.
+   */
+  @Override
+  public BulkCommand getBulkExtractCommand( String query, String location ) {
+    return new BulkCommand( "COPY (" + query + ") TO STDOUT", BulkCommand.Channel.STDOUT, BulkFormat.TEXT );
+  }
 }
@@ -18,6 +18,11 @@
  */
 package org.pentaho.database.dialect;
 
+import java.util.List;
+
+import org.pentaho.database.BulkCommand;
+import org.pentaho.database.BulkFormat;
+import org.pentaho.database.IValueMeta;
 import org.pentaho.database.model.DatabaseAccessType;
 import org.pentaho.database.model.DatabaseType;
 import org.pentaho.database.model.IDatabaseType;
@@ -52,5 +57,44 @@ public class RedshiftDatabaseDialect extends PostgreSQLDatabaseDialect {
   public String[] getUsedLibraries() {
     return new String[] { "RedshiftJDBC4_1.0.10.1010.jar" };
   }
+
+  /**
+   * Redshift cannot COPY FROM STDIN; it copies from S3 at the location, in the PostgreSQL text format. The caller
+   * appends the authorization, such as IAM_ROLE.
+   */
+  @Override
+  public BulkCommand getBulkLoadCommand( String tablename, List<IValueMeta> columns, String location ) {
+    StringBuilder sql = new StringBuilder( STATEMENT_CAPACITY );
+    sql.append( "COPY " ).append( tablename );
+    appendColumnList( sql, columns );
+    sql.append( " FROM " );
+    appendStringLiteral( sql, location );
+    // \N is the default null of the text format
+    sql.append( " DELIMITER '\\t' ESCAPE" );
+    return new BulkCommand( sql.toString(), BulkCommand.Channel.OBJECT_STORE, BulkFormat.TEXT );
+  }
+
+  /**
+   * UNLOAD of the query to files at the S3 location prefix, one or more per slice, in the PostgreSQL text format. The
+   * caller appends the authorization, such as IAM_ROLE.
+   */
+  @Override
+  public BulkCommand getBulkExtractCommand( String query, String location ) {
+    StringBuilder sql = new StringBuilder( STATEMENT_CAPACITY );
+    sql.append( "UNLOAD (" );
+    appendStringLiteral( sql, query );
+    sql.append( ") TO " );
+    appendStringLiteral( sql, location );
+    sql.append( " DELIMITER AS '\\t' NULL AS '\\\\N' ESCAPE" );
+    return new BulkCommand( sql.toString(), BulkCommand.Channel.OBJECT_STORE, BulkFormat.TEXT );
+  }
+
+  /**
+   * Backslashes escape in Redshift string literals, so they are doubled along with the quotes.
+   */
+  @Override
+  protected void appendStringLiteral( StringBuilder sql, String value ) {
+    super.appendStringLiteral( sql, value.replace( "\\", "\\\\" ) );
+  }
  
 }
@@ -0,0 +1,128 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+
+package org.pentaho.database.dialect;
+
+/**
+ * Immutable, case-insensitive set of reserved words. Words are folded to upper case once when the index is built and
+ * kept in an open-addressed table, so a lookup neither allocates nor scans the full word list. Lookups accept any
+ * {@link CharSequence} and fold it on the fly.
+ */
+public final class ReservedWordIndex {
+
+  static final ReservedWordIndex EMPTY = new ReservedWordIndex( new String[0] );
+
+  private final String[] slots;
+  private final int[] hashes;
+  private final int mask;
+  private final int size;
+
+  public ReservedWordIndex( String[] words ) {
+    // keep the load factor at or below 1/2 so probe sequences stay short
+    int capacity = 4;
+    while ( capacity < words.length * 2 ) {
+      capacity <<= 1;
+    }
+    slots = new String[capacity];
+    hashes = new int[capacity];
+    mask = capacity - 1;
+
+    int count = 0;
+    for ( String word : words ) {
+      if ( word == null || word.length() == 0 ) {
+        continue;
+      }
+      int hash = hash( word );
+      int slot = hash & mask;
+      while ( slots[slot] != null && !( hashes[slot] == hash && equalsFolded( slots[slot], word ) ) ) {
+        slot = ( slot + 1 ) & mask;
+      }
+      if ( slots[slot] == null ) {
+        slots[slot] = fold( word );
+        hashes[slot] = hash;
+        count++;
+      }
+    }
+    size = count;
+  }
+
+  /**
+   * @return true if the word is in the index, ignoring case
+   */
+  public boolean contains( CharSequence word ) {
+    if ( word == null || word.length() == 0 ) {
+      return false;
+    }
+    int hash = hash( word );
+    int slot = hash & mask;
+    String candidate;
+    while ( ( candidate = slots[slot] ) != null ) {
+      if ( hashes[slot] == hash && equalsFolded( candidate, word ) ) {
+        return true;
+      }
+      slot = ( slot + 1 ) & mask;
+    }
+    return false;
+  }
+
+  /**
+   * @return the number of distinct words in the index
+   */
+  public int size() {
+    return size;
+  }
+
+  static char fold( char c ) {
+    if ( c >= 'a' && c <= 'z' ) {
+      return (char) ( c - ( 'a' - 'A' ) );
+    }
+    if ( c < 128 ) {
+      return c;
+    }
+    return Character.toUpperCase( c );
+  }
+
+  private static String fold( String word ) {
+    StringBuilder folded = new StringBuilder( word.length() );
+    for ( int i = 0; i < word.length(); i++ ) {
+      folded.append( fold( word.charAt( i ) ) );
+    }
+    return folded.toString();
+  }
+
+  private static int hash( CharSequence word ) {
+    int h = 0;
+    for ( int i = 0; i < word.length(); i++ ) {
+      h = 31 * h + fold( word.charAt( i ) );
+    }
+    // spread the low bits, the table is indexed with a power of two mask
+    return h ^ ( h >>> 16 );
+  }
+
+  private static boolean equalsFolded( String folded, CharSequence word ) {
+    int length = folded.length();
+    if ( length != word.length() ) {
+      return false;
+    }
+    for ( int i = 0; i < length; i++ ) {
+      if ( folded.charAt( i ) != fold( word.charAt( i ) ) ) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -16,12 +16,12 @@
  */
 package org.pentaho.database.dialect;
 
-import java.util.Iterator;
-import java.util.Map;
+import java.util.List;
 
 import org.pentaho.database.DatabaseDialectException;
 import org.pentaho.database.IValueMeta;
 import org.pentaho.database.model.DatabaseAccessType;
+import org.pentaho.database.model.DatabaseConnection;
 import org.pentaho.database.model.DatabaseType;
 import org.pentaho.database.model.IDatabaseConnection;
 import org.pentaho.database.model.IDatabaseType;
@@ -64,8 +64,10 @@ public class TeradataDatabaseDialect extends AbstractDatabaseDialect {
   }
 
   /**
-   * Generates the SQL statement to add a column to the specified table
+   * Appends the SQL statement to add a column to the specified table
    * 
+   * @param sql
+   *          the buffer to append the statement to
    * @param tablename
    *          The table to add
    * @param v
@@ -78,17 +80,19 @@ public class TeradataDatabaseDialect extends AbstractDatabaseDialect {
    *          the name of the primary key field
    * @param semicolon
    *          whether or not to add a semi-colon behind the statement.
-   * @return the SQL statement to add a column to the specified table
    */
   @Override
-  public String getAddColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-      boolean semicolon ) {
-    return "ALTER TABLE "+tablename+" ADD "+getFieldDefinition(v, tk, pk, use_autoinc, true, false);
+  public void appendAddColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( "ALTER TABLE " ).append( tablename ).append( " ADD " );
+    appendFieldDefinition( sql, v, tk, pk, use_autoinc, true, false );
   }
 
   /**
-   * Generates the SQL statement to modify a column in the specified table
+   * Appends the SQL statement to modify a column in the specified table
    * 
+   * @param sql
+   *          the buffer to append the statement to
    * @param tablename
    *          The table to add
    * @param v
@@ -101,30 +105,28 @@ public class TeradataDatabaseDialect extends AbstractDatabaseDialect {
    *          the name of the primary key field
    * @param semicolon
    *          whether or not to add a semi-colon behind the statement.
-   * @return the SQL statement to modify a column in the specified table
    */
   @Override
-  public String getModifyColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-      boolean semicolon ) {
-    return "ALTER TABLE "+tablename+" MODIFY "+getFieldDefinition(v, tk, pk, use_autoinc, true, false);
+  public void appendModifyColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( "ALTER TABLE " ).append( tablename ).append( " MODIFY " );
+    appendFieldDefinition( sql, v, tk, pk, use_autoinc, true, false );
   }
 
   @Override
-  public String getFieldDefinition( IValueMeta v, String tk, String pk, boolean use_autoinc, boolean add_fieldname,
-      boolean add_cr ) {
-    String retval="";
-    
+  public void appendFieldDefinition( StringBuilder retval, IValueMeta v, String tk, String pk, boolean use_autoinc,
+      boolean add_fieldname, boolean add_cr ) {
     String fieldname = v.getName();
     int    length    = v.getLength();
     int    precision = v.getPrecision();
     
-    if (add_fieldname) retval+=fieldname+" ";
+    if (add_fieldname) retval.append(fieldname).append(" ");
     
     int type         = v.getType();
     switch(type)
     {
-    case IValueMeta.TYPE_DATE   : retval+="TIMESTAMP"; break;
-    case IValueMeta.TYPE_BOOLEAN: retval+="CHAR(1)"; break;
+    case IValueMeta.TYPE_DATE   : retval.append("TIMESTAMP"); break;
+    case IValueMeta.TYPE_BOOLEAN: retval.append("CHAR(1)"); break;
     case IValueMeta.TYPE_NUMBER : 
     case IValueMeta.TYPE_INTEGER: 
         case IValueMeta.TYPE_BIGNUMBER: 
@@ -132,7 +134,7 @@ public class TeradataDatabaseDialect extends AbstractDatabaseDialect {
           fieldname.equalsIgnoreCase(pk)    // Primary key
           ) 
       {
-        retval+="INTEGER"; // TERADATA has no Auto-increment functionality nor Sequences!
+        retval.append("INTEGER"); // TERADATA has no Auto-increment functionality nor Sequences!
       } 
       else
       {
@@ -140,23 +142,23 @@ public class TeradataDatabaseDialect extends AbstractDatabaseDialect {
         {
           if (precision>0 || length>9)
           {
-            retval+="DECIMAL("+length+", "+precision+")";
+            retval.append("DECIMAL(").append(length).append(", ").append(precision).append(")");
           }
           else
           {
             if (length>5)
             {
-                            retval+="INTEGER";
+                            retval.append("INTEGER");
                         }
                         else
                         {
                             if (length<3)
                             {
-                                retval+="BYTEINT";
+                                retval.append("BYTEINT");
                             }
                             else
                             {
-                                retval+="SMALLINT";
+                                retval.append("SMALLINT");
                             }
             }
           }
@@ -164,36 +166,34 @@ public class TeradataDatabaseDialect extends AbstractDatabaseDialect {
         }
         else
         {
-          retval+="DOUBLE PRECISION";
+          retval.append("DOUBLE PRECISION");
         }
       }
       break;
     case IValueMeta.TYPE_STRING:
       if (length>64000)
       {
-        retval+="CLOB";
+        retval.append("CLOB");
       }
       else
       {
-        retval+="VARCHAR"; 
+        retval.append("VARCHAR"); 
         if (length>0)
         {
-          retval+="("+length+")";
+          retval.append("(").append(length).append(")");
         }
         else
         {
-          retval+="(64000)"; // Maybe use some default DB String length?
+          retval.append("(64000)"); // Maybe use some default DB String length?
         }
       }
       break;
     default:
-      retval+=" UNKNOWN";
+      retval.append(" UNKNOWN");
       break;
     }
     
-    if (add_cr) retval += CR;
-    
-    return retval;
+    if (add_cr) retval.append(CR);
   }
 
   @Override
@@ -284,7 +284,26 @@ public class TeradataDatabaseDialect extends AbstractDatabaseDialect {
     return " sample " + Integer.toString( nrRows );
   }
 
-  
+  /**
+   * The first page is a TOP; the others are the rows QUALIFY ROW_NUMBER() picks, which needs an order.
+   */
+  @Override
+  public String getPagedQuery( String query, String orderBy, long offset, int limit ) {
+    checkPage( offset, limit );
+    StringBuilder sql = new StringBuilder( query.length() + STATEMENT_CAPACITY );
+    if ( offset == 0 ) {
+      sql.append( "SELECT TOP " ).append( limit ).append( " * FROM (" ).append( query ).append( ") page_" );
+    } else {
+      if ( orderBy == null ) {
+        throw new IllegalArgumentException( "Teradata cannot skip rows without an order" );
+      }
+      sql.append( "SELECT * FROM (" ).append( query ).append( ") page_ QUALIFY ROW_NUMBER() OVER (ORDER BY " );
+      sql.append( orderBy ).append( ") BETWEEN " ).append( offset + 1 ).append( " AND " ).append( offset + limit );
+    }
+    appendOrderBy( sql, orderBy );
+    return sql.toString();
+  }
+
   /*
    * (non-Javadoc)
    * 
@@ -395,51 +414,64 @@ public class TeradataDatabaseDialect extends AbstractDatabaseDialect {
     return "/";
   }
 
-  public String getURLWithExtraOptions( IDatabaseConnection connection ) throws DatabaseDialectException {
-    StringBuffer url = new StringBuffer( getURL( connection ) );
-    if ( supportsOptionsInURL() ) {
-      // OK, now add all the options...
-      String optionIndicator = getExtraOptionIndicator();
-      String optionSeparator = getExtraOptionSeparator();
-      String valueSeparator = getExtraOptionValueSeparator();
-
-      Map<String, String> map = connection.getExtraOptions();
-      if ( map.size() > 0 ) {
-        Map.Entry<String, String> mapEntry = null;
-        Iterator<Map.Entry<String, String>> it = map.entrySet().iterator();
-        boolean first = true;
-        while ( it.hasNext() ) {
-          mapEntry = it.next();
-          String typedParameter = mapEntry.getKey();
-          int dotIndex = typedParameter.indexOf( '.' );
-          if ( dotIndex >= 0 ) {
-            String typeCode = typedParameter.substring( 0, dotIndex );
-            String parameter = typedParameter.substring( dotIndex + 1 );
-            String value = mapEntry.getValue();
-
-            // Only add to the URL if it's the same database type code...
-            //
-            if ( connection.getDatabaseType().getShortName().equals( typeCode ) ) {
-              // Teradata supports '/' as the first separator ... after the first /xxxx=yyy then you
-              // separate the 
-              if ( first && url.indexOf( optionIndicator ) == -1 ) { // if first, and it cannot find '/'
-                url.append( optionIndicator ); // use the '/' first
-              } else {
-                url.append( optionSeparator ); // use the ',' thereafter.
-              }
-
-              url.append( parameter );
-              if ( !isEmpty( value ) ) {
-                url.append( valueSeparator ).append( value );
-              }
-              first = false;
-            }
-          }
-        }
-      }
+  /**
+   * Teradata separates the options from the host with a '/', and the options from each other with a ','. The URL
+   * holds options once a '/' follows the JDBC prefix.
+   */
+  @Override
+  protected boolean containsExtraOptions( String url ) {
+    return url.indexOf( getExtraOptionIndicator(), getNativeJdbcPre().length() ) != -1;
+  }
+
+  @Override
+  public IDatabaseConnection createNativeConnection( String jdbcUrl ) {
+    JdbcUrlTokenizer tokenizer = createUrlTokenizer( jdbcUrl );
+    DatabaseConnection dbconn = newNativeConnection();
+
+    // hostname/DATABASE=dbname,DBS_PORT=port,name=value
+    // hostname
+
+    dbconn.setHostname( tokenizer.next( getExtraOptionIndicator() ) );
+    if ( tokenizer.skip( getExtraOptionIndicator() ) ) {
+      parseExtraOptions( dbconn, tokenizer );
+    }
+    return dbconn;
+  }
+
+  @Override
+  protected void setUrlOption( DatabaseConnection dbconn, String name, String value ) {
+    if ( name.equalsIgnoreCase( "DATABASE" ) ) {
+      dbconn.setDatabaseName( value );
+    } else if ( name.equalsIgnoreCase( "DBS_PORT" ) ) {
+      dbconn.setDatabasePort( value );
+    } else {
+      super.setUrlOption( dbconn, name, value );
     }
-    return url.toString();
   }
 
+  @Override
+  public int getMaxInsertRows() {
+    return 500;
+  }
+
+  @Override
+  public int getMaxBindParameters() {
+    // kept well below the most parameters a request may carry
+    return 2048;
+  }
+
+  /**
+   * Teradata takes a single row per VALUES clause; the rows are selected from parameters and joined with UNION ALL.
+   * Each SELECT of a UNION has to reference a table (error 3888), so the rows are selected from the single VERSION
+   * row of DBC.DBCInfo, which every user can read.
+   */
+  @Override
+  protected void appendInsertRows( StringBuilder sql, String tablename, List<IValueMeta> columns, int rows ) {
+    if ( rows == 1 ) {
+      super.appendInsertRows( sql, tablename, columns, rows );
+    } else {
+      appendUnionAllInsertRows( sql, tablename, columns, rows, " FROM DBC.DBCInfo WHERE InfoKey = 'VERSION'" );
+    }
+  }
 }
 
@@ -17,6 +17,10 @@
 
 package org.pentaho.database.dialect;
 
+import java.util.List;
+
+import org.pentaho.database.BulkCommand;
+import org.pentaho.database.BulkFormat;
 import org.pentaho.database.DatabaseDialectException;
 import org.pentaho.database.IValueMeta;
 import org.pentaho.database.model.DatabaseAccessType;
@@ -57,52 +61,54 @@ public class VerticaDatabaseDialect extends AbstractDatabaseDialect {
     return "jdbc:vertica://";
   }
 
-  public String getFieldDefinition( IValueMeta v, String tk, String pk, boolean use_autoinc, boolean add_fieldname,
-      boolean add_cr ) {
-    String retval = "";
-
+  public void appendFieldDefinition( StringBuilder retval, IValueMeta v, String tk, String pk, boolean use_autoinc,
+      boolean add_fieldname, boolean add_cr ) {
     String fieldname = v.getName();
     int length = v.getLength();
     // Unused in vertica
     // int precision = v.getPrecision();
 
     if ( add_fieldname ) {
-      retval += fieldname + " ";
+      retval.append( fieldname ).append( " " );
     }
 
     int type = v.getType();
     switch ( type ) {
       case IValueMeta.TYPE_DATE:
-        retval += "TIMESTAMP";
+        retval.append( "TIMESTAMP" );
         break;
       case IValueMeta.TYPE_BOOLEAN:
-        retval += "BOOLEAN";
+        retval.append( "BOOLEAN" );
         break;
       case IValueMeta.TYPE_NUMBER:
       case IValueMeta.TYPE_BIGNUMBER:
-        retval += "FLOAT";
+        retval.append( "FLOAT" );
         break;
       case IValueMeta.TYPE_INTEGER:
-        retval += "INTEGER";
+        retval.append( "INTEGER" );
         break;
       case IValueMeta.TYPE_STRING:
-        retval += ( length < 1 ) ? "VARCHAR" : "VARCHAR(" + length + ")";
+        if ( length < 1 ) {
+          retval.append( "VARCHAR" );
+        } else {
+          retval.append( "VARCHAR(" ).append( length ).append( ")" );
+        }
         break;
       default:
-        retval += " UNKNOWN";
+        retval.append( " UNKNOWN" );
         break;
     }
 
     if ( add_cr ) {
-      retval += CR;
+      retval.append( CR );
     }
-
-    return retval;
   }
 
   /**
-   * Generates the SQL statement to modify a column in the specified table
+   * Appends the SQL statement to modify a column in the specified table
    * 
+   * @param sql
+   *          the buffer to append the statement to
    * @param tablename
    *          The table to add
    * @param v
@@ -115,18 +121,20 @@ public class VerticaDatabaseDialect extends AbstractDatabaseDialect {
    *          the name of the primary key field
    * @param semicolon
    *          whether or not to add a semi-colon behind the statement.
-   * @return the SQL statement to modify a column in the specified table
    */
-  public String getModifyColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-      boolean semicolon ) {
-    return "--NOTE: Table cannot be altered unless all projections are dropped.\nALTER TABLE " + tablename + " MODIFY "
-        + getFieldDefinition( v, tk, pk, use_autoinc, true, false );
+  public void appendModifyColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( "--NOTE: Table cannot be altered unless all projections are dropped.\nALTER TABLE " )
+        .append( tablename ).append( " MODIFY " );
+    appendFieldDefinition( sql, v, tk, pk, use_autoinc, true, false );
   }
 
   /**
-   * Generates the SQL statement to add a column to the specified table For this generic type, i set it to the most
+   * Appends the SQL statement to add a column to the specified table For this generic type, i set it to the most
    * common possibility.
    * 
+   * @param sql
+   *          the buffer to append the statement to
    * @param tablename
    *          The table to add
    * @param v
@@ -139,12 +147,12 @@ public class VerticaDatabaseDialect extends AbstractDatabaseDialect {
    *          the name of the primary key field
    * @param semicolon
    *          whether or not to add a semi-colon behind the statement.
-   * @return the SQL statement to add a column to the specified table
    */
-  public String getAddColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
-      boolean semicolon ) {
-    return "--NOTE: Table cannot be altered unless all projections are dropped.\nALTER TABLE " + tablename + " ADD "
-        + getFieldDefinition( v, tk, pk, use_autoinc, true, false );
+  public void appendAddColumnStatement( StringBuilder sql, String tablename, IValueMeta v, String tk,
+      boolean use_autoinc, String pk, boolean semicolon ) {
+    sql.append( "--NOTE: Table cannot be altered unless all projections are dropped.\nALTER TABLE " )
+        .append( tablename ).append( " ADD " );
+    appendFieldDefinition( sql, v, tk, pk, use_autoinc, true, false );
   }
 
   @Override
@@ -194,6 +202,11 @@ public class VerticaDatabaseDialect extends AbstractDatabaseDialect {
     return " LIMIT " + nrRows;
   }
 
+  @Override
+  protected void appendRowLimit( StringBuilder sql, long offset, int limit ) {
+    appendLimitOffset( sql, offset, limit );
+  }
+
   @Override
   public int getMaxTextFieldLength() {
     return 0;
@@ -325,6 +338,17 @@ public class VerticaDatabaseDialect extends AbstractDatabaseDialect {
     return "SELECT nextval('" + sequenceName + "')";
   }
 
+  /**
+   * Vertica has no row generator, so TIMESERIES fills in a row per second between two timestamps count - 1 seconds
+   * apart.
+   */
+  @Override
+  public String getSQLNextSequenceValues( String sequenceName, int count ) {
+    return "SELECT nextval('" + sequenceName + "') FROM (SELECT slice FROM (SELECT TIMESTAMP '2000-01-01' AS tm"
+        + " UNION ALL SELECT TIMESTAMPADD(SECOND, " + ( count - 1 ) + ", TIMESTAMP '2000-01-01')) range_"
+        + " TIMESERIES slice AS '1 second' OVER (ORDER BY tm)) rows_";
+  }
+
   /**
    * @return false as the database does not support timestamp to date conversion.
    */
@@ -332,4 +356,57 @@ public class VerticaDatabaseDialect extends AbstractDatabaseDialect {
   public boolean supportsTimeStampToDateConversion() {
     return false;
   }
+
+  @Override
+  public int getMaxInsertRows() {
+    return 500;
+  }
+
+  /**
+   * Vertica takes a single row per VALUES clause; the rows are selected from parameters and joined with UNION ALL.
+   */
+  @Override
+  protected void appendInsertRows( StringBuilder sql, String tablename, List<IValueMeta> columns, int rows ) {
+    if ( rows == 1 ) {
+      super.appendInsertRows( sql, tablename, columns, rows );
+    } else {
+      appendUnionAllInsertRows( sql, tablename, columns, rows, "" );
+    }
+  }
+
+  @Override
+  public boolean supportsBulkLoad() {
+    return true;
+  }
+
+  /**
+   * COPY FROM STDIN, for the copy stream of the driver, with the delimiter and null of the PostgreSQL text format in
+   * place of the pipe and empty string Vertica defaults to; the location is ignored.
+   */
+  @Override
+  public BulkCommand getBulkLoadCommand( String tablename, List<IValueMeta> columns, String location ) {
+    StringBuilder sql = new StringBuilder( STATEMENT_CAPACITY );
+    sql.append( "COPY " ).append( tablename );
+    appendColumnList( sql, columns );
+    sql.append( " FROM STDIN DELIMITER E'\\t' NULL E'\\\\N' ESCAPE AS E'\\\\' DIRECT" );
+    return new BulkCommand( sql.toString(), BulkCommand.Channel.STDIN, BulkFormat.TEXT );
+  }
+
+  @Override
+  public boolean supportsBulkExtract() {
+    return true;
+  }
+
+  /**
+   * EXPORT TO DELIMITED of the query into files in the directory at the location, which the nodes write (Vertica 11.1
+   * and later), in the format of the bulk load.
+   */
+  @Override
+  public BulkCommand getBulkExtractCommand( String query, String location ) {
+    StringBuilder sql = new StringBuilder( STATEMENT_CAPACITY );
+    sql.append( "EXPORT TO DELIMITED (directory = " );
+    appendStringLiteral( sql, location );
+    sql.append( ", delimiter = E'\\t', nullAsValue = E'\\\\N', escapeAs = E'\\\\') AS " ).append( query );
+    return new BulkCommand( sql.toString(), BulkCommand.Channel.SERVER_FILE, BulkFormat.TEXT );
+  }
 }
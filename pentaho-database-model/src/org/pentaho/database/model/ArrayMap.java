@@ -0,0 +1,135 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.model;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Read-only map keeping its keys and values in one array, in the order of the map it was copied from. Lookups scan the
+ * array, which for the handful of options and attributes a connection usually has is as fast as hashing and takes a
+ * fraction of the memory of a {@link java.util.HashMap}.
+ */
+final class ArrayMap extends AbstractMap<String, String> implements Serializable {
+  private static final long serialVersionUID = 6915207462254371453L;
+
+  /**
+   * Larger maps are copied into a {@link LinkedHashMap} instead, where a scan would get slow.
+   */
+  static final int MAX_SIZE = 16;
+
+  private final String[] keysAndValues;
+
+  private ArrayMap( String[] keysAndValues ) {
+    this.keysAndValues = keysAndValues;
+  }
+
+  /**
+   * @return a read-only copy of the map, with its strings interned if an interner is given
+   */
+  static Map<String, String> copyOf( Map<String, String> map, ConnectionInterner interner ) {
+    if ( map == null || map.isEmpty() ) {
+      return Collections.emptyMap();
+    }
+    if ( map.size() > MAX_SIZE ) {
+      Map<String, String> copy = new LinkedHashMap<String, String>();
+      for ( Map.Entry<String, String> entry : map.entrySet() ) {
+        copy.put( intern( interner, entry.getKey() ), intern( interner, entry.getValue() ) );
+      }
+      return Collections.unmodifiableMap( copy );
+    }
+    String[] keysAndValues = new String[map.size() * 2];
+    int i = 0;
+    for ( Map.Entry<String, String> entry : map.entrySet() ) {
+      keysAndValues[i++] = intern( interner, entry.getKey() );
+      keysAndValues[i++] = intern( interner, entry.getValue() );
+    }
+    return new ArrayMap( keysAndValues );
+  }
+
+  private static String intern( ConnectionInterner interner, String value ) {
+    return interner == null ? value : interner.intern( value );
+  }
+
+  private int indexOf( Object key ) {
+    for ( int i = 0; i < keysAndValues.length; i += 2 ) {
+      String candidate = keysAndValues[i];
+      if ( candidate == null ? key == null : candidate.equals( key ) ) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public int size() {
+    return keysAndValues.length / 2;
+  }
+
+  @Override
+  public boolean containsKey( Object key ) {
+    return indexOf( key ) >= 0;
+  }
+
+  @Override
+  public String get( Object key ) {
+    int index = indexOf( key );
+    return index < 0 ? null : keysAndValues[index + 1];
+  }
+
+  @Override
+  public Set<Map.Entry<String, String>> entrySet() {
+    return new AbstractSet<Map.Entry<String, String>>() {
+      @Override
+      public int size() {
+        return keysAndValues.length / 2;
+      }
+
+      @Override
+      public Iterator<Map.Entry<String, String>> iterator() {
+        return new Iterator<Map.Entry<String, String>>() {
+          private int next;
+
+          public boolean hasNext() {
+            return next < keysAndValues.length;
+          }
+
+          public Map.Entry<String, String> next() {
+            if ( next >= keysAndValues.length ) {
+              throw new NoSuchElementException();
+            }
+            Map.Entry<String, String> entry =
+                new SimpleImmutableEntry<String, String>( keysAndValues[next], keysAndValues[next + 1] );
+            next += 2;
+            return entry;
+          }
+
+          public void remove() {
+            throw new UnsupportedOperationException();
+          }
+        };
+      }
+    };
+  }
+}
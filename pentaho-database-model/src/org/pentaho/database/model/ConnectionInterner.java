@@ -0,0 +1,70 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Shares equal strings and database types between connection snapshots. Repositories holding many copies of the same
+ * connections, one per tenant for example, keep a single instance of each host name, type code, option key and value
+ * this way.
+ * 
+ * The interner holds on to everything it has seen, so use one per repository and drop it with the repository.
+ * Passwords are never interned.
+ */
+public class ConnectionInterner {
+  private final Map<String, String> strings = new HashMap<String, String>();
+  private final Map<String, IDatabaseType> databaseTypes = new HashMap<String, IDatabaseType>();
+
+  /**
+   * @return the instance equal to the given string that was seen first
+   */
+  public synchronized String intern( String value ) {
+    if ( value == null ) {
+      return null;
+    }
+    String interned = strings.get( value );
+    if ( interned == null ) {
+      strings.put( value, value );
+      interned = value;
+    }
+    return interned;
+  }
+
+  /**
+   * @return the database type with the same short name that was seen first
+   */
+  public synchronized IDatabaseType intern( IDatabaseType databaseType ) {
+    if ( databaseType == null || databaseType.getShortName() == null ) {
+      return databaseType;
+    }
+    IDatabaseType interned = databaseTypes.get( databaseType.getShortName() );
+    if ( interned == null ) {
+      databaseTypes.put( intern( databaseType.getShortName() ), databaseType );
+      interned = databaseType;
+    }
+    return interned;
+  }
+
+  /**
+   * @return the number of distinct strings seen
+   */
+  public synchronized int size() {
+    return strings.size();
+  }
+}
@@ -0,0 +1,93 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2017 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+@XmlRootElement
+public class ConnectionValidationResult implements IConnectionValidationResult, Serializable {
+
+  private static final long serialVersionUID = 4163307553641385712L;
+
+  private List<String> parameterErrors = new ArrayList<String>();
+  private boolean tested;
+  private boolean success;
+  private String testMessage;
+
+  public ConnectionValidationResult() {
+  }
+
+  /**
+   * A result for parameters only; it is a success when there are no errors.
+   * 
+   * @param parameterErrors
+   */
+  public ConnectionValidationResult( List<String> parameterErrors ) {
+    this();
+    setParameterErrors( parameterErrors );
+    this.success = this.parameterErrors.isEmpty();
+  }
+
+  /**
+   * A result for complete parameters and a test.
+   * 
+   * @param success
+   * @param testMessage
+   */
+  public ConnectionValidationResult( boolean success, String testMessage ) {
+    this();
+    this.tested = true;
+    this.success = success;
+    this.testMessage = testMessage;
+  }
+
+  public List<String> getParameterErrors() {
+    return parameterErrors;
+  }
+
+  public void setParameterErrors( List<String> parameterErrors ) {
+    this.parameterErrors = parameterErrors != null ? parameterErrors : new ArrayList<String>();
+  }
+
+  public boolean isTested() {
+    return tested;
+  }
+
+  public void setTested( boolean tested ) {
+    this.tested = tested;
+  }
+
+  public boolean isSuccess() {
+    return success;
+  }
+
+  public void setSuccess( boolean success ) {
+    this.success = success;
+  }
+
+  public String getTestMessage() {
+    return testMessage;
+  }
+
+  public void setTestMessage( String testMessage ) {
+    this.testMessage = testMessage;
+  }
+}
@@ -84,7 +84,7 @@ public class DatabaseConnection implements Serializable, IDatabaseConnection {
   // @XmlElement(type=DatabaseType.class)
   IDatabaseType databaseType = null;
 
-  Map<String, String> extraOptions = new HashMap<String, String>();
+  Map<String, String> extraOptions = new ExtraOptions();
 
   Map<String, String> extraOptionsOrder = new HashMap<String, String>(  );
 
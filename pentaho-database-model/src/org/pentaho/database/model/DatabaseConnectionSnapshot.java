@@ -0,0 +1,707 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable copy of a connection. Snapshots can be shared between threads without copying and used as keys of
+ * caches: two snapshots are equal when their content is, password included.
+ * 
+ * Every snapshot carries a 128-bit fingerprint of its content without the passwords, so the fingerprint can be
+ * logged or stored without giving a password away. The fingerprint and a hash of the passwords only rule out unequal
+ * snapshots quickly; equal fingerprints are confirmed by comparing the content. The setters throw {@link UnsupportedOperationException}; use
+ * {@link #toDatabaseConnection()} to get a connection that can be edited.
+ * 
+ * Snapshots are also the compact form of a connection: empty maps are shared, small maps are kept as arrays, and a
+ * {@link ConnectionInterner} passed to {@link #of(IDatabaseConnection, ConnectionInterner)} shares the strings and
+ * database types of similar connections.
+ */
+public final class DatabaseConnectionSnapshot implements IDatabaseConnection {
+  private static final long serialVersionUID = 2745128837014470632L;
+
+  private final String id;
+  private final String name;
+  private final DatabaseAccessType accessType;
+  private final IDatabaseType databaseType;
+  private final String hostname;
+  private final String databaseName;
+  private final String databasePort;
+  private final String username;
+  private final String password;
+  private final String dataTablespace;
+  private final String indexTablespace;
+  private final String informixServername;
+  private final String connectSql;
+  private final boolean streamingResults;
+  private final boolean quoteAllFields;
+  private final boolean usingDoubleDecimalAsSchemaTableSeparator;
+  private final boolean forcingIdentifiersToLowerCase;
+  private final boolean forcingIdentifiersToUpperCase;
+  private final boolean usingConnectionPool;
+  private final boolean partitioned;
+  private final int initialPoolSize;
+  private final int maximumPoolSize;
+  private final ExtraOptions extraOptions;
+  private final Map<String, String> extraOptionsOrder;
+  private final Map<String, String> attributes;
+  private final Map<String, String> connectionPoolingProperties;
+  private final List<PartitionDatabaseMeta> partitioningInformation;
+  private final long fingerprintHigh;
+  private final long fingerprintLow;
+  private final int passwordHash;
+
+  private DatabaseConnectionSnapshot( IDatabaseConnection connection, ConnectionInterner interner ) {
+    id = intern( interner, connection.getId() );
+    name = intern( interner, connection.getName() );
+    accessType = connection.getAccessType();
+    databaseType = interner == null ? connection.getDatabaseType() : interner.intern( connection.getDatabaseType() );
+    hostname = intern( interner, connection.getHostname() );
+    databaseName = intern( interner, connection.getDatabaseName() );
+    databasePort = intern( interner, connection.getDatabasePort() );
+    username = intern( interner, connection.getUsername() );
+    password = connection.getPassword();
+    dataTablespace = intern( interner, connection.getDataTablespace() );
+    indexTablespace = intern( interner, connection.getIndexTablespace() );
+    informixServername = intern( interner, connection.getInformixServername() );
+    connectSql = intern( interner, connection.getConnectSql() );
+    streamingResults = connection.isStreamingResults();
+    quoteAllFields = connection.isQuoteAllFields();
+    usingDoubleDecimalAsSchemaTableSeparator = connection.isUsingDoubleDecimalAsSchemaTableSeparator();
+    forcingIdentifiersToLowerCase = connection.isForcingIdentifiersToLowerCase();
+    forcingIdentifiersToUpperCase = connection.isForcingIdentifiersToUpperCase();
+    usingConnectionPool = connection.isUsingConnectionPool();
+    partitioned = connection.isPartitioned();
+    initialPoolSize = connection.getInitialPoolSize();
+    maximumPoolSize = connection.getMaximumPoolSize();
+    extraOptions = ExtraOptions.unmodifiableCopy( connection.getExtraOptions(), interner );
+    extraOptionsOrder = ArrayMap.copyOf( connection.getExtraOptionsOrder(), interner );
+    attributes = ArrayMap.copyOf( connection.getAttributes(), interner );
+    connectionPoolingProperties = ArrayMap.copyOf( connection.getConnectionPoolingProperties(), interner );
+    partitioningInformation = copy( connection.getPartitioningInformation(), interner );
+
+    Fingerprint fingerprint = new Fingerprint();
+    fingerprint.add( id ).add( name ).add( accessType == null ? null : accessType.name() )
+        .add( databaseType == null ? null : databaseType.getShortName() ).add( hostname ).add( databaseName )
+        .add( databasePort ).add( username ).add( dataTablespace ).add( indexTablespace ).add( informixServername )
+        .add( connectSql ).add( streamingResults ).add( quoteAllFields ).add( usingDoubleDecimalAsSchemaTableSeparator )
+        .add( forcingIdentifiersToLowerCase ).add( forcingIdentifiersToUpperCase ).add( usingConnectionPool )
+        .add( partitioned ).add( initialPoolSize ).add( maximumPoolSize );
+    // the order of the extra options shows in the URL, the other maps are compared regardless of order
+    fingerprint.add( extraOptions, false ).add( extraOptionsOrder, true ).add( attributes, true )
+        .add( connectionPoolingProperties, true );
+    fingerprint.add( partitioningInformation.size() );
+    for ( PartitionDatabaseMeta partition : partitioningInformation ) {
+      fingerprint.add( partition.getPartitionId() ).add( partition.getHostname() ).add( partition.getPort() )
+          .add( partition.getDatabaseName() ).add( partition.getUsername() );
+    }
+    fingerprintHigh = fingerprint.high();
+    fingerprintLow = fingerprint.low();
+
+    int hash = hash( password );
+    for ( PartitionDatabaseMeta partition : partitioningInformation ) {
+      hash = 31 * hash + hash( partition.getPassword() );
+    }
+    passwordHash = hash;
+  }
+
+  /**
+   * @return a snapshot of the current state of the connection, or the connection itself if it is a snapshot already
+   */
+  public static DatabaseConnectionSnapshot of( IDatabaseConnection connection ) {
+    if ( connection instanceof DatabaseConnectionSnapshot ) {
+      return (DatabaseConnectionSnapshot) connection;
+    }
+    return new DatabaseConnectionSnapshot( connection, null );
+  }
+
+  /**
+   * Takes a snapshot sharing its strings and database type with the other snapshots taken through the same interner.
+   * This is the compact form for repositories holding many similar connections.
+   */
+  public static DatabaseConnectionSnapshot of( IDatabaseConnection connection, ConnectionInterner interner ) {
+    if ( interner == null ) {
+      return of( connection );
+    }
+    return new DatabaseConnectionSnapshot( connection, interner );
+  }
+
+  /**
+   * @return a new connection with the content of this snapshot, which can be changed
+   */
+  public DatabaseConnection toDatabaseConnection() {
+    DatabaseConnection connection = new DatabaseConnection();
+    connection.setId( id );
+    connection.setName( name );
+    connection.setAccessType( accessType );
+    connection.setDatabaseType( databaseType );
+    connection.setHostname( hostname );
+    connection.setDatabaseName( databaseName );
+    connection.setDatabasePort( databasePort );
+    connection.setUsername( username );
+    connection.setPassword( password );
+    connection.setDataTablespace( dataTablespace );
+    connection.setIndexTablespace( indexTablespace );
+    connection.setInformixServername( informixServername );
+    connection.setConnectSql( connectSql );
+    connection.setStreamingResults( streamingResults );
+    connection.setQuoteAllFields( quoteAllFields );
+    connection.setUsingDoubleDecimalAsSchemaTableSeparator( usingDoubleDecimalAsSchemaTableSeparator );
+    connection.setForcingIdentifiersToLowerCase( forcingIdentifiersToLowerCase );
+    connection.setForcingIdentifiersToUpperCase( forcingIdentifiersToUpperCase );
+    connection.setUsingConnectionPool( usingConnectionPool );
+    connection.setPartitioned( partitioned );
+    connection.setInitialPoolSize( initialPoolSize );
+    connection.setMaximumPoolSize( maximumPoolSize );
+    connection.setExtraOptions( new ExtraOptions( extraOptions ) );
+    connection.setExtraOptionsOrder( new HashMap<String, String>( extraOptionsOrder ) );
+    connection.setAttributes( new HashMap<String, String>( attributes ) );
+    connection.setConnectionPoolingProperties( new HashMap<String, String>( connectionPoolingProperties ) );
+    List<PartitionDatabaseMeta> partitions = new ArrayList<PartitionDatabaseMeta>();
+    for ( PartitionDatabaseMeta partition : partitioningInformation ) {
+      partitions.add( copy( partition ) );
+    }
+    connection.setPartitioningInformation( partitions );
+    return connection;
+  }
+
+  /**
+   * @return the fingerprint of the content of this snapshot without its password, as 32 hexadecimal digits
+   */
+  public String getFingerprint() {
+    return hex( fingerprintHigh ) + hex( fingerprintLow );
+  }
+
+  public long getFingerprintHigh() {
+    return fingerprintHigh;
+  }
+
+  public long getFingerprintLow() {
+    return fingerprintLow;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public DatabaseAccessType getAccessType() {
+    return accessType;
+  }
+
+  public IDatabaseType getDatabaseType() {
+    return databaseType;
+  }
+
+  public Map<String, String> getExtraOptions() {
+    return extraOptions;
+  }
+
+  public Map<String, String> getExtraOptionsOrder() {
+    return extraOptionsOrder;
+  }
+
+  public String getHostname() {
+    return hostname;
+  }
+
+  public String getDatabaseName() {
+    return databaseName;
+  }
+
+  public String getDatabasePort() {
+    return databasePort;
+  }
+
+  public String getUsername() {
+    return username;
+  }
+
+  public String getPassword() {
+    return password;
+  }
+
+  public boolean isStreamingResults() {
+    return streamingResults;
+  }
+
+  public String getDataTablespace() {
+    return dataTablespace;
+  }
+
+  public String getIndexTablespace() {
+    return indexTablespace;
+  }
+
+  public String getSQLServerInstance() {
+    return extraOptions.get( "MSSQL.instance" ); //$NON-NLS-1$
+  }
+
+  public boolean isUsingDoubleDecimalAsSchemaTableSeparator() {
+    return usingDoubleDecimalAsSchemaTableSeparator;
+  }
+
+  public String getInformixServername() {
+    return informixServername;
+  }
+
+  public Map<String, String> getAttributes() {
+    return attributes;
+  }
+
+  /**
+   * @return false, a snapshot never changes
+   */
+  public boolean getChanged() {
+    return false;
+  }
+
+  public boolean isQuoteAllFields() {
+    return quoteAllFields;
+  }
+
+  public boolean isForcingIdentifiersToLowerCase() {
+    return forcingIdentifiersToLowerCase;
+  }
+
+  public boolean isForcingIdentifiersToUpperCase() {
+    return forcingIdentifiersToUpperCase;
+  }
+
+  public String getConnectSql() {
+    return connectSql;
+  }
+
+  public boolean isUsingConnectionPool() {
+    return usingConnectionPool;
+  }
+
+  public int getInitialPoolSize() {
+    return initialPoolSize;
+  }
+
+  public int getMaximumPoolSize() {
+    return maximumPoolSize;
+  }
+
+  public boolean isPartitioned() {
+    return partitioned;
+  }
+
+  public Map<String, String> getConnectionPoolingProperties() {
+    return connectionPoolingProperties;
+  }
+
+  /**
+   * @return copies of the partitions; changing them does not change the snapshot
+   */
+  public List<PartitionDatabaseMeta> getPartitioningInformation() {
+    List<PartitionDatabaseMeta> partitions = new ArrayList<PartitionDatabaseMeta>( partitioningInformation.size() );
+    for ( PartitionDatabaseMeta partition : partitioningInformation ) {
+      partitions.add( copy( partition ) );
+    }
+    return partitions;
+  }
+
+  public void setId( String id ) {
+    throw immutable();
+  }
+
+  public void setAccessType( DatabaseAccessType accessType ) {
+    throw immutable();
+  }
+
+  public void setDatabaseType( IDatabaseType driver ) {
+    throw immutable();
+  }
+
+  public void setExtraOptions( Map<String, String> extraOptions ) {
+    throw immutable();
+  }
+
+  public void setExtraOptionsOrder( Map<String, String> extraOptionsOrder ) {
+    throw immutable();
+  }
+
+  public void setName( String name ) {
+    throw immutable();
+  }
+
+  public void setHostname( String hostname ) {
+    throw immutable();
+  }
+
+  public void setDatabaseName( String databaseName ) {
+    throw immutable();
+  }
+
+  public void setDatabasePort( String databasePort ) {
+    throw immutable();
+  }
+
+  public void setUsername( String username ) {
+    throw immutable();
+  }
+
+  public void setPassword( String password ) {
+    throw immutable();
+  }
+
+  public void setStreamingResults( boolean streamingResults ) {
+    throw immutable();
+  }
+
+  public void setDataTablespace( String dataTablespace ) {
+    throw immutable();
+  }
+
+  public void setIndexTablespace( String indexTablespace ) {
+    throw immutable();
+  }
+
+  public void setSQLServerInstance( String sqlServerInstance ) {
+    throw immutable();
+  }
+
+  public void setUsingDoubleDecimalAsSchemaTableSeparator( boolean usingDoubleDecimalAsSchemaTableSeparator ) {
+    throw immutable();
+  }
+
+  public void setInformixServername( String informixServername ) {
+    throw immutable();
+  }
+
+  public void addExtraOption( String databaseTypeCode, String option, String value ) {
+    throw immutable();
+  }
+
+  public void setAttributes( Map<String, String> attributes ) {
+    throw immutable();
+  }
+
+  public void setChanged( boolean changed ) {
+    throw immutable();
+  }
+
+  public void setQuoteAllFields( boolean quoteAllFields ) {
+    throw immutable();
+  }
+
+  public void setForcingIdentifiersToLowerCase( boolean forcingIdentifiersToLowerCase ) {
+    throw immutable();
+  }
+
+  public void setForcingIdentifiersToUpperCase( boolean forcingIdentifiersToUpperCase ) {
+    throw immutable();
+  }
+
+  public void setConnectSql( String sql ) {
+    throw immutable();
+  }
+
+  public void setUsingConnectionPool( boolean usingConnectionPool ) {
+    throw immutable();
+  }
+
+  public void setInitialPoolSize( int initialPoolSize ) {
+    throw immutable();
+  }
+
+  public void setMaximumPoolSize( int maxPoolSize ) {
+    throw immutable();
+  }
+
+  public void setPartitioned( boolean partitioned ) {
+    throw immutable();
+  }
+
+  public void setConnectionPoolingProperties( Map<String, String> connectionPoolingProperties ) {
+    throw immutable();
+  }
+
+  public void setPartitioningInformation( List<PartitionDatabaseMeta> partitioningInformation ) {
+    throw immutable();
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (int) ( fingerprintLow ^ ( fingerprintLow >>> 32 ) ) + passwordHash;
+  }
+
+  @Override
+  public boolean equals( Object obj ) {
+    if ( this == obj ) {
+      return true;
+    }
+    if ( !( obj instanceof DatabaseConnectionSnapshot ) ) {
+      return false;
+    }
+    DatabaseConnectionSnapshot other = (DatabaseConnectionSnapshot) obj;
+    if ( fingerprintHigh != other.fingerprintHigh || fingerprintLow != other.fingerprintLow
+        || passwordHash != other.passwordHash ) {
+      return false;
+    }
+    return equal( id, other.id ) && equal( name, other.name ) && accessType == other.accessType
+        && equal( databaseType == null ? null : databaseType.getShortName(),
+            other.databaseType == null ? null : other.databaseType.getShortName() )
+        && equal( hostname, other.hostname ) && equal( databaseName, other.databaseName )
+        && equal( databasePort, other.databasePort ) && equal( username, other.username )
+        && equal( password, other.password ) && equal( dataTablespace, other.dataTablespace )
+        && equal( indexTablespace, other.indexTablespace ) && equal( informixServername, other.informixServername )
+        && equal( connectSql, other.connectSql ) && streamingResults == other.streamingResults
+        && quoteAllFields == other.quoteAllFields
+        && usingDoubleDecimalAsSchemaTableSeparator == other.usingDoubleDecimalAsSchemaTableSeparator
+        && forcingIdentifiersToLowerCase == other.forcingIdentifiersToLowerCase
+        && forcingIdentifiersToUpperCase == other.forcingIdentifiersToUpperCase
+        && usingConnectionPool == other.usingConnectionPool && partitioned == other.partitioned
+        && initialPoolSize == other.initialPoolSize && maximumPoolSize == other.maximumPoolSize
+        && equalInOrder( extraOptions, other.extraOptions ) && extraOptionsOrder.equals( other.extraOptionsOrder )
+        && attributes.equals( other.attributes )
+        && connectionPoolingProperties.equals( other.connectionPoolingProperties )
+        && equalPartitions( partitioningInformation, other.partitioningInformation );
+  }
+
+  @Override
+  public String toString() {
+    return "DatabaseConnectionSnapshot [name=" + name + ", databaseType=" + databaseType + ", hostname=" + hostname
+        + ", databaseName=" + databaseName + ", fingerprint=" + getFingerprint() + "]";
+  }
+
+  private static UnsupportedOperationException immutable() {
+    return new UnsupportedOperationException( "DatabaseConnectionSnapshot cannot be changed" );
+  }
+
+  private static int hash( String value ) {
+    return value == null ? 0 : value.hashCode();
+  }
+
+  private static boolean equal( String a, String b ) {
+    return a == null ? b == null : a.equals( b );
+  }
+
+  private static boolean equalInOrder( Map<String, String> a, Map<String, String> b ) {
+    if ( a.size() != b.size() ) {
+      return false;
+    }
+    Iterator<Map.Entry<String, String>> others = b.entrySet().iterator();
+    for ( Map.Entry<String, String> entry : a.entrySet() ) {
+      if ( !entry.equals( others.next() ) ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean equalPartitions( List<PartitionDatabaseMeta> a, List<PartitionDatabaseMeta> b ) {
+    if ( a.size() != b.size() ) {
+      return false;
+    }
+    for ( int i = 0; i < a.size(); i++ ) {
+      PartitionDatabaseMeta partition = a.get( i );
+      PartitionDatabaseMeta other = b.get( i );
+      if ( !equal( partition.getPartitionId(), other.getPartitionId() )
+          || !equal( partition.getHostname(), other.getHostname() ) || !equal( partition.getPort(), other.getPort() )
+          || !equal( partition.getDatabaseName(), other.getDatabaseName() )
+          || !equal( partition.getUsername(), other.getUsername() )
+          || !equal( partition.getPassword(), other.getPassword() ) ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String intern( ConnectionInterner interner, String value ) {
+    return interner == null ? value : interner.intern( value );
+  }
+
+  private static List<PartitionDatabaseMeta> copy( List<PartitionDatabaseMeta> partitions,
+      ConnectionInterner interner ) {
+    if ( partitions == null || partitions.isEmpty() ) {
+      return Collections.emptyList();
+    }
+    PartitionDatabaseMeta[] copies = new PartitionDatabaseMeta[partitions.size()];
+    for ( int i = 0; i < copies.length; i++ ) {
+      PartitionDatabaseMeta partition = partitions.get( i );
+      copies[i] = new PartitionDatabaseMeta( intern( interner, partition.getPartitionId() ),
+          intern( interner, partition.getHostname() ), intern( interner, partition.getPort() ),
+          intern( interner, partition.getDatabaseName() ) );
+      copies[i].setUsername( intern( interner, partition.getUsername() ) );
+      copies[i].setPassword( partition.getPassword() );
+    }
+    return Collections.unmodifiableList( Arrays.asList( copies ) );
+  }
+
+  private static PartitionDatabaseMeta copy( PartitionDatabaseMeta partition ) {
+    PartitionDatabaseMeta copy = new PartitionDatabaseMeta( partition.getPartitionId(), partition.getHostname(),
+        partition.getPort(), partition.getDatabaseName() );
+    copy.setUsername( partition.getUsername() );
+    copy.setPassword( partition.getPassword() );
+    return copy;
+  }
+
+  private static String hex( long value ) {
+    char[] digits = new char[16];
+    for ( int i = 15; i >= 0; i-- ) {
+      digits[i] = Character.forDigit( (int) ( value & 0xF ), 16 );
+      value >>>= 4;
+    }
+    return new String( digits );
+  }
+
+  /**
+   * MurmurHash3 (x64, 128 bit) over the fields, each written as its length followed by its chars so that different
+   * splits of the same text hash differently. Written out here rather than taken from a digest as the model is also
+   * compiled to JavaScript.
+   */
+  private static final class Fingerprint {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private long h1;
+    private long h2;
+    private final long[] block = new long[2];
+    private int blockChars;
+    private long length;
+    private boolean finished;
+
+    Fingerprint add( String value ) {
+      if ( value == null ) {
+        return add( -1 );
+      }
+      add( value.length() );
+      for ( int i = 0; i < value.length(); i++ ) {
+        addChar( value.charAt( i ) );
+      }
+      return this;
+    }
+
+    Fingerprint add( boolean value ) {
+      addChar( value ? 1 : 0 );
+      return this;
+    }
+
+    Fingerprint add( int value ) {
+      addChar( value >>> 16 );
+      addChar( value & 0xFFFF );
+      return this;
+    }
+
+    Fingerprint add( Map<String, String> map, boolean sorted ) {
+      if ( map == null ) {
+        return add( -1 );
+      }
+      add( map.size() );
+      Map<String, String> entries = map;
+      if ( sorted && map.size() > 1 ) {
+        entries = new TreeMap<String, String>();
+        for ( Map.Entry<String, String> entry : map.entrySet() ) {
+          // TreeMap refuses null keys, which HashMap allows
+          entries.put( entry.getKey() == null ? "" : "." + entry.getKey(), entry.getValue() );
+        }
+      }
+      for ( Map.Entry<String, String> entry : entries.entrySet() ) {
+        add( entry.getKey() ).add( entry.getValue() );
+      }
+      return this;
+    }
+
+    private void addChar( int c ) {
+      int word = blockChars >> 2;
+      block[word] |= ( (long) ( c & 0xFFFF ) ) << ( ( blockChars & 3 ) << 4 );
+      blockChars++;
+      length++;
+      if ( blockChars == 8 ) {
+        mixBlock( block[0], block[1] );
+        block[0] = 0;
+        block[1] = 0;
+        blockChars = 0;
+      }
+    }
+
+    private void mixBlock( long k1, long k2 ) {
+      h1 ^= mixK1( k1 );
+      h1 = Long.rotateLeft( h1, 27 );
+      h1 += h2;
+      h1 = h1 * 5 + 0x52dce729;
+      h2 ^= mixK2( k2 );
+      h2 = Long.rotateLeft( h2, 31 );
+      h2 += h1;
+      h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    private void finish() {
+      if ( finished ) {
+        return;
+      }
+      finished = true;
+      if ( blockChars > 0 ) {
+        h2 ^= mixK2( block[1] );
+        h1 ^= mixK1( block[0] );
+      }
+      long bytes = length * 2;
+      h1 ^= bytes;
+      h2 ^= bytes;
+      h1 += h2;
+      h2 += h1;
+      h1 = fmix( h1 );
+      h2 = fmix( h2 );
+      h1 += h2;
+      h2 += h1;
+    }
+
+    long high() {
+      finish();
+      return h1;
+    }
+
+    long low() {
+      finish();
+      return h2;
+    }
+
+    private static long mixK1( long k1 ) {
+      k1 *= C1;
+      k1 = Long.rotateLeft( k1, 31 );
+      return k1 * C2;
+    }
+
+    private static long mixK2( long k2 ) {
+      k2 *= C2;
+      k2 = Long.rotateLeft( k2, 33 );
+      return k2 * C1;
+    }
+
+    private static long fmix( long k ) {
+      k ^= k >>> 33;
+      k *= 0xff51afd7ed558ccdL;
+      k ^= k >>> 33;
+      k *= 0xc4ceb9fe1a85ec53L;
+      k ^= k >>> 33;
+      return k;
+    }
+  }
+}
@@ -0,0 +1,389 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.model;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The extra options of a connection, keyed by {@code <database type code>.<option>} like before, but kept in the
+ * order they were added. When a connection also has an extra options order, that order wins when the URL is built.
+ * 
+ * Besides the flat map, the options are grouped by database type code, and the URL form of each group is remembered
+ * once built, with the option names in the order it was built for. Every change to the map, through its views
+ * included, drops the grouping, and a URL form is only reused while the extra options order it was built for is equal
+ * to the one asked for, so repeated URL builds for an unchanged connection neither split and filter the keys nor sort
+ * the order again.
+ */
+public class ExtraOptions extends AbstractMap<String, String> implements Serializable {
+  private static final long serialVersionUID = -3079430417376815813L;
+
+  /**
+   * Orders the positions of the extra options order numerically, or as strings where they are not numbers.
+   */
+  private static final Comparator<String> POSITION_ORDER = new Comparator<String>() {
+    public int compare( String a, String b ) {
+      try {
+        return Long.valueOf( a ).compareTo( Long.valueOf( b ) );
+      } catch ( NumberFormatException e ) {
+        return String.valueOf( a ).compareTo( String.valueOf( b ) );
+      }
+    }
+  };
+
+  private Map<String, String> options = new LinkedHashMap<String, String>();
+
+  private boolean readOnly;
+
+  private transient volatile Map<String, TypeOptions> optionsByType;
+
+  public ExtraOptions() {
+  }
+
+  public ExtraOptions( Map<String, String> options ) {
+    if ( options != null ) {
+      this.options.putAll( options );
+    }
+  }
+
+  /**
+   * @return a copy of the options that cannot be changed, and so can be shared between threads
+   */
+  public static ExtraOptions unmodifiableCopy( Map<String, String> options ) {
+    return unmodifiableCopy( options, null );
+  }
+
+  /**
+   * @return a copy of the options that cannot be changed, stored compactly and with its strings interned if an
+   *         interner is given
+   */
+  public static ExtraOptions unmodifiableCopy( Map<String, String> options, ConnectionInterner interner ) {
+    ExtraOptions copy = new ExtraOptions();
+    copy.options = ArrayMap.copyOf( options, interner );
+    copy.readOnly = true;
+    return copy;
+  }
+
+  @Override
+  public int size() {
+    return options.size();
+  }
+
+  @Override
+  public boolean containsKey( Object key ) {
+    return options.containsKey( key );
+  }
+
+  @Override
+  public String get( Object key ) {
+    return options.get( key );
+  }
+
+  @Override
+  public String put( String key, String value ) {
+    changing();
+    return options.put( key, value );
+  }
+
+  @Override
+  public String remove( Object key ) {
+    changing();
+    return options.remove( key );
+  }
+
+  @Override
+  public void clear() {
+    changing();
+    options.clear();
+  }
+
+  @Override
+  public Set<Map.Entry<String, String>> entrySet() {
+    return new EntrySet();
+  }
+
+  /**
+   * @return the options of one database type, by option name, in the order they were added
+   */
+  public Map<String, String> getOptions( String databaseTypeCode ) {
+    TypeOptions typeOptions = optionsByType().get( databaseTypeCode );
+    return typeOptions == null ? Collections.<String, String>emptyMap()
+        : Collections.unmodifiableMap( typeOptions.options );
+  }
+
+  /**
+   * Returns the options of one database type in URL form, e.g. {@code a=1;b;c=3}. Options without a value are added
+   * without the value separator.
+   * 
+   * @return the options, or an empty string if the database type has none
+   */
+  public String getUrlOptions( String databaseTypeCode, String optionSeparator, String valueSeparator ) {
+    return getUrlOptions( databaseTypeCode, null, optionSeparator, valueSeparator );
+  }
+
+  /**
+   * Returns the options of one database type in URL form, in the given order.
+   * 
+   * @param extraOptionsOrder
+   *          the extra options order of the connection, {@code <database type code>.<option>} by position; options
+   *          it does not list follow in the order they were added. Null or empty keeps the order they were added.
+   * @see #getUrlOptions(String, String, String)
+   */
+  public String getUrlOptions( String databaseTypeCode, Map<String, String> extraOptionsOrder, String optionSeparator,
+      String valueSeparator ) {
+    TypeOptions typeOptions = optionsByType().get( databaseTypeCode );
+    return typeOptions == null ? "" : typeOptions.getUrlOptions( databaseTypeCode, extraOptionsOrder,
+        optionSeparator, valueSeparator );
+  }
+
+  /**
+   * Builds the URL form of the options of one database type from any extra options map.
+   * 
+   * @see #getUrlOptions(String, String, String)
+   */
+  public static String buildUrlOptions( Map<String, String> extraOptions, String databaseTypeCode,
+      String optionSeparator, String valueSeparator ) {
+    return buildUrlOptions( extraOptions, null, databaseTypeCode, optionSeparator, valueSeparator );
+  }
+
+  /**
+   * Builds the URL form of the options of one database type from any extra options map, in the given order.
+   * 
+   * @see #getUrlOptions(String, Map, String, String)
+   */
+  public static String buildUrlOptions( Map<String, String> extraOptions, Map<String, String> extraOptionsOrder,
+      String databaseTypeCode, String optionSeparator, String valueSeparator ) {
+    if ( extraOptions instanceof ExtraOptions ) {
+      return ( (ExtraOptions) extraOptions ).getUrlOptions( databaseTypeCode, extraOptionsOrder, optionSeparator,
+          valueSeparator );
+    }
+    Map<String, String> typeOptions = new LinkedHashMap<String, String>();
+    for ( Map.Entry<String, String> option : extraOptions.entrySet() ) {
+      String key = option.getKey();
+      if ( key != null && key.length() > databaseTypeCode.length() && key.startsWith( databaseTypeCode )
+          && key.charAt( databaseTypeCode.length() ) == '.' ) {
+        typeOptions.put( key.substring( databaseTypeCode.length() + 1 ), option.getValue() );
+      }
+    }
+    StringBuilder url = new StringBuilder();
+    for ( String name : orderedNames( typeOptions.keySet(), databaseTypeCode, extraOptionsOrder ) ) {
+      appendOption( url, name, typeOptions.get( name ), optionSeparator, valueSeparator );
+    }
+    return url.toString();
+  }
+
+  /**
+   * @return the option names of one database type, those listed in the extra options order first, by position
+   */
+  static List<String> orderedNames( Set<String> names, String databaseTypeCode,
+      Map<String, String> extraOptionsOrder ) {
+    if ( extraOptionsOrder == null || extraOptionsOrder.isEmpty() ) {
+      return new ArrayList<String>( names );
+    }
+    List<String> positions = new ArrayList<String>( extraOptionsOrder.keySet() );
+    Collections.sort( positions, POSITION_ORDER );
+    Set<String> ordered = new LinkedHashSet<String>();
+    String prefix = databaseTypeCode + ".";
+    for ( String position : positions ) {
+      String key = extraOptionsOrder.get( position );
+      if ( key != null && key.startsWith( prefix ) && names.contains( key.substring( prefix.length() ) ) ) {
+        ordered.add( key.substring( prefix.length() ) );
+      }
+    }
+    ordered.addAll( names );
+    return new ArrayList<String>( ordered );
+  }
+
+  private static void appendOption( StringBuilder url, String name, String value, String optionSeparator,
+      String valueSeparator ) {
+    if ( url.length() > 0 ) {
+      url.append( optionSeparator );
+    }
+    url.append( name );
+    if ( value != null && value.length() > 0 ) {
+      url.append( valueSeparator ).append( value );
+    }
+  }
+
+  private void changing() {
+    if ( readOnly ) {
+      throw new UnsupportedOperationException( "These extra options cannot be changed" );
+    }
+    optionsByType = null;
+  }
+
+  private Map<String, TypeOptions> optionsByType() {
+    Map<String, TypeOptions> result = optionsByType;
+    if ( result == null ) {
+      result = new LinkedHashMap<String, TypeOptions>();
+      for ( Map.Entry<String, String> option : options.entrySet() ) {
+        String key = option.getKey();
+        int dotIndex = key == null ? -1 : key.indexOf( '.' );
+        if ( dotIndex >= 0 ) {
+          String typeCode = key.substring( 0, dotIndex );
+          TypeOptions typeOptions = result.get( typeCode );
+          if ( typeOptions == null ) {
+            typeOptions = new TypeOptions();
+            result.put( typeCode, typeOptions );
+          }
+          typeOptions.options.put( key.substring( dotIndex + 1 ), option.getValue() );
+        }
+      }
+      optionsByType = result;
+    }
+    return result;
+  }
+
+  /**
+   * The options of one database type, with the URL form last asked for.
+   */
+  private static final class TypeOptions {
+    final Map<String, String> options = new LinkedHashMap<String, String>();
+    private volatile UrlOptions urlOptions;
+
+    String getUrlOptions( String databaseTypeCode, Map<String, String> extraOptionsOrder, String optionSeparator,
+        String valueSeparator ) {
+      UrlOptions cached = urlOptions;
+      List<String> names;
+      if ( cached != null && cached.isOrderedBy( extraOptionsOrder ) ) {
+        if ( cached.optionSeparator.equals( optionSeparator ) && cached.valueSeparator.equals( valueSeparator ) ) {
+          return cached.url;
+        }
+        names = cached.names;
+      } else {
+        names = orderedNames( options.keySet(), databaseTypeCode, extraOptionsOrder );
+      }
+      StringBuilder url = new StringBuilder();
+      for ( String name : names ) {
+        appendOption( url, name, options.get( name ), optionSeparator, valueSeparator );
+      }
+      String result = url.toString();
+      urlOptions = new UrlOptions( names, extraOptionsOrder, optionSeparator, valueSeparator, result );
+      return result;
+    }
+  }
+
+  /**
+   * A URL form of the options, with the ordered names, the extra options order and the separators it was built for.
+   * The order is copied, as the connection's order map may be changed in place.
+   */
+  private static final class UrlOptions {
+    final List<String> names;
+    final Map<String, String> extraOptionsOrder;
+    final String optionSeparator;
+    final String valueSeparator;
+    final String url;
+
+    UrlOptions( List<String> names, Map<String, String> extraOptionsOrder, String optionSeparator,
+        String valueSeparator, String url ) {
+      this.names = names;
+      this.extraOptionsOrder = extraOptionsOrder == null || extraOptionsOrder.isEmpty()
+          ? Collections.<String, String>emptyMap() : new HashMap<String, String>( extraOptionsOrder );
+      this.optionSeparator = optionSeparator;
+      this.valueSeparator = valueSeparator;
+      this.url = url;
+    }
+
+    /**
+     * @return whether the names are in the given extra options order, compared entry by entry without sorting
+     */
+    boolean isOrderedBy( Map<String, String> order ) {
+      if ( order == null || order.isEmpty() ) {
+        return extraOptionsOrder.isEmpty();
+      }
+      return extraOptionsOrder.equals( order );
+    }
+  }
+
+  private final class EntrySet extends AbstractSet<Map.Entry<String, String>> {
+    @Override
+    public int size() {
+      return options.size();
+    }
+
+    @Override
+    public Iterator<Map.Entry<String, String>> iterator() {
+      final Iterator<Map.Entry<String, String>> iterator = options.entrySet().iterator();
+      return new Iterator<Map.Entry<String, String>>() {
+        public boolean hasNext() {
+          return iterator.hasNext();
+        }
+
+        public Map.Entry<String, String> next() {
+          return new OptionEntry( iterator.next() );
+        }
+
+        public void remove() {
+          changing();
+          iterator.remove();
+        }
+      };
+    }
+
+    @Override
+    public void clear() {
+      ExtraOptions.this.clear();
+    }
+  }
+
+  private final class OptionEntry implements Map.Entry<String, String> {
+    private final Map.Entry<String, String> entry;
+
+    OptionEntry( Map.Entry<String, String> entry ) {
+      this.entry = entry;
+    }
+
+    public String getKey() {
+      return entry.getKey();
+    }
+
+    public String getValue() {
+      return entry.getValue();
+    }
+
+    public String setValue( String value ) {
+      changing();
+      return entry.setValue( value );
+    }
+
+    @Override
+    public boolean equals( Object o ) {
+      return entry.equals( o );
+    }
+
+    @Override
+    public int hashCode() {
+      return entry.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return entry.toString();
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2017 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.model;
+
+import java.util.List;
+
+/**
+ * The answer to checking a connection's parameters and, when they are complete, testing it, in one call.
+ */
+public interface IConnectionValidationResult {
+
+  /**
+   * @return the problems found with the parameters; empty when there are none
+   */
+  public List<String> getParameterErrors();
+
+  /**
+   * @param parameterErrors
+   *          the problems found with the parameters
+   */
+  public void setParameterErrors( List<String> parameterErrors );
+
+  /**
+   * @return true if the connection was tested; it is not when a test was not asked for or the parameters had errors
+   */
+  public boolean isTested();
+
+  /**
+   * @param tested
+   *          whether the connection was tested
+   */
+  public void setTested( boolean tested );
+
+  /**
+   * @return true if the parameters had no errors and, when tested, the connection worked
+   */
+  public boolean isSuccess();
+
+  /**
+   * @param success
+   *          whether the connection passed
+   */
+  public void setSuccess( boolean success );
+
+  /**
+   * @return the report of the test, or null when it was not tested
+   */
+  public String getTestMessage();
+
+  /**
+   * @param testMessage
+   *          the report of the test
+   */
+  public void setTestMessage( String testMessage );
+
+}
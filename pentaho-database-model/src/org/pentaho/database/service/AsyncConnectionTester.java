@@ -0,0 +1,215 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.pentaho.database.model.IDatabaseConnection;
+
+/**
+ * Runs connection tests, and other service calls that may wait on a database, on a pool of its own and hands back
+ * futures, so the calling thread is free as soon as the work is queued. Servlets use this to give their container
+ * threads back while a slow database answers.
+ * 
+ * The pool has a fixed number of threads; work beyond that waits in line. Work that has no result after the
+ * {@link #getDeadline() deadline}, counted from when it was queued, completes its future: a test is reported as failed,
+ * anything else fails with a {@link TimeoutException} and has its thread interrupted. Cancelling a future interrupts
+ * its work as well, except for a test.
+ * 
+ * A test is never interrupted, as other requests may be waiting for the same login through a
+ * {@link ConnectionTestCache}: only the future of the request that missed its deadline fails, and the test goes on
+ * for the others until it returns. Tests have to bound their own login time, as {@link NativeConnectionTester} does.
+ */
+public class AsyncConnectionTester {
+  public static final int DEFAULT_THREADS = 16;
+  public static final int DEFAULT_DEADLINE = 30;
+
+  private static final ScheduledThreadPoolExecutor DEADLINES = new ScheduledThreadPoolExecutor( 1,
+    new DaemonThreadFactory( "connection-async-deadline-" ) );
+
+  static {
+    DEADLINES.setRemoveOnCancelPolicy( true );
+  }
+
+  private final Function<IDatabaseConnection, ConnectionTestResult> test;
+  private final ThreadPoolExecutor executor;
+  private volatile int deadline = DEFAULT_DEADLINE;
+
+  /**
+   * @param test
+   *          tests one connection
+   */
+  public AsyncConnectionTester( Function<IDatabaseConnection, ConnectionTestResult> test ) {
+    this( test, DEFAULT_THREADS );
+  }
+
+  /**
+   * @param test
+   *          tests one connection
+   * @param threads
+   *          how many calls may run at once
+   */
+  public AsyncConnectionTester( Function<IDatabaseConnection, ConnectionTestResult> test, int threads ) {
+    if ( threads < 1 ) {
+      throw new IllegalArgumentException( "threads must be at least 1" );
+    }
+    this.test = test;
+    this.executor = new ThreadPoolExecutor( threads, threads, 60, TimeUnit.SECONDS,
+      new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory( "connection-async-test-" ) );
+    // an idle server should not hold on to its threads
+    executor.allowCoreThreadTimeOut( true );
+  }
+
+  /**
+   * @return seconds a call may take, or 0 for no deadline
+   */
+  public int getDeadline() {
+    return deadline;
+  }
+
+  public void setDeadline( int deadline ) {
+    this.deadline = deadline;
+  }
+
+  /**
+   * Queues a test of the connection.
+   * 
+   * @return the result; a test that fails or misses the deadline gives a failed result, it does not complete the
+   *         future exceptionally
+   */
+  public CompletableFuture<ConnectionTestResult> test( final IDatabaseConnection connection ) {
+    final int seconds = deadline;
+    return run( new Callable<ConnectionTestResult>() {
+      public ConnectionTestResult call() {
+        long start = System.nanoTime();
+        try {
+          return test.apply( connection );
+        } catch ( RuntimeException e ) {
+          return new ConnectionTestResult( false, "Error connecting to database [" + connection.getName() + "] : "
+            + e, TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start ) );
+        }
+      }
+    }, seconds, new ConnectionTestResult( false, "Error connecting to database [" + connection.getName()
+      + "] : No result after " + seconds + " seconds", TimeUnit.SECONDS.toMillis( seconds ) ), false );
+  }
+
+  /**
+   * Queues some other work, such as a parameter check.
+   * 
+   * @return the result of the work, or its exception
+   */
+  public <T> CompletableFuture<T> submit( Callable<T> work ) {
+    return submit( work, deadline );
+  }
+
+  /**
+   * Queues some other work with a deadline of its own, for work that bounds itself.
+   * 
+   * @param seconds
+   *          how long the work may take, or 0 for no deadline
+   */
+  public <T> CompletableFuture<T> submit( Callable<T> work, int seconds ) {
+    return run( work, seconds, null, true );
+  }
+
+  /**
+   * @return calls queued or running
+   */
+  public int getPending() {
+    return executor.getQueue().size() + executor.getActiveCount();
+  }
+
+  /**
+   * Interrupts the running calls and refuses new ones; the futures of queued calls are cancelled.
+   */
+  public void shutdown() {
+    for ( Runnable queued : executor.shutdownNow() ) {
+      ( (Call<?>) queued ).result.cancel( false );
+    }
+  }
+
+  /**
+   * @param interrupt
+   *          whether to interrupt the work when its future completes before it, at the deadline or by cancellation
+   */
+  private <T> CompletableFuture<T> run( Callable<T> work, final int seconds, final T onDeadline,
+    final boolean interrupt ) {
+    final Call<T> call = new Call<T>( work );
+    final CompletableFuture<T> result = call.result;
+    try {
+      executor.execute( call );
+    } catch ( RejectedExecutionException e ) {
+      result.completeExceptionally( e );
+      return result;
+    }
+    final Future<?> timer = seconds <= 0 ? null : DEADLINES.schedule( new Runnable() {
+      public void run() {
+        boolean missed = onDeadline != null ? result.complete( onDeadline ) : result.completeExceptionally(
+          new TimeoutException( "No result after " + seconds + " seconds" ) );
+        if ( missed ) {
+          call.cancel( interrupt );
+        }
+      }
+    }, seconds, TimeUnit.SECONDS );
+    result.whenComplete( new BiConsumer<T, Throwable>() {
+      public void accept( T value, Throwable error ) {
+        if ( timer != null ) {
+          timer.cancel( false );
+        }
+        if ( result.isCancelled() ) {
+          call.cancel( interrupt );
+        }
+      }
+    } );
+    return result;
+  }
+
+  /**
+   * Queued work, kept with its future so a shutdown can cancel what never ran.
+   */
+  private static final class Call<T> extends FutureTask<Void> {
+    final CompletableFuture<T> result;
+
+    Call( final Callable<T> work ) {
+      this( work, new CompletableFuture<T>() );
+    }
+
+    private Call( final Callable<T> work, final CompletableFuture<T> result ) {
+      super( new Runnable() {
+        public void run() {
+          try {
+            result.complete( work.call() );
+          } catch ( Throwable e ) {
+            result.completeExceptionally( e );
+          }
+        }
+      }, null );
+      this.result = result;
+    }
+  }
+}
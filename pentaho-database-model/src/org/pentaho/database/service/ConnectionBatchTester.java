@@ -0,0 +1,369 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.service;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.pentaho.database.model.IDatabaseConnection;
+
+/**
+ * Tests many connections concurrently.
+ * 
+ * At most {@link #getMaxConcurrency()} tests run at once, and at most {@link #getMaxPerHost()} against the same host,
+ * so an unreachable host holds a few threads for its login timeout while the other hosts go on. Hosts take turns, so
+ * a host with many connections does not starve the others. Connections without a host name are only bounded by the
+ * overall limit.
+ * 
+ * A test that has no result after the {@link #getDeadline() deadline}, counted from when its thread starts running it,
+ * is reported as failed and its thread is interrupted. Time spent waiting for a thread of the shared pool does not
+ * count, so a busy pool does not fail tests that never got to run. Its slot is only given to the next test once the
+ * thread returns, so a driver that ignores the interrupt cannot pile up threads against its host; the tests should
+ * bound their own login time, as {@link NativeConnectionTester} does. The tests of all batches share a pool of at
+ * most {@link #MAX_THREADS} threads.
+ * 
+ * Results are handed to a {@link Listener} as each test finishes, one at a time, and returned in the order of the
+ * connections once all are done.
+ */
+public class ConnectionBatchTester {
+  public static final int DEFAULT_MAX_CONCURRENCY = 32;
+  public static final int DEFAULT_MAX_PER_HOST = 4;
+  public static final int DEFAULT_DEADLINE = 30;
+  public static final int MAX_THREADS = 64;
+
+  /**
+   * Receives the results of a batch as the tests finish.
+   */
+  public interface Listener {
+    /**
+     * @param index
+     *          the position of the connection in the batch
+     */
+    void testFinished( int index, IDatabaseConnection connection, ConnectionTestResult result );
+  }
+
+  private static final ThreadPoolExecutor TESTERS = new ThreadPoolExecutor( MAX_THREADS, MAX_THREADS, 60,
+    TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory( "connection-batch-test-" ) );
+
+  private static final ScheduledThreadPoolExecutor DEADLINES = new ScheduledThreadPoolExecutor( 1,
+    new DaemonThreadFactory( "connection-batch-deadline-" ) );
+
+  static {
+    // most tests finish in time, their deadlines should not pile up
+    DEADLINES.setRemoveOnCancelPolicy( true );
+    TESTERS.allowCoreThreadTimeOut( true );
+  }
+
+  private final Function<IDatabaseConnection, ConnectionTestResult> test;
+  private volatile int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+  private volatile int maxPerHost = DEFAULT_MAX_PER_HOST;
+  private volatile int deadline = DEFAULT_DEADLINE;
+
+  /**
+   * @param test
+   *          tests one connection
+   */
+  public ConnectionBatchTester( Function<IDatabaseConnection, ConnectionTestResult> test ) {
+    this.test = test;
+  }
+
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  public void setMaxConcurrency( int maxConcurrency ) {
+    if ( maxConcurrency < 1 ) {
+      throw new IllegalArgumentException( "maxConcurrency must be at least 1" );
+    }
+    this.maxConcurrency = maxConcurrency;
+  }
+
+  public int getMaxPerHost() {
+    return maxPerHost;
+  }
+
+  public void setMaxPerHost( int maxPerHost ) {
+    if ( maxPerHost < 1 ) {
+      throw new IllegalArgumentException( "maxPerHost must be at least 1" );
+    }
+    this.maxPerHost = maxPerHost;
+  }
+
+  /**
+   * @return seconds a single test may take, or 0 for no deadline
+   */
+  public int getDeadline() {
+    return deadline;
+  }
+
+  public void setDeadline( int deadline ) {
+    this.deadline = deadline;
+  }
+
+  /**
+   * Tests the connections and waits for all results.
+   * 
+   * @param listener
+   *          receives each result as it comes; may be null
+   * @return the results, in the order of the connections
+   */
+  public List<ConnectionTestResult> testAll( List<? extends IDatabaseConnection> connections, Listener listener )
+    throws InterruptedException {
+    Batch batch = new Batch( connections, listener );
+    batch.schedule();
+    try {
+      batch.done.await();
+    } finally {
+      batch.cancel();
+    }
+    return Arrays.asList( batch.results );
+  }
+
+  /**
+   * @return the key the per host limit applies to, or null for no limit
+   */
+  static String getHostKey( IDatabaseConnection connection ) {
+    String host = connection.getHostname();
+    return host == null || host.trim().length() == 0 ? null : host.trim().toLowerCase( Locale.ENGLISH );
+  }
+
+  private final class Batch {
+    private final List<? extends IDatabaseConnection> connections;
+    private final Listener listener;
+    final ConnectionTestResult[] results;
+    final CountDownLatch done;
+    private final int concurrency = maxConcurrency;
+    private final int perHost = maxPerHost;
+    private final int seconds = deadline;
+
+    /**
+     * Queued connection indexes by host, in the order hosts take turns; unlimited connections are under null.
+     */
+    private final LinkedHashMap<String, ArrayDeque<Integer>> queues = new LinkedHashMap<String, ArrayDeque<Integer>>();
+    private final Map<String, Integer> runningByHost = new HashMap<String, Integer>();
+    private final Map<Integer, Running> running = new HashMap<Integer, Running>();
+    private boolean cancelled;
+    private final Object listenerLock = new Object();
+
+    Batch( List<? extends IDatabaseConnection> connections, Listener listener ) {
+      this.connections = connections;
+      this.listener = listener;
+      this.results = new ConnectionTestResult[connections.size()];
+      this.done = new CountDownLatch( connections.size() );
+      for ( int i = 0; i < connections.size(); i++ ) {
+        String host = getHostKey( connections.get( i ) );
+        ArrayDeque<Integer> queue = queues.get( host );
+        if ( queue == null ) {
+          queue = new ArrayDeque<Integer>();
+          queues.put( host, queue );
+        }
+        queue.add( i );
+      }
+    }
+
+    /**
+     * Starts queued tests while there is room, giving each host a turn.
+     */
+    synchronized void schedule() {
+      while ( !cancelled && running.size() < concurrency ) {
+        Integer next = null;
+        String nextHost = null;
+        for ( Iterator<Map.Entry<String, ArrayDeque<Integer>>> it = queues.entrySet().iterator(); it.hasNext(); ) {
+          Map.Entry<String, ArrayDeque<Integer>> entry = it.next();
+          if ( entry.getKey() == null || runningOn( entry.getKey() ) < perHost ) {
+            nextHost = entry.getKey();
+            next = entry.getValue().poll();
+            it.remove();
+            if ( !entry.getValue().isEmpty() ) {
+              // to the back of the line
+              queues.put( nextHost, entry.getValue() );
+            }
+            break;
+          }
+        }
+        if ( next == null ) {
+          return;
+        }
+        start( next, nextHost );
+      }
+    }
+
+    private int runningOn( String host ) {
+      Integer count = runningByHost.get( host );
+      return count == null ? 0 : count;
+    }
+
+    private void start( final int index, String host ) {
+      if ( host != null ) {
+        runningByHost.put( host, runningOn( host ) + 1 );
+      }
+      final IDatabaseConnection connection = connections.get( index );
+      final Running slot = new Running();
+      running.put( index, slot );
+      TESTERS.execute( new Runnable() {
+        public void run() {
+          ConnectionTestResult result = null;
+          if ( slot.begin() ) {
+            long start = System.nanoTime();
+            startDeadline( index, connection, slot );
+            try {
+              result = test.apply( connection );
+            } catch ( RuntimeException e ) {
+              result = new ConnectionTestResult( false, "Error connecting to database [" + connection.getName()
+                + "] : " + e, TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start ) );
+            } finally {
+              if ( !slot.end() ) {
+                // reported as failed at its deadline already
+                result = null;
+              }
+            }
+          }
+          release( index );
+          if ( result != null ) {
+            report( index, result );
+          }
+        }
+      } );
+    }
+
+    /**
+     * Fails the test if it has no result after the deadline, counted from now, when the test begins to run.
+     */
+    private void startDeadline( final int index, final IDatabaseConnection connection, final Running slot ) {
+      if ( seconds > 0 ) {
+        slot.deadline = DEADLINES.schedule( new Runnable() {
+          public void run() {
+            if ( slot.interrupt() ) {
+              report( index, new ConnectionTestResult( false, "Error connecting to database [" + connection.getName()
+                + "] : No result after " + seconds + " seconds", TimeUnit.SECONDS.toMillis( seconds ) ) );
+            }
+          }
+        }, seconds, TimeUnit.SECONDS );
+      }
+    }
+
+    /**
+     * Gives the slot of a test back once its thread is done with it, and starts the next test.
+     */
+    private void release( int index ) {
+      synchronized ( this ) {
+        Running slot = running.remove( index );
+        if ( slot.deadline != null ) {
+          slot.deadline.cancel( false );
+        }
+        String host = getHostKey( connections.get( index ) );
+        if ( host != null ) {
+          int count = runningOn( host ) - 1;
+          if ( count == 0 ) {
+            runningByHost.remove( host );
+          } else {
+            runningByHost.put( host, count );
+          }
+        }
+      }
+      schedule();
+    }
+
+    /**
+     * Hands out the result of a test, either the one it returned or the failure at its deadline, whichever came first.
+     */
+    private void report( int index, ConnectionTestResult result ) {
+      synchronized ( this ) {
+        if ( results[index] != null ) {
+          return;
+        }
+        results[index] = result;
+      }
+      if ( listener != null ) {
+        synchronized ( listenerLock ) {
+          listener.testFinished( index, connections.get( index ), result );
+        }
+      }
+      done.countDown();
+    }
+
+    synchronized void cancel() {
+      cancelled = true;
+      for ( Running slot : running.values() ) {
+        slot.interrupt();
+        if ( slot.deadline != null ) {
+          slot.deadline.cancel( false );
+        }
+      }
+    }
+  }
+
+  /**
+   * The thread of a running test, so that its deadline interrupts only this test and not whatever the pool thread runs
+   * next.
+   */
+  private static final class Running {
+    private Thread thread;
+    private boolean over;
+    volatile Future<?> deadline;
+
+    /**
+     * @return false if the test is over before it started, so it should not be run
+     */
+    synchronized boolean begin() {
+      if ( over ) {
+        return false;
+      }
+      thread = Thread.currentThread();
+      return true;
+    }
+
+    /**
+     * @return false if the deadline came first
+     */
+    synchronized boolean end() {
+      boolean inTime = !over;
+      over = true;
+      thread = null;
+      // clear an interrupt that came too late for the test, before the thread goes back to the pool
+      Thread.interrupted();
+      return inTime;
+    }
+
+    /**
+     * @return true if the test had not returned yet
+     */
+    synchronized boolean interrupt() {
+      if ( over ) {
+        return false;
+      }
+      over = true;
+      if ( thread != null ) {
+        thread.interrupt();
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,265 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import org.pentaho.database.model.DatabaseConnectionSnapshot;
+import org.pentaho.database.model.IDatabaseConnection;
+
+/**
+ * Coalesces concurrent tests of the same connection and keeps their results for a short while.
+ * 
+ * Connections are keyed by their {@link DatabaseConnectionSnapshot} content, password included, so only identical
+ * definitions share a test: a changed definition is tested again right away. While a test runs, other requests for the
+ * same definition wait for it instead of logging in again. Each request waits at most {@link #getMaxWait()}
+ * milliseconds, counted from its own start; a request that gives up gets a failed result of its own and leaves the
+ * test running for the others. A successful result is then answered for {@link #getTimeToLive()} milliseconds and a
+ * failed one for {@link #getFailureTimeToLive()} milliseconds, so a wrong password does not turn into a storm of
+ * logins that locks the account. A test that throws is not kept.
+ * 
+ * A test whose thread was interrupted, because the request that started it was given up, does not answer for the
+ * others: its waiters start a test of their own instead of failing with it.
+ * 
+ * {@link #invalidate(String)} drops the results of a connection, for instance when it was saved or the database was
+ * fixed.
+ */
+public class ConnectionTestCache {
+  public static final long DEFAULT_TIME_TO_LIVE = 5000;
+  public static final long DEFAULT_FAILURE_TIME_TO_LIVE = 2000;
+  public static final long DEFAULT_MAX_WAIT = 30000;
+
+  /**
+   * Expired results are swept when a test starts and there are more than this many.
+   */
+  private static final int SWEEP_THRESHOLD = 256;
+
+  private final Map<DatabaseConnectionSnapshot, Entry> entries =
+    new ConcurrentHashMap<DatabaseConnectionSnapshot, Entry>();
+  private final LongSupplier clock;
+  private volatile long timeToLive = DEFAULT_TIME_TO_LIVE;
+  private volatile long failureTimeToLive = DEFAULT_FAILURE_TIME_TO_LIVE;
+  private volatile long maxWait = DEFAULT_MAX_WAIT;
+
+  public ConnectionTestCache() {
+    this( new LongSupplier() {
+      public long getAsLong() {
+        return TimeUnit.NANOSECONDS.toMillis( System.nanoTime() );
+      }
+    } );
+  }
+
+  /**
+   * @param clock
+   *          milliseconds, from any origin
+   */
+  ConnectionTestCache( LongSupplier clock ) {
+    this.clock = clock;
+  }
+
+  /**
+   * @return milliseconds a result is kept after its test finished
+   */
+  public long getTimeToLive() {
+    return timeToLive;
+  }
+
+  /**
+   * @param timeToLive
+   *          milliseconds a result is kept; 0 only coalesces concurrent tests
+   */
+  public void setTimeToLive( long timeToLive ) {
+    this.timeToLive = timeToLive;
+  }
+
+  /**
+   * @return milliseconds a failed result is kept after its test finished
+   */
+  public long getFailureTimeToLive() {
+    return failureTimeToLive;
+  }
+
+  /**
+   * @param failureTimeToLive
+   *          milliseconds a failed result is kept; 0 only coalesces concurrent tests
+   */
+  public void setFailureTimeToLive( long failureTimeToLive ) {
+    this.failureTimeToLive = failureTimeToLive;
+  }
+
+  /**
+   * @return milliseconds a request waits for the running test of the same definition
+   */
+  public long getMaxWait() {
+    return maxWait;
+  }
+
+  public void setMaxWait( long maxWait ) {
+    this.maxWait = maxWait;
+  }
+
+  /**
+   * @return the result of a running or recent test of the same definition, or else of running {@code test}; a failed
+   *         result if the running test takes longer than {@link #getMaxWait()}
+   */
+  public ConnectionTestResult test( IDatabaseConnection connection,
+    Function<IDatabaseConnection, ConnectionTestResult> test ) {
+    DatabaseConnectionSnapshot key = DatabaseConnectionSnapshot.of( connection );
+    final long wait = maxWait;
+    final long waitUntil = clock.getAsLong() + wait;
+    while ( true ) {
+      Entry entry = entries.get( key );
+      if ( entry != null ) {
+        if ( !isExpired( entry, clock.getAsLong() ) ) {
+          ConnectionTestResult result = await( entry, connection, wait, waitUntil );
+          if ( result != null ) {
+            return result;
+          }
+          // the test was given up by the request that started it
+          entries.remove( key, entry );
+          continue;
+        }
+        entries.remove( key, entry );
+      }
+      Entry mine = new Entry();
+      if ( entries.putIfAbsent( key, mine ) != null ) {
+        // someone else started the test in between
+        continue;
+      }
+      if ( entries.size() > SWEEP_THRESHOLD ) {
+        sweep();
+      }
+      ConnectionTestResult result;
+      try {
+        result = test.apply( connection );
+      } catch ( RuntimeException | Error e ) {
+        entries.remove( key, mine );
+        mine.result.completeExceptionally( e );
+        throw e;
+      }
+      if ( Thread.currentThread().isInterrupted() ) {
+        // the result is likely the interrupt's, not the database's
+        entries.remove( key, mine );
+        mine.result.complete( null );
+        return result;
+      }
+      mine.finished = clock.getAsLong();
+      mine.success = result.isSuccess();
+      mine.kept = true;
+      mine.result.complete( result );
+      return result;
+    }
+  }
+
+  /**
+   * Waits for the test of another request, until this request's own wait is over.
+   * 
+   * @return the result, or null if the test was given up and this request should test again
+   */
+  private ConnectionTestResult await( Entry entry, IDatabaseConnection connection, long wait, long waitUntil ) {
+    try {
+      return entry.get( Math.max( 0, waitUntil - clock.getAsLong() ) );
+    } catch ( TimeoutException e ) {
+      return new ConnectionTestResult( false, "Error connecting to database [" + connection.getName()
+        + "] : No result after " + wait + " ms", wait );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException( "Interrupted while waiting for the test of connection "
+        + connection.getName(), e );
+    }
+  }
+
+  private boolean isExpired( Entry entry, long now ) {
+    return entry.isExpired( now, entry.success ? timeToLive : failureTimeToLive );
+  }
+
+  /**
+   * Drops the results of every definition of the connection with this name; running tests are not affected.
+   */
+  public void invalidate( String connectionName ) {
+    for ( Iterator<Map.Entry<DatabaseConnectionSnapshot, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+      Map.Entry<DatabaseConnectionSnapshot, Entry> entry = it.next();
+      if ( entry.getValue().result.isDone() && equal( connectionName, entry.getKey().getName() ) ) {
+        it.remove();
+      }
+    }
+  }
+
+  public void invalidateAll() {
+    for ( Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+      if ( it.next().result.isDone() ) {
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * @return the number of running tests and kept results
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  private void sweep() {
+    long now = clock.getAsLong();
+    for ( Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+      if ( isExpired( it.next(), now ) ) {
+        it.remove();
+      }
+    }
+  }
+
+  private static boolean equal( String a, String b ) {
+    return a == null ? b == null : a.equals( b );
+  }
+
+  private static final class Entry {
+    // completes with null when the test was given up
+    final CompletableFuture<ConnectionTestResult> result = new CompletableFuture<ConnectionTestResult>();
+    volatile long finished;
+    volatile boolean success;
+    // whether the result may be answered again; set before the result completes
+    volatile boolean kept;
+
+    boolean isExpired( long now, long timeToLive ) {
+      return result.isDone() && ( !kept || now - finished >= timeToLive );
+    }
+
+    ConnectionTestResult get( long wait ) throws InterruptedException, TimeoutException {
+      try {
+        return result.get( wait, TimeUnit.MILLISECONDS );
+      } catch ( ExecutionException e ) {
+        if ( e.getCause() instanceof RuntimeException ) {
+          throw (RuntimeException) e.getCause();
+        }
+        if ( e.getCause() instanceof Error ) {
+          throw (Error) e.getCause();
+        }
+        throw new CompletionException( e.getCause() );
+      }
+    }
+  }
+}
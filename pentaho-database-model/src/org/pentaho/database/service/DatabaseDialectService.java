@@ -12,7 +12,7 @@
  * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
  * See the GNU Lesser General Public License for more details.
  *
- * Copyright (c) 2002-2017 Hitachi Vantara..  All rights reserved.
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
  */
 package org.pentaho.database.service;
 
@@ -23,67 +23,332 @@ import org.pentaho.database.model.IDatabaseConnection;
 import org.pentaho.database.model.IDatabaseType;
 import org.pentaho.database.util.ClassUtil;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
+/**
+ * Dialects found by the {@link IDatabaseDialectProvider}s plus the ones registered at runtime.
+ * 
+ * Each instance keeps the dialects in an immutable snapshot with its lookup tables, built from the providers on first
+ * use. Reads do not ask the providers again: they check that the registrations are still the ones the snapshot was
+ * built from and look the dialect up in the snapshot, without locking. The snapshot is rebuilt after a dialect is
+ * registered or unregistered, or after {@link #refresh()} was called because a provider offers other dialects now.
+ * 
+ * Registrations are global: they are shared by every instance of this service in the class loader, as the dialects
+ * registered by a plugin are meant to be seen wherever dialects are looked up. Registering or unregistering a dialect
+ * swaps in a new immutable set of registrations atomically, so readers see either the old or the new set of dialects
+ * and never a mix.
+ * 
+ * Providers implementing {@link IDatabaseDialectEntryProvider} describe their dialects without creating them; such
+ * dialects are only created when they are looked up, so listing the database types does not load every dialect.
+ */
 public class DatabaseDialectService implements IDatabaseDialectService {
-  private static final List<IDatabaseDialectProvider> providers = Collections.unmodifiableList(
-          StreamSupport
-                  .stream( ServiceLoader.load( IDatabaseDialectProvider.class,
-                          DatabaseDialectService.class.getClassLoader() ).spliterator(), false )
-                  .collect( Collectors.toList() ) );
+  // global, see the class comment; a new instance is swapped in for every change, so its identity is the version
+  private static final AtomicReference<Registrations> registrations =
+    new AtomicReference<Registrations>( Registrations.NONE );
+
+  private final List<IDatabaseDialectProvider> providers;
 
   private final boolean isOnlyReturnAvailable;
 
+  private volatile Snapshot snapshot;
+
   public DatabaseDialectService() {
     this( true );
   }
 
   public DatabaseDialectService( boolean validateClasses ) {
+    this( validateClasses, Providers.LIST );
+  }
+
+  DatabaseDialectService( boolean validateClasses, List<IDatabaseDialectProvider> providers ) {
     this.isOnlyReturnAvailable = validateClasses;
+    this.providers = providers;
   }
 
+  /**
+   * Registers a dialect if its JDBC driver can be found.
+   * 
+   * @see #registerDatabaseDialect(IDatabaseDialect, boolean)
+   */
   public void registerDatabaseDialect( IDatabaseDialect databaseDialect ) {
-    // Do nothing here - no need to call this anymore
+    registerDatabaseDialect( databaseDialect, true );
   }
 
   /**
+   * Adds a dialect to every instance of this service, replacing the dialect currently registered for the same
+   * database type. The dialect is always listed when unusable dialects are included; it is listed as usable if its
+   * JDBC driver can be found or if {@code validateClassExists} is false.
+   * 
    * @param databaseDialect
+   *          the dialect to register
    * @param validateClassExists
+   *          whether to check that the dialect's JDBC driver can be found before offering it as usable
    */
-  public void registerDatabaseDialect( IDatabaseDialect databaseDialect, boolean validateClassExists ) {
-    // Do nothing here - no need to call this anymore
+  public void registerDatabaseDialect( final IDatabaseDialect databaseDialect, boolean validateClassExists ) {
+    if ( validateClassExists ) {
+      // a plugin registering a dialect may just have brought its driver jar along
+      ClassUtil.invalidate();
+    }
+    // an unusable dialect still hides the usable one it replaces
+    final Registration registration =
+      new Registration( databaseDialect, !validateClassExists || isUsable( databaseDialect ) );
+    registrations.updateAndGet( current -> current.with( databaseDialect.getDatabaseType(), registration ) );
   }
 
-  public boolean validateJdbcDriverClassExists( String classname ) {
-    return ClassUtil.canLoadClass( classname ) || providers.stream()
-      .flatMap( provider -> provider.getDialects( isOnlyReturnAvailable ).stream() )
-      .filter( dialect -> classname.equals( dialect.getNativeDriver() ) )
-      .filter( dialect -> dialect instanceof IDriverLocator && ( (IDriverLocator) dialect ).isUsable() )
-      .findFirst().isPresent();
+  /**
+   * Removes the dialect registered for the database type of the given dialect from every instance of this service,
+   * whether it was registered at runtime or found by a provider.
+   */
+  public void unregisterDatabaseDialect( final IDatabaseDialect databaseDialect ) {
+    registrations.updateAndGet( current -> current.with( databaseDialect.getDatabaseType(), Registration.REMOVED ) );
+  }
+
+  /**
+   * Makes every instance of this service ask the providers for their dialects again on the next read, for providers
+   * whose dialects changed at runtime, e.g. because a plugin was installed.
+   */
+  public void refresh() {
+    registrations.updateAndGet( Registrations::copy );
   }
 
+  public boolean validateJdbcDriverClassExists( String classname ) {
+    if ( ClassUtil.canLoadClass( classname ) ) {
+      return true;
+    }
+    List<DialectEntry> entries = snapshot().entriesByDriver.get( classname );
+    if ( entries != null ) {
+      for ( DialectEntry entry : entries ) {
+        IDatabaseDialect dialect = entry.getDialect();
+        if ( dialect instanceof IDriverLocator && ( (IDriverLocator) dialect ).isUsable() ) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
 
   public List<IDatabaseType> getDatabaseTypes() {
-    return providers.stream().flatMap( provider -> provider.getDialects( isOnlyReturnAvailable ).stream() )
-      .map( IDatabaseDialect::getDatabaseType ).collect( Collectors.toList() );
+    return new ArrayList<IDatabaseType>( snapshot().types );
   }
 
   public IDatabaseDialect getDialect( IDatabaseType databaseType ) {
-    return providers.stream().map( provider -> provider.getDialect( isOnlyReturnAvailable, databaseType ) )
-      .filter( Objects::nonNull ).findFirst().orElse( null );
+    return dialect( snapshot().entriesByType.get( databaseType ) );
   }
 
   public IDatabaseDialect getDialect( IDatabaseConnection connection ) {
     return getDialect( connection.getDatabaseType() );
   }
 
+  public IDatabaseDialect getDialectByShortName( String shortName ) {
+    return dialect( snapshot().entriesByShortName.get( shortName ) );
+  }
+
+  public IDatabaseDialect getDialectByName( String name ) {
+    return dialect( snapshot().entriesByName.get( name ) );
+  }
+
+  public IDatabaseDialect getDialectByDriverClass( String classname ) {
+    List<DialectEntry> entries = snapshot().entriesByDriver.get( classname );
+    return entries == null ? null : entries.get( 0 ).getDialect();
+  }
+
+  /**
+   * Creates the dialects not created yet.
+   */
   public List<IDatabaseDialect> getDatabaseDialects() {
-    return providers.stream().flatMap( provider -> provider.getDialects( isOnlyReturnAvailable ).stream() )
-      .collect( Collectors.toList() );
+    return new ArrayList<IDatabaseDialect>( snapshot().dialects() );
+  }
+
+  /**
+   * @return the index over the native driver classes and JDBC prefixes of the current dialects, which creates the
+   *         dialects not created yet
+   */
+  public JdbcDialectIndex getJdbcDialectIndex() {
+    return snapshot().jdbcDialectIndex();
+  }
+
+  private Snapshot snapshot() {
+    Registrations currentRegistrations = registrations.get();
+    Snapshot current = snapshot;
+    if ( current == null || current.registrations != currentRegistrations ) {
+      current = new Snapshot( providerOutputs( isOnlyReturnAvailable ), currentRegistrations, isOnlyReturnAvailable );
+      snapshot = current;
+    }
+    return current;
+  }
+
+  private static IDatabaseDialect dialect( DialectEntry entry ) {
+    return entry == null ? null : entry.getDialect();
+  }
+
+  /**
+   * @return what each provider offers now: its dialect entries, or its dialects if it cannot describe them
+   */
+  private List<Object> providerOutputs( boolean usableOnly ) {
+    List<Object> outputs = new ArrayList<>( providers.size() );
+    for ( IDatabaseDialectProvider provider : providers ) {
+      outputs.add( provider instanceof IDatabaseDialectEntryProvider
+        ? ( (IDatabaseDialectEntryProvider) provider ).getDialectEntries( usableOnly )
+        : provider.getDialects( usableOnly ) );
+    }
+    return outputs;
+  }
+
+  private static boolean isUsable( IDatabaseDialect dialect ) {
+    if ( dialect instanceof IDriverLocator ) {
+      return ( (IDriverLocator) dialect ).isUsable();
+    }
+    return ClassUtil.canLoadClass( dialect.getNativeDriver() );
+  }
+
+  /**
+   * Immutable set of dialects with its lookup tables. When two dialects collide on a key, the first one wins, as it
+   * did for the linear scans this replaces. The lookup tables are built from the dialect entries, the list of dialects
+   * and the JDBC index only when first needed, as they create every dialect.
+   */
+  private static final class Snapshot {
+    final Registrations registrations;
+    final List<DialectEntry> entries;
+    final List<IDatabaseType> types;
+    final Map<IDatabaseType, DialectEntry> entriesByType = new HashMap<>();
+    final Map<String, DialectEntry> entriesByShortName = new HashMap<>();
+    final Map<String, DialectEntry> entriesByName = new HashMap<>();
+    final Map<String, List<DialectEntry>> entriesByDriver = new HashMap<>();
+    private volatile List<IDatabaseDialect> dialects;
+    private volatile JdbcDialectIndex jdbcDialectIndex;
+
+    Snapshot( List<Object> sources, Registrations registrations, boolean usableOnly ) {
+      this( registrations, registrations.apply( sources, usableOnly ) );
+    }
+
+    private Snapshot( Registrations registrations, List<DialectEntry> entries ) {
+      this.registrations = registrations;
+      List<IDatabaseType> types = new ArrayList<>( entries.size() );
+      for ( DialectEntry entry : entries ) {
+        IDatabaseType type = entry.getDatabaseType();
+        types.add( type );
+        entriesByType.putIfAbsent( type, entry );
+        entriesByShortName.putIfAbsent( type.getShortName(), entry );
+        entriesByName.putIfAbsent( type.getName(), entry );
+        if ( entry.getNativeDriver() != null ) {
+          entriesByDriver.computeIfAbsent( entry.getNativeDriver(), driver -> new ArrayList<>( 1 ) ).add( entry );
+        }
+      }
+      this.entries = Collections.unmodifiableList( entries );
+      this.types = Collections.unmodifiableList( types );
+    }
+
+    List<IDatabaseDialect> dialects() {
+      List<IDatabaseDialect> result = dialects;
+      if ( result == null ) {
+        result = Collections.unmodifiableList( entries.stream().map( DialectEntry::getDialect )
+          .collect( Collectors.toList() ) );
+        dialects = result;
+      }
+      return result;
+    }
+
+    JdbcDialectIndex jdbcDialectIndex() {
+      JdbcDialectIndex result = jdbcDialectIndex;
+      if ( result == null ) {
+        result = new JdbcDialectIndex( dialects() );
+        jdbcDialectIndex = result;
+      }
+      return result;
+    }
+  }
+
+  /**
+   * A dialect registered at runtime for a database type, or the removal of the type.
+   */
+  private static final class Registration {
+    static final Registration REMOVED = new Registration( null, false );
+
+    final IDatabaseDialect dialect;
+    final boolean usable;
+
+    Registration( IDatabaseDialect dialect, boolean usable ) {
+      this.dialect = dialect;
+      this.usable = usable;
+    }
+
+    boolean isListed( boolean usableOnly ) {
+      return dialect != null && ( usable || !usableOnly );
+    }
+  }
+
+  /**
+   * Immutable registrations by database type, in the order the types were first registered.
+   */
+  private static final class Registrations {
+    static final Registrations NONE = new Registrations( Collections.<IDatabaseType, Registration>emptyMap() );
+
+    final Map<IDatabaseType, Registration> byType;
+
+    private Registrations( Map<IDatabaseType, Registration> byType ) {
+      this.byType = byType;
+    }
+
+    Registrations with( IDatabaseType type, Registration registration ) {
+      Map<IDatabaseType, Registration> copy = new LinkedHashMap<>( byType );
+      copy.put( type, registration );
+      return new Registrations( Collections.unmodifiableMap( copy ) );
+    }
+
+    /**
+     * @return the same registrations as a new version
+     */
+    Registrations copy() {
+      return new Registrations( byType );
+    }
+
+    /**
+     * @return the provided dialects, with a registered dialect in place of the first provided one of its type and the
+     *         other registered dialects at the end
+     */
+    @SuppressWarnings( "unchecked" )
+    List<DialectEntry> apply( List<Object> sources, boolean usableOnly ) {
+      List<DialectEntry> entries = new ArrayList<>();
+      Set<IDatabaseType> applied = new HashSet<>();
+      for ( Object source : sources ) {
+        for ( Object item : (Collection<Object>) source ) {
+          DialectEntry entry = item instanceof DialectEntry ? (DialectEntry) item
+            : new DialectEntry( (IDatabaseDialect) item );
+          Registration registration = byType.get( entry.getDatabaseType() );
+          if ( registration == null ) {
+            entries.add( entry );
+          } else if ( applied.add( entry.getDatabaseType() ) && registration.isListed( usableOnly ) ) {
+            entries.add( new DialectEntry( registration.dialect ) );
+          }
+        }
+      }
+      for ( Map.Entry<IDatabaseType, Registration> registered : byType.entrySet() ) {
+        if ( !applied.contains( registered.getKey() ) && registered.getValue().isListed( usableOnly ) ) {
+          entries.add( new DialectEntry( registered.getValue().dialect ) );
+        }
+      }
+      return entries;
+    }
+  }
+
+  /**
+   * Loads the providers on first use rather than when this class is initialized.
+   */
+  private static final class Providers {
+    static final List<IDatabaseDialectProvider> LIST = Collections.unmodifiableList(
+      StreamSupport.stream( ServiceLoader.load( IDatabaseDialectProvider.class,
+        DatabaseDialectService.class.getClassLoader() ).spliterator(), false ).collect( Collectors.toList() ) );
   }
 }
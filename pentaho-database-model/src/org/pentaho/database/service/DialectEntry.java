@@ -0,0 +1,120 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.service;
+
+import org.pentaho.database.IDatabaseDialect;
+import org.pentaho.database.model.IDatabaseType;
+
+/**
+ * A dialect as seen by the dialect service: its database type and native driver are known up front, the dialect
+ * itself may only be created when it is first asked for.
+ * 
+ * Entries read from the {@link GeneratedDialectIndex} describe a dialect without loading its class, so listing the
+ * database types or finding the dialect of a driver class does not initialize every dialect on the classpath.
+ */
+public final class DialectEntry {
+  private final String dialectClassName;
+  private final IDatabaseType databaseType;
+  private final String nativeDriver;
+  private final boolean driverClassProbe;
+  private final ClassLoader classLoader;
+  private volatile IDatabaseDialect dialect;
+
+  /**
+   * Wraps a dialect that already exists.
+   */
+  public DialectEntry( IDatabaseDialect dialect ) {
+    this.dialectClassName = dialect.getClass().getName();
+    this.databaseType = dialect.getDatabaseType();
+    this.nativeDriver = dialect.getNativeDriver();
+    this.driverClassProbe = false;
+    this.classLoader = null;
+    this.dialect = dialect;
+  }
+
+  /**
+   * Describes a dialect that is created through its no-argument constructor on first use.
+   * 
+   * @param driverClassProbe
+   *          true if the dialect is usable exactly when its native driver class can be loaded, so the driver can be
+   *          probed without creating the dialect
+   */
+  public DialectEntry( String dialectClassName, IDatabaseType databaseType, String nativeDriver,
+                       boolean driverClassProbe, ClassLoader classLoader ) {
+    this.dialectClassName = dialectClassName;
+    this.databaseType = databaseType;
+    this.nativeDriver = nativeDriver;
+    this.driverClassProbe = driverClassProbe;
+    this.classLoader = classLoader;
+  }
+
+  public String getDialectClassName() {
+    return dialectClassName;
+  }
+
+  public IDatabaseType getDatabaseType() {
+    return databaseType;
+  }
+
+  public String getNativeDriver() {
+    return nativeDriver;
+  }
+
+  public boolean isDriverClassProbe() {
+    return driverClassProbe;
+  }
+
+  /**
+   * @return true if the dialect has been created
+   */
+  public boolean isInstantiated() {
+    return dialect != null;
+  }
+
+  /**
+   * @return the dialect, created on the first call
+   * @throws IllegalStateException
+   *           if the dialect class cannot be instantiated
+   */
+  public IDatabaseDialect getDialect() {
+    IDatabaseDialect result = dialect;
+    if ( result == null ) {
+      synchronized ( this ) {
+        result = dialect;
+        if ( result == null ) {
+          result = newDialect();
+          dialect = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  private IDatabaseDialect newDialect() {
+    try {
+      Class<?> dialectClass = Class.forName( dialectClassName, true, classLoader );
+      return dialectClass.asSubclass( IDatabaseDialect.class ).newInstance();
+    } catch ( ReflectiveOperationException | ClassCastException | LinkageError e ) {
+      throw new IllegalStateException( "Unable to create database dialect " + dialectClassName, e );
+    }
+  }
+
+  @Override
+  public String toString() {
+    return dialectClassName + " (" + databaseType.getShortName() + ")";
+  }
+}
@@ -0,0 +1,232 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+
+package org.pentaho.database.service;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.database.dialect.AbstractDatabaseDialect;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Remembers which dialects had a usable JDBC driver, so that a restart with the same classpath does not have to load
+ * every driver class again.
+ * 
+ * The results are stored in a properties file together with a fingerprint of the classpath (the path, size and
+ * modification time of every jar and directory the dialects' class loader can see) and of the dialects themselves.
+ * When the fingerprint does not match, or cannot be computed because a class loader does not expose its classpath, the
+ * stored results are ignored.
+ * 
+ * Only dialects extending {@link AbstractDatabaseDialect}, or indexed as probed by a class lookup, are cached: their
+ * probe is a plain class lookup, and they load the driver class again when a driver is first asked for. Other
+ * {@link org.pentaho.database.IDriverLocator}s may do work in {@code isUsable()} that must not be skipped, so they are
+ * always probed.
+ */
+public class DriverProbeCache {
+  /**
+   * System property holding the path of the cache file. The cache is off unless it is set to a non-empty path, so that
+   * nothing is written to a location the application does not own.
+   */
+  public static final String CACHE_FILE_PROPERTY = "org.pentaho.database.driverProbeCacheFile";
+
+  static final String FINGERPRINT_KEY = "fingerprint";
+
+  private static final Log LOG = LogFactory.getLog( DriverProbeCache.class );
+
+  /**
+   * A cache that never remembers anything.
+   */
+  public static final DriverProbeCache NONE = new DriverProbeCache( null );
+
+  private final File file;
+
+  public DriverProbeCache( File file ) {
+    this.file = file;
+  }
+
+  /**
+   * @return the cache configured through {@link #CACHE_FILE_PROPERTY}, or {@link #NONE} if the property is not set
+   */
+  public static DriverProbeCache fromSystemProperties() {
+    String path = System.getProperty( CACHE_FILE_PROPERTY );
+    return path == null || path.trim().length() == 0 ? NONE : new DriverProbeCache( new File( path ) );
+  }
+
+  /**
+   * @return true if the probe result of this dialect may be taken from the cache
+   */
+  public boolean isCacheable( DialectEntry entry ) {
+    return file != null && ( entry.isDriverClassProbe() || entry.getDialect() instanceof AbstractDatabaseDialect );
+  }
+
+  /**
+   * Reads the stored results.
+   * 
+   * @param fingerprint
+   *          the current fingerprint, see {@link #fingerprint(ClassLoader, List)}
+   * @return usable flags by dialect class name, or an empty map if nothing was stored for this fingerprint
+   */
+  public Map<String, Boolean> load( String fingerprint ) {
+    Map<String, Boolean> results = new HashMap<>();
+    if ( file == null || fingerprint == null || !file.isFile() ) {
+      return results;
+    }
+    Properties properties = new Properties();
+    try ( InputStream in = Files.newInputStream( file.toPath() ) ) {
+      properties.load( in );
+    } catch ( IOException | IllegalArgumentException e ) {
+      LOG.debug( "Unable to read driver probe cache " + file, e );
+      return results;
+    }
+    if ( !fingerprint.equals( properties.getProperty( FINGERPRINT_KEY ) ) ) {
+      return results;
+    }
+    for ( String name : properties.stringPropertyNames() ) {
+      if ( !FINGERPRINT_KEY.equals( name ) ) {
+        results.put( name, Boolean.valueOf( properties.getProperty( name ) ) );
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Replaces the stored results. Failures are logged and otherwise ignored, the cache is only an optimization.
+   * 
+   * @param fingerprint
+   *          the current fingerprint; nothing is stored if it is null
+   * @param results
+   *          usable flags by dialect class name
+   */
+  public void store( String fingerprint, Map<String, Boolean> results ) {
+    if ( file == null || fingerprint == null ) {
+      return;
+    }
+    Properties properties = new Properties();
+    for ( Map.Entry<String, Boolean> result : results.entrySet() ) {
+      properties.setProperty( result.getKey(), result.getValue().toString() );
+    }
+    properties.setProperty( FINGERPRINT_KEY, fingerprint );
+    try {
+      File directory = file.getAbsoluteFile().getParentFile();
+      if ( directory != null ) {
+        directory.mkdirs();
+      }
+      // write next to the target and move it in place, so concurrent readers never see a partial file
+      Path temp = Files.createTempFile( directory == null ? null : directory.toPath(), file.getName(), ".tmp" );
+      try {
+        try ( OutputStream out = Files.newOutputStream( temp ) ) {
+          properties.store( out, "JDBC driver availability, regenerated when the classpath changes" );
+        }
+        Files.move( temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+      } finally {
+        Files.deleteIfExists( temp );
+      }
+    } catch ( IOException | UnsupportedOperationException e ) {
+      LOG.debug( "Unable to write driver probe cache " + file, e );
+    }
+  }
+
+  /**
+   * Computes the fingerprint of a class loader's classpath and of the dialects loaded through it.
+   * 
+   * @return the fingerprint, or null if the classpath of one of the class loaders cannot be determined
+   */
+  public static String fingerprint( ClassLoader loader, List<DialectEntry> dialects ) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance( "SHA-256" );
+    } catch ( NoSuchAlgorithmException e ) {
+      return null;
+    }
+    StringBuilder entries = new StringBuilder( 1024 );
+    entries.append( System.getProperty( "java.version" ) ).append( '\n' );
+
+    ClassLoader systemLoader = ClassLoader.getSystemClassLoader();
+    for ( ClassLoader current = loader; current != null; current = current.getParent() ) {
+      if ( current instanceof URLClassLoader ) {
+        for ( URL url : ( (URLClassLoader) current ).getURLs() ) {
+          if ( !appendEntry( entries, url ) ) {
+            return null;
+          }
+        }
+      } else if ( isSystemOrAncestor( current, systemLoader ) ) {
+        // the application class loader of Java 9+ is no URLClassLoader, its entries are on java.class.path
+        for ( String path : System.getProperty( "java.class.path", "" ).split( File.pathSeparator ) ) {
+          appendEntry( entries, new File( path ) );
+        }
+        break;
+      } else {
+        return null;
+      }
+    }
+
+    for ( DialectEntry dialect : dialects ) {
+      entries.append( dialect.getDialectClassName() ).append( '=' ).append( dialect.getNativeDriver() ).append( '\n' );
+    }
+
+    byte[] hash = digest.digest( entries.toString().getBytes( StandardCharsets.UTF_8 ) );
+    StringBuilder hex = new StringBuilder( hash.length * 2 );
+    for ( byte b : hash ) {
+      hex.append( Character.forDigit( ( b >> 4 ) & 0xF, 16 ) ).append( Character.forDigit( b & 0xF, 16 ) );
+    }
+    return hex.toString();
+  }
+
+  private static boolean isSystemOrAncestor( ClassLoader loader, ClassLoader systemLoader ) {
+    for ( ClassLoader current = systemLoader; current != null; current = current.getParent() ) {
+      if ( current == loader ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean appendEntry( StringBuilder entries, URL url ) {
+    if ( !"file".equals( url.getProtocol() ) ) {
+      // nothing to stat for remote or nested entries, so changes could not be detected
+      return false;
+    }
+    try {
+      appendEntry( entries, new File( url.toURI() ) );
+    } catch ( URISyntaxException | IllegalArgumentException e ) {
+      appendEntry( entries, new File( url.getPath() ) );
+    }
+    return true;
+  }
+
+  private static void appendEntry( StringBuilder entries, File file ) {
+    entries.append( file.getAbsolutePath() ).append( '|' ).append( file.length() ).append( '|' )
+      .append( file.lastModified() ).append( '\n' );
+  }
+}
@@ -0,0 +1,238 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.service;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.database.IDatabaseDialect;
+import org.pentaho.database.IDriverLocator;
+import org.pentaho.database.dialect.AbstractDatabaseDialect;
+import org.pentaho.database.model.DatabaseAccessType;
+import org.pentaho.database.model.DatabaseType;
+import org.pentaho.database.model.IDatabaseType;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+/**
+ * Index of the dialects listed in {@code META-INF/services/org.pentaho.database.IDatabaseDialect}, written at build
+ * time by {@link #main(String[])} so that the dialects can be described at runtime without loading their classes.
+ * 
+ * For every dialect the index holds its class, its database type and native driver, and whether its driver can be
+ * probed with a plain class lookup. An index is only used when it lists exactly the dialects the service files list,
+ * so a dialect jar without an index, or an index left over from an older build, makes the provider fall back to the
+ * {@link ServiceLoader}.
+ */
+public final class GeneratedDialectIndex {
+  /**
+   * Location of the index on the classpath.
+   */
+  public static final String RESOURCE = "META-INF/pentaho/database-dialects.index";
+
+  static final String SERVICES_RESOURCE = "META-INF/services/" + IDatabaseDialect.class.getName();
+
+  private static final Log LOG = LogFactory.getLog( GeneratedDialectIndex.class );
+
+  private static final String PREFIX = "dialect.";
+
+  private GeneratedDialectIndex() {
+  }
+
+  /**
+   * Writes the index of the dialects visible to the context class loader.
+   * 
+   * @param args
+   *          the file to write the index to
+   */
+  public static void main( String[] args ) throws IOException {
+    if ( args.length != 1 ) {
+      throw new IllegalArgumentException( "Usage: GeneratedDialectIndex <index file>" );
+    }
+    List<IDatabaseDialect> dialects = new ArrayList<>();
+    for ( IDatabaseDialect dialect : ServiceLoader.load( IDatabaseDialect.class ) ) {
+      dialects.add( dialect );
+    }
+    File file = new File( args[0] );
+    File directory = file.getAbsoluteFile().getParentFile();
+    if ( directory != null ) {
+      directory.mkdirs();
+    }
+    try ( OutputStream out = Files.newOutputStream( file.toPath() ) ) {
+      write( dialects, out );
+    }
+  }
+
+  /**
+   * Reads the indexes visible to a class loader.
+   * 
+   * @return the entries in service file order, or null if there is no index or it does not match the service files
+   */
+  public static List<DialectEntry> read( ClassLoader loader ) {
+    try {
+      Map<String, DialectEntry> entries = new LinkedHashMap<>();
+      Enumeration<URL> indexes = loader.getResources( RESOURCE );
+      while ( indexes.hasMoreElements() ) {
+        try ( InputStream in = indexes.nextElement().openStream() ) {
+          for ( DialectEntry entry : read( in, loader ) ) {
+            entries.putIfAbsent( entry.getDialectClassName(), entry );
+          }
+        }
+      }
+      if ( entries.isEmpty() ) {
+        return null;
+      }
+      Set<String> services = serviceClassNames( loader );
+      if ( !new ArrayList<>( services ).equals( new ArrayList<>( entries.keySet() ) ) ) {
+        LOG.debug( "Dialect index does not match " + SERVICES_RESOURCE + ", loading the dialects instead" );
+        return null;
+      }
+      return Collections.unmodifiableList( new ArrayList<>( entries.values() ) );
+    } catch ( IOException | RuntimeException e ) {
+      LOG.debug( "Unable to read dialect index", e );
+      return null;
+    }
+  }
+
+  static List<DialectEntry> read( InputStream in, ClassLoader loader ) throws IOException {
+    Properties properties = new Properties();
+    properties.load( in );
+    List<DialectEntry> entries = new ArrayList<>();
+    for ( int i = 0; properties.getProperty( PREFIX + i + ".class" ) != null; i++ ) {
+      String key = PREFIX + i + ".";
+      List<DatabaseAccessType> accessTypes = new ArrayList<>();
+      for ( String accessType : properties.getProperty( key + "accessTypes", "" ).split( "," ) ) {
+        if ( accessType.length() > 0 ) {
+          accessTypes.add( DatabaseAccessType.valueOf( accessType ) );
+        }
+      }
+      Map<String, String> defaultOptions = null;
+      if ( Boolean.parseBoolean( properties.getProperty( key + "defaultOptions" ) ) ) {
+        defaultOptions = new HashMap<>();
+        String optionPrefix = key + "defaultOption.";
+        for ( String name : properties.stringPropertyNames() ) {
+          if ( name.startsWith( optionPrefix ) ) {
+            defaultOptions.put( name.substring( optionPrefix.length() ), properties.getProperty( name ) );
+          }
+        }
+      }
+      IDatabaseType type = new DatabaseType( properties.getProperty( key + "name" ),
+        properties.getProperty( key + "shortName" ), accessTypes,
+        Integer.parseInt( properties.getProperty( key + "defaultPort" ) ),
+        properties.getProperty( key + "extraOptionsHelpUrl" ), properties.getProperty( key + "defaultDatabaseName" ),
+        defaultOptions );
+      entries.add( new DialectEntry( properties.getProperty( key + "class" ), type,
+        properties.getProperty( key + "nativeDriver" ),
+        Boolean.parseBoolean( properties.getProperty( key + "driverClassProbe" ) ), loader ) );
+    }
+    return entries;
+  }
+
+  static void write( List<IDatabaseDialect> dialects, OutputStream out ) throws IOException {
+    Properties properties = new Properties();
+    for ( int i = 0; i < dialects.size(); i++ ) {
+      IDatabaseDialect dialect = dialects.get( i );
+      IDatabaseType type = dialect.getDatabaseType();
+      String key = PREFIX + i + ".";
+      properties.setProperty( key + "class", dialect.getClass().getName() );
+      setIfNotNull( properties, key + "name", type.getName() );
+      setIfNotNull( properties, key + "shortName", type.getShortName() );
+      properties.setProperty( key + "defaultPort", Integer.toString( type.getDefaultDatabasePort() ) );
+      StringBuilder accessTypes = new StringBuilder();
+      if ( type.getSupportedAccessTypes() != null ) {
+        for ( DatabaseAccessType accessType : type.getSupportedAccessTypes() ) {
+          if ( accessTypes.length() > 0 ) {
+            accessTypes.append( ',' );
+          }
+          accessTypes.append( accessType.name() );
+        }
+      }
+      properties.setProperty( key + "accessTypes", accessTypes.toString() );
+      setIfNotNull( properties, key + "extraOptionsHelpUrl", type.getExtraOptionsHelpUrl() );
+      setIfNotNull( properties, key + "defaultDatabaseName", type.getDefaultDatabaseName() );
+      if ( type.getDefaultOptions() != null ) {
+        properties.setProperty( key + "defaultOptions", "true" );
+        for ( Map.Entry<String, String> option : type.getDefaultOptions().entrySet() ) {
+          properties.setProperty( key + "defaultOption." + option.getKey(), option.getValue() );
+        }
+      }
+      setIfNotNull( properties, key + "nativeDriver", dialect.getNativeDriver() );
+      properties.setProperty( key + "driverClassProbe", Boolean.toString( isDriverClassProbe( dialect ) ) );
+    }
+    properties.store( out, "Generated from " + SERVICES_RESOURCE + ", do not edit" );
+  }
+
+  /**
+   * @return true if the dialect is usable exactly when its native driver class can be loaded, which is the case for
+   *         dialects that do not locate their driver themselves or inherit the lookup of
+   *         {@link AbstractDatabaseDialect}
+   */
+  static boolean isDriverClassProbe( IDatabaseDialect dialect ) {
+    if ( !( dialect instanceof IDriverLocator ) ) {
+      return true;
+    }
+    try {
+      Class<?> dialectClass = dialect.getClass();
+      return dialectClass.getMethod( "isUsable" ).getDeclaringClass() == AbstractDatabaseDialect.class
+        && dialectClass.getMethod( "initialize", String.class ).getDeclaringClass() == AbstractDatabaseDialect.class;
+    } catch ( NoSuchMethodException e ) {
+      return false;
+    }
+  }
+
+  private static Set<String> serviceClassNames( ClassLoader loader ) throws IOException {
+    Set<String> classNames = new LinkedHashSet<>();
+    Enumeration<URL> services = loader.getResources( SERVICES_RESOURCE );
+    while ( services.hasMoreElements() ) {
+      try ( BufferedReader reader = new BufferedReader(
+        new InputStreamReader( services.nextElement().openStream(), StandardCharsets.UTF_8 ) ) ) {
+        String line;
+        while ( ( line = reader.readLine() ) != null ) {
+          int comment = line.indexOf( '#' );
+          String className = ( comment < 0 ? line : line.substring( 0, comment ) ).trim();
+          if ( className.length() > 0 ) {
+            classNames.add( className );
+          }
+        }
+      }
+    }
+    return classNames;
+  }
+
+  private static void setIfNotNull( Properties properties, String key, String value ) {
+    if ( value != null ) {
+      properties.setProperty( key, value );
+    }
+  }
+}
@@ -29,10 +29,27 @@ public interface IDatabaseDialectService {
 
   public void registerDatabaseDialect( IDatabaseDialect databaseDialect, boolean validateClassExists );
 
+  public void unregisterDatabaseDialect( IDatabaseDialect databaseDialect );
+
   public IDatabaseDialect getDialect( IDatabaseType databaseType );
 
   public IDatabaseDialect getDialect( IDatabaseConnection connection );
 
+  /**
+   * @return the dialect of the database type with this short name (e.g. MYSQL), or null
+   */
+  public IDatabaseDialect getDialectByShortName( String shortName );
+
+  /**
+   * @return the dialect of the database type with this display name (e.g. MySQL), or null
+   */
+  public IDatabaseDialect getDialectByName( String name );
+
+  /**
+   * @return the first dialect using this class as its native JDBC driver, or null
+   */
+  public IDatabaseDialect getDialectByDriverClass( String classname );
+
   public List<IDatabaseDialect> getDatabaseDialects();
 
   public List<IDatabaseType> getDatabaseTypes();
@@ -0,0 +1,150 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+
+package org.pentaho.database.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pentaho.database.IDatabaseDialect;
+
+/**
+ * Lookup from a JDBC driver class and URL to the dialect that handles them. Native JDBC prefixes are kept in a
+ * character trie, so resolving a URL costs one walk over the start of the URL no matter how many dialects there are,
+ * and driver classes are kept in a hash map.
+ * 
+ * When several dialects share a prefix or a driver, the one that comes first in the collection the index was built
+ * from wins, which is the dialect a linear scan over {@link IDatabaseDialectService#getDatabaseDialects()} would pick.
+ * The index is immutable once built.
+ */
+public class JdbcDialectIndex {
+
+  private final Node root = new Node();
+
+  private final Map<String, List<IDatabaseDialect>> dialectsByDriver = new HashMap<String, List<IDatabaseDialect>>();
+
+  public JdbcDialectIndex( Collection<IDatabaseDialect> dialects ) {
+    for ( IDatabaseDialect dialect : dialects ) {
+      String prefix = dialect.getNativeJdbcPre();
+      if ( prefix == null || prefix.length() == 0 ) {
+        // the generic dialect has no prefix of its own, it is what callers fall back to
+        continue;
+      }
+      Node node = root;
+      for ( int i = 0; i < prefix.length(); i++ ) {
+        node = node.getOrAddChild( prefix.charAt( i ) );
+      }
+      if ( node.dialect == null ) {
+        node.dialect = dialect;
+      }
+
+      String driver = dialect.getNativeDriver();
+      if ( driver != null ) {
+        List<IDatabaseDialect> candidates = dialectsByDriver.get( driver );
+        if ( candidates == null ) {
+          candidates = new ArrayList<IDatabaseDialect>( 1 );
+          dialectsByDriver.put( driver, candidates );
+        }
+        candidates.add( dialect );
+      }
+    }
+  }
+
+  /**
+   * Finds the dialect for a driver class and URL.
+   * 
+   * @param driver
+   *          the JDBC driver class name, may be null if it is not known
+   * @param url
+   *          the JDBC URL
+   * @return the first dialect with this native driver whose native prefix starts the URL; if no driver is given, the
+   *         dialect found by {@link #getDialectForUrl(String)}; null if there is no such dialect
+   */
+  public IDatabaseDialect getDialect( String driver, String url ) {
+    if ( url == null ) {
+      return null;
+    }
+    if ( driver == null || driver.length() == 0 ) {
+      return getDialectForUrl( url );
+    }
+    List<IDatabaseDialect> candidates = dialectsByDriver.get( driver );
+    if ( candidates != null ) {
+      for ( IDatabaseDialect dialect : candidates ) {
+        if ( url.startsWith( dialect.getNativeJdbcPre() ) ) {
+          return dialect;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @param url
+   *          the JDBC URL
+   * @return the dialect with the longest native prefix that starts the URL, or null if no prefix matches
+   */
+  public IDatabaseDialect getDialectForUrl( String url ) {
+    if ( url == null ) {
+      return null;
+    }
+    IDatabaseDialect match = null;
+    Node node = root;
+    for ( int i = 0; i < url.length() && node != null; i++ ) {
+      node = node.getChild( url.charAt( i ) );
+      if ( node != null && node.dialect != null ) {
+        match = node.dialect;
+      }
+    }
+    return match;
+  }
+
+  private static final class Node {
+
+    private char[] keys = new char[0];
+    private Node[] children = new Node[0];
+    private IDatabaseDialect dialect;
+
+    Node getChild( char key ) {
+      // prefixes share most of their characters, so nodes rarely have more than a handful of children
+      for ( int i = 0; i < keys.length; i++ ) {
+        if ( keys[i] == key ) {
+          return children[i];
+        }
+      }
+      return null;
+    }
+
+    Node getOrAddChild( char key ) {
+      Node child = getChild( key );
+      if ( child == null ) {
+        char[] newKeys = new char[keys.length + 1];
+        Node[] newChildren = new Node[children.length + 1];
+        System.arraycopy( keys, 0, newKeys, 0, keys.length );
+        System.arraycopy( children, 0, newChildren, 0, children.length );
+        child = new Node();
+        newKeys[keys.length] = key;
+        newChildren[children.length] = child;
+        keys = newKeys;
+        children = newChildren;
+      }
+      return child;
+    }
+  }
+}
@@ -0,0 +1,424 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.service;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.Properties;
+import java.util.ResourceBundle;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.database.DatabaseDialectException;
+import org.pentaho.database.IDatabaseDialect;
+import org.pentaho.database.IDriverLocator;
+import org.pentaho.database.model.DatabaseAccessType;
+import org.pentaho.database.model.DatabaseConnection;
+import org.pentaho.database.model.ExtraOptions;
+import org.pentaho.database.model.IDatabaseConnection;
+import org.pentaho.database.util.ClassUtil;
+
+/**
+ * Tests a connection with its dialect alone: the dialect names the driver class and builds the URL, its
+ * {@link IDriverLocator} finds the driver, and the connection is opened and validated with plain JDBC.
+ * 
+ * Opening the connection is bounded by the connect timeout. The timeout is passed to the drivers this class knows
+ * the login timeout property of, unless the connection sets that property itself. As not every driver has one, the
+ * driver is called on a worker thread of a bounded pool, and a connection that arrives after the caller gave up is
+ * closed. Validation uses the
+ * {@code validationQuery} pooling property when there is one and {@link Connection#isValid(int)} otherwise, bounded
+ * by the validation timeout.
+ * 
+ * {@link #canTest(IDatabaseConnection)} tells which connections this covers. The rest, such as JNDI, ODBC and
+ * partitioned connections, connections with connect SQL, connections with variables or an encrypted password, and
+ * drivers only Kettle can locate, are left to Kettle.
+ * 
+ * The reports use the texts of the {@code messages} bundle of this package, in the default locale.
+ */
+public class NativeConnectionTester {
+  private static final Log logger = LogFactory.getLog( NativeConnectionTester.class );
+
+  public static final int DEFAULT_CONNECT_TIMEOUT = 10;
+  public static final int DEFAULT_VALIDATION_TIMEOUT = 5;
+
+  static final String VALIDATION_QUERY = "validationQuery";
+
+  private static final String BUNDLE_NAME = "org.pentaho.database.service.messages.messages"; //$NON-NLS-1$
+
+  /**
+   * Kettle's prefix of an encrypted password, which only Kettle can decrypt.
+   */
+  private static final String ENCRYPTED_PREFIX = "Encrypted "; //$NON-NLS-1$
+
+  /**
+   * Markers of the variables Kettle substitutes: {@code ${VAR}}, {@code %%VAR%%} and {@code $[hex]}.
+   */
+  private static final String[] VARIABLE_MARKERS = { "${", "%%", "$[" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+  private static final String NEWLINE = "\n";
+
+  /**
+   * Enough for a batch at {@link ConnectionBatchTester#DEFAULT_MAX_CONCURRENCY}; further tests wait for a thread.
+   */
+  static final int MAX_CONNECTORS = 32;
+
+  private static final ThreadPoolExecutor CONNECTORS = new ThreadPoolExecutor( MAX_CONNECTORS, MAX_CONNECTORS, 60,
+    TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory( "connection-test-" ) );
+
+  /**
+   * Login timeout properties by driver class.
+   */
+  private static final Map<String, LoginTimeout> LOGIN_TIMEOUTS = new HashMap<String, LoginTimeout>();
+
+  static {
+    CONNECTORS.allowCoreThreadTimeOut( true );
+    loginTimeout( "connectTimeout", true, "com.mysql.jdbc.Driver", "com.mysql.cj.jdbc.Driver",
+      "org.mariadb.jdbc.Driver" );
+    loginTimeout( "loginTimeout", false, "org.postgresql.Driver", "com.amazon.redshift.jdbc.Driver",
+      "com.amazon.redshift.jdbc4.Driver", "com.amazon.redshift.jdbc41.Driver", "net.sourceforge.jtds.jdbc.Driver",
+      "com.microsoft.sqlserver.jdbc.SQLServerDriver" );
+    loginTimeout( "oracle.net.CONNECT_TIMEOUT", true, "oracle.jdbc.OracleDriver", "oracle.jdbc.driver.OracleDriver" );
+    loginTimeout( "LoginTimeout", false, "com.vertica.jdbc.Driver", "com.vertica.Driver" );
+  }
+
+  private final IDatabaseDialectService dialectService;
+  private volatile int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+  private volatile int validationTimeout = DEFAULT_VALIDATION_TIMEOUT;
+
+  public NativeConnectionTester( IDatabaseDialectService dialectService ) {
+    this.dialectService = dialectService;
+  }
+
+  /**
+   * @return seconds to wait for the driver to open a connection
+   */
+  public int getConnectTimeout() {
+    return connectTimeout;
+  }
+
+  public void setConnectTimeout( int connectTimeout ) {
+    this.connectTimeout = connectTimeout;
+  }
+
+  /**
+   * @return seconds to wait for an opened connection to be validated
+   */
+  public int getValidationTimeout() {
+    return validationTimeout;
+  }
+
+  public void setValidationTimeout( int validationTimeout ) {
+    this.validationTimeout = validationTimeout;
+  }
+
+  /**
+   * @return true if the connection can be tested without Kettle
+   */
+  public boolean canTest( IDatabaseConnection connection ) {
+    if ( connection.getAccessType() != DatabaseAccessType.NATIVE || connection.isPartitioned()
+      || !isEmpty( connection.getConnectSql() ) || needsKettle( connection ) ) {
+      return false;
+    }
+    IDatabaseDialect dialect = getDialect( connection );
+    if ( !( dialect instanceof IDriverLocator ) ) {
+      return false;
+    }
+    String driverClass = dialect.getDriverClass( connection );
+    return !isEmpty( driverClass ) && ClassUtil.canLoadClass( driverClass );
+  }
+
+  /**
+   * Opens and validates the connection, and closes it again.
+   * 
+   * @throws IllegalArgumentException
+   *           if {@link #canTest(IDatabaseConnection)} is false for the connection
+   */
+  public ConnectionTestResult test( IDatabaseConnection connection ) {
+    if ( !canTest( connection ) ) {
+      throw new IllegalArgumentException( "Connection " + connection.getName() + " cannot be tested natively" );
+    }
+    long start = System.nanoTime();
+    IDatabaseDialect dialect = getDialect( connection );
+    Connection jdbcConnection = null;
+    try {
+      String url = dialect.getURLWithExtraOptions( connection );
+      Driver driver = getDriver( dialect, connection, url );
+      Properties properties = getProperties( dialect, connection );
+      setLoginTimeout( driver.getClass().getName(), properties, connectTimeout );
+      jdbcConnection = connect( driver, url, properties );
+      validate( jdbcConnection, connection );
+      return new ConnectionTestResult( true, successReport( connection ), elapsed( start ) );
+    } catch ( DatabaseDialectException | SQLException e ) {
+      if ( logger.isDebugEnabled() ) {
+        logger.debug( "Test of connection " + connection.getName() + " failed", e );
+      }
+      return new ConnectionTestResult( false, failureReport( connection, e ), elapsed( start ) );
+    } finally {
+      close( jdbcConnection );
+    }
+  }
+
+  /**
+   * @return true if a parameter holds a variable or the password is encrypted, which only Kettle can resolve
+   */
+  private static boolean needsKettle( IDatabaseConnection connection ) {
+    String password = connection.getPassword();
+    if ( password != null && password.startsWith( ENCRYPTED_PREFIX ) ) {
+      return true;
+    }
+    return hasVariable( connection.getHostname() ) || hasVariable( connection.getDatabasePort() )
+      || hasVariable( connection.getDatabaseName() ) || hasVariable( connection.getUsername() )
+      || hasVariable( password ) || ( connection.getAttributes() != null
+      && hasVariable( connection.getAttributes().get( DatabaseConnection.ATTRIBUTE_CUSTOM_URL ) ) );
+  }
+
+  private static boolean hasVariable( String value ) {
+    if ( value != null ) {
+      for ( String marker : VARIABLE_MARKERS ) {
+        if ( value.indexOf( marker ) >= 0 ) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private IDatabaseDialect getDialect( IDatabaseConnection connection ) {
+    return connection.getDatabaseType() == null ? null : dialectService.getDialect( connection );
+  }
+
+  private static Driver getDriver( IDatabaseDialect dialect, IDatabaseConnection connection, String url )
+    throws SQLException {
+    Driver driver = ( (IDriverLocator) dialect ).getDriver( url );
+    if ( driver != null ) {
+      return driver;
+    }
+    // the driver class is visible here but was not registered with DriverManager for this class loader
+    String driverClass = dialect.getDriverClass( connection );
+    try {
+      return (Driver) ClassUtil.getClass( driverClass ).newInstance();
+    } catch ( ReflectiveOperationException | ClassCastException e ) {
+      throw new SQLException( getString( "NativeConnectionTester.error.CreateDriver", driverClass ), e );
+    }
+  }
+
+  /**
+   * Options the dialect cannot put in the URL are passed as connection properties, as Kettle does.
+   */
+  private static Properties getProperties( IDatabaseDialect dialect, IDatabaseConnection connection ) {
+    Properties properties = new Properties();
+    if ( !dialect.supportsOptionsInURL() && connection.getExtraOptions() != null ) {
+      String typeCode = connection.getDatabaseType().getShortName();
+      Map<String, String> options = connection.getExtraOptions() instanceof ExtraOptions
+        ? ( (ExtraOptions) connection.getExtraOptions() ).getOptions( typeCode ) : null;
+      if ( options == null ) {
+        String prefix = typeCode + ".";
+        for ( Map.Entry<String, String> option : connection.getExtraOptions().entrySet() ) {
+          if ( option.getKey() != null && option.getValue() != null && option.getKey().startsWith( prefix ) ) {
+            properties.put( option.getKey().substring( prefix.length() ), option.getValue() );
+          }
+        }
+      } else {
+        for ( Map.Entry<String, String> option : options.entrySet() ) {
+          if ( option.getValue() != null ) {
+            properties.put( option.getKey(), option.getValue() );
+          }
+        }
+      }
+    }
+    if ( connection.getUsername() != null ) {
+      properties.put( "user", connection.getUsername() );
+    }
+    if ( connection.getPassword() != null ) {
+      properties.put( "password", connection.getPassword() );
+    }
+    return properties;
+  }
+
+  /**
+   * Passes the connect timeout to the driver through its login timeout property, if it has a known one and the
+   * connection did not set it.
+   */
+  static void setLoginTimeout( String driverClass, Properties properties, int seconds ) {
+    LoginTimeout loginTimeout = LOGIN_TIMEOUTS.get( driverClass );
+    if ( loginTimeout == null || seconds <= 0 || properties.containsKey( loginTimeout.property ) ) {
+      return;
+    }
+    long value = loginTimeout.millis ? TimeUnit.SECONDS.toMillis( seconds ) : seconds;
+    properties.setProperty( loginTimeout.property, String.valueOf( value ) );
+  }
+
+  private static void loginTimeout( String property, boolean millis, String... driverClasses ) {
+    for ( String driverClass : driverClasses ) {
+      LOGIN_TIMEOUTS.put( driverClass, new LoginTimeout( property, millis ) );
+    }
+  }
+
+  private Connection connect( final Driver driver, final String url, final Properties properties )
+    throws SQLException {
+    // holds the connection, or ABANDONED once the caller stopped waiting; whoever comes second closes the connection
+    final AtomicReference<Object> handoff = new AtomicReference<Object>();
+    Future<Connection> future = CONNECTORS.submit( new Callable<Connection>() {
+      public Connection call() throws SQLException {
+        Connection connection = driver.connect( url, properties );
+        if ( connection != null && !handoff.compareAndSet( null, connection ) ) {
+          close( connection );
+        }
+        return connection;
+      }
+    } );
+    Connection connection;
+    try {
+      connection = future.get( connectTimeout, TimeUnit.SECONDS );
+    } catch ( TimeoutException e ) {
+      abandon( handoff, future );
+      throw new SQLTimeoutException( getString( "NativeConnectionTester.error.ConnectTimeout",
+        String.valueOf( connectTimeout ) ) );
+    } catch ( InterruptedException e ) {
+      abandon( handoff, future );
+      Thread.currentThread().interrupt();
+      throw new SQLException( getString( "NativeConnectionTester.error.Interrupted" ), e );
+    } catch ( ExecutionException e ) {
+      if ( e.getCause() instanceof SQLException ) {
+        throw (SQLException) e.getCause();
+      }
+      throw new SQLException( e.getCause().getMessage(), e.getCause() );
+    }
+    if ( connection == null ) {
+      throw new SQLException( getString( "NativeConnectionTester.error.UrlNotAccepted", driver.getClass().getName(),
+        url ) );
+    }
+    return connection;
+  }
+
+  private static void abandon( AtomicReference<Object> handoff, Future<Connection> future ) {
+    if ( !handoff.compareAndSet( null, Boolean.FALSE ) ) {
+      close( (Connection) handoff.get() );
+    }
+    future.cancel( true );
+  }
+
+  private void validate( Connection jdbcConnection, IDatabaseConnection connection ) throws SQLException {
+    String query = connection.getConnectionPoolingProperties() == null ? null
+      : connection.getConnectionPoolingProperties().get( VALIDATION_QUERY );
+    if ( !isEmpty( query ) ) {
+      try ( Statement statement = jdbcConnection.createStatement() ) {
+        statement.setQueryTimeout( validationTimeout );
+        statement.execute( query );
+      }
+      return;
+    }
+    boolean valid;
+    try {
+      valid = jdbcConnection.isValid( validationTimeout );
+    } catch ( SQLFeatureNotSupportedException | AbstractMethodError e ) {
+      // a JDBC 3 driver: having connected has to do
+      return;
+    }
+    if ( !valid ) {
+      throw new SQLException( getString( "NativeConnectionTester.error.NotValid" ) );
+    }
+  }
+
+  private static String successReport( IDatabaseConnection connection ) {
+    StringBuilder report = new StringBuilder();
+    report.append( getString( "NativeConnectionTester.report.ConnectionOk", connection.getName() ) );
+    report.append( NEWLINE )
+      .append( getString( "NativeConnectionTester.report.Hostname", nullToEmpty( connection.getHostname() ) ) );
+    report.append( NEWLINE )
+      .append( getString( "NativeConnectionTester.report.Port", nullToEmpty( connection.getDatabasePort() ) ) );
+    report.append( NEWLINE ).append(
+      getString( "NativeConnectionTester.report.DatabaseName", nullToEmpty( connection.getDatabaseName() ) ) );
+    return report.append( NEWLINE ).toString();
+  }
+
+  private static String failureReport( IDatabaseConnection connection, Exception e ) {
+    StringBuilder report = new StringBuilder();
+    report.append( getString( "NativeConnectionTester.report.ConnectionError", connection.getName(),
+      e.getMessage() ) );
+    for ( Throwable cause = e.getCause(); cause != null && cause != cause.getCause(); cause = cause.getCause() ) {
+      report.append( NEWLINE ).append( cause.getMessage() );
+    }
+    return report.append( NEWLINE ).toString();
+  }
+
+  private static String getString( String key, String... params ) {
+    try {
+      return MessageFormat.format( Bundle.MESSAGES.getString( key ), (Object[]) params );
+    } catch ( MissingResourceException e ) {
+      return '!' + key + '!';
+    }
+  }
+
+  private static void close( Connection connection ) {
+    if ( connection != null ) {
+      try {
+        connection.close();
+      } catch ( SQLException e ) {
+        logger.debug( "Could not close test connection", e );
+      }
+    }
+  }
+
+  private static long elapsed( long start ) {
+    return TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start );
+  }
+
+  private static boolean isEmpty( String value ) {
+    return value == null || value.length() == 0;
+  }
+
+  private static String nullToEmpty( String value ) {
+    return value == null ? "" : value;
+  }
+
+  /**
+   * Loads the messages on first use rather than when this class is initialized.
+   */
+  private static final class Bundle {
+    static final ResourceBundle MESSAGES = ResourceBundle.getBundle( BUNDLE_NAME );
+  }
+
+  /**
+   * The driver property holding the login timeout, in seconds or milliseconds.
+   */
+  private static final class LoginTimeout {
+    final String property;
+    final boolean millis;
+
+    LoginTimeout( String property, boolean millis ) {
+      this.property = property;
+      this.millis = millis;
+    }
+  }
+}
@@ -0,0 +1,210 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.service;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.sql.DataSource;
+
+import org.pentaho.database.IDatabaseDialect;
+
+/**
+ * Hands out sequence values from blocks fetched in one round trip, so generating surrogate keys does not cost a round
+ * trip per row. Threads take values from the current block of a sequence without locking. The first thread to find
+ * the block used up swaps in a refill marker and fetches the next block; threads that find the marker wait for that
+ * block instead of fetching one of their own, so a sequence is never fetched twice at once. Values of a block that is
+ * discarded are never handed out: like any sequence, the values are unique but may have gaps.
+ */
+public class SequenceIdAllocator {
+  public static final int DEFAULT_BLOCK_SIZE = 1000;
+
+  /**
+   * Fetches the next values of a sequence.
+   */
+  public interface BlockSource {
+    /**
+     * @return at least one next value of the sequence
+     */
+    long[] fetch( String sequenceName, int count ) throws SQLException;
+  }
+
+  private static final class Block {
+    private final long[] values;
+    private final AtomicInteger next;
+    /**
+     * The block being fetched, if this is a refill marker.
+     */
+    private final CompletableFuture<Block> refill;
+
+    private Block( long[] values, int taken ) {
+      this.values = values;
+      this.next = new AtomicInteger( taken );
+      this.refill = null;
+    }
+
+    private Block( CompletableFuture<Block> refill ) {
+      this.values = new long[0];
+      this.next = new AtomicInteger();
+      this.refill = refill;
+    }
+  }
+
+  private static final Block EMPTY = new Block( new long[0], 0 );
+
+  private final BlockSource source;
+  private final int blockSize;
+  private final ConcurrentMap<String, AtomicReference<Block>> blocks =
+    new ConcurrentHashMap<String, AtomicReference<Block>>();
+
+  /**
+   * @param source
+   *          fetches the blocks
+   * @param blockSize
+   *          how many values to fetch at a time
+   */
+  public SequenceIdAllocator( BlockSource source, int blockSize ) {
+    if ( blockSize < 1 ) {
+      throw new IllegalArgumentException( "blockSize must be at least 1" );
+    }
+    this.source = source;
+    this.blockSize = blockSize;
+  }
+
+  /**
+   * Fetches blocks of {@link #DEFAULT_BLOCK_SIZE} values with the SQL of the dialect, on a connection of its own each
+   * time.
+   */
+  public SequenceIdAllocator( IDatabaseDialect dialect, DataSource dataSource ) {
+    this( jdbcSource( dialect, dataSource ), DEFAULT_BLOCK_SIZE );
+  }
+
+  /**
+   * @return a source that runs {@link IDatabaseDialect#getSQLNextSequenceValues(String, int)} on a connection from
+   *         the data source
+   */
+  public static BlockSource jdbcSource( final IDatabaseDialect dialect, final DataSource dataSource ) {
+    return new BlockSource() {
+      public long[] fetch( String sequenceName, int count ) throws SQLException {
+        String sql = dialect.getSQLNextSequenceValues( sequenceName, count );
+        if ( sql.length() == 0 ) {
+          throw new SQLException( "The database cannot fetch several values of sequence " + sequenceName );
+        }
+        long[] values = new long[count];
+        int fetched = 0;
+        try ( Connection connection = dataSource.getConnection();
+            Statement statement = connection.createStatement();
+            ResultSet rows = statement.executeQuery( sql ) ) {
+          while ( fetched < count && rows.next() ) {
+            values[fetched++] = rows.getLong( 1 );
+          }
+        }
+        if ( fetched < count ) {
+          long[] some = new long[fetched];
+          System.arraycopy( values, 0, some, 0, fetched );
+          return some;
+        }
+        return values;
+      }
+    };
+  }
+
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  /**
+   * @return the next value of the sequence
+   * @throws SQLException
+   *           if a new block could not be fetched
+   */
+  public long next( String sequenceName ) throws SQLException {
+    AtomicReference<Block> current = blocks.get( sequenceName );
+    if ( current == null ) {
+      AtomicReference<Block> created = new AtomicReference<Block>( EMPTY );
+      current = blocks.putIfAbsent( sequenceName, created );
+      if ( current == null ) {
+        current = created;
+      }
+    }
+    while ( true ) {
+      Block block = current.get();
+      if ( block.refill != null ) {
+        await( sequenceName, block.refill );
+        continue;
+      }
+      int index = block.next.getAndIncrement();
+      if ( index < block.values.length ) {
+        return block.values[index];
+      }
+      CompletableFuture<Block> refill = new CompletableFuture<Block>();
+      Block marker = new Block( refill );
+      if ( current.compareAndSet( block, marker ) ) {
+        return refill( sequenceName, current, marker );
+      }
+      // another thread is refilling already, or has just done so
+    }
+  }
+
+  /**
+   * Fetches the next block in place of the refill marker; the fetching thread keeps the first value.
+   */
+  private long refill( String sequenceName, AtomicReference<Block> current, Block marker ) throws SQLException {
+    Block block;
+    try {
+      long[] values = source.fetch( sequenceName, blockSize );
+      if ( values.length == 0 ) {
+        throw new SQLException( "No values fetched from sequence " + sequenceName );
+      }
+      block = new Block( values, 1 );
+    } catch ( SQLException | RuntimeException | Error e ) {
+      // the next caller tries again
+      current.compareAndSet( marker, EMPTY );
+      marker.refill.completeExceptionally( e );
+      throw e;
+    }
+    current.compareAndSet( marker, block );
+    marker.refill.complete( block );
+    return block.values[0];
+  }
+
+  private static void await( String sequenceName, CompletableFuture<Block> refill ) throws SQLException {
+    try {
+      refill.get();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new SQLException( "Interrupted while waiting for values of sequence " + sequenceName, e );
+    } catch ( ExecutionException e ) {
+      throw new SQLException( "Could not fetch values of sequence " + sequenceName, e.getCause() );
+    }
+  }
+
+  /**
+   * Forgets the prefetched values of a sequence, for instance after it was reset; the values are never handed out.
+   */
+  public void discard( String sequenceName ) {
+    blocks.remove( sequenceName );
+  }
+}
@@ -19,16 +19,21 @@ package org.pentaho.database.service;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.pentaho.database.IDatabaseDialect;
-import org.pentaho.database.IDatabaseDialectProvider;
 import org.pentaho.database.IDriverLocator;
 import org.pentaho.database.model.IDatabaseType;
 import org.pentaho.database.util.ClassUtil;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -38,7 +43,7 @@ import java.util.stream.StreamSupport;
 /**
  * Created by bryan on 5/6/16.
  */
-public class ServiceLoaderDatabaseDialectProvider implements IDatabaseDialectProvider {
+public class ServiceLoaderDatabaseDialectProvider implements IDatabaseDialectEntryProvider {
   private static final Log LOG = LogFactory.getLog( DatabaseDialectService.class );
   /*
    * Note - keeping two different list groups for simplicity. The number of valid / provided dialects
@@ -50,38 +55,186 @@ public class ServiceLoaderDatabaseDialectProvider implements IDatabaseDialectPro
    *
    *   Marc
    */
-  private final List<IDatabaseDialect> usableDialects;
-  private final Map<IDatabaseType, IDatabaseDialect> usableDialectTypeMap;
-  private List<IDatabaseDialect> allDialects;
-  private Map<IDatabaseType, IDatabaseDialect> allDialectsTypeMap;
+  private final List<DialectEntry> usableEntries;
+  private final Map<IDatabaseType, DialectEntry> usableEntryTypeMap;
+  private final List<DialectEntry> allEntries;
+  private final Map<IDatabaseType, DialectEntry> allEntriesTypeMap;
+  private volatile List<IDatabaseDialect> usableDialects;
+  private volatile List<IDatabaseDialect> allDialects;
 
+  /**
+   * Describes the dialects from the {@link GeneratedDialectIndex} when the classpath has an up to date one, so that
+   * only the dialects actually used get loaded; otherwise all dialects are loaded through the {@link ServiceLoader}.
+   */
   public ServiceLoaderDatabaseDialectProvider() {
-    this( databaseDialectClass ->
-            ServiceLoader.load(
-                    databaseDialectClass, ServiceLoaderDatabaseDialectProvider.class.getClassLoader()
-            ) );
+    this( GeneratedDialectIndex.read( ServiceLoaderDatabaseDialectProvider.class.getClassLoader() ),
+      databaseDialectClass -> ServiceLoader.load(
+        databaseDialectClass, ServiceLoaderDatabaseDialectProvider.class.getClassLoader() ),
+      DriverProbeCache.fromSystemProperties() );
   }
 
   public ServiceLoaderDatabaseDialectProvider(
     Function<Class<IDatabaseDialect>, Iterable<IDatabaseDialect>> loaderFunction ) {
-    Stream<IDatabaseDialect> databaseDialectStream =
-      StreamSupport.stream( loaderFunction.apply( IDatabaseDialect.class ).spliterator(), false );
-    allDialects = Collections.unmodifiableList( databaseDialectStream.collect( Collectors.toList() ) );
-    allDialectsTypeMap = Collections.unmodifiableMap(
-      allDialects.stream().collect( Collectors.toMap( IDatabaseDialect::getDatabaseType, Function.identity() ) ) );
-
-    usableDialects = Collections
-      .unmodifiableList( allDialects.stream().filter( usableFilter( LOG ) ).collect( Collectors.toList() ) );
-    usableDialectTypeMap = Collections.unmodifiableMap( usableDialects.stream()
-      .collect( Collectors.toMap( IDatabaseDialect::getDatabaseType, Function.identity() ) ) );
+    this( loaderFunction, DriverProbeCache.NONE );
+  }
+
+  public ServiceLoaderDatabaseDialectProvider(
+    Function<Class<IDatabaseDialect>, Iterable<IDatabaseDialect>> loaderFunction, DriverProbeCache probeCache ) {
+    this( null, loaderFunction, probeCache );
+  }
+
+  /**
+   * @param index
+   *          the dialects from a {@link GeneratedDialectIndex}, or null to load them through the loader function
+   */
+  ServiceLoaderDatabaseDialectProvider( List<DialectEntry> index,
+    Function<Class<IDatabaseDialect>, Iterable<IDatabaseDialect>> loaderFunction, DriverProbeCache probeCache ) {
+    if ( index != null ) {
+      allEntries = Collections.unmodifiableList( new ArrayList<>( index ) );
+    } else {
+      Stream<IDatabaseDialect> databaseDialectStream =
+        StreamSupport.stream( loaderFunction.apply( IDatabaseDialect.class ).spliterator(), false );
+      allEntries = Collections.unmodifiableList( databaseDialectStream.map( DialectEntry::new )
+        .collect( Collectors.toList() ) );
+    }
+    allEntriesTypeMap = Collections.unmodifiableMap(
+      allEntries.stream().collect( Collectors.toMap( DialectEntry::getDatabaseType, Function.identity() ) ) );
+
+    boolean[] usable = probe( allEntries, usableFilter( LOG ), probeCache );
+    List<DialectEntry> usableList = new ArrayList<>();
+    for ( int i = 0; i < usable.length; i++ ) {
+      if ( usable[i] ) {
+        usableList.add( allEntries.get( i ) );
+      }
+    }
+    usableEntries = Collections.unmodifiableList( usableList );
+    usableEntryTypeMap = Collections.unmodifiableMap( usableEntries.stream()
+      .collect( Collectors.toMap( DialectEntry::getDatabaseType, Function.identity() ) ) );
   }
 
+  /**
+   * Determines which dialects have a usable driver. Results for the current classpath are taken from the cache where
+   * possible; the remaining dialects are probed in parallel, as each probe mostly waits on class loading. Dialects
+   * whose driver can be probed with a class lookup are not created for the probe.
+   *
+   * @return the usable flag of each dialect, in the order of the list
+   */
+  static boolean[] probe( List<DialectEntry> entries, Predicate<IDatabaseDialect> filter,
+                          DriverProbeCache probeCache ) {
+    boolean[] usable = new boolean[entries.size()];
+    String fingerprint = null;
+    Map<String, Boolean> cached = Collections.emptyMap();
+    if ( entries.stream().anyMatch( probeCache::isCacheable ) ) {
+      ClassLoader loader = ServiceLoaderDatabaseDialectProvider.class.getClassLoader();
+      fingerprint = DriverProbeCache.fingerprint( loader, entries );
+      cached = probeCache.load( fingerprint );
+    }
+
+    List<Integer> toProbe = new ArrayList<>();
+    for ( int i = 0; i < usable.length; i++ ) {
+      DialectEntry entry = entries.get( i );
+      Boolean result = probeCache.isCacheable( entry ) ? cached.get( entry.getDialectClassName() ) : null;
+      if ( result != null ) {
+        usable[i] = result;
+      } else {
+        toProbe.add( i );
+      }
+    }
+    if ( toProbe.isEmpty() ) {
+      return usable;
+    }
+
+    probeInParallel( entries, filter, toProbe, usable );
+
+    Map<String, Boolean> results = new HashMap<>();
+    for ( int i = 0; i < usable.length; i++ ) {
+      DialectEntry entry = entries.get( i );
+      if ( probeCache.isCacheable( entry ) ) {
+        results.put( entry.getDialectClassName(), usable[i] );
+      }
+    }
+    if ( !results.isEmpty() ) {
+      probeCache.store( fingerprint, results );
+    }
+    return usable;
+  }
+
+  private static void probeInParallel( List<DialectEntry> entries, Predicate<IDatabaseDialect> filter,
+                                       List<Integer> toProbe, boolean[] usable ) {
+    int threads = Math.min( toProbe.size(), Runtime.getRuntime().availableProcessors() );
+    if ( threads <= 1 ) {
+      for ( int i : toProbe ) {
+        usable[i] = test( filter, entries.get( i ) );
+      }
+      return;
+    }
+    // drivers located through the context class loader must still be found from the probing threads
+    final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+    ExecutorService executor = Executors.newFixedThreadPool( threads, runnable -> {
+      Thread thread = new Thread( runnable, "database-driver-probe" );
+      thread.setDaemon( true );
+      thread.setContextClassLoader( contextClassLoader );
+      return thread;
+    } );
+    try {
+      List<Future<Boolean>> futures = new ArrayList<>( toProbe.size() );
+      for ( int i : toProbe ) {
+        DialectEntry entry = entries.get( i );
+        futures.add( executor.submit( () -> test( filter, entry ) ) );
+      }
+      for ( int n = 0; n < futures.size(); n++ ) {
+        int i = toProbe.get( n );
+        try {
+          usable[i] = futures.get( n ).get();
+        } catch ( ExecutionException e ) {
+          usable[i] = false;
+        } catch ( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+          // finish the remaining probes on this thread rather than reporting drivers as missing
+          usable[i] = test( filter, entries.get( i ) );
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static boolean test( Predicate<IDatabaseDialect> filter, DialectEntry entry ) {
+    try {
+      if ( entry.isDriverClassProbe() ) {
+        return ClassUtil.canLoadClass( entry.getNativeDriver() );
+      }
+      return filter.test( entry.getDialect() );
+    } catch ( RuntimeException | LinkageError e ) {
+      LOG.debug( "Unable to check driver of " + entry.getDialectClassName(), e );
+      return false;
+    }
+  }
+
+  @Override public List<DialectEntry> getDialectEntries( boolean usableOnly ) {
+    return usableOnly ? usableEntries : allEntries;
+  }
+
+  /**
+   * Creates the dialects not created yet.
+   */
   @Override public Collection<IDatabaseDialect> getDialects( boolean usableOnly ) {
-    return usableOnly ? usableDialects : allDialects;
+    List<IDatabaseDialect> dialects = usableOnly ? usableDialects : allDialects;
+    if ( dialects == null ) {
+      dialects = Collections.unmodifiableList( getDialectEntries( usableOnly ).stream().map( DialectEntry::getDialect )
+        .collect( Collectors.toList() ) );
+      if ( usableOnly ) {
+        usableDialects = dialects;
+      } else {
+        allDialects = dialects;
+      }
+    }
+    return dialects;
   }
 
   @Override public IDatabaseDialect getDialect( boolean usableOnly, IDatabaseType databaseType ) {
-    return usableOnly ? usableDialectTypeMap.get( databaseType ) : allDialectsTypeMap.get( databaseType );
+    DialectEntry entry = usableOnly ? usableEntryTypeMap.get( databaseType ) : allEntriesTypeMap.get( databaseType );
+    return entry == null ? null : entry.getDialect();
   }
 
   Predicate<IDatabaseDialect> usableFilter( Log logger ) {
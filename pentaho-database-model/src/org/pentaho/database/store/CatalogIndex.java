@@ -0,0 +1,191 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Memory-mapped hash index of a catalog data file, written when the catalog is compacted.
+ * 
+ * The file holds a header and two open-addressing tables, by connection name and by connection id, whose slots are
+ * the hash of the key and the offset of its record. Keys are not stored; a lookup reads the record at each offset with
+ * a matching hash to compare them. {@link #getDataLength()} tells how much of the data file is covered, so records
+ * appended afterwards can be found by scanning from there.
+ */
+final class CatalogIndex {
+  static final int MAGIC = 0x50444349; // "PDCI"
+  static final int VERSION = 1;
+
+  static final int NAMES = 0;
+  static final int IDS = 1;
+
+  private static final int HEADER_SIZE = 32;
+  private static final int SLOT_SIZE = 12;
+
+  /**
+   * Tells whether the record at an offset holds the key looked up.
+   */
+  interface Matcher {
+    boolean matches( long offset ) throws IOException;
+  }
+
+  /**
+   * Receives the offsets of a table.
+   */
+  interface OffsetVisitor {
+    void visit( long offset ) throws IOException;
+  }
+
+  private final ByteBuffer buffer;
+  private final long dataLength;
+  private final int slots;
+  private final int entries;
+
+  private CatalogIndex( ByteBuffer buffer, long dataLength, int slots, int entries ) {
+    this.buffer = buffer;
+    this.dataLength = dataLength;
+    this.slots = slots;
+    this.entries = entries;
+  }
+
+  /**
+   * @return the index, or null if the file is missing or does not belong to the data file with the given stamp
+   */
+  static CatalogIndex open( Path file, long stamp, long dataFileSize ) throws IOException {
+    if ( !Files.isRegularFile( file ) ) {
+      return null;
+    }
+    MappedByteBuffer buffer;
+    try ( FileChannel channel = FileChannel.open( file, StandardOpenOption.READ ) ) {
+      if ( channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE ) {
+        return null;
+      }
+      buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+    }
+    if ( buffer.getInt( 0 ) != MAGIC || buffer.getInt( 4 ) != VERSION || buffer.getLong( 8 ) != stamp ) {
+      return null;
+    }
+    long dataLength = buffer.getLong( 16 );
+    int slots = buffer.getInt( 24 );
+    int entries = buffer.getInt( 28 );
+    if ( dataLength > dataFileSize || Integer.bitCount( slots ) != 1 || entries >= slots
+      || buffer.capacity() != HEADER_SIZE + 2L * slots * SLOT_SIZE ) {
+      return null;
+    }
+    return new CatalogIndex( buffer, dataLength, slots, entries );
+  }
+
+  /**
+   * Writes the index of records at {@code offsets}, whose names and ids are at the same positions in the lists; ids
+   * may be null.
+   */
+  static void write( Path file, long stamp, long dataLength, List<String> names, List<String> ids, long[] offsets )
+    throws IOException {
+    int slots = Integer.highestOneBit( Math.max( 16, names.size() * 2 ) - 1 ) << 1;
+    ByteBuffer buffer = ByteBuffer.allocate( HEADER_SIZE + 2 * slots * SLOT_SIZE );
+    buffer.putInt( 0, MAGIC );
+    buffer.putInt( 4, VERSION );
+    buffer.putLong( 8, stamp );
+    buffer.putLong( 16, dataLength );
+    buffer.putInt( 24, slots );
+    buffer.putInt( 28, names.size() );
+    for ( int i = 0; i < names.size(); i++ ) {
+      insert( buffer, slots, NAMES, names.get( i ), offsets[i] );
+      if ( ids.get( i ) != null ) {
+        insert( buffer, slots, IDS, ids.get( i ), offsets[i] );
+      }
+    }
+    try ( FileChannel channel = FileChannel.open( file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+      StandardOpenOption.TRUNCATE_EXISTING ) ) {
+      while ( buffer.hasRemaining() ) {
+        channel.write( buffer );
+      }
+      channel.force( true );
+    }
+  }
+
+  private static void insert( ByteBuffer buffer, int slots, int table, String key, long offset ) {
+    int hash = hash( key );
+    for ( int slot = hash & ( slots - 1 );; slot = ( slot + 1 ) & ( slots - 1 ) ) {
+      int position = position( slots, table, slot );
+      if ( buffer.getInt( position ) == 0 ) {
+        buffer.putInt( position, hash );
+        buffer.putLong( position + 4, offset );
+        return;
+      }
+    }
+  }
+
+  /**
+   * @return the offset of the first record with the key's hash that the matcher accepts, or -1
+   */
+  long find( int table, String key, Matcher matcher ) throws IOException {
+    int hash = hash( key );
+    for ( int slot = hash & ( slots - 1 );; slot = ( slot + 1 ) & ( slots - 1 ) ) {
+      int position = position( slots, table, slot );
+      int slotHash = buffer.getInt( position );
+      if ( slotHash == 0 ) {
+        return -1;
+      }
+      if ( slotHash == hash ) {
+        long offset = buffer.getLong( position + 4 );
+        if ( matcher.matches( offset ) ) {
+          return offset;
+        }
+      }
+    }
+  }
+
+  void forEach( int table, OffsetVisitor visitor ) throws IOException {
+    for ( int slot = 0; slot < slots; slot++ ) {
+      int position = position( slots, table, slot );
+      if ( buffer.getInt( position ) != 0 ) {
+        visitor.visit( buffer.getLong( position + 4 ) );
+      }
+    }
+  }
+
+  long getDataLength() {
+    return dataLength;
+  }
+
+  int getEntries() {
+    return entries;
+  }
+
+  private static int position( int slots, int table, int slot ) {
+    return HEADER_SIZE + ( table * slots + slot ) * SLOT_SIZE;
+  }
+
+  /**
+   * Never 0, which marks an empty slot.
+   */
+  static int hash( String key ) {
+    int h = key.hashCode();
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    return h == 0 ? 1 : h;
+  }
+}
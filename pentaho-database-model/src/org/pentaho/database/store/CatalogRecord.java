@@ -0,0 +1,128 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+
+import org.pentaho.database.codec.DatabaseConnectionBinaryCodec;
+import org.pentaho.database.model.DatabaseConnection;
+import org.pentaho.database.model.IDatabaseConnection;
+
+/**
+ * One record of a catalog data file.
+ * 
+ * A record is its length, the CRC32 of what follows the CRC, the kind, the connection id and name, and for a
+ * {@link #PUT} the connection in the {@link DatabaseConnectionBinaryCodec} format. The id and name are readable
+ * without decoding the connection.
+ */
+final class CatalogRecord {
+  static final byte PUT = 1;
+  static final byte DELETE = 2;
+
+  /**
+   * Length and CRC.
+   */
+  static final int HEADER_SIZE = 8;
+
+  private static final DatabaseConnectionBinaryCodec CODEC = new DatabaseConnectionBinaryCodec();
+
+  final byte kind;
+  final String id;
+  final String name;
+  private final byte[] body;
+  private final int payloadOffset;
+
+  private CatalogRecord( byte kind, String id, String name, byte[] body, int payloadOffset ) {
+    this.kind = kind;
+    this.id = id;
+    this.name = name;
+    this.body = body;
+    this.payloadOffset = payloadOffset;
+  }
+
+  /**
+   * @return the record with its length and CRC
+   */
+  static byte[] encode( byte kind, String id, String name, IDatabaseConnection connection ) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream( 512 );
+    DataOutputStream out = new DataOutputStream( bytes );
+    out.writeInt( 0 );
+    out.writeInt( 0 );
+    out.writeByte( kind );
+    out.writeBoolean( id != null );
+    if ( id != null ) {
+      out.writeUTF( id );
+    }
+    out.writeUTF( name );
+    if ( connection != null ) {
+      CODEC.write( connection, out );
+    }
+    out.flush();
+    byte[] record = bytes.toByteArray();
+    CRC32 crc = new CRC32();
+    crc.update( record, HEADER_SIZE, record.length - HEADER_SIZE );
+    putInt( record, 0, record.length - 4 );
+    putInt( record, 4, (int) crc.getValue() );
+    return record;
+  }
+
+  /**
+   * @param body
+   *          the record after its length
+   * @return the record, or null if the CRC does not match
+   */
+  static CatalogRecord decode( byte[] body ) throws IOException {
+    if ( body.length <= 4 ) {
+      return null;
+    }
+    CRC32 crc = new CRC32();
+    crc.update( body, 4, body.length - 4 );
+    if ( getInt( body, 0 ) != (int) crc.getValue() ) {
+      return null;
+    }
+    ByteArrayInputStream bytes = new ByteArrayInputStream( body, 4, body.length - 4 );
+    DataInputStream in = new DataInputStream( bytes );
+    byte kind = in.readByte();
+    String id = in.readBoolean() ? in.readUTF() : null;
+    String name = in.readUTF();
+    return new CatalogRecord( kind, id, name, body, body.length - bytes.available() );
+  }
+
+  DatabaseConnection getConnection() throws IOException {
+    if ( kind != PUT ) {
+      return null;
+    }
+    return CODEC.read( new ByteArrayInputStream( body, payloadOffset, body.length - payloadOffset ) );
+  }
+
+  static int getInt( byte[] bytes, int offset ) {
+    return ( bytes[offset] & 0xFF ) << 24 | ( bytes[offset + 1] & 0xFF ) << 16 | ( bytes[offset + 2] & 0xFF ) << 8
+      | bytes[offset + 3] & 0xFF;
+  }
+
+  private static void putInt( byte[] bytes, int offset, int value ) {
+    bytes[offset] = (byte) ( value >>> 24 );
+    bytes[offset + 1] = (byte) ( value >>> 16 );
+    bytes[offset + 2] = (byte) ( value >>> 8 );
+    bytes[offset + 3] = (byte) value;
+  }
+}
@@ -0,0 +1,563 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.database.model.DatabaseConnection;
+import org.pentaho.database.model.IDatabaseConnection;
+
+/**
+ * Persistent catalog of connections, keyed by name, in a directory of its own.
+ * 
+ * Connections are appended to a data file and found through a memory-mapped {@link CatalogIndex} by name or id, so
+ * opening a catalog reads neither the connections nor the index into the heap. A connection is decoded only when it
+ * is asked for, and every call decodes a new copy. Changes made after the index was written are appended to the data
+ * file and kept in a small in-memory overlay, rebuilt at open by scanning the part of the data file the index does not
+ * cover; a record torn by a crash is cut off there.
+ * 
+ * {@link #compact()} rewrites the live records to a new data file with a new index, dropping replaced and deleted
+ * records and emptying the overlay. Readers are never blocked: they keep using the files they started with until the
+ * new ones are in place. Writes are serialized and wait for a running compaction.
+ * 
+ * Writes are not forced to disk until {@link #sync()}, {@link #compact()} or {@link #close()}.
+ */
+public class ConnectionCatalogStore implements Closeable {
+  private static final Log LOG = LogFactory.getLog( ConnectionCatalogStore.class );
+
+  static final int MAGIC = 0x50444344; // "PDCD"
+  static final int VERSION = 1;
+  static final int DATA_HEADER_SIZE = 16;
+
+  static final String FILE_PREFIX = "connections-";
+  static final String DATA_SUFFIX = ".dat";
+  static final String INDEX_SUFFIX = ".idx";
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  /**
+   * Overlay offset of a deleted name.
+   */
+  private static final long DELETED = -1L;
+
+  private static final int MIN_RECORDS_BEFORE_COMPACTION = 64;
+
+  private final Path directory;
+  private final Object writeLock = new Object();
+  private final List<FileChannel> retiredChannels = new ArrayList<FileChannel>();
+  private volatile Generation current;
+  private volatile boolean closed;
+
+  private ConnectionCatalogStore( Path directory, Generation current ) {
+    this.directory = directory;
+    this.current = current;
+  }
+
+  /**
+   * Opens the catalog in a directory, creating both if needed.
+   */
+  public static ConnectionCatalogStore open( Path directory ) throws IOException {
+    Files.createDirectories( directory );
+    int number = 0;
+    try ( DirectoryStream<Path> files = Files.newDirectoryStream( directory, FILE_PREFIX + "*" + DATA_SUFFIX ) ) {
+      for ( Path file : files ) {
+        number = Math.max( number, generationNumber( file ) );
+      }
+    }
+    if ( number == 0 ) {
+      number = 1;
+      createDataFile( dataFile( directory, number ), newStamp() );
+    }
+    ConnectionCatalogStore store = new ConnectionCatalogStore( directory, Generation.open( directory, number ) );
+    store.deleteOtherGenerations( number );
+    return store;
+  }
+
+  /**
+   * @return a new copy of the connection with this name, or null
+   */
+  public DatabaseConnection get( String name ) throws IOException {
+    Generation generation = generation();
+    long offset = generation.findName( name );
+    return offset < 0 ? null : generation.read( offset ).getConnection();
+  }
+
+  /**
+   * @return a new copy of the connection with this id, or null
+   */
+  public DatabaseConnection getById( String id ) throws IOException {
+    Generation generation = generation();
+    long offset = generation.findId( id );
+    return offset < 0 ? null : generation.read( offset ).getConnection();
+  }
+
+  public boolean contains( String name ) throws IOException {
+    return generation().findName( name ) >= 0;
+  }
+
+  /**
+   * @return the names of all connections, sorted
+   */
+  public List<String> getNames() throws IOException {
+    Generation generation = generation();
+    List<String> names = new ArrayList<String>( generation.live );
+    for ( long offset : generation.liveOffsets() ) {
+      names.add( generation.read( offset ).name );
+    }
+    Collections.sort( names );
+    return names;
+  }
+
+  public int size() {
+    return current.live;
+  }
+
+  /**
+   * Adds the connection, or replaces the one with the same name.
+   * 
+   * @throws IllegalArgumentException
+   *           if the connection has no name
+   */
+  public void put( IDatabaseConnection connection ) throws IOException {
+    if ( connection.getName() == null ) {
+      throw new IllegalArgumentException( "A stored connection needs a name" );
+    }
+    append( CatalogRecord.encode( CatalogRecord.PUT, connection.getId(), connection.getName(), connection ) );
+  }
+
+  /**
+   * @return true if there was a connection with this name
+   */
+  public boolean delete( String name ) throws IOException {
+    synchronized ( writeLock ) {
+      if ( !contains( name ) ) {
+        return false;
+      }
+      append( CatalogRecord.encode( CatalogRecord.DELETE, null, name, null ) );
+      return true;
+    }
+  }
+
+  /**
+   * Forces the changes made so far to disk.
+   */
+  public void sync() throws IOException {
+    synchronized ( writeLock ) {
+      generation().channel.force( false );
+    }
+  }
+
+  /**
+   * @return true if enough has changed since the last compaction that {@link #compact()} is worth running
+   */
+  public boolean needsCompaction() {
+    Generation generation = current;
+    return generation.appended > Math.max( MIN_RECORDS_BEFORE_COMPACTION, generation.live / 4 );
+  }
+
+  /**
+   * Rewrites the catalog without replaced and deleted connections and indexes all of it.
+   */
+  public void compact() throws IOException {
+    synchronized ( writeLock ) {
+      Generation old = generation();
+      int number = old.number + 1;
+      long stamp = newStamp();
+      long[] offsets = old.liveOffsets();
+      Arrays.sort( offsets );
+
+      Path dataTemp = temp( dataFile( directory, number ) );
+      List<String> names = new ArrayList<String>( offsets.length );
+      List<String> ids = new ArrayList<String>( offsets.length );
+      long[] newOffsets = new long[offsets.length];
+      long dataLength;
+      try ( FileChannel channel = createDataFile( dataTemp, stamp ) ) {
+        long position = DATA_HEADER_SIZE;
+        for ( int i = 0; i < offsets.length; i++ ) {
+          CatalogRecord decoded = old.read( offsets[i] );
+          byte[] record = old.readRaw( offsets[i] );
+          names.add( decoded.name );
+          ids.add( decoded.id );
+          newOffsets[i] = position;
+          writeFully( channel, ByteBuffer.wrap( record ), position );
+          position += record.length;
+        }
+        channel.force( true );
+        dataLength = position;
+      }
+      Path indexTemp = temp( indexFile( directory, number ) );
+      CatalogIndex.write( indexTemp, stamp, dataLength, names, ids, newOffsets );
+      Files.move( dataTemp, dataFile( directory, number ), StandardCopyOption.ATOMIC_MOVE );
+      Files.move( indexTemp, indexFile( directory, number ), StandardCopyOption.ATOMIC_MOVE );
+
+      current = Generation.open( directory, number );
+      retiredChannels.add( old.channel );
+      deleteOtherGenerations( number );
+    }
+  }
+
+  /**
+   * Runs {@link #compact()} on the executor.
+   */
+  public CompletableFuture<Void> compactInBackground( Executor executor ) {
+    return CompletableFuture.runAsync( new Runnable() {
+      public void run() {
+        try {
+          compact();
+        } catch ( IOException e ) {
+          throw new CompletionException( e );
+        }
+      }
+    }, executor );
+  }
+
+  public void close() throws IOException {
+    synchronized ( writeLock ) {
+      if ( closed ) {
+        return;
+      }
+      closed = true;
+      try {
+        current.channel.force( false );
+      } finally {
+        current.channel.close();
+        for ( FileChannel channel : retiredChannels ) {
+          channel.close();
+        }
+      }
+    }
+  }
+
+  private void append( byte[] record ) throws IOException {
+    synchronized ( writeLock ) {
+      Generation generation = generation();
+      long offset = generation.size;
+      writeFully( generation.channel, ByteBuffer.wrap( record ), offset );
+      generation.size = offset + record.length;
+      generation.apply( offset, CatalogRecord.decode( Arrays.copyOfRange( record, 4, record.length ) ) );
+    }
+  }
+
+  private Generation generation() throws IOException {
+    if ( closed ) {
+      throw new IOException( "The connection catalog is closed" );
+    }
+    return current;
+  }
+
+  /**
+   * Deletes the files of other generations, and left-over temporary files. A file still mapped by a reader may not be
+   * deletable on some platforms; it is deleted the next time the catalog is opened.
+   */
+  private void deleteOtherGenerations( int number ) {
+    try ( DirectoryStream<Path> files = Files.newDirectoryStream( directory, FILE_PREFIX + "*" ) ) {
+      for ( Path file : files ) {
+        if ( generationNumber( file ) != number ) {
+          try {
+            Files.deleteIfExists( file );
+          } catch ( IOException e ) {
+            LOG.debug( "Could not delete " + file, e );
+          }
+        }
+      }
+    } catch ( IOException e ) {
+      LOG.warn( "Could not clean up connection catalog " + directory, e );
+    }
+  }
+
+  /**
+   * @return the generation of a data or index file, or -1 for any other file
+   */
+  private static int generationNumber( Path file ) {
+    String name = file.getFileName().toString();
+    int end = name.endsWith( DATA_SUFFIX ) ? name.length() - DATA_SUFFIX.length()
+      : name.endsWith( INDEX_SUFFIX ) ? name.length() - INDEX_SUFFIX.length() : -1;
+    if ( !name.startsWith( FILE_PREFIX ) || end <= FILE_PREFIX.length() ) {
+      return -1;
+    }
+    try {
+      return Integer.parseInt( name.substring( FILE_PREFIX.length(), end ) );
+    } catch ( NumberFormatException e ) {
+      return -1;
+    }
+  }
+
+  static Path dataFile( Path directory, int number ) {
+    return directory.resolve( FILE_PREFIX + number + DATA_SUFFIX );
+  }
+
+  static Path indexFile( Path directory, int number ) {
+    return directory.resolve( FILE_PREFIX + number + INDEX_SUFFIX );
+  }
+
+  private static Path temp( Path file ) {
+    return file.resolveSibling( file.getFileName() + TEMP_SUFFIX );
+  }
+
+  private static long newStamp() {
+    return ThreadLocalRandom.current().nextLong();
+  }
+
+  private static FileChannel createDataFile( Path file, long stamp ) throws IOException {
+    FileChannel channel = FileChannel.open( file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+      StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING );
+    ByteBuffer header = ByteBuffer.allocate( DATA_HEADER_SIZE );
+    header.putInt( MAGIC ).putInt( VERSION ).putLong( stamp ).flip();
+    writeFully( channel, header, 0 );
+    channel.force( true );
+    return channel;
+  }
+
+  private static void writeFully( FileChannel channel, ByteBuffer buffer, long position ) throws IOException {
+    while ( buffer.hasRemaining() ) {
+      position += channel.write( buffer, position );
+    }
+  }
+
+  /**
+   * A data file, its index if it has one, and the overlay of the records the index does not cover.
+   */
+  private static final class Generation {
+    final int number;
+    final FileChannel channel;
+    private final ByteBuffer mapped;
+    private final CatalogIndex index;
+    private final Map<String, Long> names = new ConcurrentHashMap<String, Long>();
+    private final Map<String, Long> ids = new ConcurrentHashMap<String, Long>();
+    volatile long size;
+    volatile int live;
+    volatile int appended;
+
+    private Generation( int number, FileChannel channel, ByteBuffer mapped, CatalogIndex index ) throws IOException {
+      this.number = number;
+      this.channel = channel;
+      this.mapped = mapped;
+      this.index = index;
+      this.size = channel.size();
+      this.live = index == null ? 0 : index.getEntries();
+    }
+
+    static Generation open( Path directory, int number ) throws IOException {
+      Path file = dataFile( directory, number );
+      FileChannel channel = FileChannel.open( file, StandardOpenOption.READ, StandardOpenOption.WRITE );
+      try {
+        ByteBuffer header = ByteBuffer.allocate( DATA_HEADER_SIZE );
+        readFully( channel, header, 0 );
+        if ( header.getInt( 0 ) != MAGIC ) {
+          throw new IOException( file + " is not a connection catalog" );
+        }
+        if ( header.getInt( 4 ) > VERSION ) {
+          throw new IOException( "Unsupported connection catalog version " + header.getInt( 4 ) + " in " + file );
+        }
+        CatalogIndex index = CatalogIndex.open( indexFile( directory, number ), header.getLong( 8 ), channel.size() );
+        long indexed = index == null ? DATA_HEADER_SIZE : index.getDataLength();
+        truncateTornRecord( file, channel, indexed );
+        ByteBuffer mapped = channel.map( FileChannel.MapMode.READ_ONLY, 0, Math.min( channel.size(),
+          Integer.MAX_VALUE ) );
+        Generation generation = new Generation( number, channel, mapped, index );
+        generation.scan( indexed );
+        return generation;
+      } catch ( IOException | RuntimeException e ) {
+        channel.close();
+        throw e;
+      }
+    }
+
+    /**
+     * Cuts the data file after the last complete record.
+     */
+    private static void truncateTornRecord( Path file, FileChannel channel, long position ) throws IOException {
+      long size = channel.size();
+      ByteBuffer length = ByteBuffer.allocate( 4 );
+      while ( position < size ) {
+        length.clear();
+        if ( size - position < 4 ) {
+          break;
+        }
+        readFully( channel, length, position );
+        int bodyLength = length.getInt( 0 );
+        if ( bodyLength <= 4 || size - position - 4 < bodyLength ) {
+          break;
+        }
+        ByteBuffer body = ByteBuffer.allocate( bodyLength );
+        readFully( channel, body, position + 4 );
+        if ( CatalogRecord.decode( body.array() ) == null ) {
+          break;
+        }
+        position += 4 + bodyLength;
+      }
+      if ( position < size ) {
+        LOG.warn( "Dropping " + ( size - position ) + " bytes of incomplete records at the end of " + file );
+        channel.truncate( position );
+      }
+    }
+
+    /**
+     * Applies the records from a position on to the overlay.
+     */
+    private void scan( long position ) throws IOException {
+      while ( position < size ) {
+        byte[] record = readRaw( position );
+        apply( position, CatalogRecord.decode( Arrays.copyOfRange( record, 4, record.length ) ) );
+        position += record.length;
+      }
+    }
+
+    void apply( long offset, CatalogRecord record ) throws IOException {
+      boolean existed = findName( record.name ) >= 0;
+      if ( record.kind == CatalogRecord.PUT ) {
+        names.put( record.name, offset );
+        if ( record.id != null ) {
+          ids.put( record.id, offset );
+        }
+        if ( !existed ) {
+          live++;
+        }
+      } else {
+        names.put( record.name, DELETED );
+        if ( existed ) {
+          live--;
+        }
+      }
+      appended++;
+    }
+
+    long findName( final String name ) throws IOException {
+      Long offset = names.get( name );
+      if ( offset != null ) {
+        return offset;
+      }
+      if ( index == null ) {
+        return -1;
+      }
+      return index.find( CatalogIndex.NAMES, name, new CatalogIndex.Matcher() {
+        public boolean matches( long candidate ) throws IOException {
+          return name.equals( read( candidate ).name );
+        }
+      } );
+    }
+
+    /**
+     * Only finds the latest record of a name: an older record with the id was replaced.
+     */
+    long findId( final String id ) throws IOException {
+      CatalogIndex.Matcher current = new CatalogIndex.Matcher() {
+        public boolean matches( long candidate ) throws IOException {
+          CatalogRecord record = read( candidate );
+          return id.equals( record.id ) && findName( record.name ) == candidate;
+        }
+      };
+      Long offset = ids.get( id );
+      if ( offset != null && current.matches( offset ) ) {
+        return offset;
+      }
+      return index == null ? -1 : index.find( CatalogIndex.IDS, id, current );
+    }
+
+    /**
+     * @return the offsets of the latest record of every connection
+     */
+    long[] liveOffsets() throws IOException {
+      final List<Long> offsets = new ArrayList<Long>( live );
+      for ( Long offset : names.values() ) {
+        if ( offset >= 0 ) {
+          offsets.add( offset );
+        }
+      }
+      if ( index != null ) {
+        index.forEach( CatalogIndex.NAMES, new CatalogIndex.OffsetVisitor() {
+          public void visit( long offset ) throws IOException {
+            if ( !names.containsKey( read( offset ).name ) ) {
+              offsets.add( offset );
+            }
+          }
+        } );
+      }
+      long[] result = new long[offsets.size()];
+      for ( int i = 0; i < result.length; i++ ) {
+        result[i] = offsets.get( i );
+      }
+      return result;
+    }
+
+    CatalogRecord read( long offset ) throws IOException {
+      byte[] record = readRaw( offset );
+      CatalogRecord decoded = CatalogRecord.decode( Arrays.copyOfRange( record, 4, record.length ) );
+      if ( decoded == null ) {
+        throw new IOException( "Corrupt connection catalog record at offset " + offset );
+      }
+      return decoded;
+    }
+
+    /**
+     * @return the record at an offset, with its length
+     */
+    byte[] readRaw( long offset ) throws IOException {
+      int length = 4 + readInt( offset );
+      if ( length <= 8 || offset + length > size ) {
+        throw new IOException( "Corrupt connection catalog record at offset " + offset );
+      }
+      byte[] record = new byte[length];
+      if ( offset + length <= mapped.limit() ) {
+        ByteBuffer view = mapped.duplicate();
+        view.position( (int) offset );
+        view.get( record );
+      } else {
+        readFully( channel, ByteBuffer.wrap( record ), offset );
+      }
+      return record;
+    }
+
+    private int readInt( long offset ) throws IOException {
+      if ( offset + 4 <= mapped.limit() ) {
+        return mapped.getInt( (int) offset );
+      }
+      ByteBuffer buffer = ByteBuffer.allocate( 4 );
+      readFully( channel, buffer, offset );
+      return buffer.getInt( 0 );
+    }
+
+    private static void readFully( FileChannel channel, ByteBuffer buffer, long position ) throws IOException {
+      while ( buffer.hasRemaining() ) {
+        int read = channel.read( buffer, position );
+        if ( read < 0 ) {
+          throw new IOException( "Unexpected end of connection catalog" );
+        }
+        position += read;
+      }
+    }
+  }
+}
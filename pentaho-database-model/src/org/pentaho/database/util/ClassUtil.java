@@ -16,29 +16,107 @@
  */
 package org.pentaho.database.util;
 
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 /**
+ * Lookups are cached per class loader, including the misses, so asking again for a driver that is not installed does
+ * not construct another ClassNotFoundException. Class loaders are held weakly and so are the classes found, so plugins
+ * can still be unloaded. Call {@link #invalidate()} after adding driver jars to a class loader that was already asked.
+ *
  * Created by bryan on 5/6/16.
  */
 public class ClassUtil {
   private static final Log logger = LogFactory.getLog( ClassUtil.class );
 
+  private static final Reference<Class<?>> MISSING = new WeakReference<Class<?>>( null );
+
+  private static final ClassLoader defaultClassLoader = ClassUtil.class.getClassLoader();
+
+  // the loader of this class lives as long as the class itself, so its lookups need no weak key and no lock
+  private static final ConcurrentMap<String, Reference<Class<?>>> defaultClasses =
+      new ConcurrentHashMap<String, Reference<Class<?>>>();
+
+  private static final Map<ClassLoader, ConcurrentMap<String, Reference<Class<?>>>> cache =
+      Collections.synchronizedMap( new WeakHashMap<ClassLoader, ConcurrentMap<String, Reference<Class<?>>>>() );
+
   public static boolean canLoadClass( String classname ) {
+    return canLoadClass( classname, defaultClassLoader );
+  }
+
+  public static boolean canLoadClass( String classname, ClassLoader classLoader ) {
     // no need to test if the class exists if it is null
     if ( classname == null ) {
       return true;
     }
-    return getClass( classname ) != null;
+    return getClass( classname, classLoader ) != null;
   }
 
   public static Class<?> getClass( String classname ) {
+    return getClass( classname, defaultClassLoader );
+  }
+
+  public static Class<?> getClass( String classname, ClassLoader classLoader ) {
     if ( classname == null ) {
       return null;
     }
+    ConcurrentMap<String, Reference<Class<?>>> classes = getClasses( classLoader );
+    Reference<Class<?>> reference = classes.get( classname );
+    if ( reference == MISSING ) {
+      return null;
+    }
+    Class<?> clazz = reference == null ? null : reference.get();
+    if ( clazz == null ) {
+      clazz = loadClass( classname, classLoader );
+      classes.put( classname, clazz == null ? MISSING : new WeakReference<Class<?>>( clazz ) );
+    }
+    return clazz;
+  }
+
+  /**
+   * Forgets every cached lookup, e.g. after driver jars were added.
+   */
+  public static void invalidate() {
+    defaultClasses.clear();
+    cache.clear();
+  }
+
+  /**
+   * Forgets the cached lookups of one class loader.
+   */
+  public static void invalidate( ClassLoader classLoader ) {
+    if ( classLoader == defaultClassLoader ) {
+      defaultClasses.clear();
+    } else {
+      cache.remove( classLoader );
+    }
+  }
+
+  private static ConcurrentMap<String, Reference<Class<?>>> getClasses( ClassLoader classLoader ) {
+    if ( classLoader == defaultClassLoader ) {
+      return defaultClasses;
+    }
+    synchronized ( cache ) {
+      ConcurrentMap<String, Reference<Class<?>>> classes = cache.get( classLoader );
+      if ( classes == null ) {
+        classes = new ConcurrentHashMap<String, Reference<Class<?>>>();
+        cache.put( classLoader, classes );
+      }
+      return classes;
+    }
+  }
+
+  private static Class<?> loadClass( String classname, ClassLoader classLoader ) {
     try {
-      return Class.forName( classname );
+      return Class.forName( classname, true, classLoader );
     } catch ( NoClassDefFoundError e ) {
       if ( logger.isDebugEnabled() ) {
         logger.debug( "classExists returning false", e );
@@ -0,0 +1,129 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.pentaho.database.IDatabaseDialect;
+import org.pentaho.database.model.DatabaseAccessType;
+import org.pentaho.database.model.DatabaseConnection;
+import org.pentaho.database.model.IDatabaseConnection;
+import org.pentaho.database.model.IDatabaseType;
+
+/**
+ * Checks that a connection has the parameters its database type and access type need, without a database or Kettle,
+ * so it runs the same in the browser and on the server.
+ * 
+ * The rules follow Kettle's DatabaseMeta.checkParameters: a connection needs a type and a name, and a database name
+ * unless it is partitioned or its dialect does without one. On top of that a generic native connection needs its URL
+ * and driver class, and a port, when there is one, must be a number or a variable.
+ * 
+ * The problems are reported as keys of the database dialog's messages, so the browser and the server can each show
+ * them in their own language.
+ */
+public class ConnectionParameterValidator {
+
+  public static final String MISSING_TYPE = "DatabaseDialog.ErrorMissingType.description"; //$NON-NLS-1$
+  public static final String MISSING_NAME = "DatabaseDialog.ErrorMissingConnectionName.description"; //$NON-NLS-1$
+  public static final String MISSING_DATABASE_NAME =
+      "DatabaseDialog.ErrorMissingDatabaseName.description"; //$NON-NLS-1$
+  public static final String MISSING_URL = "DatabaseDialog.ErrorMissingUrl.description"; //$NON-NLS-1$
+  public static final String MISSING_DRIVER_CLASS = "DatabaseDialog.ErrorMissingDriverClass.description"; //$NON-NLS-1$
+  public static final String BAD_PORT = "DatabaseDialog.ErrorBadPort.description"; //$NON-NLS-1$
+
+  private static final String GENERIC = "GENERIC"; //$NON-NLS-1$
+
+  /**
+   * The port the dialects leave out of the URL.
+   */
+  private static final String NO_PORT = "-1"; //$NON-NLS-1$
+
+  private ConnectionParameterValidator() {
+  }
+
+  /**
+   * Checks a connection without its dialect, which leaves out the database name.
+   * 
+   * @return the message keys of the problems found, in the order of the dialog's fields; empty when there are none
+   */
+  public static List<String> checkParameters( IDatabaseConnection connection ) {
+    return checkParameters( connection, null );
+  }
+
+  /**
+   * @param dialect
+   *          the dialect of the connection's type, or null when it is not at hand
+   * @return the message keys of the problems found, in the order of the dialog's fields; empty when there are none
+   */
+  public static List<String> checkParameters( IDatabaseConnection connection, IDatabaseDialect dialect ) {
+    List<String> remarks = new ArrayList<String>();
+    IDatabaseType type = connection.getDatabaseType();
+    if ( type == null ) {
+      remarks.add( MISSING_TYPE );
+    }
+    if ( isBlank( connection.getName() ) ) {
+      remarks.add( MISSING_NAME );
+    }
+    if ( type == null ) {
+      return remarks;
+    }
+    if ( !connection.isPartitioned() && dialect != null && dialect.requiresDatabaseName()
+        && isBlank( connection.getDatabaseName() ) ) {
+      remarks.add( MISSING_DATABASE_NAME );
+    }
+    if ( connection.getAccessType() == DatabaseAccessType.NATIVE ) {
+      if ( GENERIC.equalsIgnoreCase( type.getShortName() ) ) {
+        if ( isBlank( connection.getAttributes().get( DatabaseConnection.ATTRIBUTE_CUSTOM_URL ) ) ) {
+          remarks.add( MISSING_URL );
+        }
+        if ( isBlank( connection.getAttributes().get( DatabaseConnection.ATTRIBUTE_CUSTOM_DRIVER_CLASS ) ) ) {
+          remarks.add( MISSING_DRIVER_CLASS );
+        }
+      } else if ( !isPort( connection.getDatabasePort() ) ) {
+        remarks.add( BAD_PORT );
+      }
+    }
+    return remarks;
+  }
+
+  /**
+   * @return true for no port, blank or -1, a port number, or a value with a variable in it
+   */
+  static boolean isPort( String port ) {
+    if ( isBlank( port ) || port.indexOf( "${" ) >= 0 || port.indexOf( "%%" ) >= 0 ) { //$NON-NLS-1$ //$NON-NLS-2$
+      return true;
+    }
+    String digits = port.trim();
+    if ( NO_PORT.equals( digits ) ) {
+      return true;
+    }
+    if ( digits.length() > 5 ) {
+      return false;
+    }
+    for ( int i = 0; i < digits.length(); i++ ) {
+      if ( !Character.isDigit( digits.charAt( i ) ) ) {
+        return false;
+      }
+    }
+    return Integer.parseInt( digits ) <= 65535;
+  }
+
+  private static boolean isBlank( String value ) {
+    return value == null || value.trim().length() == 0;
+  }
+}
@@ -0,0 +1,113 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+*/
+
+package org.pentaho.database;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BulkFormatTest {
+
+  private static String record( BulkFormat format, String... values ) {
+    StringBuilder out = new StringBuilder();
+    format.appendRecord( out, Arrays.asList( values ) );
+    return out.toString();
+  }
+
+  @Test
+  public void testTextRecord() {
+    Assert.assertEquals( "1\tname\t\\N\n", record( BulkFormat.TEXT, "1", "name", null ) );
+    Assert.assertEquals( "\n", record( BulkFormat.TEXT ) );
+  }
+
+  @Test
+  public void testTextEscapes() {
+    Assert.assertEquals( "a\\\tb\\\nc\\\rd\\\\e\n", record( BulkFormat.TEXT, "a\tb\nc\rd\\e" ) );
+    // the literal text \N is not read as null once its backslash is escaped
+    Assert.assertEquals( "\\\\N\n", record( BulkFormat.TEXT, "\\N" ) );
+  }
+
+  @Test
+  public void testWithoutEscape() {
+    BulkFormat format = new BulkFormat( '|', "\r\n", "", BulkFormat.NO_ESCAPE, "UTF-8" );
+    Assert.assertEquals( "a\\b||c\r\n", record( format, "a\\b", null, "c" ) );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testWithoutEscapeRejectsDelimiter() {
+    record( new BulkFormat( '|', "\n", "", BulkFormat.NO_ESCAPE, "UTF-8" ), "a|b" );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testWithoutEscapeRejectsValueReadAsNull() {
+    record( new BulkFormat( '|', "\n", "", BulkFormat.NO_ESCAPE, "UTF-8" ), "" );
+  }
+
+  private static List<String> parse( BulkFormat format, String text ) {
+    List<String> fields = new ArrayList<String>();
+    Assert.assertEquals( text.length(), format.parseRecord( text, 0, fields ) );
+    return fields;
+  }
+
+  @Test
+  public void testParseRecord() {
+    Assert.assertEquals( Arrays.asList( "1", "", null ), parse( BulkFormat.TEXT, "1\t\t\\N\n" ) );
+    Assert.assertEquals( Arrays.asList( "" ), parse( BulkFormat.TEXT, "\n" ) );
+  }
+
+  @Test
+  public void testParseWhatWasWritten() {
+    String value = "a\tb\nc\rd\\e";
+    Assert.assertEquals( Arrays.asList( value, "\\N", null ),
+        parse( BulkFormat.TEXT, record( BulkFormat.TEXT, value, "\\N", null ) ) );
+  }
+
+  @Test
+  public void testParseExtractSequences() {
+    // COPY TO STDOUT writes control characters as letters
+    Assert.assertEquals( Arrays.asList( "a\tb\nc" ), parse( BulkFormat.TEXT, "a\\tb\\nc\n" ) );
+  }
+
+  @Test
+  public void testParseIncomplete() {
+    List<String> fields = new ArrayList<String>();
+    Assert.assertEquals( -1, BulkFormat.TEXT.parseRecord( "1\t2", 0, fields ) );
+    Assert.assertEquals( -1, BulkFormat.TEXT.parseRecord( "1\t2\\", 0, fields ) );
+    Assert.assertTrue( fields.isEmpty() );
+  }
+
+  @Test
+  public void testParseStream() {
+    String text = "1\ta\n2\tb\n3";
+    List<String> fields = new ArrayList<String>();
+    int offset = BulkFormat.TEXT.parseRecord( text, 0, fields );
+    offset = BulkFormat.TEXT.parseRecord( text, offset, fields );
+    Assert.assertEquals( Arrays.asList( "1", "a", "2", "b" ), fields );
+    Assert.assertEquals( text.length() - 1, offset );
+    Assert.assertEquals( -1, BulkFormat.TEXT.parseRecord( text, offset, fields ) );
+  }
+
+  @Test
+  public void testParseWithoutEscape() {
+    BulkFormat format = new BulkFormat( '|', "\r\n", "", BulkFormat.NO_ESCAPE, "UTF-8" );
+    Assert.assertEquals( Arrays.asList( "a\\b", null, "c" ), parse( format, "a\\b||c\r\n" ) );
+  }
+}
@@ -0,0 +1,95 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.codec;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.pentaho.database.model.DatabaseConnection;
+import org.pentaho.database.model.DatabaseConnectionSnapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class DatabaseConnectionBinaryCodecTest {
+  private final DatabaseConnectionBinaryCodec codec = new DatabaseConnectionBinaryCodec();
+
+  private byte[] write( List<DatabaseConnection> connections ) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    codec.writeCatalog( connections, out );
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    DatabaseConnection connection = DatabaseConnectionJsonCodecTest.createConnection( "warehouse" );
+    connection.setDatabaseType( null );
+    connection.setExtraOptionsOrder( null );
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    codec.write( connection, out );
+    DatabaseConnection read = codec.read( new ByteArrayInputStream( out.toByteArray() ) );
+    Assert.assertEquals( DatabaseConnectionSnapshot.of( connection ), DatabaseConnectionSnapshot.of( read ) );
+    Assert.assertEquals( -1, read.getInitialPoolSize() );
+    Assert.assertNull( read.getExtraOptionsOrder() );
+  }
+
+  @Test
+  public void testCatalogSharesRepeatedStrings() throws IOException {
+    List<DatabaseConnection> connections = new ArrayList<DatabaseConnection>();
+    for ( int i = 0; i < 100; i++ ) {
+      connections.add( DatabaseConnectionJsonCodecTest.createConnection( "c" + i ) );
+    }
+    byte[] one = write( connections.subList( 0, 1 ) );
+    byte[] all = write( connections );
+    Assert.assertTrue( all.length + " bytes", all.length * 4 < one.length * connections.size() );
+
+    List<DatabaseConnection> read = codec.readCatalog( new ByteArrayInputStream( all ) );
+    Assert.assertEquals( connections.size(), read.size() );
+    for ( int i = 0; i < connections.size(); i++ ) {
+      Assert.assertEquals( DatabaseConnectionSnapshot.of( connections.get( i ) ),
+        DatabaseConnectionSnapshot.of( read.get( i ) ) );
+    }
+  }
+
+  @Test
+  public void testRejectsOtherStreams() throws IOException {
+    byte[] bytes = write( Arrays.asList( DatabaseConnectionJsonCodecTest.createConnection( "a" ) ) );
+
+    byte[] badMagic = bytes.clone();
+    badMagic[0] = 'X';
+    byte[] newerVersion = bytes.clone();
+    newerVersion[4] = DatabaseConnectionBinaryCodec.VERSION + 1;
+    for ( byte[] invalid : new byte[][] { badMagic, newerVersion } ) {
+      try {
+        codec.readCatalog( new ByteArrayInputStream( invalid ) );
+        Assert.fail();
+      } catch ( IOException e ) {
+        Assert.assertFalse( e instanceof EOFException );
+      }
+    }
+    try {
+      codec.readCatalog( new ByteArrayInputStream( Arrays.copyOf( bytes, bytes.length - 3 ) ) );
+      Assert.fail();
+    } catch ( EOFException e ) {
+      // expected
+    }
+  }
+}
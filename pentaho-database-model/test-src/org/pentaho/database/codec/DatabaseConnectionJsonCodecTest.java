@@ -0,0 +1,114 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.codec;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.pentaho.database.dialect.MySQLDatabaseDialect;
+import org.pentaho.database.model.DatabaseAccessType;
+import org.pentaho.database.model.DatabaseConnection;
+import org.pentaho.database.model.DatabaseConnectionSnapshot;
+import org.pentaho.database.model.PartitionDatabaseMeta;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class DatabaseConnectionJsonCodecTest {
+  static DatabaseConnection createConnection( String name ) {
+    DatabaseConnection connection = new DatabaseConnection();
+    connection.setId( name + "-id" );
+    connection.setName( name );
+    connection.setDatabaseType( new MySQLDatabaseDialect().getDatabaseType() );
+    connection.setAccessType( DatabaseAccessType.NATIVE );
+    connection.setHostname( "db01" );
+    connection.setDatabasePort( "3306" );
+    connection.setDatabaseName( "sales" );
+    connection.setUsername( "etl" );
+    connection.setPassword( "p\"a\\s\nsé\u2028" );
+    connection.setStreamingResults( true );
+    connection.setMaximumPoolSize( 20 );
+    connection.setInitialPoolSize( -1 );
+    connection.addExtraOption( "MYSQL", "useSSL", "false" );
+    connection.addExtraOption( "MYSQL", "characterEncoding", "UTF-8" );
+    connection.getAttributes().put( "a", "1" );
+    connection.getConnectionPoolingProperties().put( "validationQuery", "select 1" );
+    PartitionDatabaseMeta partition = new PartitionDatabaseMeta( "p1", "db02", "3306", "sales" );
+    partition.setUsername( "etl" );
+    connection.setPartitioningInformation( Collections.singletonList( partition ) );
+    return connection;
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    DatabaseConnectionJsonCodec codec = new DatabaseConnectionJsonCodec();
+    DatabaseConnection connection = createConnection( "warehouse" );
+    String json = codec.toJson( connection );
+    DatabaseConnection read = codec.fromJson( json );
+    Assert.assertEquals( DatabaseConnectionSnapshot.of( connection ), DatabaseConnectionSnapshot.of( read ) );
+    Assert.assertEquals( Arrays.asList( "MYSQL.useSSL", "MYSQL.characterEncoding" ),
+      Arrays.asList( read.getExtraOptions().keySet().toArray() ) );
+    Assert.assertEquals( json, codec.toJson( read ) );
+    Assert.assertTrue( json, json.contains( "\"password\":\"p\\\"a\\\\s\\nsé\\u2028\"" ) );
+    Assert.assertTrue( json, json.contains( "\"accessType\":\"NATIVE\"" ) );
+    Assert.assertFalse( json, json.contains( "informixServername" ) );
+  }
+
+  @Test
+  public void testSkipsUnknownProperties() throws IOException {
+    DatabaseConnection read = new DatabaseConnectionJsonCodec().fromJson(
+      " { \"future\" : { \"a\" : [ 1, 2.5e3, true, null, \"x\" ] }, \"name\" : \"orders\", \"hostname\" : null,"
+        + " \"maximumPoolSize\" : 5 , \"partitioned\" : true } " );
+    Assert.assertEquals( "orders", read.getName() );
+    Assert.assertNull( read.getHostname() );
+    Assert.assertEquals( 5, read.getMaximumPoolSize() );
+    Assert.assertTrue( read.isPartitioned() );
+  }
+
+  @Test
+  public void testRejectsMalformedDocuments() {
+    DatabaseConnectionJsonCodec codec = new DatabaseConnectionJsonCodec();
+    for ( String json : new String[] { "", "{\"name\":\"a\"", "{\"name\":\"a\"} x", "{\"name\" \"a\"}",
+      "{\"maximumPoolSize\":\"five\"}" } ) {
+      try {
+        codec.fromJson( json );
+        Assert.fail( json );
+      } catch ( IOException e ) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testCatalog() throws IOException {
+    DatabaseConnectionJsonCodec codec = new DatabaseConnectionJsonCodec();
+    List<DatabaseConnection> connections = Arrays.asList( createConnection( "a" ), createConnection( "b" ) );
+    StringWriter out = new StringWriter();
+    codec.writeCatalog( connections, out );
+    Assert.assertTrue( out.toString().startsWith( "{\"databaseConnections\":[{" ) );
+    List<DatabaseConnection> read = codec.readCatalog( new StringReader( out.toString() ) );
+    Assert.assertEquals( 2, read.size() );
+    for ( int i = 0; i < 2; i++ ) {
+      Assert.assertEquals( DatabaseConnectionSnapshot.of( connections.get( i ) ),
+        DatabaseConnectionSnapshot.of( read.get( i ) ) );
+    }
+    Assert.assertTrue( codec.readCatalog( new StringReader( "{}" ) ).isEmpty() );
+  }
+}
@@ -0,0 +1,92 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2017 Hitachi Vantara..  All rights reserved.
+*/
+
+package org.pentaho.database.dialect;
+
+import junit.framework.Assert;
+import org.junit.Test;
+import org.pentaho.database.IValueMeta;
+import org.pentaho.database.ThinValueMeta;
+import org.pentaho.database.model.IDatabaseConnection;
+import org.pentaho.database.model.IDatabaseType;
+
+public class AbstractDatabaseDialectTest {
+
+  /**
+   * A dialect written against the String returning DDL methods only.
+   */
+  private static class StringDialect extends AbstractDatabaseDialect {
+
+    private static final long serialVersionUID = 1L;
+
+    public IDatabaseType getDatabaseType() {
+      return null;
+    }
+
+    public String getURL( IDatabaseConnection connection ) {
+      return null;
+    }
+
+    public String[] getUsedLibraries() {
+      return new String[0];
+    }
+
+    public String getNativeDriver() {
+      return null;
+    }
+
+    public String getNativeJdbcPre() {
+      return null;
+    }
+
+    @Override
+    public String getAddColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc, String pk,
+        boolean semicolon ) {
+      return "ALTER TABLE " + tablename + " ADD " + getFieldDefinition( v, tk, pk, use_autoinc, true, false );
+    }
+
+    @Override
+    public String getModifyColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc,
+        String pk, boolean semicolon ) {
+      return "ALTER TABLE " + tablename + " MODIFY " + getFieldDefinition( v, tk, pk, use_autoinc, true, false );
+    }
+
+    @Override
+    public String getFieldDefinition( IValueMeta v, String tk, String pk, boolean use_autoinc,
+        boolean add_fieldname, boolean add_cr ) {
+      return ( add_fieldname ? v.getName() + " " : "" ) + "TEXT";
+    }
+  }
+
+  @Test
+  public void testAppendDelegatesToStringForm() {
+    StringDialect dialect = new StringDialect();
+    IValueMeta valueMeta = new ThinValueMeta( "name", IValueMeta.TYPE_STRING, 10, 0 );
+
+    StringBuilder sql = new StringBuilder( "-- " );
+    dialect.appendAddColumnStatement( sql, "t", valueMeta, null, false, null, false );
+    Assert.assertEquals( "-- ALTER TABLE t ADD name TEXT", sql.toString() );
+
+    sql.setLength( 0 );
+    dialect.appendModifyColumnStatement( sql, "t", valueMeta, null, false, null, false );
+    Assert.assertEquals( "ALTER TABLE t MODIFY name TEXT", sql.toString() );
+
+    sql.setLength( 0 );
+    dialect.appendFieldDefinition( sql, valueMeta, null, null, false, false, false );
+    Assert.assertEquals( "TEXT", sql.toString() );
+  }
+}
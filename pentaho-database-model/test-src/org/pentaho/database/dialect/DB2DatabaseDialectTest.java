@@ -232,4 +232,9 @@ public class DB2DatabaseDialectTest {
         "ALTER TABLE " + tableName + " DROP COLUMN " + valueMeta.getName() + " " );
   }
 
+  @Test
+  public void testGetSQLNextSequenceValues() {
+    Assert.assertEquals( "WITH rows_ (n) AS (SELECT 1 FROM SYSIBM.SYSDUMMY1 UNION ALL SELECT n + 1 FROM rows_"
+        + " WHERE n < 100) SELECT NEXT VALUE FOR seq FROM rows_", dialect.getSQLNextSequenceValues( "seq", 100 ) );
+  }
 }
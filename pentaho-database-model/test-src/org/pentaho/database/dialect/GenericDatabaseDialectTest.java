@@ -17,10 +17,15 @@
 
 package org.pentaho.database.dialect;
 
+import java.util.List;
+import java.util.Arrays;
+
 import junit.framework.Assert;
 import org.junit.Test;
 import org.pentaho.database.model.DatabaseConnection;
 import org.pentaho.database.model.IDatabaseType;
+import org.pentaho.database.IValueMeta;
+import org.pentaho.database.ThinValueMeta;
 
 public class GenericDatabaseDialectTest {
 
@@ -82,4 +87,38 @@ public class GenericDatabaseDialectTest {
   public void testSupportsOptionsInURL() {
     Assert.assertFalse( dialect.supportsOptionsInURL() );
   }
+
+  @Test
+  public void testSingleRowInsert() {
+    List<IValueMeta> columns = Arrays.<IValueMeta>asList( new ThinValueMeta( "a" ), new ThinValueMeta( "b" ) );
+    Assert.assertEquals( 1, dialect.getInsertBatchSize( 2 ) );
+    List<String> statements = dialect.getMultiRowInsertStatements( "t", columns, 3 );
+    Assert.assertEquals( 3, statements.size() );
+    Assert.assertEquals( "INSERT INTO t (a, b) VALUES (?, ?)", statements.get( 2 ) );
+  }
+
+  @Test
+  public void testGetPagedQuery() {
+    Assert.assertEquals( "SELECT id FROM t ORDER BY id FETCH FIRST 10 ROWS ONLY",
+        dialect.getPagedQuery( "SELECT id FROM t", "id", 0, 10 ) );
+    Assert.assertEquals( "SELECT id FROM t OFFSET 20 ROWS FETCH FIRST 10 ROWS ONLY",
+        dialect.getPagedQuery( "SELECT id FROM t", null, 20, 10 ) );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testGetPagedQueryWithoutRows() {
+    dialect.getPagedQuery( "SELECT id FROM t", "id", 0, 0 );
+  }
+
+  @Test
+  public void testGetKeysetPagedQuery() {
+    List<String> keys = Arrays.asList( "a", "b", "c" );
+    Assert.assertEquals( "SELECT a, b, c FROM t ORDER BY a, b, c FETCH FIRST 10 ROWS ONLY",
+        dialect.getKeysetPagedQuery( "SELECT a, b, c FROM t", keys, false, 10 ) );
+    Assert.assertEquals( "SELECT * FROM (SELECT a, b, c FROM t) page_"
+        + " WHERE a >= ? AND (a > ? OR b >= ? AND (b > ? OR c > ?)) ORDER BY a, b, c FETCH FIRST 10 ROWS ONLY",
+        dialect.getKeysetPagedQuery( "SELECT a, b, c FROM t", keys, true, 10 ) );
+    Assert.assertEquals( "SELECT * FROM (SELECT a FROM t) page_ WHERE a > ? ORDER BY a FETCH FIRST 5 ROWS ONLY",
+        dialect.getKeysetPagedQuery( "SELECT a FROM t", Arrays.asList( "a" ), true, 5 ) );
+  }
 }
@@ -75,4 +75,9 @@ public class H2DatabaseDialectTest {
     Assert.assertTrue( dialect.getReservedWords().length > 0 );
   }
 
+  @Test
+  public void testGetSQLNextSequenceValues() {
+    Assert.assertEquals( "SELECT NEXT VALUE FOR seq FROM SYSTEM_RANGE(1, 100)",
+        dialect.getSQLNextSequenceValues( "seq", 100 ) );
+  }
 }
@@ -17,11 +17,17 @@
 
 package org.pentaho.database.dialect;
 
+import java.util.List;
+import java.util.Arrays;
+
 import junit.framework.Assert;
 import org.junit.Test;
 import org.pentaho.database.model.DatabaseAccessType;
 import org.pentaho.database.model.DatabaseConnection;
+import org.pentaho.database.model.IDatabaseConnection;
 import org.pentaho.database.model.IDatabaseType;
+import org.pentaho.database.IValueMeta;
+import org.pentaho.database.ThinValueMeta;
 
 public class InformixDatabaseDialectTest {
 
@@ -107,4 +113,33 @@ public class InformixDatabaseDialectTest {
     Assert.assertEquals( dialect.getSQLLockTables( tables ).trim(),
         "LOCK TABLE " + tables[0] + " IN EXCLUSIVE MODE; LOCK TABLE " + tables[1] + " IN EXCLUSIVE MODE;" );
   }
+
+  @Test
+  public void testCreateNativeConnection() throws Exception {
+    String url = "jdbc:informix-sqli://host:9088/stores:INFORMIXSERVER=demo_on;DELIMIDENT=Y";
+    IDatabaseConnection conn = dialect.createNativeConnection( url );
+    Assert.assertEquals( "host", conn.getHostname() );
+    Assert.assertEquals( "9088", conn.getDatabasePort() );
+    Assert.assertEquals( "stores", conn.getDatabaseName() );
+    Assert.assertEquals( "demo_on", conn.getInformixServername() );
+    Assert.assertTrue( conn.getExtraOptions().isEmpty() );
+    Assert.assertEquals( url, dialect.getURLWithExtraOptions( conn ) );
+  }
+
+  @Test
+  public void testMultiRowInsert() {
+    List<IValueMeta> columns = Arrays.<IValueMeta>asList( new ThinValueMeta( "id", IValueMeta.TYPE_INTEGER, 9, 0 ) );
+    Assert.assertEquals( "INSERT INTO t (id) SELECT CAST(? AS INTEGER) FROM systables WHERE tabid = 1"
+        + " UNION ALL SELECT CAST(? AS INTEGER) FROM systables WHERE tabid = 1",
+        dialect.getMultiRowInsertStatement( "t", columns, 2 ) );
+    Assert.assertEquals( 250, dialect.getInsertBatchSize( 1 ) );
+  }
+
+  @Test
+  public void testGetPagedQuery() {
+    Assert.assertEquals( "SELECT FIRST 10 * FROM (SELECT id FROM t) page_ ORDER BY id",
+        dialect.getPagedQuery( "SELECT id FROM t", "id", 0, 10 ) );
+    Assert.assertEquals( "SELECT SKIP 20 FIRST 10 * FROM (SELECT id FROM t) page_",
+        dialect.getPagedQuery( "SELECT id FROM t", null, 20, 10 ) );
+  }
 }
@@ -0,0 +1,59 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+
+package org.pentaho.database.dialect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class JdbcUrlTokenizerTest {
+
+  @Test
+  public void testNextStopsAtFirstDelimiter() {
+    JdbcUrlTokenizer tokenizer = new JdbcUrlTokenizer( "jdbc:mysql://host:3306/db?a=1", "jdbc:mysql://".length() );
+    assertEquals( "host", tokenizer.next( ":", "/", "?" ) );
+    assertTrue( tokenizer.skip( ":" ) );
+    assertEquals( "3306", tokenizer.next( "/", "?" ) );
+    assertFalse( tokenizer.skip( "?" ) );
+    assertTrue( tokenizer.skip( "/" ) );
+    assertEquals( "db", tokenizer.next( "?" ) );
+    assertTrue( tokenizer.lookingAt( "?" ) );
+    assertEquals( "?a=1", tokenizer.rest() );
+    assertFalse( tokenizer.hasMore() );
+  }
+
+  @Test
+  public void testNextReadsToEndWithoutDelimiter() {
+    JdbcUrlTokenizer tokenizer = new JdbcUrlTokenizer( "testdb", 0 );
+    assertEquals( "testdb", tokenizer.next( ";", null ) );
+    assertFalse( tokenizer.hasMore() );
+    assertEquals( "", tokenizer.next( ";" ) );
+    assertEquals( "", tokenizer.rest() );
+  }
+
+  @Test
+  public void testMultiCharacterDelimiters() {
+    JdbcUrlTokenizer tokenizer = new JdbcUrlTokenizer( "a/b//c", 0 );
+    assertEquals( "a/b", tokenizer.next( "//" ) );
+    assertTrue( tokenizer.skip( "//" ) );
+    assertFalse( tokenizer.lookingAt( "" ) );
+    assertEquals( "c", tokenizer.rest() );
+  }
+}
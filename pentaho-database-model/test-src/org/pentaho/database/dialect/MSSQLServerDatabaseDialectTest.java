@@ -17,8 +17,13 @@
 
 package org.pentaho.database.dialect;
 
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+
 import junit.framework.Assert;
 import org.junit.Test;
+import org.pentaho.database.BulkCommand;
 import org.pentaho.database.IValueMeta;
 import org.pentaho.database.ThinValueMeta;
 import org.pentaho.database.model.DatabaseAccessType;
@@ -233,4 +238,62 @@ public class MSSQLServerDatabaseDialectTest {
   public void testSupportsCatalogs() {
     Assert.assertFalse( dialect.supportsCatalogs() );
   }
+
+  @Test
+  public void testInsertBatchSize() {
+    // a table value constructor takes 1000 rows, a request 2100 parameters of which the driver uses two
+    Assert.assertEquals( 2098, dialect.getMaxBindParameters() );
+    Assert.assertEquals( 1000, dialect.getInsertBatchSize( 2 ) );
+    Assert.assertEquals( 699, dialect.getInsertBatchSize( 3 ) );
+    Assert.assertEquals( 2, dialect.getInsertBatchSize( 1049 ) );
+    Assert.assertEquals( 1, dialect.getInsertBatchSize( 1050 ) );
+    Assert.assertEquals( 1, dialect.getInsertBatchSize( 3000 ) );
+
+    List<IValueMeta> columns = new ArrayList<IValueMeta>();
+    for ( int i = 0; i < 21; i++ ) {
+      columns.add( new ThinValueMeta( "c" + i ) );
+    }
+    List<String> statements = dialect.getMultiRowInsertStatements( "t", columns, 250 );
+    Assert.assertEquals( 3, statements.size() );
+    for ( String statement : statements ) {
+      Assert.assertTrue( statement.split( "\\?" ).length - 1 <= 2098 );
+    }
+  }
+
+  @Test
+  public void testGetBulkLoadCommand() {
+    List<IValueMeta> columns = Arrays.<IValueMeta>asList( new ThinValueMeta( "id", IValueMeta.TYPE_INTEGER, 9, 0 ),
+        new ThinValueMeta( "name" ) );
+    Assert.assertTrue( dialect.supportsBulkLoad() );
+    BulkCommand command = dialect.getBulkLoadCommand( "t", columns, "D:\\load\\t.txt" );
+    Assert.assertEquals( "BULK INSERT t FROM 'D:\\load\\t.txt' WITH (FIELDTERMINATOR = '\\t', ROWTERMINATOR = '0x0a',"
+        + " CODEPAGE = '65001', KEEPNULLS, TABLOCK)", command.getSql() );
+    Assert.assertEquals( BulkCommand.Channel.SERVER_FILE, command.getChannel() );
+    StringBuilder record = new StringBuilder();
+    command.getFormat().appendRecord( record, Arrays.asList( "1", null ) );
+    Assert.assertEquals( "1\t\n", record.toString() );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testBulkLoadRejectsValuesItCannotEscape() {
+    List<IValueMeta> columns = Arrays.<IValueMeta>asList( new ThinValueMeta( "id", IValueMeta.TYPE_INTEGER, 9, 0 ),
+        new ThinValueMeta( "name" ) );
+    dialect.getBulkLoadCommand( "t", columns, "t.txt" ).getFormat().appendField( new StringBuilder(), "a\tb" );
+  }
+
+  @Test
+  public void testNoBulkExtract() {
+    Assert.assertFalse( dialect.supportsBulkExtract() );
+    Assert.assertNull( dialect.getBulkExtractCommand( "SELECT id FROM t", "t.txt" ) );
+  }
+
+  @Test
+  public void testGetPagedQuery() {
+    Assert.assertEquals( "SELECT TOP 10 * FROM (SELECT id FROM t) page_ ORDER BY id",
+        dialect.getPagedQuery( "SELECT id FROM t", "id", 0, 10 ) );
+    Assert.assertEquals( "SELECT id FROM t ORDER BY id OFFSET 20 ROWS FETCH NEXT 10 ROWS ONLY",
+        dialect.getPagedQuery( "SELECT id FROM t", "id", 20, 10 ) );
+    Assert.assertEquals( "SELECT id FROM t ORDER BY (SELECT NULL) OFFSET 20 ROWS FETCH NEXT 10 ROWS ONLY",
+        dialect.getPagedQuery( "SELECT id FROM t", null, 20, 10 ) );
+  }
 }
@@ -21,6 +21,7 @@ import junit.framework.Assert;
 import org.junit.Test;
 import org.pentaho.database.model.DatabaseAccessType;
 import org.pentaho.database.model.DatabaseConnection;
+import org.pentaho.database.model.IDatabaseConnection;
 import org.pentaho.database.model.IDatabaseType;
 
 public class MSSQLServerNativeDatabaseDialectTest {
@@ -59,4 +60,17 @@ public class MSSQLServerNativeDatabaseDialectTest {
     IDatabaseType dbType = dialect.getDatabaseType();
     Assert.assertEquals( dbType.getName(), "MS SQL Server (Native)" );
   }
+
+  @Test
+  public void testCreateNativeConnection() throws Exception {
+    String url = "jdbc:sqlserver://host\\SQLEXPRESS:1433;databaseName=db;integratedSecurity=true;encrypt=true";
+    IDatabaseConnection conn = dialect.createNativeConnection( url );
+    Assert.assertEquals( "host\\SQLEXPRESS", conn.getHostname() );
+    Assert.assertEquals( "1433", conn.getDatabasePort() );
+    Assert.assertEquals( "db", conn.getDatabaseName() );
+    Assert.assertEquals( "true",
+        conn.getAttributes().get( MSSQLServerNativeDatabaseDialect.ATTRIBUTE_USE_INTEGRATED_SECURITY ) );
+    Assert.assertEquals( "true", conn.getExtraOptions().get( "MSSQLNative.encrypt" ) );
+    Assert.assertEquals( url, dialect.getURLWithExtraOptions( conn ) );
+  }
 }
@@ -17,8 +17,14 @@
 
 package org.pentaho.database.dialect;
 
+import java.util.Arrays;
+import java.util.List;
+
 import junit.framework.Assert;
 import org.junit.Test;
+import org.pentaho.database.BulkCommand;
+import org.pentaho.database.IValueMeta;
+import org.pentaho.database.ThinValueMeta;
 import org.pentaho.database.model.DatabaseAccessType;
 import org.pentaho.database.model.DatabaseConnection;
 import org.pentaho.database.model.IDatabaseType;
@@ -74,4 +80,24 @@ public class MonetDatabaseDialectTest {
     IDatabaseType dbType = dialect.getDatabaseType();
     Assert.assertEquals( dbType.getName(), "MonetDB" );
   }
+
+  @Test
+  public void testGetBulkLoadCommand() {
+    List<IValueMeta> columns = Arrays.<IValueMeta>asList( new ThinValueMeta( "id", IValueMeta.TYPE_INTEGER, 9, 0 ),
+        new ThinValueMeta( "name" ) );
+    Assert.assertTrue( dialect.supportsBulkLoad() );
+    BulkCommand command = dialect.getBulkLoadCommand( "t", columns, "/tmp/t.txt" );
+    Assert.assertEquals( "COPY INTO t (id, name) FROM '/tmp/t.txt' USING DELIMITERS E'\\t', E'\\n' NULL AS E'\\\\N'",
+        command.getSql() );
+    Assert.assertEquals( BulkCommand.Channel.SERVER_FILE, command.getChannel() );
+  }
+
+  @Test
+  public void testGetBulkExtractCommand() {
+    Assert.assertTrue( dialect.supportsBulkExtract() );
+    BulkCommand command = dialect.getBulkExtractCommand( "SELECT id FROM t", null );
+    Assert.assertEquals( "COPY SELECT id FROM t INTO STDOUT USING DELIMITERS E'\\t', E'\\n', '' NULL AS E'\\\\N'",
+        command.getSql() );
+    Assert.assertEquals( BulkCommand.Channel.STDOUT, command.getChannel() );
+  }
 }
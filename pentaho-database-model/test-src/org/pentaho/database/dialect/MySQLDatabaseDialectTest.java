@@ -17,14 +17,21 @@
 
 package org.pentaho.database.dialect;
 
+import java.util.List;
+import java.util.Arrays;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 
 import org.junit.Test;
 import org.pentaho.database.model.DatabaseAccessType;
 import org.pentaho.database.model.DatabaseConnection;
 import org.pentaho.database.model.IDatabaseType;
+import org.pentaho.database.BulkCommand;
+import org.pentaho.database.IValueMeta;
+import org.pentaho.database.ThinValueMeta;
 
 public class MySQLDatabaseDialectTest {
 
@@ -127,4 +134,84 @@ public class MySQLDatabaseDialectTest {
   public void testGetStartQuote() {
     assertEquals( dialect.getStartQuote(), "`" );
   }
+
+  @Test
+  public void testQuoteIdentifierIfNeeded() {
+    DatabaseConnection conn = new DatabaseConnection();
+    String plain = "customer_name";
+    assertSame( plain, dialect.quoteIdentifierIfNeeded( conn, plain ) );
+    assertEquals( "`select`", dialect.quoteIdentifierIfNeeded( conn, "select" ) );
+    assertEquals( "`order date`", dialect.quoteIdentifierIfNeeded( conn, "order date" ) );
+    assertEquals( "`1st`", dialect.quoteIdentifierIfNeeded( conn, "1st" ) );
+    assertEquals( "`a``b`", dialect.quoteIdentifierIfNeeded( conn, "a`b" ) );
+    assertEquals( "`already quoted`", dialect.quoteIdentifierIfNeeded( conn, "`already quoted`" ) );
+
+    conn.setForcingIdentifiersToUpperCase( true );
+    assertEquals( "CUSTOMER_NAME", dialect.quoteIdentifierIfNeeded( conn, plain ) );
+
+    conn.setForcingIdentifiersToLowerCase( true );
+    conn.setQuoteAllFields( true );
+    assertEquals( "`customer_name`", dialect.quoteIdentifierIfNeeded( conn, "Customer_Name" ) );
+
+    assertEquals( "`select`", dialect.quoteIdentifierIfNeeded( null, "select" ) );
+  }
+
+  @Test
+  public void testMultiRowInsert() {
+    List<IValueMeta> columns = Arrays.<IValueMeta>asList( new ThinValueMeta( "id", IValueMeta.TYPE_INTEGER ),
+        new ThinValueMeta( "name", IValueMeta.TYPE_STRING ) );
+    assertEquals( "INSERT INTO t (id, name) VALUES (?, ?), (?, ?), (?, ?)",
+        dialect.getMultiRowInsertStatement( "t", columns, 3 ) );
+    assertEquals( 1000, dialect.getInsertBatchSize( 2 ) );
+    // 65535 placeholders at most
+    assertEquals( 655, dialect.getInsertBatchSize( 100 ) );
+
+    List<String> statements = dialect.getMultiRowInsertStatements( "t", columns, 2500 );
+    assertEquals( 3, statements.size() );
+    assertSame( statements.get( 0 ), statements.get( 1 ) );
+    assertTrue( statements.get( 0 ).endsWith( "), (?, ?)" ) );
+    assertEquals( dialect.getMultiRowInsertStatement( "t", columns, 500 ), statements.get( 2 ) );
+    assertTrue( dialect.getMultiRowInsertStatements( "t", columns, 0 ).isEmpty() );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testMultiRowInsertAboveLimit() {
+    dialect.getMultiRowInsertStatement( "t", Arrays.<IValueMeta>asList( new ThinValueMeta( "id" ) ), 1001 );
+  }
+
+  @Test
+  public void testGetBulkLoadCommand() {
+    List<IValueMeta> columns = Arrays.<IValueMeta>asList( new ThinValueMeta( "id", IValueMeta.TYPE_INTEGER, 9, 0 ),
+        new ThinValueMeta( "name" ) );
+    assertTrue( dialect.supportsBulkLoad() );
+    BulkCommand command = dialect.getBulkLoadCommand( "t", columns, "C:\\load\\it's.txt" );
+    assertEquals( "LOAD DATA LOCAL INFILE 'C:\\\\load\\\\it''s.txt' INTO TABLE t CHARACTER SET utf8mb4"
+        + " FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n' (id, name)", command.getSql() );
+    assertEquals( BulkCommand.Channel.CLIENT_FILE, command.getChannel() );
+  }
+
+  @Test
+  public void testGetBulkExtractCommand() {
+    assertTrue( dialect.supportsBulkExtract() );
+    BulkCommand command = dialect.getBulkExtractCommand( "SELECT id FROM t ORDER BY id LIMIT 10", "/var/lib/t.txt" );
+    assertEquals( "SELECT * FROM (SELECT id FROM t ORDER BY id LIMIT 10) extract INTO OUTFILE '/var/lib/t.txt'"
+        + " CHARACTER SET utf8mb4 FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n'",
+        command.getSql() );
+    assertEquals( BulkCommand.Channel.SERVER_FILE, command.getChannel() );
+  }
+
+  @Test
+  public void testGetPagedQuery() {
+    assertEquals( "SELECT id FROM t WHERE x = 1 ORDER BY id LIMIT 10",
+        dialect.getPagedQuery( "SELECT id FROM t WHERE x = 1", "id", 0, 10 ) );
+    assertEquals( "SELECT id FROM t ORDER BY id LIMIT 10 OFFSET 20",
+        dialect.getPagedQuery( "SELECT id FROM t", "id", 20, 10 ) );
+    assertEquals( "SELECT * FROM (SELECT id FROM t) page_ WHERE id > ? ORDER BY id LIMIT 10",
+        dialect.getKeysetPagedQuery( "SELECT id FROM t", Arrays.asList( "id" ), true, 10 ) );
+  }
+
+  @Test
+  public void testNoSequenceValues() {
+    assertEquals( "", dialect.getSQLNextSequenceValues( "seq", 100 ) );
+  }
 }
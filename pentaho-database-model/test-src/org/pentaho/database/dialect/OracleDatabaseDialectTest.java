@@ -17,10 +17,16 @@
 
 package org.pentaho.database.dialect;
 
+import java.util.List;
+import java.util.Arrays;
+
 import junit.framework.Assert;
 import org.junit.Test;
+import org.pentaho.database.IValueMeta;
+import org.pentaho.database.ThinValueMeta;
 import org.pentaho.database.model.DatabaseAccessType;
 import org.pentaho.database.model.DatabaseConnection;
+import org.pentaho.database.model.IDatabaseConnection;
 import org.pentaho.database.model.IDatabaseType;
 
 public class OracleDatabaseDialectTest {
@@ -166,4 +172,89 @@ public class OracleDatabaseDialectTest {
     Assert.assertEquals( dialect.getSQLQueryColumnFields( tableName, columnName ),
         "SELECT /*+FIRST_ROWS*/ " + tableName + " FROM " + columnName + " WHERE ROWNUM < 1" );
   }
+
+  @Test
+  public void testAppendModifyColumnStatement() {
+    IValueMeta valueMeta = new ThinValueMeta( "amount", IValueMeta.TYPE_NUMBER, 10, 2 );
+    StringBuilder sql = new StringBuilder( "-- modify" + AbstractDatabaseDialect.CR );
+    dialect.appendModifyColumnStatement( sql, "orders", valueMeta, null, false, null, true );
+    Assert.assertEquals( "-- modify" + AbstractDatabaseDialect.CR
+        + dialect.getModifyColumnStatement( "orders", valueMeta, null, false, null, true ), sql.toString() );
+    Assert.assertEquals( "ALTER TABLE orders ADD ( amount_KTL NUMBER(10, 2) ) ; "
+        + "UPDATE orders SET amount_KTL=amount; "
+        + "ALTER TABLE orders DROP ( amount )  ; "
+        + "ALTER TABLE orders ADD ( amount NUMBER(10, 2) ) ; "
+        + "UPDATE orders SET amount=amount_KTL; "
+        + "ALTER TABLE orders DROP ( amount_KTL )  ",
+        dialect.getModifyColumnStatement( "orders", valueMeta, null, false, null, true ) );
+  }
+
+  @Test
+  public void testModifyColumnUsesOverriddenDropStatement() {
+    OracleDatabaseDialect purging = new OracleDatabaseDialect() {
+      @Override
+      public String getDropColumnStatement( String tablename, IValueMeta v, String tk, boolean use_autoinc,
+          String pk, boolean semicolon ) {
+        return "ALTER TABLE " + tablename + " DROP COLUMN " + v.getName() + " PURGE";
+      }
+    };
+    IValueMeta valueMeta = new ThinValueMeta( "amount", IValueMeta.TYPE_NUMBER, 10, 2 );
+    Assert.assertEquals( "ALTER TABLE orders ADD ( amount_KTL NUMBER(10, 2) ) ; "
+        + "UPDATE orders SET amount_KTL=amount; "
+        + "ALTER TABLE orders DROP COLUMN amount PURGE; "
+        + "ALTER TABLE orders ADD ( amount NUMBER(10, 2) ) ; "
+        + "UPDATE orders SET amount=amount_KTL; "
+        + "ALTER TABLE orders DROP COLUMN amount_KTL PURGE",
+        purging.getModifyColumnStatement( "orders", valueMeta, null, false, null, true ) );
+  }
+
+  @Test
+  public void testCreateNativeConnection() throws Exception {
+    IDatabaseConnection conn = dialect.createNativeConnection( "jdbc:oracle:thin:@host:1521:ORCL" );
+    Assert.assertEquals( "host", conn.getHostname() );
+    Assert.assertEquals( "1521", conn.getDatabasePort() );
+    Assert.assertEquals( "ORCL", conn.getDatabaseName() );
+    Assert.assertEquals( "jdbc:oracle:thin:@host:1521:ORCL", dialect.getURLWithExtraOptions( conn ) );
+
+    conn = dialect.createNativeConnection( "jdbc:oracle:thin:@//host:1521/service.example.com" );
+    Assert.assertEquals( "host", conn.getHostname() );
+    Assert.assertEquals( "1521", conn.getDatabasePort() );
+    Assert.assertEquals( "/service.example.com", conn.getDatabaseName() );
+    Assert.assertEquals( "jdbc:oracle:thin:@host:1521/service.example.com", dialect.getURLWithExtraOptions( conn ) );
+
+    String tns = "(DESCRIPTION=(ADDRESS=(PROTOCOL=TCP)(HOST=host)(PORT=1521))(CONNECT_DATA=(SERVICE_NAME=service)))";
+    conn = dialect.createNativeConnection( "jdbc:oracle:thin:@" + tns );
+    Assert.assertNull( conn.getHostname() );
+    Assert.assertNull( conn.getDatabasePort() );
+    Assert.assertEquals( tns, conn.getDatabaseName() );
+    Assert.assertEquals( "jdbc:oracle:thin:@" + tns, dialect.getURLWithExtraOptions( conn ) );
+  }
+
+  @Test
+  public void testMultiRowInsert() {
+    List<IValueMeta> columns = Arrays.<IValueMeta>asList( new ThinValueMeta( "ID" ), new ThinValueMeta( "NAME" ) );
+    Assert.assertEquals( "INSERT ALL INTO T (ID, NAME) VALUES (?, ?) INTO T (ID, NAME) VALUES (?, ?)"
+        + " SELECT * FROM DUAL",
+        dialect.getMultiRowInsertStatement( "T", columns, 2 ) );
+    Assert.assertEquals( "INSERT INTO T (ID, NAME) VALUES (?, ?)",
+        dialect.getMultiRowInsertStatement( "T", columns, 1 ) );
+    // the INTO clauses name at most 999 columns between them
+    Assert.assertEquals( 499, dialect.getInsertBatchSize( 2 ) );
+    Assert.assertEquals( 1, dialect.getInsertBatchSize( 1000 ) );
+  }
+
+  @Test
+  public void testGetPagedQuery() {
+    Assert.assertEquals( "SELECT * FROM (SELECT id FROM t WHERE x = 1 ORDER BY id) WHERE ROWNUM <= 10",
+        dialect.getPagedQuery( "SELECT id FROM t WHERE x = 1", "id", 0, 10 ) );
+    Assert.assertEquals( "SELECT * FROM (SELECT page_.*, ROWNUM page_rn FROM (SELECT id FROM t WHERE x = 1 ORDER BY id)"
+        + " page_ WHERE ROWNUM <= 30) WHERE page_rn > 20", dialect.getPagedQuery( "SELECT id FROM t WHERE x = 1", "id",
+        20, 10 ) );
+  }
+
+  @Test
+  public void testGetSQLNextSequenceValues() {
+    Assert.assertEquals( "SELECT seq.nextval FROM dual CONNECT BY LEVEL <= 100",
+        dialect.getSQLNextSequenceValues( "seq", 100 ) );
+  }
 }
@@ -17,7 +17,12 @@
 
 package org.pentaho.database.dialect;
 
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.Test;
+import org.pentaho.database.BulkCommand;
+import org.pentaho.database.BulkFormat;
 import org.pentaho.database.IValueMeta;
 import org.pentaho.database.ThinValueMeta;
 import org.pentaho.database.model.DatabaseAccessType;
@@ -167,6 +172,18 @@ public class PostgreSQLDatabaseDialectTest {
 
   }
 
+  @Test
+  public void testAppendFieldDefinition() {
+    StringBuilder sql = new StringBuilder( "CREATE TABLE orders (" );
+    dialect.appendFieldDefinition( sql, new ThinValueMeta( "id", IValueMeta.TYPE_INTEGER, 9, 0 ), "id", null, false,
+        true, false );
+    sql.append( ", " );
+    dialect.appendFieldDefinition( sql, new ThinValueMeta( "name", IValueMeta.TYPE_STRING, 50, 0 ), "id", null, false,
+        true, false );
+    sql.append( ")" );
+    Assert.assertEquals( "CREATE TABLE orders (id BIGSERIAL, name VARCHAR(50))", sql.toString() );
+  }
+
   @Test
   public void testGetURL() {
     DatabaseConnection conn = new DatabaseConnection();
@@ -198,4 +215,54 @@ public class PostgreSQLDatabaseDialectTest {
   public void testGetReservedWords() {
     Assert.assertTrue( dialect.getReservedWords().length > 0 );
   }
+
+  @Test
+  public void testGetBulkLoadCommand() {
+    List<IValueMeta> columns = Arrays.<IValueMeta>asList( new ThinValueMeta( "id", IValueMeta.TYPE_INTEGER, 9, 0 ),
+        new ThinValueMeta( "name" ) );
+    Assert.assertTrue( dialect.supportsBulkLoad() );
+    BulkCommand command = dialect.getBulkLoadCommand( "t", columns, null );
+    Assert.assertEquals( "COPY t (id, name) FROM STDIN", command.getSql() );
+    Assert.assertEquals( BulkCommand.Channel.STDIN, command.getChannel() );
+    Assert.assertSame( BulkFormat.TEXT, command.getFormat() );
+  }
+
+  @Test
+  public void testRedshiftBulkLoadReadsFromS3() {
+    List<IValueMeta> columns = Arrays.<IValueMeta>asList( new ThinValueMeta( "id", IValueMeta.TYPE_INTEGER, 9, 0 ),
+        new ThinValueMeta( "name" ) );
+    BulkCommand command = new RedshiftDatabaseDialect().getBulkLoadCommand( "t", columns, "s3://bucket/it's" );
+    Assert.assertEquals( "COPY t (id, name) FROM 's3://bucket/it''s' DELIMITER '\\t' ESCAPE", command.getSql() );
+    Assert.assertEquals( BulkCommand.Channel.OBJECT_STORE, command.getChannel() );
+  }
+
+  @Test
+  public void testGetBulkExtractCommand() {
+    Assert.assertTrue( dialect.supportsBulkExtract() );
+    BulkCommand command = dialect.getBulkExtractCommand( "SELECT id FROM t", null );
+    Assert.assertEquals( "COPY (SELECT id FROM t) TO STDOUT", command.getSql() );
+    Assert.assertEquals( BulkCommand.Channel.STDOUT, command.getChannel() );
+    Assert.assertSame( BulkFormat.TEXT, command.getFormat() );
+  }
+
+  @Test
+  public void testRedshiftBulkExtractUnloadsToS3() {
+    BulkCommand command =
+        new RedshiftDatabaseDialect().getBulkExtractCommand( "SELECT id FROM t WHERE name = 'a\\b'", "s3://bucket/t_" );
+    Assert.assertEquals( "UNLOAD ('SELECT id FROM t WHERE name = ''a\\\\b''') TO 's3://bucket/t_'"
+        + " DELIMITER AS '\\t' NULL AS '\\\\N' ESCAPE", command.getSql() );
+    Assert.assertEquals( BulkCommand.Channel.OBJECT_STORE, command.getChannel() );
+  }
+
+  @Test
+  public void testGetPagedQuery() {
+    Assert.assertEquals( "SELECT id FROM t ORDER BY id LIMIT 10 OFFSET 20",
+        dialect.getPagedQuery( "SELECT id FROM t", "id", 20, 10 ) );
+  }
+
+  @Test
+  public void testGetSQLNextSequenceValues() {
+    Assert.assertEquals( "SELECT nextval('seq') FROM generate_series(1, 100)",
+        dialect.getSQLNextSequenceValues( "seq", 100 ) );
+  }
 }
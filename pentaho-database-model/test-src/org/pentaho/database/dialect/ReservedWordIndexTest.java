@@ -0,0 +1,59 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+
+package org.pentaho.database.dialect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ReservedWordIndexTest {
+
+  @Test
+  public void testContainsIgnoresCase() {
+    ReservedWordIndex index = new ReservedWordIndex( new String[] { "SELECT", "from", "Where" } );
+    assertTrue( index.contains( "select" ) );
+    assertTrue( index.contains( "FROM" ) );
+    assertTrue( index.contains( new StringBuilder( "wHeRe" ) ) );
+    assertFalse( index.contains( "selects" ) );
+    assertFalse( index.contains( "sel" ) );
+    assertFalse( index.contains( "" ) );
+    assertFalse( index.contains( null ) );
+  }
+
+  @Test
+  public void testDuplicatesAndBlanksAreIgnored() {
+    ReservedWordIndex index = new ReservedWordIndex( new String[] { "KEY", "key", null, "", "Key" } );
+    assertEquals( 1, index.size() );
+  }
+
+  @Test
+  public void testEveryDialectWordIsIndexed() {
+    AbstractDatabaseDialect[] dialects =
+      { new OracleDatabaseDialect(), new PostgreSQLDatabaseDialect(), new MySQLDatabaseDialect(),
+        new TeradataDatabaseDialect(), new VerticaDatabaseDialect(), new MSSQLServerDatabaseDialect() };
+    for ( AbstractDatabaseDialect dialect : dialects ) {
+      for ( String word : dialect.getReservedWords() ) {
+        assertTrue( word, dialect.isReservedWord( word ) );
+        assertTrue( word, dialect.isReservedWord( word.toLowerCase() ) );
+      }
+      assertFalse( dialect.isReservedWord( "customer_name" ) );
+    }
+  }
+}
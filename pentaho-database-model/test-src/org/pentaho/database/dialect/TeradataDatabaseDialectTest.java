@@ -17,12 +17,16 @@
 
 package org.pentaho.database.dialect;
 
+import java.util.List;
+import java.util.Arrays;
+
 import junit.framework.Assert;
 import org.junit.Test;
 import org.pentaho.database.IValueMeta;
 import org.pentaho.database.ThinValueMeta;
 import org.pentaho.database.model.DatabaseAccessType;
 import org.pentaho.database.model.DatabaseConnection;
+import org.pentaho.database.model.IDatabaseConnection;
 import org.pentaho.database.model.IDatabaseType;
 
 public class TeradataDatabaseDialectTest {
@@ -165,4 +169,49 @@ public class TeradataDatabaseDialectTest {
     Assert.assertEquals( dialect.getURL( conn ), "jdbc:teradata://null" );
   }
 
+  @Test
+  public void testCreateNativeConnection() throws Exception {
+    String url = "jdbc:teradata://host/DATABASE=db,DBS_PORT=1025,CHARSET=UTF8";
+    IDatabaseConnection conn = dialect.createNativeConnection( url );
+    Assert.assertEquals( "host", conn.getHostname() );
+    Assert.assertEquals( "db", conn.getDatabaseName() );
+    Assert.assertEquals( "1025", conn.getDatabasePort() );
+    Assert.assertEquals( 1, conn.getExtraOptions().size() );
+    Assert.assertEquals( "UTF8", conn.getExtraOptions().get( "TERADATA.CHARSET" ) );
+    Assert.assertEquals( url, dialect.getURLWithExtraOptions( conn ) );
+
+    // the '/' of the protocol is not the option indicator
+    url = "jdbc:teradata://host/CHARSET=UTF8";
+    conn = dialect.createNativeConnection( url );
+    Assert.assertNull( conn.getDatabaseName() );
+    Assert.assertEquals( url, dialect.getURLWithExtraOptions( conn ) );
+  }
+
+  @Test
+  public void testMultiRowInsert() {
+    List<IValueMeta> columns = Arrays.<IValueMeta>asList( new ThinValueMeta( "id", IValueMeta.TYPE_INTEGER, 9, 0 ),
+        new ThinValueMeta( "name", IValueMeta.TYPE_STRING, 20, 0 ) );
+    // every SELECT of a UNION has to reference a table
+    Assert.assertEquals( "INSERT INTO t (id, name) SELECT CAST(? AS INTEGER), CAST(? AS VARCHAR(20))"
+        + " FROM DBC.DBCInfo WHERE InfoKey = 'VERSION'"
+        + " UNION ALL SELECT CAST(? AS INTEGER), CAST(? AS VARCHAR(20)) FROM DBC.DBCInfo WHERE InfoKey = 'VERSION'",
+        dialect.getMultiRowInsertStatement( "t", columns, 2 ) );
+    Assert.assertEquals( "INSERT INTO t (id, name) VALUES (?, ?)",
+        dialect.getMultiRowInsertStatement( "t", columns, 1 ) );
+    Assert.assertEquals( 500, dialect.getInsertBatchSize( 2 ) );
+    Assert.assertEquals( 204, dialect.getInsertBatchSize( 10 ) );
+  }
+
+  @Test
+  public void testGetPagedQuery() {
+    Assert.assertEquals( "SELECT TOP 10 * FROM (SELECT id FROM t) page_ ORDER BY id",
+        dialect.getPagedQuery( "SELECT id FROM t", "id", 0, 10 ) );
+    Assert.assertEquals( "SELECT * FROM (SELECT id FROM t) page_ QUALIFY ROW_NUMBER() OVER (ORDER BY id)"
+        + " BETWEEN 21 AND 30 ORDER BY id", dialect.getPagedQuery( "SELECT id FROM t", "id", 20, 10 ) );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void testGetPagedQueryNeedsOrderToSkip() {
+    dialect.getPagedQuery( "SELECT id FROM t", null, 20, 10 );
+  }
 }
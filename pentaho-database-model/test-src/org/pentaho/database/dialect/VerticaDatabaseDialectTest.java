@@ -17,8 +17,14 @@
 
 package org.pentaho.database.dialect;
 
+import java.util.Arrays;
+import java.util.List;
+
 import junit.framework.Assert;
 import org.junit.Test;
+import org.pentaho.database.BulkCommand;
+import org.pentaho.database.IValueMeta;
+import org.pentaho.database.ThinValueMeta;
 import org.pentaho.database.model.DatabaseAccessType;
 import org.pentaho.database.model.DatabaseConnection;
 import org.pentaho.database.model.IDatabaseType;
@@ -141,4 +147,30 @@ public class VerticaDatabaseDialectTest {
     Assert.assertEquals( dialect.getLimitClause( nrRows ), " LIMIT " + nrRows );
   }
 
+  @Test
+  public void testGetBulkLoadCommand() {
+    List<IValueMeta> columns = Arrays.<IValueMeta>asList( new ThinValueMeta( "id", IValueMeta.TYPE_INTEGER, 9, 0 ),
+        new ThinValueMeta( "name" ) );
+    Assert.assertTrue( dialect.supportsBulkLoad() );
+    BulkCommand command = dialect.getBulkLoadCommand( "t", columns, null );
+    Assert.assertEquals(
+        "COPY t (id, name) FROM STDIN DELIMITER E'\\t' NULL E'\\\\N' ESCAPE AS E'\\\\' DIRECT", command.getSql() );
+    Assert.assertEquals( BulkCommand.Channel.STDIN, command.getChannel() );
+  }
+
+  @Test
+  public void testGetBulkExtractCommand() {
+    Assert.assertTrue( dialect.supportsBulkExtract() );
+    BulkCommand command = dialect.getBulkExtractCommand( "SELECT id FROM t", "/data/t" );
+    Assert.assertEquals( "EXPORT TO DELIMITED (directory = '/data/t', delimiter = E'\\t', nullAsValue = E'\\\\N',"
+        + " escapeAs = E'\\\\') AS SELECT id FROM t", command.getSql() );
+    Assert.assertEquals( BulkCommand.Channel.SERVER_FILE, command.getChannel() );
+  }
+
+  @Test
+  public void testGetSQLNextSequenceValues() {
+    Assert.assertEquals( "SELECT nextval('seq') FROM (SELECT slice FROM (SELECT TIMESTAMP '2000-01-01' AS tm"
+        + " UNION ALL SELECT TIMESTAMPADD(SECOND, 99, TIMESTAMP '2000-01-01')) range_"
+        + " TIMESERIES slice AS '1 second' OVER (ORDER BY tm)) rows_", dialect.getSQLNextSequenceValues( "seq", 100 ) );
+  }
 }
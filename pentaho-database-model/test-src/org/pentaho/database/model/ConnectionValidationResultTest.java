@@ -0,0 +1,69 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2017 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.model;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.xml.bind.JAXBContext;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConnectionValidationResultTest {
+
+  @Test
+  public void testParameterResults() {
+    ConnectionValidationResult result =
+        new ConnectionValidationResult( Arrays.asList( "Please give this database connection a name" ) );
+    Assert.assertFalse( result.isSuccess() );
+    Assert.assertFalse( result.isTested() );
+    Assert.assertNull( result.getTestMessage() );
+
+    result = new ConnectionValidationResult( Collections.<String>emptyList() );
+    Assert.assertTrue( result.isSuccess() );
+    Assert.assertFalse( result.isTested() );
+
+    result.setParameterErrors( null );
+    Assert.assertTrue( result.getParameterErrors().isEmpty() );
+  }
+
+  @Test
+  public void testTestResults() {
+    ConnectionValidationResult result = new ConnectionValidationResult( false, "Error connecting to database [a] : x" );
+    Assert.assertTrue( result.isTested() );
+    Assert.assertFalse( result.isSuccess() );
+    Assert.assertTrue( result.getParameterErrors().isEmpty() );
+    Assert.assertEquals( "Error connecting to database [a] : x", result.getTestMessage() );
+  }
+
+  @Test
+  public void testJaxbRoundTrip() throws Exception {
+    ConnectionValidationResult result = new ConnectionValidationResult( Arrays.asList( "a", "b" ) );
+    JAXBContext context = JAXBContext.newInstance( ConnectionValidationResult.class );
+    StringWriter xml = new StringWriter();
+    context.createMarshaller().marshal( result, xml );
+
+    ConnectionValidationResult read =
+        (ConnectionValidationResult) context.createUnmarshaller().unmarshal( new StringReader( xml.toString() ) );
+    Assert.assertEquals( Arrays.asList( "a", "b" ), read.getParameterErrors() );
+    Assert.assertFalse( read.isSuccess() );
+    Assert.assertFalse( read.isTested() );
+  }
+}
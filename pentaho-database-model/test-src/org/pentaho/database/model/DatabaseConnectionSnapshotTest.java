@@ -0,0 +1,193 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.pentaho.database.dialect.MySQLDatabaseDialect;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+public class DatabaseConnectionSnapshotTest {
+  private static DatabaseConnection createConnection() {
+    DatabaseConnection connection = new DatabaseConnection();
+    connection.setName( "warehouse" );
+    connection.setDatabaseType( new MySQLDatabaseDialect().getDatabaseType() );
+    connection.setAccessType( DatabaseAccessType.NATIVE );
+    connection.setHostname( "db01" );
+    connection.setDatabasePort( "3306" );
+    connection.setDatabaseName( "sales" );
+    connection.setUsername( "etl" );
+    connection.setPassword( "secret" );
+    connection.addExtraOption( "MYSQL", "useSSL", "false" );
+    connection.getAttributes().put( "a", "1" );
+    connection.getAttributes().put( "b", "2" );
+    connection.setPartitioningInformation(
+      Collections.singletonList( new PartitionDatabaseMeta( "p1", "db02", "3306", "sales" ) ) );
+    return connection;
+  }
+
+  @Test
+  public void testEqualContentEqualSnapshots() {
+    DatabaseConnectionSnapshot snapshot = DatabaseConnectionSnapshot.of( createConnection() );
+    DatabaseConnectionSnapshot same = DatabaseConnectionSnapshot.of( createConnection() );
+    Assert.assertEquals( snapshot, same );
+    Assert.assertEquals( snapshot.hashCode(), same.hashCode() );
+    Assert.assertEquals( snapshot.getFingerprint(), same.getFingerprint() );
+    Assert.assertEquals( 32, snapshot.getFingerprint().length() );
+    Assert.assertSame( snapshot, DatabaseConnectionSnapshot.of( snapshot ) );
+    Assert.assertEquals( snapshot, DatabaseConnectionSnapshot.of( snapshot.toDatabaseConnection() ) );
+  }
+
+  @Test
+  public void testFingerprintFollowsContent() {
+    Set<String> fingerprints = new HashSet<String>();
+    fingerprints.add( DatabaseConnectionSnapshot.of( createConnection() ).getFingerprint() );
+
+    DatabaseConnection connection = createConnection();
+    connection.setHostname( "db02" );
+    Assert.assertTrue( fingerprints.add( DatabaseConnectionSnapshot.of( connection ).getFingerprint() ) );
+    connection = createConnection();
+    connection.addExtraOption( "MYSQL", "autoReconnect", "true" );
+    Assert.assertTrue( fingerprints.add( DatabaseConnectionSnapshot.of( connection ).getFingerprint() ) );
+    connection = createConnection();
+    connection.setStreamingResults( true );
+    Assert.assertTrue( fingerprints.add( DatabaseConnectionSnapshot.of( connection ).getFingerprint() ) );
+    connection = createConnection();
+    connection.getPartitioningInformation().get( 0 ).setHostname( "db03" );
+    Assert.assertTrue( fingerprints.add( DatabaseConnectionSnapshot.of( connection ).getFingerprint() ) );
+    connection = createConnection();
+    // the same characters split differently between two fields
+    connection.setHostname( "db0" );
+    connection.setDatabasePort( "13306" );
+    Assert.assertTrue( fingerprints.add( DatabaseConnectionSnapshot.of( connection ).getFingerprint() ) );
+  }
+
+  @Test
+  public void testPasswordNotInFingerprint() {
+    DatabaseConnection connection = createConnection();
+    connection.setPassword( "other" );
+    DatabaseConnectionSnapshot snapshot = DatabaseConnectionSnapshot.of( createConnection() );
+    DatabaseConnectionSnapshot otherPassword = DatabaseConnectionSnapshot.of( connection );
+    Assert.assertEquals( snapshot.getFingerprint(), otherPassword.getFingerprint() );
+    Assert.assertNotEquals( "A cache must not hand out a connection with another password", snapshot, otherPassword );
+    Assert.assertFalse( snapshot.toString().contains( "secret" ) );
+  }
+
+  @Test
+  public void testPartitionPasswordsTakePart() {
+    DatabaseConnection connection = createConnection();
+    connection.getPartitioningInformation().get( 0 ).setPassword( "p1secret" );
+    DatabaseConnectionSnapshot snapshot = DatabaseConnectionSnapshot.of( createConnection() );
+    DatabaseConnectionSnapshot otherPassword = DatabaseConnectionSnapshot.of( connection );
+    Assert.assertEquals( snapshot.getFingerprint(), otherPassword.getFingerprint() );
+    Assert.assertNotEquals( snapshot, otherPassword );
+    Assert.assertNotEquals( snapshot.hashCode(), otherPassword.hashCode() );
+    Assert.assertEquals( otherPassword, DatabaseConnectionSnapshot.of( connection ) );
+    Assert.assertEquals( otherPassword.hashCode(), DatabaseConnectionSnapshot.of( connection ).hashCode() );
+  }
+
+  @Test
+  public void testSnapshotIsDetached() throws Exception {
+    DatabaseConnection connection = createConnection();
+    DatabaseConnectionSnapshot snapshot = DatabaseConnectionSnapshot.of( connection );
+    connection.getAttributes().put( "c", "3" );
+    connection.getPartitioningInformation().get( 0 ).setHostname( "db03" );
+    Assert.assertEquals( 2, snapshot.getAttributes().size() );
+    Assert.assertEquals( "db02", snapshot.getPartitioningInformation().get( 0 ).getHostname() );
+
+    try {
+      snapshot.getExtraOptions().put( "MYSQL.autoReconnect", "true" );
+      Assert.fail();
+    } catch ( UnsupportedOperationException e ) {
+      // expected
+    }
+    try {
+      snapshot.setHostname( "db02" );
+      Assert.fail();
+    } catch ( UnsupportedOperationException e ) {
+      // expected
+    }
+    Assert.assertTrue( snapshot.getExtraOptionsOrder().isEmpty() );
+    Assert.assertEquals( "jdbc:mysql://db01:3306/sales?useSSL=false",
+      new MySQLDatabaseDialect().getURLWithExtraOptions( snapshot ) );
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream( bytes );
+    out.writeObject( snapshot );
+    out.close();
+    Object copy = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ).readObject();
+    Assert.assertEquals( snapshot, copy );
+  }
+
+  @Test
+  public void testInternedSnapshotsShareContent() {
+    ConnectionInterner interner = new ConnectionInterner();
+    DatabaseConnection connection = createConnection();
+    DatabaseConnection tenantCopy = createConnection();
+    tenantCopy.setHostname( new String( "db01" ) );
+    tenantCopy.setDatabaseType( new MySQLDatabaseDialect().getDatabaseType() );
+    tenantCopy.getAttributes().put( new String( "a" ), new String( "1" ) );
+
+    DatabaseConnectionSnapshot first = DatabaseConnectionSnapshot.of( connection, interner );
+    DatabaseConnectionSnapshot second = DatabaseConnectionSnapshot.of( tenantCopy, interner );
+    Assert.assertEquals( first, second );
+    Assert.assertSame( first.getHostname(), second.getHostname() );
+    Assert.assertSame( first.getDatabaseType(), second.getDatabaseType() );
+    Assert.assertSame( first.getAttributes().keySet().iterator().next(),
+      second.getAttributes().keySet().iterator().next() );
+    Assert.assertEquals( DatabaseConnectionSnapshot.of( connection ), first );
+  }
+
+  @Test
+  public void testCompactMaps() {
+    Map<String, String> map = new LinkedHashMap<String, String>();
+    Assert.assertSame( Collections.emptyMap(), ArrayMap.copyOf( map, null ) );
+    for ( int i = 0; i < ArrayMap.MAX_SIZE; i++ ) {
+      map.put( "key" + i, i % 2 == 0 ? null : "value" + i );
+    }
+    map.put( null, "null key" );
+    Map<String, String> copy = ArrayMap.copyOf( map, null );
+    Assert.assertEquals( map, copy );
+    Assert.assertEquals( copy, map );
+    Assert.assertEquals( map.hashCode(), copy.hashCode() );
+    Assert.assertEquals( new ArrayList<String>( map.keySet() ), new ArrayList<String>( copy.keySet() ) );
+
+    map.remove( null );
+    copy = ArrayMap.copyOf( map, null );
+    Assert.assertTrue( copy instanceof ArrayMap );
+    Assert.assertTrue( copy.containsKey( "key0" ) );
+    Assert.assertNull( copy.get( "key0" ) );
+    Assert.assertEquals( "value1", copy.get( "key1" ) );
+    Assert.assertFalse( copy.containsKey( "key" + ArrayMap.MAX_SIZE ) );
+    try {
+      copy.put( "key1", "other" );
+      Assert.fail();
+    } catch ( UnsupportedOperationException e ) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.pentaho.database.dialect.MySQLDatabaseDialect;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class ExtraOptionsTest {
+  @Test
+  public void testOptionsKeepTheirOrder() {
+    ExtraOptions options = new ExtraOptions();
+    options.put( "MYSQL.zeroDateTimeBehavior", "convertToNull" );
+    options.put( "ORACLE.ignored", "x" );
+    options.put( "MYSQL.useSSL", "" );
+    options.put( "MYSQL.autoReconnect", "true" );
+
+    Assert.assertEquals( Arrays.asList( "zeroDateTimeBehavior", "useSSL", "autoReconnect" ),
+      Arrays.asList( options.getOptions( "MYSQL" ).keySet().toArray() ) );
+    Assert.assertEquals( "zeroDateTimeBehavior=convertToNull&useSSL&autoReconnect=true",
+      options.getUrlOptions( "MYSQL", "&", "=" ) );
+    Assert.assertEquals( "", options.getUrlOptions( "POSTGRESQL", "&", "=" ) );
+    Assert.assertTrue( options.getOptions( "POSTGRESQL" ).isEmpty() );
+  }
+
+  @Test
+  public void testChangesReachTheUrlOptions() {
+    ExtraOptions options = new ExtraOptions();
+    options.put( "MYSQL.a", "1" );
+    options.put( "MYSQL.b", "2" );
+    Assert.assertEquals( "a=1;b=2", options.getUrlOptions( "MYSQL", ";", "=" ) );
+
+    options.put( "MYSQL.c", "3" );
+    Assert.assertEquals( "a=1;b=2;c=3", options.getUrlOptions( "MYSQL", ";", "=" ) );
+    options.remove( "MYSQL.a" );
+    Assert.assertEquals( "b=2&c=3", options.getUrlOptions( "MYSQL", "&", "=" ) );
+
+    Iterator<Map.Entry<String, String>> iterator = options.entrySet().iterator();
+    iterator.next().setValue( "4" );
+    Assert.assertEquals( "b=4&c=3", options.getUrlOptions( "MYSQL", "&", "=" ) );
+    iterator.next();
+    iterator.remove();
+    Assert.assertEquals( "b=4", options.getUrlOptions( "MYSQL", "&", "=" ) );
+    options.keySet().clear();
+    Assert.assertEquals( "", options.getUrlOptions( "MYSQL", "&", "=" ) );
+  }
+
+  @Test
+  public void testBehavesLikeAMap() {
+    Map<String, String> plain = new HashMap<String, String>();
+    plain.put( "MYSQL.a", "1" );
+    plain.put( "MYSQL.b", null );
+    ExtraOptions options = new ExtraOptions( plain );
+    Assert.assertEquals( plain, options );
+    Assert.assertEquals( plain.hashCode(), options.hashCode() );
+    Assert.assertTrue( options.containsKey( "MYSQL.b" ) );
+    Assert.assertEquals( ExtraOptions.buildUrlOptions( plain, "MYSQL", "&", "=" ),
+      options.getUrlOptions( "MYSQL", "&", "=" ) );
+  }
+
+  @Test
+  public void testConnectionUrl() throws Exception {
+    DatabaseConnection connection = new DatabaseConnection();
+    connection.setDatabaseType( new MySQLDatabaseDialect().getDatabaseType() );
+    connection.setHostname( "localhost" );
+    connection.setDatabasePort( "3306" );
+    connection.setDatabaseName( "test" );
+    connection.setExtraOptions( new ExtraOptions() );
+    connection.addExtraOption( "MYSQL", "useSSL", "false" );
+    connection.addExtraOption( "MYSQL", "autoReconnect", "true" );
+
+    MySQLDatabaseDialect dialect = new MySQLDatabaseDialect();
+    Assert.assertTrue( connection.getExtraOptions() instanceof ExtraOptions );
+    Assert.assertEquals( "jdbc:mysql://localhost:3306/test?useSSL=false&autoReconnect=true",
+      dialect.getURLWithExtraOptions( connection ) );
+    connection.getExtraOptions().put( "MYSQL.useSSL", "true" );
+    Assert.assertEquals( "jdbc:mysql://localhost:3306/test?useSSL=true&autoReconnect=true",
+      dialect.getURLWithExtraOptions( connection ) );
+  }
+
+  @Test
+  public void testExtraOptionsOrderWins() {
+    ExtraOptions options = new ExtraOptions();
+    options.put( "MYSQL.a", "1" );
+    options.put( "MYSQL.b", "2" );
+    options.put( "MYSQL.c", "3" );
+    Map<String, String> order = new HashMap<String, String>();
+    order.put( "10", "MYSQL.a" );
+    order.put( "2", "MYSQL.c" );
+    order.put( "3", "ORACLE.b" );
+    order.put( "4", "MYSQL.missing" );
+
+    Assert.assertEquals( "c=3&a=1&b=2", options.getUrlOptions( "MYSQL", order, "&", "=" ) );
+    Assert.assertEquals( "a=1&b=2&c=3", options.getUrlOptions( "MYSQL", null, "&", "=" ) );
+    order.put( "1", "MYSQL.b" );
+    Assert.assertEquals( "b=2&c=3&a=1", options.getUrlOptions( "MYSQL", order, "&", "=" ) );
+
+    Map<String, String> plain = new LinkedHashMap<String, String>( options );
+    Assert.assertEquals( "b=2&c=3&a=1", ExtraOptions.buildUrlOptions( plain, order, "MYSQL", "&", "=" ) );
+  }
+
+  @Test
+  public void testUrlOptionsAreReusedWhileTheOrderIsEqual() {
+    ExtraOptions options = new ExtraOptions();
+    options.put( "MYSQL.a", "1" );
+    options.put( "MYSQL.b", "2" );
+    Map<String, String> order = new HashMap<String, String>();
+    order.put( "0", "MYSQL.b" );
+
+    String url = options.getUrlOptions( "MYSQL", order, "&", "=" );
+    Assert.assertEquals( "b=2&a=1", url );
+    Assert.assertSame( url, options.getUrlOptions( "MYSQL", new HashMap<String, String>( order ), "&", "=" ) );
+    Assert.assertEquals( "b=2;a=1", options.getUrlOptions( "MYSQL", order, ";", "=" ) );
+
+    order.put( "0", "MYSQL.a" );
+    order.put( "1", "MYSQL.b" );
+    Assert.assertEquals( "a=1&b=2", options.getUrlOptions( "MYSQL", order, "&", "=" ) );
+    options.put( "MYSQL.c", "3" );
+    Assert.assertEquals( "a=1&b=2&c=3", options.getUrlOptions( "MYSQL", order, "&", "=" ) );
+    Assert.assertEquals( "a=1&b=2&c=3", options.getUrlOptions( "MYSQL", null, "&", "=" ) );
+  }
+
+  @Test
+  public void testConnectionKeepsTheGivenMap() throws Exception {
+    DatabaseConnection connection = new DatabaseConnection();
+    connection.setDatabaseType( new MySQLDatabaseDialect().getDatabaseType() );
+    connection.setHostname( "localhost" );
+    connection.setDatabasePort( "3306" );
+    connection.setDatabaseName( "test" );
+    Map<String, String> plain = new HashMap<String, String>();
+    connection.setExtraOptions( plain );
+    Assert.assertSame( plain, connection.getExtraOptions() );
+    plain.put( "MYSQL.useSSL", "false" );
+    plain.put( "MYSQL.autoReconnect", "true" );
+    connection.getExtraOptionsOrder().put( "0", "MYSQL.autoReconnect" );
+    connection.getExtraOptionsOrder().put( "1", "MYSQL.useSSL" );
+
+    Assert.assertEquals( "jdbc:mysql://localhost:3306/test?autoReconnect=true&useSSL=false",
+      new MySQLDatabaseDialect().getURLWithExtraOptions( connection ) );
+  }
+}
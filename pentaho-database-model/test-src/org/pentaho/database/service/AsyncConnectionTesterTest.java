@@ -0,0 +1,167 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.service;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.pentaho.database.model.DatabaseConnection;
+import org.pentaho.database.model.IDatabaseConnection;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+public class AsyncConnectionTesterTest {
+
+  private final CountDownLatch release = new CountDownLatch( 1 );
+  private final CountDownLatch interrupted = new CountDownLatch( 1 );
+
+  private final Function<IDatabaseConnection, ConnectionTestResult> test =
+    new Function<IDatabaseConnection, ConnectionTestResult>() {
+      public ConnectionTestResult apply( IDatabaseConnection connection ) {
+        if ( "hang".equals( connection.getName() ) ) {
+          try {
+            release.await();
+          } catch ( InterruptedException e ) {
+            interrupted.countDown();
+            throw new IllegalStateException( e );
+          }
+        } else if ( "boom".equals( connection.getName() ) ) {
+          throw new IllegalStateException( "boom" );
+        }
+        return new ConnectionTestResult( true, connection.getName() + " ok", 1 );
+      }
+    };
+
+  private AsyncConnectionTester tester = new AsyncConnectionTester( test, 2 );
+
+  @After
+  public void tearDown() {
+    release.countDown();
+    tester.shutdown();
+  }
+
+  private static IDatabaseConnection createConnection( String name ) {
+    DatabaseConnection connection = new DatabaseConnection();
+    connection.setName( name );
+    return connection;
+  }
+
+  @Test
+  public void testRunsOffTheCallingThread() throws Exception {
+    final Thread caller = Thread.currentThread();
+    CompletableFuture<Thread> thread = tester.submit( new Callable<Thread>() {
+      public Thread call() {
+        return Thread.currentThread();
+      }
+    } );
+    Assert.assertNotSame( caller, thread.get( 5, TimeUnit.SECONDS ) );
+    Assert.assertTrue( thread.get().isDaemon() );
+
+    ConnectionTestResult result = tester.test( createConnection( "a" ) ).get( 5, TimeUnit.SECONDS );
+    Assert.assertTrue( result.isSuccess() );
+    Assert.assertEquals( "a ok", result.getMessage() );
+  }
+
+  @Test
+  public void testReturnsBeforeTheTestFinishes() throws Exception {
+    CompletableFuture<ConnectionTestResult> hanging = tester.test( createConnection( "hang" ) );
+    Assert.assertFalse( hanging.isDone() );
+    release.countDown();
+    Assert.assertTrue( hanging.get( 5, TimeUnit.SECONDS ).isSuccess() );
+  }
+
+  @Test
+  public void testFailingTestGivesFailedResult() throws Exception {
+    ConnectionTestResult result = tester.test( createConnection( "boom" ) ).get( 5, TimeUnit.SECONDS );
+    Assert.assertFalse( result.isSuccess() );
+    Assert.assertTrue( result.getMessage(), result.getMessage().startsWith( "Error connecting to database [boom]" ) );
+  }
+
+  @Test
+  public void testDeadlineFailsTestWithoutInterruptingIt() throws Exception {
+    tester.setDeadline( 1 );
+    long start = System.nanoTime();
+    ConnectionTestResult result = tester.test( createConnection( "hang" ) ).get( 5, TimeUnit.SECONDS );
+    Assert.assertTrue( TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start ) < 4000 );
+    Assert.assertFalse( result.isSuccess() );
+    Assert.assertEquals( "Error connecting to database [hang] : No result after 1 seconds", result.getMessage() );
+
+    // the test goes on for whoever else waits for the same login
+    Assert.assertFalse( interrupted.await( 500, TimeUnit.MILLISECONDS ) );
+    release.countDown();
+    Assert.assertTrue( tester.test( createConnection( "b" ) ).get( 5, TimeUnit.SECONDS ).isSuccess() );
+  }
+
+  @Test
+  public void testDeadlineFailsOtherWork() throws Exception {
+    tester.setDeadline( 1 );
+    CompletableFuture<String> check = tester.submit( new Callable<String>() {
+      public String call() throws InterruptedException {
+        release.await();
+        return "done";
+      }
+    } );
+    try {
+      check.get( 5, TimeUnit.SECONDS );
+      Assert.fail();
+    } catch ( ExecutionException e ) {
+      Assert.assertTrue( e.getCause() instanceof TimeoutException );
+    }
+
+    // work that bounds itself can opt out
+    release.countDown();
+    CompletableFuture<String> unbounded = tester.submit( new Callable<String>() {
+      public String call() throws InterruptedException {
+        Thread.sleep( 1500 );
+        return "done";
+      }
+    }, 0 );
+    Assert.assertEquals( "done", unbounded.get( 5, TimeUnit.SECONDS ) );
+  }
+
+  @Test
+  public void testWorkBeyondThePoolWaitsInLine() throws Exception {
+    tester.setDeadline( 0 );
+    CompletableFuture<ConnectionTestResult> first = tester.test( createConnection( "hang" ) );
+    CompletableFuture<ConnectionTestResult> second = tester.test( createConnection( "hang" ) );
+    CompletableFuture<ConnectionTestResult> third = tester.test( createConnection( "c" ) );
+    Thread.sleep( 100 );
+    Assert.assertFalse( third.isDone() );
+    Assert.assertEquals( 3, tester.getPending() );
+    release.countDown();
+    Assert.assertTrue( third.get( 5, TimeUnit.SECONDS ).isSuccess() );
+    Assert.assertTrue( first.get( 5, TimeUnit.SECONDS ).isSuccess() );
+    Assert.assertTrue( second.get( 5, TimeUnit.SECONDS ).isSuccess() );
+  }
+
+  @Test
+  public void testShutdownCancelsQueuedWork() throws Exception {
+    tester.setDeadline( 0 );
+    tester.test( createConnection( "hang" ) );
+    tester.test( createConnection( "hang" ) );
+    CompletableFuture<ConnectionTestResult> queued = tester.test( createConnection( "c" ) );
+    tester.shutdown();
+    Assert.assertTrue( queued.isCancelled() );
+    Assert.assertTrue( tester.test( createConnection( "d" ) ).isCompletedExceptionally() );
+  }
+}
@@ -0,0 +1,217 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.service;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.pentaho.database.model.DatabaseConnection;
+import org.pentaho.database.model.IDatabaseConnection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+public class ConnectionBatchTesterTest {
+
+  private static List<IDatabaseConnection> createConnections( int hosts, int perHost ) {
+    List<IDatabaseConnection> connections = new ArrayList<IDatabaseConnection>();
+    for ( int i = 0; i < perHost; i++ ) {
+      for ( int host = 0; host < hosts; host++ ) {
+        DatabaseConnection connection = new DatabaseConnection();
+        connection.setName( "c" + connections.size() );
+        connection.setHostname( host == 0 ? "DB0" : "db" + host );
+        connections.add( connection );
+      }
+    }
+    return connections;
+  }
+
+  @Test
+  public void testLimitsConcurrencyPerHost() throws InterruptedException {
+    final Map<String, AtomicInteger> runningByHost = new ConcurrentHashMap<String, AtomicInteger>();
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxPerHost = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    ConnectionBatchTester tester = new ConnectionBatchTester( new Function<IDatabaseConnection, ConnectionTestResult>() {
+      public ConnectionTestResult apply( IDatabaseConnection connection ) {
+        String host = connection.getHostname().toLowerCase();
+        runningByHost.putIfAbsent( host, new AtomicInteger() );
+        int onHost = runningByHost.get( host ).incrementAndGet();
+        maxPerHost.accumulateAndGet( onHost, Math::max );
+        maxRunning.accumulateAndGet( running.incrementAndGet(), Math::max );
+        try {
+          Thread.sleep( 20 );
+        } catch ( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+        }
+        running.decrementAndGet();
+        runningByHost.get( host ).decrementAndGet();
+        return new ConnectionTestResult( true, connection.getName(), 20 );
+      }
+    } );
+    tester.setMaxPerHost( 2 );
+    tester.setMaxConcurrency( 6 );
+
+    List<IDatabaseConnection> connections = createConnections( 4, 10 );
+    final List<Integer> streamed = new CopyOnWriteArrayList<Integer>();
+    List<ConnectionTestResult> results = tester.testAll( connections, new ConnectionBatchTester.Listener() {
+      public void testFinished( int index, IDatabaseConnection connection, ConnectionTestResult result ) {
+        Assert.assertEquals( connection.getName(), result.getMessage() );
+        streamed.add( index );
+      }
+    } );
+
+    Assert.assertEquals( connections.size(), results.size() );
+    for ( int i = 0; i < results.size(); i++ ) {
+      Assert.assertEquals( "c" + i, results.get( i ).getMessage() );
+    }
+    Assert.assertEquals( connections.size(), streamed.size() );
+    Assert.assertEquals( 2, maxPerHost.get() );
+    Assert.assertTrue( maxRunning.get() > 2 );
+    Assert.assertTrue( maxRunning.get() <= 6 );
+  }
+
+  @Test
+  public void testDeadlineFreesTheSlot() throws InterruptedException {
+    final CountDownLatch never = new CountDownLatch( 1 );
+    ConnectionBatchTester tester = new ConnectionBatchTester( new Function<IDatabaseConnection, ConnectionTestResult>() {
+      public ConnectionTestResult apply( IDatabaseConnection connection ) {
+        if ( connection.getName().equals( "c0" ) ) {
+          try {
+            never.await();
+          } catch ( InterruptedException e ) {
+            // a driver that ignores interrupts keeps going
+          }
+        }
+        if ( connection.getName().equals( "c1" ) ) {
+          throw new IllegalStateException( "broken driver" );
+        }
+        return new ConnectionTestResult( true, "ok", 0 );
+      }
+    } );
+    tester.setMaxPerHost( 1 );
+    tester.setDeadline( 1 );
+
+    List<ConnectionTestResult> results = tester.testAll( createConnections( 1, 3 ), null );
+    Assert.assertFalse( results.get( 0 ).isSuccess() );
+    Assert.assertTrue( results.get( 0 ).getMessage(), results.get( 0 ).getMessage().endsWith(
+      "No result after 1 seconds" ) );
+    Assert.assertFalse( results.get( 1 ).isSuccess() );
+    Assert.assertTrue( results.get( 1 ).getMessage(), results.get( 1 ).getMessage().contains( "broken driver" ) );
+    Assert.assertTrue( results.get( 2 ).isSuccess() );
+  }
+
+  @Test
+  public void testSlotIsHeldUntilTheThreadReturns() throws InterruptedException {
+    final AtomicLong firstReturned = new AtomicLong();
+    final AtomicLong secondStarted = new AtomicLong();
+    ConnectionBatchTester tester = new ConnectionBatchTester( new Function<IDatabaseConnection, ConnectionTestResult>() {
+      public ConnectionTestResult apply( IDatabaseConnection connection ) {
+        if ( connection.getName().equals( "c0" ) ) {
+          // a driver that ignores interrupts and only gives up after its own login timeout
+          long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( 1500 );
+          while ( System.nanoTime() < end ) {
+            try {
+              Thread.sleep( 50 );
+            } catch ( InterruptedException e ) {
+              // keep going
+            }
+          }
+          firstReturned.set( System.nanoTime() );
+        } else {
+          secondStarted.set( System.nanoTime() );
+        }
+        return new ConnectionTestResult( true, "ok", 0 );
+      }
+    } );
+    tester.setMaxPerHost( 1 );
+    tester.setDeadline( 1 );
+
+    List<ConnectionTestResult> results = tester.testAll( createConnections( 1, 2 ), null );
+    Assert.assertFalse( results.get( 0 ).isSuccess() );
+    Assert.assertTrue( results.get( 1 ).isSuccess() );
+    Assert.assertTrue( "The host's slot was given away while its test still ran",
+      secondStarted.get() >= firstReturned.get() );
+  }
+
+  @Test
+  public void testDeadlineCountsFromWhenTheTestRuns() throws Exception {
+    final CountDownLatch busy = new CountDownLatch( ConnectionBatchTester.MAX_THREADS );
+    final CountDownLatch release = new CountDownLatch( 1 );
+    final ConnectionBatchTester blocking =
+      new ConnectionBatchTester( new Function<IDatabaseConnection, ConnectionTestResult>() {
+        public ConnectionTestResult apply( IDatabaseConnection connection ) {
+          busy.countDown();
+          try {
+            release.await();
+          } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+          }
+          return new ConnectionTestResult( true, "ok", 0 );
+        }
+      } );
+    blocking.setMaxConcurrency( ConnectionBatchTester.MAX_THREADS );
+    blocking.setDeadline( 0 );
+    Thread occupier = new Thread( new Runnable() {
+      public void run() {
+        try {
+          blocking.testAll( createConnections( ConnectionBatchTester.MAX_THREADS, 1 ), null );
+        } catch ( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    } );
+    occupier.start();
+    Assert.assertTrue( busy.await( 10, TimeUnit.SECONDS ) );
+
+    ConnectionBatchTester quick = new ConnectionBatchTester( new Function<IDatabaseConnection, ConnectionTestResult>() {
+      public ConnectionTestResult apply( IDatabaseConnection connection ) {
+        return new ConnectionTestResult( true, "ok", 0 );
+      }
+    } );
+    quick.setDeadline( 1 );
+    Thread releaser = new Thread( new Runnable() {
+      public void run() {
+        try {
+          // every pool thread stays busy past the quick test's deadline
+          Thread.sleep( 1500 );
+        } catch ( InterruptedException e ) {
+          Thread.currentThread().interrupt();
+        }
+        release.countDown();
+      }
+    } );
+    releaser.start();
+    List<ConnectionTestResult> results = quick.testAll( createConnections( 1, 1 ), null );
+    occupier.join( 10000 );
+    Assert.assertTrue( "Waiting for a pool thread counted against the deadline: " + results.get( 0 ).getMessage(),
+      results.get( 0 ).isSuccess() );
+  }
+
+  @Test
+  public void testEmptyBatch() throws InterruptedException {
+    ConnectionBatchTester tester = new ConnectionBatchTester( null );
+    Assert.assertTrue( tester.testAll( new ArrayList<IDatabaseConnection>(), null ).isEmpty() );
+  }
+}
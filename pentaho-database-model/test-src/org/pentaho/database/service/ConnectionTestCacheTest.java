@@ -0,0 +1,238 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.service;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.pentaho.database.model.DatabaseConnection;
+import org.pentaho.database.model.IDatabaseConnection;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+public class ConnectionTestCacheTest {
+  private final AtomicLong now = new AtomicLong();
+  private final AtomicInteger tests = new AtomicInteger();
+
+  private final LongSupplier clock = new LongSupplier() {
+    public long getAsLong() {
+      return now.get();
+    }
+  };
+
+  private final Function<IDatabaseConnection, ConnectionTestResult> test =
+    new Function<IDatabaseConnection, ConnectionTestResult>() {
+      public ConnectionTestResult apply( IDatabaseConnection connection ) {
+        return new ConnectionTestResult( true, connection.getName() + " " + tests.incrementAndGet(), 0 );
+      }
+    };
+
+  private static DatabaseConnection createConnection( String name, String password ) {
+    DatabaseConnection connection = new DatabaseConnection();
+    connection.setName( name );
+    connection.setHostname( "db01" );
+    connection.setPassword( password );
+    return connection;
+  }
+
+  @Test
+  public void testKeepsResultsForTheirTimeToLive() {
+    ConnectionTestCache cache = new ConnectionTestCache( clock );
+    cache.setTimeToLive( 1000 );
+    Assert.assertEquals( "sales 1", cache.test( createConnection( "sales", "a" ), test ).getMessage() );
+    now.set( 999 );
+    Assert.assertEquals( "sales 1", cache.test( createConnection( "sales", "a" ), test ).getMessage() );
+    Assert.assertEquals( "another password", "sales 2",
+      cache.test( createConnection( "sales", "b" ), test ).getMessage() );
+    now.set( 1000 );
+    Assert.assertEquals( "sales 3", cache.test( createConnection( "sales", "a" ), test ).getMessage() );
+  }
+
+  @Test
+  public void testInvalidate() {
+    ConnectionTestCache cache = new ConnectionTestCache( clock );
+    cache.test( createConnection( "sales", "a" ), test );
+    cache.test( createConnection( "sales", "b" ), test );
+    cache.test( createConnection( "hr", "a" ), test );
+    cache.invalidate( "sales" );
+    Assert.assertEquals( 1, cache.size() );
+    Assert.assertEquals( "hr 3", cache.test( createConnection( "hr", "a" ), test ).getMessage() );
+    cache.invalidateAll();
+    Assert.assertEquals( 0, cache.size() );
+  }
+
+  @Test
+  public void testDoesNotKeepFailures() {
+    ConnectionTestCache cache = new ConnectionTestCache( clock );
+    try {
+      cache.test( createConnection( "sales", "a" ), new Function<IDatabaseConnection, ConnectionTestResult>() {
+        public ConnectionTestResult apply( IDatabaseConnection connection ) {
+          throw new IllegalStateException( "no driver" );
+        }
+      } );
+      Assert.fail();
+    } catch ( IllegalStateException e ) {
+      // expected
+    }
+    Assert.assertEquals( 0, cache.size() );
+    Assert.assertEquals( "sales 1", cache.test( createConnection( "sales", "a" ), test ).getMessage() );
+  }
+
+  @Test
+  public void testKeepsFailedResultsForTheirTimeToLive() {
+    ConnectionTestCache cache = new ConnectionTestCache( clock );
+    cache.setTimeToLive( 5000 );
+    cache.setFailureTimeToLive( 1000 );
+    Function<IDatabaseConnection, ConnectionTestResult> denied =
+      new Function<IDatabaseConnection, ConnectionTestResult>() {
+        public ConnectionTestResult apply( IDatabaseConnection connection ) {
+          return new ConnectionTestResult( false, "denied " + tests.incrementAndGet(), 0 );
+        }
+      };
+    Assert.assertEquals( "denied 1", cache.test( createConnection( "sales", "a" ), denied ).getMessage() );
+    now.set( 999 );
+    Assert.assertEquals( "no second login with the wrong password", "denied 1",
+      cache.test( createConnection( "sales", "a" ), denied ).getMessage() );
+    now.set( 1000 );
+    Assert.assertEquals( "sales 2", cache.test( createConnection( "sales", "a" ), test ).getMessage() );
+  }
+
+  @Test
+  public void testWaitersGiveUp() throws Exception {
+    final ConnectionTestCache cache = new ConnectionTestCache( clock );
+    cache.setMaxWait( 100 );
+    final CountDownLatch started = new CountDownLatch( 1 );
+    final CountDownLatch release = new CountDownLatch( 1 );
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<ConnectionTestResult> hanging = executor.submit( new Callable<ConnectionTestResult>() {
+        public ConnectionTestResult call() {
+          return cache.test( createConnection( "sales", "a" ),
+            new Function<IDatabaseConnection, ConnectionTestResult>() {
+              public ConnectionTestResult apply( IDatabaseConnection connection ) {
+                started.countDown();
+                try {
+                  release.await();
+                } catch ( InterruptedException e ) {
+                  Thread.currentThread().interrupt();
+                }
+                return test.apply( connection );
+              }
+            } );
+        }
+      } );
+      started.await();
+      ConnectionTestResult result = cache.test( createConnection( "sales", "a" ), test );
+      Assert.assertFalse( result.isSuccess() );
+      Assert.assertTrue( result.getMessage(), result.getMessage().endsWith( "No result after 100 ms" ) );
+      Assert.assertFalse( "giving up did not start another login",
+        cache.test( createConnection( "sales", "a" ), test ).isSuccess() );
+      Assert.assertEquals( 0, tests.get() );
+      release.countDown();
+      Assert.assertEquals( "sales 1", hanging.get().getMessage() );
+      Assert.assertEquals( "sales 1", cache.test( createConnection( "sales", "a" ), test ).getMessage() );
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testWaitersTakeOverAnInterruptedTest() throws Exception {
+    final ConnectionTestCache cache = new ConnectionTestCache( clock );
+    final CountDownLatch started = new CountDownLatch( 1 );
+    ExecutorService executor = Executors.newFixedThreadPool( 2 );
+    try {
+      Future<ConnectionTestResult> interrupted = executor.submit( new Callable<ConnectionTestResult>() {
+        public ConnectionTestResult call() {
+          return cache.test( createConnection( "sales", "a" ),
+            new Function<IDatabaseConnection, ConnectionTestResult>() {
+              public ConnectionTestResult apply( IDatabaseConnection connection ) {
+                started.countDown();
+                try {
+                  Thread.sleep( 10000 );
+                } catch ( InterruptedException e ) {
+                  Thread.currentThread().interrupt();
+                }
+                return new ConnectionTestResult( false, "Interrupted while connecting", 0 );
+              }
+            } );
+        }
+      } );
+      started.await();
+      Future<ConnectionTestResult> waiter = executor.submit( new Callable<ConnectionTestResult>() {
+        public ConnectionTestResult call() {
+          return cache.test( createConnection( "sales", "a" ), test );
+        }
+      } );
+      Thread.sleep( 100 );
+      interrupted.cancel( true );
+      Assert.assertEquals( "sales 1", waiter.get().getMessage() );
+    } finally {
+      executor.shutdown();
+    }
+    Assert.assertEquals( "sales 1", cache.test( createConnection( "sales", "a" ), test ).getMessage() );
+  }
+
+  @Test
+  public void testCoalescesConcurrentTests() throws Exception {
+    final ConnectionTestCache cache = new ConnectionTestCache( clock );
+    cache.setTimeToLive( 0 );
+    final CountDownLatch started = new CountDownLatch( 1 );
+    final CountDownLatch release = new CountDownLatch( 1 );
+    final Function<IDatabaseConnection, ConnectionTestResult> slowTest =
+      new Function<IDatabaseConnection, ConnectionTestResult>() {
+        public ConnectionTestResult apply( IDatabaseConnection connection ) {
+          started.countDown();
+          try {
+            release.await();
+          } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+          }
+          return test.apply( connection );
+        }
+      };
+    ExecutorService executor = Executors.newFixedThreadPool( 4 );
+    try {
+      Callable<String> request = new Callable<String>() {
+        public String call() {
+          return cache.test( createConnection( "sales", "a" ), slowTest ).getMessage();
+        }
+      };
+      Future<String> first = executor.submit( request );
+      started.await();
+      Future<String> second = executor.submit( request );
+      Future<String> third = executor.submit( request );
+      Thread.sleep( 100 );
+      release.countDown();
+      Assert.assertEquals( "sales 1", first.get() );
+      Assert.assertEquals( "sales 1", second.get() );
+      Assert.assertEquals( "sales 1", third.get() );
+    } finally {
+      executor.shutdown();
+    }
+    Assert.assertEquals( 1, tests.get() );
+    Assert.assertEquals( "no time to live", "sales 2", cache.test( createConnection( "sales", "a" ), test )
+      .getMessage() );
+  }
+}
@@ -17,11 +17,19 @@
 
 package org.pentaho.database.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Assert;
 import org.junit.Test;
 import org.pentaho.database.IDatabaseDialect;
+import org.pentaho.database.IDatabaseDialectProvider;
+import org.pentaho.database.dialect.GenericDatabaseDialect;
+import org.pentaho.database.model.DatabaseAccessType;
+import org.pentaho.database.model.DatabaseType;
 import org.pentaho.database.model.IDatabaseType;
 
 @SuppressWarnings( "nls" ) public class DatabaseDialectServiceTest {
@@ -117,4 +125,85 @@ import org.pentaho.database.model.IDatabaseType;
     Assert.assertEquals( 0, options.size() );
     System.out.println( kettleThinType );
   }
+
+  @Test public void testLookupByKeys() {
+    DatabaseDialectService dialectService = new DatabaseDialectService( false );
+    IDatabaseDialect mysql = dialectService.getDialectByShortName( "MYSQL" );
+    Assert.assertNotNull( mysql );
+    Assert.assertSame( mysql, dialectService.getDialect( mysql.getDatabaseType() ) );
+    Assert.assertSame( mysql, dialectService.getDialectByName( mysql.getDatabaseType().getName() ) );
+    Assert.assertSame( mysql, dialectService.getDialectByDriverClass( mysql.getNativeDriver() ) );
+    Assert.assertNull( dialectService.getDialectByShortName( "NOSUCHDB" ) );
+    Assert.assertNull( dialectService.getDialectByDriverClass( "this.is.a.bogus.class.Name" ) );
+  }
+
+  @Test public void testRegisterAndUnregister() {
+    DatabaseDialectService allDialects = new DatabaseDialectService( false );
+    DatabaseDialectService usableDialects = new DatabaseDialectService( true );
+    IDatabaseDialect pluginDialect = new GenericDatabaseDialect() {
+      private final IDatabaseType type = new DatabaseType( "Plugin Database", "PLUGINDB",
+          DatabaseAccessType.getList( DatabaseAccessType.NATIVE ), 1234, null );
+
+      @Override
+      public IDatabaseType getDatabaseType() {
+        return type;
+      }
+
+      @Override
+      public String getNativeDriver() {
+        return "this.is.a.bogus.Driver";
+      }
+    };
+    List<IDatabaseDialect> before = allDialects.getDatabaseDialects();
+    try {
+      allDialects.registerDatabaseDialect( pluginDialect );
+      Assert.assertSame( pluginDialect, allDialects.getDialectByShortName( "PLUGINDB" ) );
+      Assert.assertSame( "Registration is shared by all instances", pluginDialect,
+          new DatabaseDialectService( false ).getDialect( pluginDialect.getDatabaseType() ) );
+      Assert.assertEquals( before.size() + 1, allDialects.getDatabaseDialects().size() );
+      Assert.assertNull( "The driver cannot be loaded", usableDialects.getDialectByShortName( "PLUGINDB" ) );
+
+      allDialects.registerDatabaseDialect( pluginDialect, false );
+      Assert.assertEquals( before.size() + 1, allDialects.getDatabaseDialects().size() );
+      Assert.assertSame( pluginDialect, usableDialects.getDialectByShortName( "PLUGINDB" ) );
+    } finally {
+      allDialects.unregisterDatabaseDialect( pluginDialect );
+    }
+    Assert.assertNull( allDialects.getDialectByShortName( "PLUGINDB" ) );
+    Assert.assertNull( usableDialects.getDialectByShortName( "PLUGINDB" ) );
+    Assert.assertEquals( before, allDialects.getDatabaseDialects() );
+  }
+
+  @Test public void testProviderChangesAreSeenAfterRefresh() {
+    final List<IDatabaseDialect> provided = new ArrayList<IDatabaseDialect>();
+    final AtomicInteger calls = new AtomicInteger();
+    IDatabaseDialectProvider provider = new IDatabaseDialectProvider() {
+      public Collection<IDatabaseDialect> getDialects( boolean usableOnly ) {
+        calls.incrementAndGet();
+        return new ArrayList<IDatabaseDialect>( provided );
+      }
+
+      public IDatabaseDialect getDialect( boolean usableOnly, IDatabaseType databaseType ) {
+        return null;
+      }
+    };
+    DatabaseDialectService dialectService =
+        new DatabaseDialectService( true, Collections.singletonList( provider ) );
+    Assert.assertTrue( dialectService.getDatabaseTypes().isEmpty() );
+
+    IDatabaseDialect generic = new GenericDatabaseDialect();
+    provided.add( generic );
+    Assert.assertNull( "Reads do not ask the providers again", dialectService.getDialect( generic.getDatabaseType() ) );
+    Assert.assertEquals( 1, calls.get() );
+
+    dialectService.refresh();
+    Assert.assertSame( "A dialect provided later is found", generic,
+        dialectService.getDialect( generic.getDatabaseType() ) );
+    Assert.assertEquals( 1, dialectService.getDatabaseDialects().size() );
+    Assert.assertEquals( 2, calls.get() );
+
+    provided.clear();
+    dialectService.refresh();
+    Assert.assertNull( dialectService.getDialect( generic.getDatabaseType() ) );
+  }
 }
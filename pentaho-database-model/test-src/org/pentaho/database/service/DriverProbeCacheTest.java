@@ -0,0 +1,120 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+
+package org.pentaho.database.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.database.dialect.MySQLDatabaseDialect;
+import org.pentaho.database.dialect.PostgreSQLDatabaseDialect;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DriverProbeCacheTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final List<DialectEntry> dialects = Arrays.asList( new DialectEntry( new MySQLDatabaseDialect() ),
+    new DialectEntry( new PostgreSQLDatabaseDialect() ) );
+
+  @Test
+  public void testStoreAndLoad() throws IOException {
+    DriverProbeCache cache = new DriverProbeCache( new File( folder.getRoot(), "cache/probe.properties" ) );
+    Map<String, Boolean> results = new HashMap<>();
+    results.put( MySQLDatabaseDialect.class.getName(), true );
+    results.put( PostgreSQLDatabaseDialect.class.getName(), false );
+    cache.store( "abc", results );
+
+    assertEquals( results, cache.load( "abc" ) );
+    assertTrue( "A different fingerprint means the classpath changed", cache.load( "def" ).isEmpty() );
+    assertTrue( cache.load( null ).isEmpty() );
+  }
+
+  @Test
+  public void testLoadIgnoresMissingAndCorruptFiles() throws IOException {
+    File file = new File( folder.getRoot(), "probe.properties" );
+    DriverProbeCache cache = new DriverProbeCache( file );
+    assertTrue( cache.load( "abc" ).isEmpty() );
+    Files.write( file.toPath(), "fingerprint=\\u00zz".getBytes( StandardCharsets.ISO_8859_1 ) );
+    assertTrue( cache.load( "abc" ).isEmpty() );
+  }
+
+  @Test
+  public void testNoneNeverCaches() {
+    assertFalse( DriverProbeCache.NONE.isCacheable( dialects.get( 0 ) ) );
+    DriverProbeCache.NONE.store( "abc", Collections.singletonMap( "x", true ) );
+    assertTrue( DriverProbeCache.NONE.load( "abc" ).isEmpty() );
+  }
+
+  @Test
+  public void testOffUnlessConfigured() {
+    String previous = System.getProperty( DriverProbeCache.CACHE_FILE_PROPERTY );
+    try {
+      System.clearProperty( DriverProbeCache.CACHE_FILE_PROPERTY );
+      assertSame( DriverProbeCache.NONE, DriverProbeCache.fromSystemProperties() );
+      System.setProperty( DriverProbeCache.CACHE_FILE_PROPERTY, " " );
+      assertSame( DriverProbeCache.NONE, DriverProbeCache.fromSystemProperties() );
+      System.setProperty( DriverProbeCache.CACHE_FILE_PROPERTY, new File( folder.getRoot(), "p" ).getPath() );
+      assertNotSame( DriverProbeCache.NONE, DriverProbeCache.fromSystemProperties() );
+    } finally {
+      if ( previous == null ) {
+        System.clearProperty( DriverProbeCache.CACHE_FILE_PROPERTY );
+      } else {
+        System.setProperty( DriverProbeCache.CACHE_FILE_PROPERTY, previous );
+      }
+    }
+  }
+
+  @Test
+  public void testFingerprintFollowsClasspath() throws IOException {
+    File jar = folder.newFile( "driver.jar" );
+    URLClassLoader loader = new URLClassLoader( new URL[] { jar.toURI().toURL() }, getClass().getClassLoader() );
+    String fingerprint = DriverProbeCache.fingerprint( loader, dialects );
+    assertNotNull( fingerprint );
+    assertEquals( fingerprint, DriverProbeCache.fingerprint( loader, dialects ) );
+
+    Files.write( jar.toPath(), new byte[] { 1, 2, 3 } );
+    assertNotEquals( fingerprint, DriverProbeCache.fingerprint( loader, dialects ) );
+    assertNotEquals( DriverProbeCache.fingerprint( loader, dialects ),
+      DriverProbeCache.fingerprint( loader, dialects.subList( 0, 1 ) ) );
+  }
+
+  @Test
+  public void testFingerprintUnknownClassLoader() {
+    ClassLoader opaque = new ClassLoader( getClass().getClassLoader() ) { };
+    assertNull( DriverProbeCache.fingerprint( opaque, dialects ) );
+  }
+}
@@ -0,0 +1,114 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.database.IDatabaseDialect;
+import org.pentaho.database.dialect.GenericDatabaseDialect;
+import org.pentaho.database.dialect.MySQLDatabaseDialect;
+import org.pentaho.database.model.IDatabaseType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ServiceLoader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GeneratedDialectIndexTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testIndexDescribesDialects() throws IOException {
+    List<IDatabaseDialect> dialects = new ArrayList<>();
+    for ( IDatabaseDialect dialect : ServiceLoader.load( IDatabaseDialect.class ) ) {
+      dialects.add( dialect );
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    GeneratedDialectIndex.write( dialects, out );
+    List<DialectEntry> entries =
+      GeneratedDialectIndex.read( new ByteArrayInputStream( out.toByteArray() ), getClass().getClassLoader() );
+
+    assertEquals( dialects.size(), entries.size() );
+    for ( int i = 0; i < dialects.size(); i++ ) {
+      IDatabaseDialect dialect = dialects.get( i );
+      DialectEntry entry = entries.get( i );
+      IDatabaseType expected = dialect.getDatabaseType();
+      IDatabaseType actual = entry.getDatabaseType();
+      assertEquals( dialect.getClass().getName(), entry.getDialectClassName() );
+      assertEquals( dialect.getNativeDriver(), entry.getNativeDriver() );
+      assertEquals( expected.getName(), actual.getName() );
+      assertEquals( expected.getShortName(), actual.getShortName() );
+      assertEquals( expected.getDefaultDatabasePort(), actual.getDefaultDatabasePort() );
+      assertEquals( expected.getSupportedAccessTypes(), actual.getSupportedAccessTypes() );
+      assertEquals( expected.getExtraOptionsHelpUrl(), actual.getExtraOptionsHelpUrl() );
+      assertEquals( expected.getDefaultDatabaseName(), actual.getDefaultDatabaseName() );
+      assertEquals( expected.getDefaultOptions(), actual.getDefaultOptions() );
+      assertFalse( entry.isInstantiated() );
+      assertEquals( dialect.getClass(), entry.getDialect().getClass() );
+    }
+  }
+
+  @Test
+  public void testDriverClassProbe() {
+    assertTrue( GeneratedDialectIndex.isDriverClassProbe( new MySQLDatabaseDialect() ) );
+    assertFalse( GeneratedDialectIndex.isDriverClassProbe( new GenericDatabaseDialect() {
+      @Override public boolean isUsable() {
+        return false;
+      }
+    } ) );
+  }
+
+  @Test
+  public void testReadOnlyMatchingIndex() throws IOException {
+    File root = folder.getRoot();
+    ClassLoader loader = new URLClassLoader( new URL[] { root.toURI().toURL() }, null );
+    assertNull( "No index", GeneratedDialectIndex.read( loader ) );
+
+    File index = new File( root, GeneratedDialectIndex.RESOURCE );
+    index.getParentFile().mkdirs();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    GeneratedDialectIndex.write( Arrays.<IDatabaseDialect>asList( new MySQLDatabaseDialect() ), out );
+    Files.write( index.toPath(), out.toByteArray() );
+    File services = new File( root, GeneratedDialectIndex.SERVICES_RESOURCE );
+    services.getParentFile().mkdirs();
+    Files.write( services.toPath(), ( "# dialects\n" + MySQLDatabaseDialect.class.getName() + "\n" )
+      .getBytes( StandardCharsets.UTF_8 ) );
+
+    List<DialectEntry> entries = GeneratedDialectIndex.read( loader );
+    assertNotNull( entries );
+    assertEquals( MySQLDatabaseDialect.class.getName(), entries.get( 0 ).getDialectClassName() );
+
+    Files.write( services.toPath(), ( MySQLDatabaseDialect.class.getName() + "\n"
+      + GenericDatabaseDialect.class.getName() + "\n" ).getBytes( StandardCharsets.UTF_8 ) );
+    assertNull( "A dialect missing from the index", GeneratedDialectIndex.read( loader ) );
+  }
+}
@@ -0,0 +1,82 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+
+package org.pentaho.database.service;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.pentaho.database.IDatabaseDialect;
+import org.pentaho.database.dialect.GenericDatabaseDialect;
+import org.pentaho.database.dialect.H2DatabaseDialect;
+import org.pentaho.database.dialect.MSSQLServerDatabaseDialect;
+import org.pentaho.database.dialect.MSSQLServerNativeDatabaseDialect;
+import org.pentaho.database.dialect.MySQLDatabaseDialect;
+import org.pentaho.database.dialect.Vertica5DatabaseDialect;
+import org.pentaho.database.dialect.VerticaDatabaseDialect;
+
+@SuppressWarnings( "nls" ) public class JdbcDialectIndexTest {
+
+  private final MySQLDatabaseDialect mysql = new MySQLDatabaseDialect();
+  private final MSSQLServerDatabaseDialect jtds = new MSSQLServerDatabaseDialect();
+  private final MSSQLServerNativeDatabaseDialect mssql = new MSSQLServerNativeDatabaseDialect();
+  private final Vertica5DatabaseDialect vertica5 = new Vertica5DatabaseDialect();
+  private final VerticaDatabaseDialect vertica = new VerticaDatabaseDialect();
+
+  private final JdbcDialectIndex index = new JdbcDialectIndex( Arrays.<IDatabaseDialect>asList(
+      new GenericDatabaseDialect(), mysql, jtds, mssql, vertica5, vertica ) );
+
+  @Test public void testGetDialectMatchesDriverAndPrefix() {
+    Assert.assertSame( mysql, index.getDialect( mysql.getNativeDriver(), "jdbc:mysql://localhost/db" ) );
+    Assert.assertSame( mssql, index.getDialect( mssql.getNativeDriver(), "jdbc:sqlserver://localhost" ) );
+    Assert.assertSame( vertica, index.getDialect( vertica.getNativeDriver(), "jdbc:vertica://localhost/db" ) );
+    Assert.assertSame( vertica5, index.getDialect( vertica5.getNativeDriver(), "jdbc:vertica://localhost/db" ) );
+  }
+
+  @Test public void testGetDialectRejectsMismatches() {
+    // a known driver with a URL of another dialect, and an unknown driver, are left to the generic dialect
+    Assert.assertNull( index.getDialect( mysql.getNativeDriver(), "jdbc:sqlserver://localhost" ) );
+    Assert.assertNull( index.getDialect( "org.mysql.Driver", "jdbc:mysql://localhost/db" ) );
+    Assert.assertNull( index.getDialect( mysql.getNativeDriver(), null ) );
+  }
+
+  @Test public void testGetDialectWithoutDriverUsesUrl() {
+    Assert.assertSame( mysql, index.getDialect( null, "jdbc:mysql://localhost/db" ) );
+    Assert.assertSame( jtds, index.getDialect( "", "jdbc:jtds:sqlserver://localhost/db" ) );
+    Assert.assertNull( index.getDialect( null, "jdbc:h2:mem:db" ) );
+  }
+
+  @Test public void testGetDialectForUrl() {
+    // the first dialect registered for a shared prefix wins
+    Assert.assertSame( vertica5, index.getDialectForUrl( "jdbc:vertica://localhost/db" ) );
+    Assert.assertSame( mssql, index.getDialectForUrl( "jdbc:sqlserver://localhost" ) );
+    Assert.assertNull( index.getDialectForUrl( "jdbc:mysql:/" ) );
+    Assert.assertNull( index.getDialectForUrl( "" ) );
+
+    // the longest matching prefix wins
+    H2DatabaseDialect h2 = new H2DatabaseDialect();
+    JdbcDialectIndex nested = new JdbcDialectIndex( Arrays.<IDatabaseDialect>asList( h2, new H2DatabaseDialect() {
+      @Override
+      public String getNativeJdbcPre() {
+        return "jdbc:h2:tcp:";
+      }
+    } ) );
+    Assert.assertSame( h2, nested.getDialectForUrl( "jdbc:h2:mem:db" ) );
+    Assert.assertNotSame( h2, nested.getDialectForUrl( "jdbc:h2:tcp://localhost/db" ) );
+  }
+}
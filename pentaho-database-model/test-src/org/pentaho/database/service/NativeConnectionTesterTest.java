@@ -0,0 +1,157 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.service;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.pentaho.database.dialect.GenericDatabaseDialect;
+import org.pentaho.database.model.DatabaseAccessType;
+import org.pentaho.database.model.DatabaseConnection;
+import org.pentaho.database.model.IDatabaseConnection;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+
+public class NativeConnectionTesterTest {
+  private static final DatabaseDialectService dialectService = new DatabaseDialectService( false );
+
+  @BeforeClass
+  public static void registerDriver() throws SQLException {
+    DriverManager.registerDriver( new StubDriver() );
+  }
+
+  static DatabaseConnection createConnection( String behaviour ) {
+    DatabaseConnection connection = new DatabaseConnection();
+    connection.setName( "stub" );
+    connection.setDatabaseType( new GenericDatabaseDialect().getDatabaseType() );
+    connection.setAccessType( DatabaseAccessType.NATIVE );
+    connection.setUsername( "etl" );
+    connection.setPassword( "secret" );
+    connection.getAttributes().put( GenericDatabaseDialect.ATTRIBUTE_CUSTOM_URL, StubDriver.PREFIX + behaviour );
+    connection.getAttributes().put( GenericDatabaseDialect.ATTRIBUTE_CUSTOM_DRIVER_CLASS, StubDriver.class.getName() );
+    return connection;
+  }
+
+  @Test
+  public void testCanTest() {
+    NativeConnectionTester tester = new NativeConnectionTester( dialectService );
+    Assert.assertTrue( tester.canTest( createConnection( "ok" ) ) );
+
+    IDatabaseConnection connection = createConnection( "ok" );
+    connection.setAccessType( DatabaseAccessType.JNDI );
+    Assert.assertFalse( tester.canTest( connection ) );
+    connection = createConnection( "ok" );
+    connection.setPartitioned( true );
+    Assert.assertFalse( tester.canTest( connection ) );
+    connection = createConnection( "ok" );
+    connection.setConnectSql( "SET ROLE etl" );
+    Assert.assertFalse( tester.canTest( connection ) );
+    connection = createConnection( "ok" );
+    connection.getAttributes().put( GenericDatabaseDialect.ATTRIBUTE_CUSTOM_DRIVER_CLASS, "com.example.MissingDriver" );
+    Assert.assertFalse( tester.canTest( connection ) );
+  }
+
+  @Test
+  public void testCannotResolveVariablesOrDecryptPasswords() {
+    NativeConnectionTester tester = new NativeConnectionTester( dialectService );
+    DatabaseConnection connection = createConnection( "ok" );
+    connection.setHostname( "${DB_HOST}" );
+    Assert.assertFalse( tester.canTest( connection ) );
+    connection = createConnection( "ok" );
+    connection.setDatabasePort( "%%DB_PORT%%" );
+    Assert.assertFalse( tester.canTest( connection ) );
+    connection = createConnection( "ok" );
+    connection.setDatabaseName( "${DB_NAME}" );
+    Assert.assertFalse( tester.canTest( connection ) );
+    connection = createConnection( "ok" );
+    connection.getAttributes().put( GenericDatabaseDialect.ATTRIBUTE_CUSTOM_URL, StubDriver.PREFIX + "${MODE}" );
+    Assert.assertFalse( tester.canTest( connection ) );
+    connection = createConnection( "ok" );
+    connection.setPassword( "Encrypted 2be98afc86aa7f2e4cb79ce10be85acd7" );
+    Assert.assertFalse( tester.canTest( connection ) );
+  }
+
+  @Test
+  public void testSuccess() {
+    DatabaseConnection connection = createConnection( "ok" );
+    connection.addExtraOption( "GENERIC", "ssl", "true" );
+    ConnectionTestResult result = new NativeConnectionTester( dialectService ).test( connection );
+    Assert.assertTrue( result.getMessage(), result.isSuccess() );
+    Assert.assertTrue( result.getMessage().startsWith( "Connection to database [stub] is OK." ) );
+    Assert.assertEquals( "etl", StubDriver.lastProperties.getProperty( "user" ) );
+    Assert.assertEquals( "true", StubDriver.lastProperties.getProperty( "ssl" ) );
+    Assert.assertEquals( 0, StubDriver.OPEN.get() );
+  }
+
+  @Test
+  public void testLoginTimeout() {
+    Properties properties = new Properties();
+    NativeConnectionTester.setLoginTimeout( "org.postgresql.Driver", properties, 10 );
+    Assert.assertEquals( "10", properties.getProperty( "loginTimeout" ) );
+
+    properties = new Properties();
+    NativeConnectionTester.setLoginTimeout( "com.mysql.jdbc.Driver", properties, 10 );
+    Assert.assertEquals( "10000", properties.getProperty( "connectTimeout" ) );
+
+    properties.setProperty( "connectTimeout", "2000" );
+    NativeConnectionTester.setLoginTimeout( "com.mysql.jdbc.Driver", properties, 10 );
+    Assert.assertEquals( "The connection's own setting wins", "2000", properties.getProperty( "connectTimeout" ) );
+
+    properties = new Properties();
+    NativeConnectionTester.setLoginTimeout( StubDriver.class.getName(), properties, 10 );
+    Assert.assertTrue( properties.isEmpty() );
+  }
+
+  @Test
+  public void testFailures() {
+    NativeConnectionTester tester = new NativeConnectionTester( dialectService );
+    ConnectionTestResult result = tester.test( createConnection( "denied" ) );
+    Assert.assertFalse( result.isSuccess() );
+    Assert.assertTrue( result.getMessage(), result.getMessage().contains( "Access denied for user etl" ) );
+
+    result = tester.test( createConnection( "invalid" ) );
+    Assert.assertFalse( result.isSuccess() );
+    Assert.assertEquals( 0, StubDriver.OPEN.get() );
+  }
+
+  @Test
+  public void testValidationQuery() {
+    DatabaseConnection connection = createConnection( "invalid" );
+    connection.getConnectionPoolingProperties().put( NativeConnectionTester.VALIDATION_QUERY, "SELECT 1" );
+    Assert.assertTrue( new NativeConnectionTester( dialectService ).test( connection ).isSuccess() );
+    Assert.assertEquals( "SELECT 1", StubDriver.lastQuery );
+  }
+
+  @Test
+  public void testConnectTimeout() throws InterruptedException {
+    NativeConnectionTester tester = new NativeConnectionTester( dialectService );
+    tester.setConnectTimeout( 1 );
+    ConnectionTestResult result = tester.test( createConnection( "hang" ) );
+    Assert.assertFalse( result.isSuccess() );
+    Assert.assertTrue( result.getMessage(), result.getMessage().contains( "No connection after 1 seconds" ) );
+    Assert.assertTrue( result.getElapsedMillis() < 2000 );
+
+    // the connection arriving late is closed
+    long deadline = System.currentTimeMillis() + 5000;
+    while ( StubDriver.OPEN.get() > 0 && System.currentTimeMillis() < deadline ) {
+      Thread.sleep( 50 );
+    }
+    Assert.assertEquals( 0, StubDriver.OPEN.get() );
+  }
+}
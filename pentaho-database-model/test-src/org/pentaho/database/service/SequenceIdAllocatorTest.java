@@ -0,0 +1,170 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.service;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.pentaho.database.dialect.MySQLDatabaseDialect;
+import org.pentaho.database.dialect.PostgreSQLDatabaseDialect;
+
+public class SequenceIdAllocatorTest {
+
+  /**
+   * Counts up like a sequence and counts the round trips.
+   */
+  private static class CountingSource implements SequenceIdAllocator.BlockSource {
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger fetches = new AtomicInteger();
+
+    public long[] fetch( String sequenceName, int count ) {
+      fetches.incrementAndGet();
+      long[] values = new long[count];
+      for ( int i = 0; i < count; i++ ) {
+        values[i] = sequence.incrementAndGet();
+      }
+      return values;
+    }
+  }
+
+  @Test
+  public void testOneFetchPerBlock() throws SQLException {
+    CountingSource source = new CountingSource();
+    SequenceIdAllocator allocator = new SequenceIdAllocator( source, 10 );
+    for ( long expected = 1; expected <= 25; expected++ ) {
+      Assert.assertEquals( expected, allocator.next( "seq" ) );
+    }
+    Assert.assertEquals( 3, source.fetches.get() );
+  }
+
+  @Test
+  public void testBlocksPerSequence() throws SQLException {
+    CountingSource source = new CountingSource();
+    SequenceIdAllocator allocator = new SequenceIdAllocator( source, 10 );
+    Assert.assertEquals( 1, allocator.next( "a" ) );
+    Assert.assertEquals( 11, allocator.next( "b" ) );
+    Assert.assertEquals( 2, allocator.next( "a" ) );
+    allocator.discard( "a" );
+    Assert.assertEquals( 21, allocator.next( "a" ) );
+  }
+
+  @Test
+  public void testUniqueAcrossThreads() throws Exception {
+    CountingSource source = new CountingSource();
+    final SequenceIdAllocator allocator = new SequenceIdAllocator( source, 7 );
+    ExecutorService executor = Executors.newFixedThreadPool( 8 );
+    try {
+      Set<Future<long[]>> futures = new HashSet<Future<long[]>>();
+      for ( int thread = 0; thread < 8; thread++ ) {
+        futures.add( executor.submit( new Callable<long[]>() {
+          public long[] call() throws SQLException {
+            long[] values = new long[1000];
+            for ( int i = 0; i < values.length; i++ ) {
+              values[i] = allocator.next( "seq" );
+            }
+            return values;
+          }
+        } ) );
+      }
+      Set<Long> all = new HashSet<Long>();
+      for ( Future<long[]> future : futures ) {
+        for ( long value : future.get() ) {
+          Assert.assertTrue( "duplicate " + value, all.add( value ) );
+        }
+      }
+      Assert.assertEquals( 8000, all.size() );
+      Assert.assertEquals( "one fetch at a time, no block thrown away", 1143, source.fetches.get() );
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testFailedFetchIsRetried() throws SQLException {
+    final CountingSource counting = new CountingSource();
+    final AtomicBoolean failed = new AtomicBoolean();
+    SequenceIdAllocator allocator = new SequenceIdAllocator( new SequenceIdAllocator.BlockSource() {
+      public long[] fetch( String sequenceName, int count ) throws SQLException {
+        if ( failed.compareAndSet( false, true ) ) {
+          throw new SQLException( "connection lost" );
+        }
+        return counting.fetch( sequenceName, count );
+      }
+    }, 10 );
+    try {
+      allocator.next( "seq" );
+      Assert.fail();
+    } catch ( SQLException e ) {
+      Assert.assertEquals( "connection lost", e.getMessage() );
+    }
+    Assert.assertEquals( 1, allocator.next( "seq" ) );
+    Assert.assertEquals( 2, allocator.next( "seq" ) );
+  }
+
+  @Test( expected = SQLException.class )
+  public void testEmptyBlock() throws SQLException {
+    new SequenceIdAllocator( new SequenceIdAllocator.BlockSource() {
+      public long[] fetch( String sequenceName, int count ) {
+        return new long[0];
+      }
+    }, 10 ).next( "seq" );
+  }
+
+  @Test
+  public void testJdbcSource() throws SQLException {
+    DataSource dataSource = mock( DataSource.class );
+    Connection connection = mock( Connection.class );
+    Statement statement = mock( Statement.class );
+    ResultSet rows = mock( ResultSet.class );
+    when( dataSource.getConnection() ).thenReturn( connection );
+    when( connection.createStatement() ).thenReturn( statement );
+    when( statement.executeQuery( "SELECT nextval('seq') FROM generate_series(1, 3)" ) ).thenReturn( rows );
+    when( rows.next() ).thenReturn( true, true, false );
+    when( rows.getLong( 1 ) ).thenReturn( 5L, 9L );
+
+    long[] values = SequenceIdAllocator.jdbcSource( new PostgreSQLDatabaseDialect(), dataSource ).fetch( "seq", 3 );
+    Assert.assertArrayEquals( new long[] { 5, 9 }, values );
+    verify( rows ).close();
+    verify( statement ).close();
+    verify( connection ).close();
+  }
+
+  @Test( expected = SQLException.class )
+  public void testJdbcSourceWithoutMultiValueFetch() throws SQLException {
+    SequenceIdAllocator.jdbcSource( new MySQLDatabaseDialect(), mock( DataSource.class ) )
+        .fetch( "seq", 3 );
+  }
+}
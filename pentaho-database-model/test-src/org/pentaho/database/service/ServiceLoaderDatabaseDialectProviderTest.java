@@ -24,13 +24,17 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.pentaho.database.IDatabaseDialect;
 import org.pentaho.database.dialect.AbstractDatabaseDialect;
+import org.pentaho.database.dialect.MySQLDatabaseDialect;
 import org.pentaho.database.model.IDatabaseType;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -38,6 +42,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -138,4 +143,65 @@ public class ServiceLoaderDatabaseDialectProviderTest {
     assertFalse( filter.test( iDatabaseDialect ) );
     verify( log, times( 6 ) ).debug( anyString() );
   }
+
+  @Test
+  public void testProbeUsesCache() {
+    DriverProbeCache cache = mock( DriverProbeCache.class );
+    when( cache.isCacheable( any( DialectEntry.class ) ) ).thenReturn( true );
+    Map<String, Boolean> cached = new HashMap<>();
+    cached.put( availableDialect.getClass().getName(), false );
+    when( cache.load( anyString() ) ).thenReturn( cached );
+    List<IDatabaseDialect> probed = Collections.synchronizedList( new ArrayList<>() );
+    Predicate<IDatabaseDialect> filter = dialect -> probed.add( dialect );
+
+    // both mocks share a class, so the cached result answers for both
+    boolean[] usable = ServiceLoaderDatabaseDialectProvider.probe( entries( dialects ), filter, cache );
+    assertFalse( usable[0] );
+    assertFalse( usable[1] );
+    assertTrue( probed.isEmpty() );
+    verify( cache, never() ).store( anyString(), any( Map.class ) );
+  }
+
+  @Test
+  public void testProbeStoresResults() {
+    DriverProbeCache cache = mock( DriverProbeCache.class );
+    when( cache.isCacheable( any( DialectEntry.class ) ) ).thenReturn( true );
+    when( cache.load( anyString() ) ).thenReturn( Collections.<String, Boolean>emptyMap() );
+    List<IDatabaseDialect> many = new ArrayList<>();
+    for ( int i = 0; i < 8; i++ ) {
+      many.addAll( dialects );
+    }
+
+    boolean[] usable =
+      ServiceLoaderDatabaseDialectProvider.probe( entries( many ), dialect -> dialect == availableDialect, cache );
+    for ( int i = 0; i < usable.length; i++ ) {
+      assertEquals( many.get( i ) == availableDialect, usable[i] );
+    }
+    verify( cache ).store( anyString(), any( Map.class ) );
+  }
+
+  @Test
+  public void testIndexedDialectsAreCreatedOnFirstUse() {
+    IDatabaseType type = mock( IDatabaseType.class );
+    DialectEntry indexed =
+      new DialectEntry( MySQLDatabaseDialect.class.getName(), type, "java.lang.String", true, getClass().getClassLoader() );
+    Function<Class<IDatabaseDialect>, Iterable<IDatabaseDialect>> loaderFunction = mock( Function.class );
+    ServiceLoaderDatabaseDialectProvider provider =
+      new ServiceLoaderDatabaseDialectProvider( Collections.singletonList( indexed ), loaderFunction,
+        DriverProbeCache.NONE );
+
+    assertEquals( Collections.singletonList( indexed ), provider.getDialectEntries( true ) );
+    assertFalse( "The driver is probed without creating the dialect", indexed.isInstantiated() );
+    verify( loaderFunction, never() ).apply( any( Class.class ) );
+    assertTrue( provider.getDialect( true, type ) instanceof MySQLDatabaseDialect );
+    assertTrue( indexed.isInstantiated() );
+  }
+
+  private static List<DialectEntry> entries( List<IDatabaseDialect> dialects ) {
+    List<DialectEntry> entries = new ArrayList<>( dialects.size() );
+    for ( IDatabaseDialect dialect : dialects ) {
+      entries.add( new DialectEntry( dialect ) );
+    }
+    return entries;
+  }
 }
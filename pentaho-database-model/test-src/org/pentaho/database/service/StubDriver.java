@@ -0,0 +1,126 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.service;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * JDBC driver for {@code jdbc:stub:<behaviour>} URLs: {@code ok}, {@code denied} (fails), {@code hang} (connects after
+ * two seconds), {@code invalid} (connects, is never valid).
+ */
+public class StubDriver implements Driver {
+  static final String PREFIX = "jdbc:stub:";
+
+  static final AtomicInteger OPEN = new AtomicInteger();
+  static volatile Properties lastProperties;
+  static volatile String lastQuery;
+
+  public Connection connect( String url, Properties info ) throws SQLException {
+    if ( !acceptsURL( url ) ) {
+      return null;
+    }
+    lastProperties = info;
+    String behaviour = url.substring( PREFIX.length() );
+    if ( behaviour.startsWith( "denied" ) ) {
+      throw new SQLException( "Access denied for user " + info.getProperty( "user" ) );
+    }
+    if ( behaviour.startsWith( "hang" ) ) {
+      try {
+        Thread.sleep( 2000 );
+      } catch ( InterruptedException e ) {
+        // connect anyway, like a driver that ignores interrupts
+      }
+    }
+    return createConnection( !behaviour.startsWith( "invalid" ) );
+  }
+
+  private static Connection createConnection( final boolean valid ) {
+    OPEN.incrementAndGet();
+    return (Connection) Proxy.newProxyInstance( StubDriver.class.getClassLoader(), new Class<?>[] { Connection.class },
+      new InvocationHandler() {
+        private boolean closed;
+
+        public Object invoke( Object proxy, Method method, Object[] args ) {
+          String name = method.getName();
+          if ( name.equals( "close" ) ) {
+            if ( !closed ) {
+              closed = true;
+              OPEN.decrementAndGet();
+            }
+            return null;
+          }
+          if ( name.equals( "isValid" ) ) {
+            return valid && !closed;
+          }
+          if ( name.equals( "createStatement" ) ) {
+            return createStatement();
+          }
+          if ( name.equals( "isClosed" ) ) {
+            return closed;
+          }
+          throw new UnsupportedOperationException( name );
+        }
+      } );
+  }
+
+  private static Statement createStatement() {
+    return (Statement) Proxy.newProxyInstance( StubDriver.class.getClassLoader(), new Class<?>[] { Statement.class },
+      new InvocationHandler() {
+        public Object invoke( Object proxy, Method method, Object[] args ) {
+          if ( method.getName().equals( "execute" ) ) {
+            lastQuery = (String) args[0];
+            return true;
+          }
+          return method.getReturnType() == boolean.class ? Boolean.FALSE : null;
+        }
+      } );
+  }
+
+  public boolean acceptsURL( String url ) {
+    return url != null && url.startsWith( PREFIX );
+  }
+
+  public DriverPropertyInfo[] getPropertyInfo( String url, Properties info ) {
+    return new DriverPropertyInfo[0];
+  }
+
+  public int getMajorVersion() {
+    return 1;
+  }
+
+  public int getMinorVersion() {
+    return 0;
+  }
+
+  public boolean jdbcCompliant() {
+    return false;
+  }
+
+  public Logger getParentLogger() {
+    return Logger.getGlobal();
+  }
+}
@@ -0,0 +1,143 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+package org.pentaho.database.store;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.database.model.DatabaseAccessType;
+import org.pentaho.database.model.DatabaseConnection;
+import org.pentaho.database.model.DatabaseType;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+
+public class ConnectionCatalogStoreTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static DatabaseConnection createConnection( String name, String id, String host ) {
+    DatabaseConnection connection = new DatabaseConnection();
+    connection.setId( id );
+    connection.setName( name );
+    connection.setDatabaseType( new DatabaseType( "H2", "H2", DatabaseAccessType.getList( DatabaseAccessType.NATIVE ),
+      8082, null ) );
+    connection.setAccessType( DatabaseAccessType.NATIVE );
+    connection.setHostname( host );
+    connection.addExtraOption( "H2", "MODE", "MySQL" );
+    return connection;
+  }
+
+  @Test
+  public void testPutGetDelete() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    try ( ConnectionCatalogStore store = ConnectionCatalogStore.open( directory ) ) {
+      store.put( createConnection( "sales", "1", "db01" ) );
+      store.put( createConnection( "hr", "2", "db02" ) );
+      Assert.assertEquals( "db01", store.get( "sales" ).getHostname() );
+      Assert.assertEquals( "MySQL", store.get( "sales" ).getExtraOptions().get( "H2.MODE" ) );
+      Assert.assertEquals( "hr", store.getById( "2" ).getName() );
+      Assert.assertNull( store.get( "missing" ) );
+      Assert.assertEquals( 2, store.size() );
+
+      store.put( createConnection( "sales", "3", "db03" ) );
+      Assert.assertEquals( "db03", store.get( "sales" ).getHostname() );
+      Assert.assertNull( "replaced by name", store.getById( "1" ) );
+      Assert.assertTrue( store.delete( "hr" ) );
+      Assert.assertFalse( store.delete( "hr" ) );
+      Assert.assertNull( store.getById( "2" ) );
+      Assert.assertEquals( Arrays.asList( "sales" ), store.getNames() );
+    }
+  }
+
+  @Test
+  public void testReopenBeforeAndAfterCompaction() throws Exception {
+    Path directory = folder.getRoot().toPath();
+    try ( ConnectionCatalogStore store = ConnectionCatalogStore.open( directory ) ) {
+      for ( int i = 0; i < 200; i++ ) {
+        store.put( createConnection( "c" + i, "id" + i, "v1" ) );
+      }
+      for ( int i = 0; i < 200; i += 2 ) {
+        store.put( createConnection( "c" + i, "id" + i, "v2" ) );
+      }
+      store.delete( "c1" );
+      Assert.assertTrue( store.needsCompaction() );
+    }
+    try ( ConnectionCatalogStore store = ConnectionCatalogStore.open( directory ) ) {
+      Assert.assertEquals( 199, store.size() );
+      Assert.assertEquals( "v2", store.get( "c10" ).getHostname() );
+      Assert.assertEquals( "v1", store.get( "c11" ).getHostname() );
+
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+        store.compactInBackground( executor ).get();
+      } finally {
+        executor.shutdown();
+      }
+      Assert.assertFalse( store.needsCompaction() );
+      Assert.assertEquals( 199, store.size() );
+      Assert.assertNull( store.get( "c1" ) );
+      store.put( createConnection( "c1", "id1", "v3" ) );
+    }
+    Assert.assertFalse( Files.exists( ConnectionCatalogStore.dataFile( directory, 1 ) ) );
+    Assert.assertTrue( Files.exists( ConnectionCatalogStore.indexFile( directory, 2 ) ) );
+    try ( ConnectionCatalogStore store = ConnectionCatalogStore.open( directory ) ) {
+      Assert.assertEquals( 200, store.size() );
+      for ( int i = 0; i < 200; i++ ) {
+        String expected = i == 1 ? "v3" : i % 2 == 0 ? "v2" : "v1";
+        Assert.assertEquals( expected, store.get( "c" + i ).getHostname() );
+        Assert.assertEquals( "c" + i, store.getById( "id" + i ).getName() );
+      }
+      Assert.assertEquals( 200, store.getNames().size() );
+    }
+  }
+
+  @Test
+  public void testDropsTornRecord() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    try ( ConnectionCatalogStore store = ConnectionCatalogStore.open( directory ) ) {
+      store.put( createConnection( "sales", "1", "db01" ) );
+      store.put( createConnection( "hr", "2", "db02" ) );
+    }
+    Path data = ConnectionCatalogStore.dataFile( directory, 1 );
+    try ( RandomAccessFile file = new RandomAccessFile( data.toFile(), "rw" ) ) {
+      file.setLength( file.length() - 5 );
+    }
+    try ( ConnectionCatalogStore store = ConnectionCatalogStore.open( directory ) ) {
+      Assert.assertEquals( 1, store.size() );
+      Assert.assertNotNull( store.get( "sales" ) );
+      Assert.assertNull( store.get( "hr" ) );
+      store.put( createConnection( "hr", "2", "db02" ) );
+    }
+    try ( ConnectionCatalogStore store = ConnectionCatalogStore.open( directory ) ) {
+      Assert.assertEquals( "db02", store.get( "hr" ).getHostname() );
+    }
+  }
+
+  @Test( expected = IOException.class )
+  public void testClosed() throws IOException {
+    ConnectionCatalogStore store = ConnectionCatalogStore.open( folder.getRoot().toPath() );
+    store.close();
+    store.get( "sales" );
+  }
+}
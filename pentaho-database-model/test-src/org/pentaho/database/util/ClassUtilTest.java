@@ -0,0 +1,77 @@
+/*!
+ * This program is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+ * Foundation.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ * or from the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+ */
+
+package org.pentaho.database.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ClassUtilTest {
+
+  /**
+   * Counts the lookups that reach the class loader.
+   */
+  private static class CountingClassLoader extends ClassLoader {
+    final AtomicInteger lookups = new AtomicInteger();
+
+    CountingClassLoader() {
+      super( ClassUtilTest.class.getClassLoader() );
+    }
+
+    @Override
+    protected Class<?> loadClass( String name, boolean resolve ) throws ClassNotFoundException {
+      lookups.incrementAndGet();
+      return super.loadClass( name, resolve );
+    }
+  }
+
+  @Test
+  public void testCanLoadClass() {
+    Assert.assertTrue( ClassUtil.canLoadClass( null ) );
+    Assert.assertTrue( ClassUtil.canLoadClass( ClassUtilTest.class.getName() ) );
+    Assert.assertFalse( ClassUtil.canLoadClass( "this.is.a.bogus.class.Name" ) );
+    Assert.assertSame( ClassUtilTest.class, ClassUtil.getClass( ClassUtilTest.class.getName() ) );
+    Assert.assertNull( ClassUtil.getClass( null ) );
+  }
+
+  @Test
+  public void testLookupsAreCachedPerClassLoader() {
+    CountingClassLoader loader = new CountingClassLoader();
+    Assert.assertFalse( ClassUtil.canLoadClass( "this.is.a.bogus.Driver", loader ) );
+    Assert.assertFalse( ClassUtil.canLoadClass( "this.is.a.bogus.Driver", loader ) );
+    Assert.assertTrue( ClassUtil.canLoadClass( ClassUtilTest.class.getName(), loader ) );
+    Assert.assertTrue( ClassUtil.canLoadClass( ClassUtilTest.class.getName(), loader ) );
+    Assert.assertEquals( 2, loader.lookups.get() );
+
+    CountingClassLoader other = new CountingClassLoader();
+    Assert.assertFalse( ClassUtil.canLoadClass( "this.is.a.bogus.Driver", other ) );
+    Assert.assertEquals( 1, other.lookups.get() );
+  }
+
+  @Test
+  public void testInvalidate() {
+    CountingClassLoader loader = new CountingClassLoader();
+    Assert.assertFalse( ClassUtil.canLoadClass( "this.is.a.bogus.Driver", loader ) );
+    ClassUtil.invalidate( loader );
+    Assert.assertFalse( ClassUtil.canLoadClass( "this.is.a.bogus.Driver", loader ) );
+    ClassUtil.invalidate();
+    Assert.assertFalse( ClassUtil.canLoadClass( "this.is.a.bogus.Driver", loader ) );
+    Assert.assertEquals( 3, loader.lookups.get() );
+  }
+}
@@ -0,0 +1,137 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2018 Hitachi Vantara..  All rights reserved.
+*/
+
+package org.pentaho.database.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.pentaho.database.dialect.GenericDatabaseDialect;
+import org.pentaho.database.dialect.MySQLDatabaseDialect;
+import org.pentaho.database.dialect.OracleDatabaseDialect;
+import org.pentaho.database.dialect.PDIDialect;
+import org.pentaho.database.model.DatabaseAccessType;
+import org.pentaho.database.model.DatabaseConnection;
+
+public class ConnectionParameterValidatorTest {
+
+  private static DatabaseConnection createMySQLConnection() {
+    DatabaseConnection connection = new DatabaseConnection();
+    connection.setName( "sales" );
+    connection.setDatabaseType( new MySQLDatabaseDialect().getDatabaseType() );
+    connection.setAccessType( DatabaseAccessType.NATIVE );
+    connection.setHostname( "localhost" );
+    connection.setDatabasePort( "3306" );
+    connection.setDatabaseName( "sales" );
+    return connection;
+  }
+
+  @Test
+  public void testCompleteConnectionPasses() {
+    Assert.assertEquals( Collections.emptyList(),
+        ConnectionParameterValidator.checkParameters( createMySQLConnection() ) );
+  }
+
+  @Test
+  public void testMissingTypeAndName() {
+    DatabaseConnection connection = new DatabaseConnection();
+    connection.setName( " " );
+    Assert.assertEquals( Arrays.asList( ConnectionParameterValidator.MISSING_TYPE,
+        ConnectionParameterValidator.MISSING_NAME ), ConnectionParameterValidator.checkParameters( connection ) );
+  }
+
+  @Test
+  public void testDatabaseNameUnlessPartitioned() {
+    MySQLDatabaseDialect dialect = new MySQLDatabaseDialect();
+    DatabaseConnection connection = createMySQLConnection();
+    connection.setDatabaseName( null );
+    Assert.assertEquals( Arrays.asList( ConnectionParameterValidator.MISSING_DATABASE_NAME ),
+        ConnectionParameterValidator.checkParameters( connection, dialect ) );
+
+    // JNDI and ODBC connections keep their resource name in the database name
+    connection.setAccessType( DatabaseAccessType.JNDI );
+    Assert.assertEquals( Arrays.asList( ConnectionParameterValidator.MISSING_DATABASE_NAME ),
+        ConnectionParameterValidator.checkParameters( connection, dialect ) );
+
+    connection.setPartitioned( true );
+    Assert.assertTrue( ConnectionParameterValidator.checkParameters( connection, dialect ).isEmpty() );
+  }
+
+  @Test
+  public void testDialectsWithoutDatabaseName() {
+    DatabaseConnection connection = createMySQLConnection();
+    connection.setDatabaseName( "" );
+    PDIDialect dialect = new PDIDialect();
+    connection.setDatabaseType( dialect.getDatabaseType() );
+    Assert.assertFalse( dialect.requiresDatabaseName() );
+    Assert.assertTrue( ConnectionParameterValidator.checkParameters( connection, dialect ).isEmpty() );
+    Assert.assertFalse( new GenericDatabaseDialect().requiresDatabaseName() );
+
+    // without the dialect the database name is left to the server
+    connection.setDatabaseType( new MySQLDatabaseDialect().getDatabaseType() );
+    Assert.assertTrue( ConnectionParameterValidator.checkParameters( connection ).isEmpty() );
+  }
+
+  @Test
+  public void testGenericNeedsUrlAndDriver() {
+    DatabaseConnection connection = new DatabaseConnection();
+    connection.setName( "custom" );
+    connection.setDatabaseType( new GenericDatabaseDialect().getDatabaseType() );
+    connection.setAccessType( DatabaseAccessType.NATIVE );
+    Assert.assertEquals(
+        Arrays.asList( ConnectionParameterValidator.MISSING_URL, ConnectionParameterValidator.MISSING_DRIVER_CLASS ),
+        ConnectionParameterValidator.checkParameters( connection ) );
+
+    connection.getAttributes().put( DatabaseConnection.ATTRIBUTE_CUSTOM_URL, "jdbc:custom://db" );
+    connection.getAttributes().put( DatabaseConnection.ATTRIBUTE_CUSTOM_DRIVER_CLASS, "org.custom.Driver" );
+    Assert.assertTrue( ConnectionParameterValidator.checkParameters( connection ).isEmpty() );
+
+    // the URL and driver only matter to native connections
+    connection.getAttributes().clear();
+    connection.setAccessType( DatabaseAccessType.JNDI );
+    Assert.assertTrue( ConnectionParameterValidator.checkParameters( connection ).isEmpty() );
+  }
+
+  @Test
+  public void testPort() {
+    DatabaseConnection connection = createMySQLConnection();
+    for ( String port : new String[] { null, "", "0", " 3306 ", "65535", "${MYSQL_PORT}", "%%PORT%%", "-1" } ) {
+      connection.setDatabasePort( port );
+      Assert.assertTrue( port, ConnectionParameterValidator.checkParameters( connection ).isEmpty() );
+    }
+    for ( String port : new String[] { "65536", "-2", "33o6", "1234567" } ) {
+      connection.setDatabasePort( port );
+      Assert.assertEquals( port, Arrays.asList( ConnectionParameterValidator.BAD_PORT ),
+          ConnectionParameterValidator.checkParameters( connection ) );
+    }
+
+    // a port is not used without a native connection
+    connection.setAccessType( DatabaseAccessType.ODBC );
+    Assert.assertTrue( ConnectionParameterValidator.checkParameters( connection ).isEmpty() );
+  }
+
+  @Test
+  public void testOracleWithoutPort() {
+    OracleDatabaseDialect dialect = new OracleDatabaseDialect();
+    DatabaseConnection connection = createMySQLConnection();
+    connection.setDatabaseType( dialect.getDatabaseType() );
+    connection.setDatabasePort( "-1" );
+    Assert.assertTrue( ConnectionParameterValidator.checkParameters( connection, dialect ).isEmpty() );
+  }
+}